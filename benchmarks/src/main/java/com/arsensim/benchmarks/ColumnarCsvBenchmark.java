@@ -0,0 +1,111 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import com.arsensim.ColumnarCsv;
+import com.arsensim.CsvRecord;
+import com.arsensim.HeadedFileCsv;
+import com.arsensim.SimpleCsv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregations over a csv held in memory, as records of a {@link SimpleCsv}
+ * and as columns of a {@link ColumnarCsv}. Run with the GC profiler of
+ * {@link Main} to compare the memory needed to load each of them, with and
+ * without interning of the repeated names.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarCsvBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    private Path file;
+
+    private SimpleCsv<String, CsvRecord<String>> records;
+
+    private ColumnarCsv<String, CsvRecord<String>> columns;
+
+    @Setup
+    public void setUp() {
+        this.file = Datasets.typed(this.rows);
+        final List<CsvRecord<String>> loaded = new HeadedFileCsv<CsvRecord<String>>(this.file, ",")
+                .map(record -> record);
+        this.records = new SimpleCsv<>(loaded);
+        this.columns = new HeadedFileCsv<CsvRecord<String>>(this.file, ",").toColumns();
+    }
+
+    @Benchmark
+    public double sumRecords() {
+        return this.records.stream(record -> record)
+                .mapToDouble(record -> Double.parseDouble(record.get("amount")))
+                .sum();
+    }
+
+    @Benchmark
+    public double sumColumns() {
+        return this.columns.column("amount").doubles().sum();
+    }
+
+    @Benchmark
+    public List<CsvRecord<String>> loadRecords() {
+        return new HeadedFileCsv<CsvRecord<String>>(this.file, ",").map(record -> record);
+    }
+
+    @Benchmark
+    public List<CsvRecord<String>> loadInterned() {
+        return new HeadedFileCsv<CsvRecord<String>>(this.file, ",")
+                .withInterning("name")
+                .map(record -> record);
+    }
+
+    @Benchmark
+    public ColumnarCsv<String, CsvRecord<String>> loadColumns() {
+        return new HeadedFileCsv<CsvRecord<String>>(this.file, ",").toColumns();
+    }
+
+}
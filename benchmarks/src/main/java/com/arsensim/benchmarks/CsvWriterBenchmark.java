@@ -0,0 +1,130 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import com.arsensim.CsvDialect;
+import com.arsensim.CsvWriter;
+import com.arsensim.ReflectiveCsvRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link CsvWriter} with a {@link ReflectiveCsvRowMapper}
+ * against joining the fields into a {@code String} per row.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvWriterBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private final ReflectiveCsvRowMapper<Row> mapper = new ReflectiveCsvRowMapper<>(
+            Row.class, "id", "name", "amount", "total"
+    );
+
+    private List<Row> rows;
+
+    @Setup
+    public void setUp() {
+        this.rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            final Row row = new Row();
+            row.setId(i);
+            row.setName(i % 10 == 0 ? "name, quoted " + i : "name-" + i);
+            row.setAmount(i / 100.0);
+            row.setTotal(i * 31L);
+            this.rows.add(row);
+        }
+    }
+
+    @Benchmark
+    public void reflective() {
+        try (final CsvWriter<Row> writer = new CsvWriter<>(
+                new Discard(), new CsvDialect(","), StandardCharsets.UTF_8, this.mapper
+        )) {
+            writer.writeAll(this.rows);
+        }
+    }
+
+    @Benchmark
+    public void joined() throws IOException {
+        try (final Writer writer = new OutputStreamWriter(new Discard(), StandardCharsets.UTF_8)) {
+            for (final Row row : this.rows) {
+                writer.write(
+                        String.join(
+                                ",",
+                                Integer.toString(row.getId()),
+                                row.getName(),
+                                Double.toString(row.getAmount()),
+                                Long.toString(row.getTotal())
+                        )
+                );
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * An output that drops what is written to it.
+     */
+    private static final class Discard extends OutputStream {
+
+        @Override
+        public void write(final int b) {
+            // dropped
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int off, final int len) {
+            // dropped
+        }
+
+    }
+
+}
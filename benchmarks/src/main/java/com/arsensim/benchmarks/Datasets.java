@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Synthetic csv files for the benchmarks. Files are generated with a fixed
+ * seed, so the same parameters always give the same content.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class Datasets {
+
+    private static final long SEED = 42L;
+
+    private Datasets() {
+    }
+
+    /**
+     * Writes a headed file of text columns {@code c0..cN}. Quoted fields
+     * contain a delimiter and an escaped quote, and one in four of them also
+     * contains a line break.
+     *
+     * @param rows    The number of records.
+     * @param width   The number of columns.
+     * @param quoting The percentage of quoted fields.
+     * @return The temporary file, deleted on exit.
+     */
+    static Path text(final int rows, final int width, final int quoting) {
+        final Random random = new Random(SEED);
+        return write(writer -> {
+            for (int column = 0; column < width; column++) {
+                if (column > 0) {
+                    writer.write(',');
+                }
+                writer.write("c" + column);
+            }
+            writer.write('\n');
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < width; column++) {
+                    if (column > 0) {
+                        writer.write(',');
+                    }
+                    if (random.nextInt(100) < quoting) {
+                        writer.write("\"value, \"\"" + row + "\"\"");
+                        writer.write(random.nextInt(4) == 0 ? "\nnext line\"" : "\"");
+                    } else {
+                        writer.write("value-" + random.nextInt(1_000_000));
+                    }
+                }
+                writer.write('\n');
+            }
+        });
+    }
+
+    /**
+     * Writes a headed file whose records map to {@link Row}.
+     *
+     * @param rows The number of records.
+     * @return The temporary file, deleted on exit.
+     */
+    static Path typed(final int rows) {
+        final Random random = new Random(SEED);
+        return write(writer -> {
+            writer.write("id,name,amount,total\n");
+            for (int row = 0; row < rows; row++) {
+                writer.write(
+                        row + ",name-" + random.nextInt(1_000) + ','
+                                + random.nextInt(100_000) / 100.0 + ','
+                                + random.nextLong() + '\n'
+                );
+            }
+        });
+    }
+
+    private static Path write(final Content content) {
+        try {
+            final Path file = Files.createTempFile("csv-parser-benchmark", ".csv");
+            file.toFile().deleteOnExit();
+            try (final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                content.write(writer);
+            }
+            return file;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The content of a generated file.
+     */
+    private interface Content {
+        void write(BufferedWriter writer) throws IOException;
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import com.arsensim.FileCsv;
+import com.arsensim.HeadedFileCsv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing throughput of {@link FileCsv} and {@link HeadedFileCsv} over files
+ * of different sizes, widths and quoting densities.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileCsvBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"4", "32"})
+    private int width;
+
+    @Param({"0", "10", "50"})
+    private int quoting;
+
+    private Path file;
+
+    @Setup
+    public void setUp() {
+        this.file = Datasets.text(this.rows, this.width, this.quoting);
+    }
+
+    /**
+     * Maps every record to its first field.
+     */
+    @Benchmark
+    public List<String> map() {
+        return new FileCsv<String>(this.file, ",").map(record -> record.get(0));
+    }
+
+    /**
+     * Maps every record to its first field, measuring the read for a
+     * listener that drops the metrics.
+     */
+    @Benchmark
+    public List<String> listened() {
+        return new FileCsv<String>(this.file, ",")
+                .withListener(metrics -> { })
+                .map(record -> record.get(0));
+    }
+
+    /**
+     * Maps every record to its first field, read from the record cache
+     * written by the first invocation.
+     */
+    @Benchmark
+    public List<String> cached() {
+        return new FileCsv<String>(this.file, ",")
+                .withRecordCache()
+                .map(record -> record.get(0));
+    }
+
+    /**
+     * Maps every record to its first field, reading into one reused record.
+     */
+    @Benchmark
+    public void flyweight(final Blackhole blackhole) {
+        new FileCsv<Integer>(this.file, ",")
+                .withFlyweightRecords()
+                .forEach(record -> record.chars(0).length(), blackhole::consume);
+    }
+
+    /**
+     * Maps every record to its first field, tokenizing only that field.
+     */
+    @Benchmark
+    public List<String> projected() {
+        return new HeadedFileCsv<String>(this.file, ",")
+                .withColumns("c0")
+                .map(record -> record.get("c0"));
+    }
+
+}
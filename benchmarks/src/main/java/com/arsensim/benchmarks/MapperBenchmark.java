@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import com.arsensim.CsvRecord;
+import com.arsensim.CsvRecordMapper;
+import com.arsensim.GeneratedCsvRecordMapper;
+import com.arsensim.HeadedFileCsv;
+import com.arsensim.ReflectiveCsvRecordMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ReflectiveCsvRecordMapper} and of the mapper generated for
+ * {@link Row} against a hand-written mapper, over records that are already
+ * parsed.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private final CsvRecordMapper<String, Row> reflective = new ReflectiveCsvRecordMapper<>(Row.class);
+
+    private final CsvRecordMapper<String, Row> generated = new GeneratedCsvRecordMapper<>(Row.class);
+
+    private final CsvRecordMapper<String, Row> handwritten = record -> {
+        final Row row = new Row();
+        row.setId(Integer.parseInt(record.get("id")));
+        row.setName(record.get("name"));
+        row.setAmount(Double.parseDouble(record.get("amount")));
+        row.setTotal(Long.parseLong(record.get("total")));
+        return row;
+    };
+
+    private List<CsvRecord<String>> records;
+
+    @Setup
+    public void setUp() {
+        this.records = new HeadedFileCsv<CsvRecord<String>>(Datasets.typed(ROWS), ",")
+                .map(record -> record);
+    }
+
+    @Benchmark
+    public void reflective(final Blackhole blackhole) {
+        for (final CsvRecord<String> record : this.records) {
+            blackhole.consume(this.reflective.map(record));
+        }
+    }
+
+    @Benchmark
+    public void generated(final Blackhole blackhole) {
+        for (final CsvRecord<String> record : this.records) {
+            blackhole.consume(this.generated.map(record));
+        }
+    }
+
+    @Benchmark
+    public void handwritten(final Blackhole blackhole) {
+        for (final CsvRecord<String> record : this.records) {
+            blackhole.consume(this.handwritten.map(record));
+        }
+    }
+
+}
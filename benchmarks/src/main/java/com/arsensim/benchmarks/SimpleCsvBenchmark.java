@@ -0,0 +1,90 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim.benchmarks;
+
+import com.arsensim.CsvRecord;
+import com.arsensim.CsvRecordMapper;
+import com.arsensim.ReflectiveCsvRecordMapper;
+import com.arsensim.SimpleCsv;
+import com.arsensim.SimpleCsvRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SimpleCsv} over records held in memory.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleCsvBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private final CsvRecordMapper<String, Row> reflective = new ReflectiveCsvRecordMapper<>(Row.class);
+
+    private SimpleCsv<String, Row> csv;
+
+    @Setup
+    public void setUp() {
+        final List<CsvRecord<String>> records = new ArrayList<>(this.rows);
+        for (int row = 0; row < this.rows; row++) {
+            final Map<String, String> values = new HashMap<>();
+            values.put("id", Integer.toString(row));
+            values.put("name", "name-" + row);
+            values.put("amount", Double.toString(row / 100.0));
+            values.put("total", Long.toString(row * 31L));
+            records.add(new SimpleCsvRecord<>(values));
+        }
+        this.csv = new SimpleCsv<>(records);
+    }
+
+    @Benchmark
+    public List<Row> map() {
+        return this.csv.map(this.reflective);
+    }
+
+}
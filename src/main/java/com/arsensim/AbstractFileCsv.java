@@ -0,0 +1,336 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The options common to {@link FileCsv} and {@link HeadedFileCsv}, each of
+ * which gives a csv of its own type reading the same file differently.
+ * The csv only differ in the type of their header and in how their
+ * columns are named.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @param <E> the type to which each csv record will be mapped.
+ * @param <C> the type of the csv given by the with-ers.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+abstract class AbstractFileCsv<I, E, C extends AbstractFileCsv<I, E, C>> implements Csv<I, E> {
+
+    private final FileRecords<I> records;
+
+    /**
+     * Primary constructor.
+     *
+     * @param records The records of the file.
+     */
+    AbstractFileCsv(final FileRecords<I> records) {
+        this.records = records;
+    }
+
+    /**
+     * Gives a csv of the same type over other records.
+     *
+     * @param changed The records of the file, read with other options.
+     * @return The csv.
+     */
+    abstract C with(FileRecords<I> changed);
+
+    /**
+     * Gives a csv reading the file with changed options.
+     *
+     * @param change Gives the changed options from the current ones.
+     * @return The csv.
+     */
+    final C with(final UnaryOperator<FileOptions<I>> change) {
+        return this.with(this.records.with(change));
+    }
+
+    /**
+     * Gives a csv that reuses one record object and the parser buffer for
+     * all records, creating a {@code String} only for the values that are
+     * read with {@link CsvRecord#get(Object)}. The mapper must not retain
+     * the record it is given, other than through {@link CsvRecord#copy()}.
+     *
+     * @return The csv with flyweight records.
+     */
+    public final C withFlyweightRecords() {
+        return this.with(FileOptions::withFlyweight);
+    }
+
+    /**
+     * Gives a csv sharing one {@code String} between the occurrences of a
+     * repeated value in any column, as when interning given columns. The
+     * cache of a column turns itself off as soon as most of its values turn
+     * out to be distinct.
+     *
+     * @return The csv sharing repeated values.
+     */
+    public final C withInterning() {
+        return this.with(options -> options.withInterning(schema -> ValueCaches.automatic()));
+    }
+
+    /**
+     * Gives a csv whose file is read, and decompressed when needed, on a
+     * dedicated thread ahead of the parser, so that parsing does not stall
+     * on slow storage.
+     *
+     * @param config The size and number of the buffers read ahead.
+     * @return The csv read ahead.
+     */
+    public final C withReadAhead(final ReadAhead config) {
+        return this.with(options -> options.withReadAhead(config));
+    }
+
+    /**
+     * Gives a csv that keeps a sparse index of its rows next to the file,
+     * so that a range of rows is read by positioning the file close to its
+     * first row instead of parsing everything before it. The index is built
+     * on demand for the first range read, or while the file is read to its
+     * end, and is rebuilt when the file changes. Compressed files and files
+     * that are not tokenized as bytes are read without index.
+     *
+     * @param every The number of rows between two indexed rows.
+     * @return The indexed csv.
+     * @throws CsvException when the number of rows is not positive.
+     */
+    public final C withRowIndex(final int every) {
+        return this.with(options -> options.withIndex(every));
+    }
+
+    /**
+     * Gives a csv with only the rows of a range, numbered from 0, a header
+     * not being a row. Filters apply to the rows of the range.
+     *
+     * @param from The index of the first row.
+     * @param to   The index of the row after the last row.
+     * @return The csv with the rows of the range.
+     * @throws CsvException when the range is not valid.
+     */
+    public final C withRows(final long from, final long to) {
+        return this.with(options -> options.withRows(from, to));
+    }
+
+    /**
+     * Reads and maps a single row.
+     *
+     * @param index  The index of the row, from 0, a header not being a row.
+     * @param mapper The mapper to apply to the csv record of the row.
+     * @return The mapped row.
+     * @throws CsvException when the file has no such row.
+     */
+    public final E row(final long index, final CsvRecordMapper<I, ? extends E> mapper) {
+        try (final Stream<E> rows = this.withRows(index, index + 1L).stream(mapper)) {
+            final Iterator<E> row = rows.iterator();
+            if (!row.hasNext()) {
+                throw new CsvException(
+                        String.format("Row %d is not present in file", index)
+                );
+            }
+            return row.next();
+        }
+    }
+
+    /**
+     * Gives a csv that only reads what was appended to the file since the
+     * last read. Reading resumes after the position kept by the checkpoint,
+     * and the position after the last whole record read is committed once
+     * all records are consumed. A record still being written at the end of
+     * the file is left for the next read. A file smaller than the committed
+     * position is considered replaced and is read again from its start.
+     * Only plain files tokenized as bytes can be resumed.
+     *
+     * @param checkpoint The position from which to resume.
+     * @return The resumed csv.
+     */
+    public final C withCheckpoint(final CsvCheckpoint checkpoint) {
+        return this.with(options -> options.withCheckpoint(checkpoint));
+    }
+
+    /**
+     * Follows the file as it grows, which needs a checkpoint, see
+     * {@link #withCheckpoint(CsvCheckpoint)}. The records appended since the
+     * checkpoint are mapped and handed to the consumer in batches, and the
+     * checkpoint is committed after each batch, so a batch is delivered
+     * again when the consumer fails. The file is then watched for changes.
+     * This method returns when the calling thread is interrupted.
+     *
+     * @param mapper   The mapper to apply to each csv record.
+     * @param batch    The greatest number of records in a batch.
+     * @param consumer The consumer of the batches.
+     * @throws CsvException when there is no checkpoint, or the file cannot
+     *                      be read or watched.
+     */
+    public final void follow(final CsvRecordMapper<I, ? extends E> mapper, final int batch,
+                             final Consumer<? super List<E>> consumer) {
+        this.records.<E>follow(mapper::map, batch, consumer);
+    }
+
+    /**
+     * Gives a csv that measures each of its reads and reports them to a
+     * listener when the records are closed: the rows and bytes read, the
+     * time spent reading the file, tokenizing and mapping, the errors, the
+     * slowest rows and an estimate of the allocated bytes. Errors are also
+     * passed to the listener as soon as they happen. A csv without listener
+     * is not measured at all.
+     *
+     * @param listener Receives the metrics of each read.
+     * @return The measured csv.
+     */
+    public final C withListener(final CsvListener listener) {
+        return this.with(options -> options.withListener(listener));
+    }
+
+    /**
+     * Gives a csv handling bad rows by a policy instead of failing on the
+     * first of them: rows with another number of fields than the header, or
+     * than the first row when there is no header, rows the tokenizer
+     * rejects, such as a quoted field left open at the end of the file, and
+     * rows the mapper fails on. Bad rows are handed to the policy with their
+     * line and byte offset. A csv without policy does not check the number
+     * of fields and throws the first error.
+     *
+     * @param policy What to do with bad rows.
+     * @return The csv handling bad rows.
+     */
+    public final C withErrorPolicy(final CsvErrorPolicy policy) {
+        return this.with(options -> options.withErrorPolicy(policy));
+    }
+
+    /**
+     * Gives a csv that keeps the parsed records of the file in a binary
+     * cache next to it, with the {@code .rec} suffix, and reads them from
+     * there instead of tokenizing the file again. The cache holds the
+     * unquoted values in UTF-8 and is memory mapped when read. It is
+     * written when the file is read to its end and the cache is missing or
+     * stale, that is when the size or modification time of the file, its
+     * dialect or its charset changed since. A row index or a checkpoint
+     * takes precedence over the cache.
+     *
+     * @return The csv read from its cache.
+     */
+    public final C withRecordCache() {
+        return this.with(FileOptions::withCache);
+    }
+
+    /**
+     * Loads the records of this csv into memory column by column. The
+     * values are read straight out of the parser buffer, and the columns,
+     * filters and rows of this csv apply.
+     *
+     * @return The csv held in columns.
+     */
+    public final ColumnarCsv<I, E> toColumns() {
+        return new ColumnarCsv<>(new Records<>(this.records.with(FileOptions::withFlyweight)));
+    }
+
+    /**
+     * Gives a csv that parses on one thread and maps on the workers of a
+     * pipeline. The mapper is called from several threads at once and has
+     * to be thread safe.
+     *
+     * @param pipeline The configuration of the mapping stage.
+     * @return The csv mapped in parallel.
+     */
+    public final Csv<I, E> withMappingPipeline(final MappingPipeline pipeline) {
+        return new PipelinedCsv<>(new Records<>(this.records), pipeline);
+    }
+
+    /**
+     * Gives a csv keeping only the records whose value in a column satisfies
+     * a predicate. The predicate is tested on the raw characters of the
+     * field as soon as the record is tokenized, and rejected records are
+     * neither created nor mapped.
+     *
+     * @param column    The column to test.
+     * @param predicate The predicate on the characters of the value, which
+     *                  must not be retained.
+     * @return The filtered csv.
+     */
+    @Override
+    public final C filter(final I column, final Predicate<? super CharSequence> predicate) {
+        return this.with(options -> options.withFilter(column, predicate));
+    }
+
+    @Override
+    public final List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
+        try (final Stream<E> records = this.stream(mapper)) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the header, if any, then reads, parses and maps the rest of the
+     * file one record at a time, so only the record being mapped is held in
+     * memory. The file is closed when the returned {@code Stream} is closed.
+     *
+     * @param mapper The mapper to apply to each csv record.
+     * @return A lazy {@code Stream} of mapped records.
+     */
+    @Override
+    public final Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        return this.records.<E>map(mapper::map);
+    }
+
+    /**
+     * The unmapped records of a file, as a csv.
+     *
+     * @param <I> the type of header.
+     */
+    private static final class Records<I> implements Csv<I, CsvRecord<I>> {
+
+        private final FileRecords<I> records;
+
+        /**
+         * Primary constructor.
+         *
+         * @param records The records of the file.
+         */
+        Records(final FileRecords<I> records) {
+            this.records = records;
+        }
+
+        @Override
+        public List<CsvRecord<I>> map(final CsvRecordMapper<I, ? extends CsvRecord<I>> mapper) {
+            try (final Stream<CsvRecord<I>> records = this.stream(mapper)) {
+                return records.collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        public Stream<CsvRecord<I>> stream(final CsvRecordMapper<I, ? extends CsvRecord<I>> mapper) {
+            return this.records.<CsvRecord<I>>map(mapper::map);
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CsvRecord} keeping its values in a flat array and resolving
+ * columns through a schema shared by all records of a csv.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ArrayCsvRecord<I> implements CsvRecord<I> {
+
+    private final CsvSchema<I> schema;
+    private final String[] values;
+
+    /**
+     * Primary constructor.
+     *
+     * @param schema The columns of the csv.
+     * @param values The values of the record, in column order.
+     */
+    ArrayCsvRecord(final CsvSchema<I> schema, final String[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    @Override
+    public String get(final I column) {
+        final int index = this.schema.index(column);
+        if (index < 0 || index >= this.values.length) {
+            throw new CsvException(
+                    String.format("Column %s is not present in csv record %s", column, this)
+            );
+        }
+        return this.values[index];
+    }
+
+    @Override
+    public Map<I, String> toMap() {
+        final Map<I, String> map = new LinkedHashMap<>();
+        for (final I column : this.columns()) {
+            map.put(column, this.values[this.schema.index(column)]);
+        }
+        return map;
+    }
+
+    @Override
+    public Set<I> columns() {
+        return this.schema.columns(this.values.length);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.values);
+    }
+
+}
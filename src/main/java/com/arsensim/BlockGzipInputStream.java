@@ -0,0 +1,369 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a block gzip file, such as those written by {@code bgzip}, inflating
+ * its members in parallel ahead of the reader. Every member of such a file
+ * is a complete gzip stream whose header carries its compressed size in a
+ * {@code BC} extra field, so members can be split off the input without
+ * inflating them. Members are read on the calling thread, inflated on an
+ * executor, and handed out in order; up to {@code depth} members are
+ * inflated ahead. The inflated blocks come from a pool and are reused once
+ * they have been read.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class BlockGzipInputStream extends InputStream {
+
+    /**
+     * The largest inflated size of a block, as limited by the format.
+     */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private static final int FIXED_HEADER = 12;
+
+    private static final int TRAILER = 8;
+
+    private static final int FHCRC = 2;
+
+    private static final int FEXTRA = 4;
+
+    private static final int FNAME = 8;
+
+    private static final int FCOMMENT = 16;
+
+    private final InputStream raw;
+    private final Executor executor;
+    private final int depth;
+    private final BufferPool pool;
+    private final Deque<Future<Block>> pending;
+    private long offset;
+    private boolean exhausted;
+    private Block current;
+
+    /**
+     * Primary constructor.
+     *
+     * @param raw      The compressed input, positioned at a member header.
+     * @param executor Runs the inflating of members.
+     * @param depth    The number of members inflated ahead.
+     */
+    BlockGzipInputStream(final InputStream raw, final Executor executor, final int depth) {
+        this.raw = raw;
+        this.executor = executor;
+        this.depth = Math.max(depth, 1);
+        this.pool = new BufferPool(BLOCK_SIZE, this.depth + 1);
+        this.pending = new ArrayDeque<>(this.depth);
+        this.current = new Block(new byte[0], 0);
+    }
+
+    /**
+     * Tells whether some leading bytes are the header of a block gzip
+     * member.
+     *
+     * @param head  The leading bytes of an input.
+     * @param count The number of leading bytes available.
+     * @return Whether the input is block gzip.
+     */
+    static boolean blocked(final byte[] head, final int count) {
+        if (count < FIXED_HEADER || (head[0] & 0xFF) != 0x1F || (head[1] & 0xFF) != 0x8B
+                || head[2] != 8 || (head[3] & FEXTRA) == 0) {
+            return false;
+        }
+        final int length = (head[10] & 0xFF) | (head[11] & 0xFF) << 8;
+        return count >= FIXED_HEADER + length && size(head, FIXED_HEADER, length) >= 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] one = new byte[1];
+        final int read = this.read(one, 0, 1);
+        if (read < 0) {
+            return -1;
+        }
+        return one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (this.current.remaining() == 0) {
+            this.pool.give(this.current.data);
+            this.fill();
+            final Future<Block> next = this.pending.poll();
+            if (next == null) {
+                this.current = new Block(new byte[0], 0);
+                return -1;
+            }
+            this.current = this.await(next);
+        }
+        return this.current.read(bytes, off, len);
+    }
+
+    @Override
+    public int available() {
+        return this.current.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final Future<Block> future : this.pending) {
+            future.cancel(false);
+        }
+        this.pending.clear();
+        this.raw.close();
+    }
+
+    /**
+     * Reads members off the input and starts inflating them until enough
+     * of them are ahead of the reader.
+     *
+     * @throws IOException when the input could not be read.
+     */
+    private void fill() throws IOException {
+        while (!this.exhausted && this.pending.size() < this.depth) {
+            final long start = this.offset;
+            final byte[] member = this.member();
+            if (member == null) {
+                this.exhausted = true;
+            } else {
+                this.pending.add(
+                        CompletableFuture.supplyAsync(() -> this.inflate(member, start), this.executor)
+                );
+            }
+        }
+    }
+
+    /**
+     * Reads the next member off the input.
+     *
+     * @return The whole member, or {@code null} at the end of the input.
+     * @throws IOException when the input could not be read or the member
+     *                     is not a block.
+     */
+    private byte[] member() throws IOException {
+        final byte[] header = new byte[FIXED_HEADER];
+        final int first = this.raw.read(header, 0, FIXED_HEADER);
+        if (first < 0) {
+            return null;
+        }
+        this.fully(header, first, FIXED_HEADER - first);
+        if ((header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B || header[2] != 8
+                || (header[3] & FEXTRA) == 0) {
+            throw this.corrupt(this.offset, "is not a block gzip member");
+        }
+        final int length = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        final byte[] extra = new byte[length];
+        this.fully(extra, 0, length);
+        final int size = size(extra, 0, length);
+        if (size < FIXED_HEADER + length + TRAILER) {
+            throw this.corrupt(this.offset, "has no valid block size");
+        }
+        final byte[] member = new byte[size];
+        System.arraycopy(header, 0, member, 0, FIXED_HEADER);
+        System.arraycopy(extra, 0, member, FIXED_HEADER, length);
+        this.fully(member, FIXED_HEADER + length, size - FIXED_HEADER - length);
+        this.offset += size;
+        return member;
+    }
+
+    /**
+     * Inflates a member and checks it against its trailer. Runs on the
+     * executor.
+     *
+     * @param member The whole member.
+     * @param start  The offset of the member in the input.
+     * @return The inflated block.
+     */
+    private Block inflate(final byte[] member, final long start) {
+        final int flags = member[3];
+        int position = FIXED_HEADER + ((member[10] & 0xFF) | (member[11] & 0xFF) << 8);
+        if ((flags & FNAME) != 0) {
+            position = skip(member, position);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = skip(member, position);
+        }
+        if ((flags & FHCRC) != 0) {
+            position += 2;
+        }
+        final int end = member.length - TRAILER;
+        final long crc = integer(member, end) & 0xFFFFFFFFL;
+        final int size = integer(member, end + 4);
+        if (position > end || size < 0 || size > BLOCK_SIZE) {
+            throw new CompletionException(this.corrupt(start, "has an invalid header"));
+        }
+        final byte[] data = this.pool.take();
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, position, end - position);
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+                final int inflated = inflater.inflate(data, length, size - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            final CRC32 check = new CRC32();
+            check.update(data, 0, length);
+            if (length != size || check.getValue() != crc) {
+                throw new CompletionException(this.corrupt(start, "does not match its checksum"));
+            }
+            return new Block(data, length);
+        } catch (final DataFormatException e) {
+            throw new CompletionException(this.corrupt(start, "is not valid deflate data"));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Waits for a member to be inflated.
+     *
+     * @param future The inflating of the member.
+     * @return The inflated block.
+     * @throws IOException when the member is corrupt.
+     */
+    private Block await(final Future<Block> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while inflating gzip block", e);
+        } catch (final ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Exception while inflating gzip block", cause);
+        }
+    }
+
+    private IOException corrupt(final long start, final String problem) {
+        return new IOException(
+                String.format("Gzip member at byte %d %s", start, problem)
+        );
+    }
+
+    private void fully(final byte[] bytes, final int off, final int len) throws IOException {
+        int count = 0;
+        while (count < len) {
+            final int read = this.raw.read(bytes, off + count, len - count);
+            if (read < 0) {
+                throw new EOFException(
+                        String.format("Gzip member at byte %d is truncated", this.offset)
+                );
+            }
+            count += read;
+        }
+    }
+
+    /**
+     * Finds the size of a member in the {@code BC} subfield of its extra
+     * field.
+     *
+     * @param bytes  The bytes holding the extra field.
+     * @param start  The offset of the extra field.
+     * @param length The length of the extra field.
+     * @return The size of the whole member, or -1 when there is no such
+     *         subfield.
+     */
+    private static int size(final byte[] bytes, final int start, final int length) {
+        int position = start;
+        final int end = start + length;
+        while (position + 4 <= end) {
+            final int sub = (bytes[position + 2] & 0xFF) | (bytes[position + 3] & 0xFF) << 8;
+            if (bytes[position] == 'B' && bytes[position + 1] == 'C' && sub == 2
+                    && position + 6 <= end) {
+                return ((bytes[position + 4] & 0xFF) | (bytes[position + 5] & 0xFF) << 8) + 1;
+            }
+            position += 4 + sub;
+        }
+        return -1;
+    }
+
+    private static int skip(final byte[] bytes, final int start) {
+        int position = start;
+        while (position < bytes.length && bytes[position] != 0) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static int integer(final byte[] bytes, final int start) {
+        return (bytes[start] & 0xFF) | (bytes[start + 1] & 0xFF) << 8
+                | (bytes[start + 2] & 0xFF) << 16 | (bytes[start + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * An inflated block being read.
+     */
+    private static final class Block {
+
+        private final byte[] data;
+        private final int length;
+        private int position;
+
+        Block(final byte[] data, final int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        int remaining() {
+            return this.length - this.position;
+        }
+
+        int read(final byte[] bytes, final int off, final int len) {
+            final int count = Math.min(len, this.remaining());
+            System.arraycopy(this.data, this.position, bytes, off, count);
+            this.position += count;
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of byte arrays of one size, which can be used from
+ * several threads. Arrays are allocated when the pool is empty and dropped
+ * when it is full, so taking never blocks.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class BufferPool {
+
+    private final int size;
+    private final BlockingQueue<byte[]> buffers;
+
+    /**
+     * Primary constructor.
+     *
+     * @param size     The size of the arrays.
+     * @param capacity The number of arrays kept for reuse.
+     */
+    BufferPool(final int size, final int capacity) {
+        this.size = size;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return A pooled array, or a new one when none is free.
+     */
+    byte[] take() {
+        final byte[] buffer = this.buffers.poll();
+        if (buffer == null) {
+            return new byte[this.size];
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns an array to the pool.
+     *
+     * @param buffer An array of the size of the pool, which must not be used
+     *               any longer.
+     */
+    void give(final byte[] buffer) {
+        if (buffer.length == this.size) {
+            this.buffers.offer(buffer);
+        }
+    }
+
+}
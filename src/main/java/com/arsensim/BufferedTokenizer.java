@@ -0,0 +1,565 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The RFC 4180 state machine shared by {@link CsvTokenizer} and
+ * {@link ByteCsvTokenizer}. It splits a buffer of units, characters or
+ * bytes, into records and fields according to a {@link CsvDialect}, in a
+ * single pass and without regular expressions. The subclasses only provide
+ * what depends on the type of the units: filling and compacting the buffer,
+ * the tight loops skipping runs of ordinary units, copying units into the
+ * current record and turning fields into values.
+ * <p>
+ * Quoted fields may contain delimiters, escaped quotes and line breaks.
+ * Units following the closing quote of a field are kept as part of the
+ * field. A record that is complete in the buffer and has no quoted fields
+ * is read in one go, its fields pointing into the buffer. The fields of
+ * other records are unescaped into one record array owned by the subclass.
+ * A projection can restrict the fields kept to those that are needed; the
+ * others are skipped without copying their units.
+ * <p>
+ * The delimiter, quote, escape and line breaks are compared as {@code int}
+ * units, so the units of the input must represent them as their character
+ * codes.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+abstract class BufferedTokenizer implements Tokenizer {
+
+    private final int[] delimiter;
+    private final int quote;
+    private final int escape;
+    private int position;
+    private int limit;
+    private boolean exhausted;
+    private boolean buffered;
+    private int length;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+    private long line;
+    private long recordLine;
+    private boolean[] mask;
+    private ValueCaches caches;
+    private boolean keeping;
+    private long base;
+    private long offset;
+    private long record;
+    private boolean following;
+    private boolean terminated;
+
+    /**
+     * Primary constructor.
+     *
+     * @param dialect The format of the csv.
+     */
+    BufferedTokenizer(final CsvDialect dialect) {
+        this.delimiter = dialect.delimiter().chars().toArray();
+        this.quote = dialect.quote();
+        this.escape = dialect.escape();
+        this.starts = new int[16];
+        this.ends = new int[16];
+        this.line = 1;
+        this.keeping = true;
+        this.record = -1L;
+    }
+
+    @Override
+    public final void project(final boolean[] kept) {
+        this.mask = kept;
+    }
+
+    @Override
+    public final void intern(final ValueCaches interned) {
+        this.caches = interned;
+    }
+
+    @Override
+    public final boolean keeps(final int index) {
+        return this.mask == null || index < this.mask.length && this.mask[index];
+    }
+
+    @Override
+    public final boolean next() {
+        this.size = 0;
+        this.length = 0;
+        if (!this.ensure(1)) {
+            return false;
+        }
+        this.recordLine = this.line;
+        this.offset = this.base + this.position;
+        this.record++;
+        this.terminated = false;
+        if (this.delimiter.length == 1 && this.scan()) {
+            return true;
+        }
+        this.size = 0;
+        while (this.field()) {
+            // keep reading the fields of the record
+        }
+        this.buffered = false;
+        return true;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final String get(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new CsvException(
+                    String.format(
+                            "Column %d is not present in csv record at line %d",
+                            index,
+                            this.recordLine
+                    )
+            );
+        }
+        return this.value(index);
+    }
+
+    @Override
+    public final String[] toArray() {
+        final String[] values = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            if (this.keeps(i)) {
+                values[i] = this.value(i);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public final long line() {
+        return this.recordLine;
+    }
+
+    /**
+     * @return The offset in the input of the first unit of the current
+     *         record.
+     */
+    final long offset() {
+        return this.offset;
+    }
+
+    /**
+     * @return The index of the current record in the input, starting at 0,
+     *         or -1 before the first record.
+     */
+    final long record() {
+        return this.record;
+    }
+
+    /**
+     * @return The offset in the input of the first unit after the current
+     *         record.
+     */
+    final long consumed() {
+        return this.base + this.position;
+    }
+
+    /**
+     * @return Whether the current record ended with a line break, rather
+     *         than with the end of the input. A carriage return at the end
+     *         of the input is a line break, even when a line feed may still
+     *         be written after it.
+     */
+    final boolean terminated() {
+        return this.terminated;
+    }
+
+    /**
+     * Reads an input that may end in the middle of a record still being
+     * written. A quoted field left open by the end of the input then ends
+     * the record, which is not {@link #terminated()}, instead of failing.
+     */
+    final void follow() {
+        this.following = true;
+    }
+
+    /**
+     * Reads more units into the buffer.
+     *
+     * @param from The index in the buffer from which to store them, up to
+     *             the end of the buffer.
+     * @return The number of units read, or -1 at the end of the input.
+     * @throws IOException when the input cannot be read.
+     */
+    abstract int read(int from) throws IOException;
+
+    /**
+     * Moves units to the start of the buffer.
+     *
+     * @param from  The index of the first unit to move.
+     * @param count The number of units to move.
+     */
+    abstract void compact(int from, int count);
+
+    /**
+     * @param index The index of a unit in the buffer.
+     * @return The unit.
+     */
+    abstract int unit(int index);
+
+    /**
+     * Skips the units of the buffer that are part of an unquoted field.
+     *
+     * @param from      The index of the first unit.
+     * @param to        The index after the last unit to look at.
+     * @param separator The first unit of the delimiter.
+     * @return The index of the first separator or line break, or {@code to}.
+     */
+    abstract int skipPlain(int from, int to, int separator);
+
+    /**
+     * Skips the units of the buffer that are part of a quoted field,
+     * counting the line feeds skipped with {@link #breaks(int)}.
+     *
+     * @param from   The index of the first unit.
+     * @param to     The index after the last unit to look at.
+     * @param quote  The quote.
+     * @param escape The escape.
+     * @return The index of the first quote or escape, or {@code to}.
+     */
+    abstract int skipQuoted(int from, int to, int quote, int escape);
+
+    /**
+     * Copies units of the buffer to the end of the record array, growing it
+     * when needed.
+     *
+     * @param from   The index of the first unit in the buffer.
+     * @param count  The number of units.
+     * @param length The number of units already in the record array.
+     */
+    abstract void copy(int from, int count, int length);
+
+    /**
+     * Adds a unit to the end of the record array, growing it when needed.
+     *
+     * @param unit   The unit.
+     * @param length The number of units already in the record array.
+     */
+    abstract void put(int unit, int length);
+
+    /**
+     * Creates the value of a field, or takes it from {@link #cache(int)}.
+     *
+     * @param index The index of the field in the current record.
+     * @return The value of the field.
+     */
+    abstract String value(int index);
+
+    /**
+     * @return Whether the fields of the current record point into the
+     *         buffer rather than into the record array.
+     */
+    final boolean buffered() {
+        return this.buffered;
+    }
+
+    /**
+     * @param index The index of a field in the current record.
+     * @return The offset of the first unit of the field.
+     */
+    final int start(final int index) {
+        return this.starts[index];
+    }
+
+    /**
+     * @param index The index of a field in the current record.
+     * @return The offset after the last unit of the field.
+     */
+    final int end(final int index) {
+        return this.ends[index];
+    }
+
+    /**
+     * @param index The index of a column.
+     * @return The cache of the values of the column, or {@code null} when
+     *         they are not interned.
+     */
+    final ValueCache cache(final int index) {
+        if (this.caches == null) {
+            return null;
+        }
+        return this.caches.column(index);
+    }
+
+    /**
+     * Counts line feeds found inside a quoted field.
+     *
+     * @param count The number of line feeds.
+     */
+    final void breaks(final int count) {
+        this.line += count;
+    }
+
+    /**
+     * Reads the current record straight from the buffer when it is complete
+     * there and has no quoted fields, which is the common case. The fields
+     * then point into the buffer and nothing is copied.
+     *
+     * @return Whether the record was read. When it was not, nothing is
+     *         consumed and the record has to be read field by field.
+     */
+    private boolean scan() {
+        final int end = this.limit;
+        final int separator = this.delimiter[0];
+        int i = this.position;
+        int start = i;
+        int count = 0;
+        if (this.unit(i) == this.quote) {
+            return false;
+        }
+        while (true) {
+            i = this.skipPlain(i, end, separator);
+            if (i == end) {
+                return false;
+            }
+            final int c = this.unit(i);
+            if (c == separator) {
+                this.field(count++, start, i);
+                start = ++i;
+                if (i < end && this.unit(i) == this.quote) {
+                    return false;
+                }
+                continue;
+            }
+            if (c == '\r' && i + 1 == end && !this.exhausted) {
+                return false;
+            }
+            this.field(count++, start, i);
+            i++;
+            this.terminated = true;
+            if (c == '\r' && i < end && this.unit(i) == '\n') {
+                i++;
+            }
+            this.position = i;
+            this.size = count;
+            this.buffered = true;
+            this.line++;
+            return true;
+        }
+    }
+
+    /**
+     * Reads one field, starting with an optional quoted part.
+     *
+     * @return Whether the field was followed by a delimiter.
+     */
+    private boolean field() {
+        this.keeping = this.keeps(this.size);
+        if (this.ensure(1) && this.unit(this.position) == this.quote) {
+            this.position++;
+            this.quoted();
+        }
+        return this.unquoted();
+    }
+
+    /**
+     * Reads the quoted part of a field, after its opening quote and up to and
+     * including its closing quote.
+     */
+    private void quoted() {
+        while (true) {
+            if (!this.ensure(1)) {
+                if (this.following) {
+                    return;
+                }
+                throw new CsvException(
+                        String.format(
+                                "Unterminated quoted field in csv record at line %d",
+                                this.recordLine
+                        )
+                );
+            }
+            final int end = this.limit;
+            final int start = this.position;
+            final int i = this.skipQuoted(start, end, this.quote, this.escape);
+            this.append(start, i - start);
+            this.position = i;
+            if (i == end) {
+                continue;
+            }
+            final int c = this.unit(i);
+            if (c == this.escape && this.escape != this.quote) {
+                if (this.ensure(2) && (this.unit(this.position + 1) == this.quote
+                        || this.unit(this.position + 1) == this.escape)) {
+                    this.append(this.unit(this.position + 1));
+                    this.position += 2;
+                } else {
+                    this.append(c);
+                    this.position++;
+                }
+                continue;
+            }
+            this.position++;
+            if (this.escape == this.quote && this.ensure(1)
+                    && this.unit(this.position) == this.quote) {
+                this.append(this.quote);
+                this.position++;
+                continue;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Reads the unquoted rest of a field up to a delimiter, a line break or
+     * the end of input, and ends the field.
+     *
+     * @return Whether the field was followed by a delimiter.
+     */
+    private boolean unquoted() {
+        final int separator = this.delimiter[0];
+        while (true) {
+            if (!this.ensure(1)) {
+                this.end();
+                return false;
+            }
+            final int end = this.limit;
+            final int i = this.skipPlain(this.position, end, separator);
+            this.append(this.position, i - this.position);
+            this.position = i;
+            if (i == end) {
+                continue;
+            }
+            final int c = this.unit(i);
+            if (c == '\n' || c == '\r') {
+                this.position++;
+                this.terminated = true;
+                if (c == '\r' && this.ensure(1) && this.unit(this.position) == '\n') {
+                    this.position++;
+                }
+                this.line++;
+                this.end();
+                return false;
+            }
+            if (this.delimiter.length == 1 || this.delimiterAhead()) {
+                this.position += this.delimiter.length;
+                this.end();
+                return true;
+            }
+            this.append(c);
+            this.position++;
+        }
+    }
+
+    /**
+     * @return Whether the whole delimiter starts at the current position.
+     */
+    private boolean delimiterAhead() {
+        if (!this.ensure(this.delimiter.length)) {
+            return false;
+        }
+        for (int i = 1; i < this.delimiter.length; i++) {
+            if (this.unit(this.position + i) != this.delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure that at least {@code count} unread units are buffered,
+     * reading more of the input when needed.
+     *
+     * @param count The number of units needed.
+     * @return Whether the units are available.
+     */
+    private boolean ensure(final int count) {
+        while (this.limit - this.position < count) {
+            if (this.exhausted) {
+                return false;
+            }
+            if (this.position > 0) {
+                this.compact(this.position, this.limit - this.position);
+                this.limit -= this.position;
+                this.base += this.position;
+                this.position = 0;
+            }
+            final int read;
+            try {
+                read = this.read(this.limit);
+            } catch (final IOException e) {
+                throw new CsvException(
+                        String.format("Exception while reading csv at line %d", this.line),
+                        e
+                );
+            }
+            if (read < 0) {
+                this.exhausted = true;
+            } else {
+                this.limit += read;
+            }
+        }
+        return true;
+    }
+
+    private void append(final int unit) {
+        if (this.keeping) {
+            this.put(unit, this.length++);
+        }
+    }
+
+    private void append(final int from, final int count) {
+        if (this.keeping && count > 0) {
+            this.copy(from, count, this.length);
+            this.length += count;
+        }
+    }
+
+    /**
+     * Ends the current field at the current length of the record.
+     */
+    private void end() {
+        this.field(this.size, this.size == 0 ? 0 : this.ends[this.size - 1], this.length);
+        this.size++;
+    }
+
+    /**
+     * Sets the bounds of a field of the current record.
+     *
+     * @param index The index of the field.
+     * @param start The offset of the first unit of the field.
+     * @param end   The offset after the last unit of the field.
+     */
+    private void field(final int index, final int start, final int end) {
+        if (index == this.ends.length) {
+            this.starts = Arrays.copyOf(this.starts, index * 2);
+            this.ends = Arrays.copyOf(this.ends, index * 2);
+        }
+        this.starts[index] = start;
+        this.ends[index] = end;
+    }
+
+}
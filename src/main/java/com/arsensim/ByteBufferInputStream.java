@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@code InputStream} reading the remaining bytes of a {@code ByteBuffer},
+ * such as a memory mapped region of a file.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Primary constructor.
+     *
+     * @param buffer The buffer to read. Its position is advanced while
+     *               reading.
+     */
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        return this.buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        final int count = Math.min(length, this.buffer.remaining());
+        this.buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+
+}
@@ -0,0 +1,241 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single pass RFC 4180 tokenizer working on raw bytes. It finds
+ * delimiters, quotes and line breaks without decoding the input, and
+ * decodes a field only when its value is asked for, so the fields that are
+ * skipped or only tested are never decoded.
+ * <p>
+ * This is safe when the delimiter, quote and escape are ASCII and every
+ * ASCII byte of the input is an ASCII character, which holds for UTF-8 and
+ * ASCII compatible single-byte charsets, see {@link #supports(Charset, CsvDialect)}.
+ * The parsing is the one of {@link BufferedTokenizer}, with offsets in
+ * bytes. The read buffer is pooled and handed to another tokenizer once
+ * this one is closed, so values of the current record must not be read
+ * after closing.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ByteCsvTokenizer extends BufferedTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The read buffers of closed tokenizers, reused by the next ones so that
+     * reading many small files does not allocate a buffer for each.
+     */
+    private static final BufferPool BUFFERS = new BufferPool(
+            BUFFER_SIZE, Runtime.getRuntime().availableProcessors() * 2
+    );
+
+    private final InputStream input;
+    private final Charset charset;
+    private final boolean latin;
+    private final byte[] buffer;
+    private byte[] row;
+    private boolean closed;
+
+    /**
+     * Primary constructor.
+     *
+     * @param input   The source of bytes. It is closed together with the
+     *                tokenizer.
+     * @param dialect The format of the csv.
+     * @param charset The charset of the input, which must be supported.
+     */
+    ByteCsvTokenizer(final InputStream input, final CsvDialect dialect, final Charset charset) {
+        super(dialect);
+        if (!supports(charset, dialect)) {
+            throw new CsvException(
+                    String.format("Csv dialect %s cannot be parsed as bytes in %s", dialect, charset)
+            );
+        }
+        this.input = input;
+        this.charset = charset;
+        this.latin = charset.equals(StandardCharsets.ISO_8859_1);
+        this.buffer = BUFFERS.take();
+        this.row = new byte[256];
+    }
+
+    /**
+     * Tells whether input in a charset can be tokenized as bytes: the
+     * delimiter, quote, escape and line breaks must be ASCII and encoded as
+     * such, and no byte of another character may look like one of them.
+     *
+     * @param charset The charset of the input.
+     * @param dialect The format of the csv.
+     * @return Whether the input can be tokenized by this class.
+     */
+    static boolean supports(final Charset charset, final CsvDialect dialect) {
+        final String structure = dialect.delimiter() + dialect.quote() + dialect.escape() + "\r\n";
+        for (int i = 0; i < structure.length(); i++) {
+            if (structure.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        return charset.canEncode()
+                && charset.newEncoder().maxBytesPerChar() == 1.0f
+                && Arrays.equals(
+                        structure.getBytes(charset),
+                        structure.getBytes(StandardCharsets.US_ASCII)
+                );
+    }
+
+    /**
+     * Gives a view of the bytes of a field when each of them is one
+     * character, which is always the case in ISO-8859-1 and is the case of
+     * ASCII fields in other charsets. Other fields are decoded.
+     *
+     * @param index The index of the field in the current record.
+     * @param view  A view that may be pointed at the field.
+     * @return The characters of the field.
+     */
+    @Override
+    public CharSequence chars(final int index, final CharView view) {
+        final int start = this.start(index);
+        final int end = this.end(index);
+        final byte[] buf = this.values();
+        if (!this.latin) {
+            for (int i = start; i < end; i++) {
+                if (buf[i] < 0) {
+                    return new String(buf, start, end - start, this.charset);
+                }
+            }
+        }
+        return view.reset(buf, start, end);
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        BUFFERS.give(this.buffer);
+        try {
+            this.input.close();
+        } catch (final IOException e) {
+            throw new CsvException("Exception while closing csv input", e);
+        }
+    }
+
+    @Override
+    int read(final int from) throws IOException {
+        return this.input.read(this.buffer, from, this.buffer.length - from);
+    }
+
+    @Override
+    void compact(final int from, final int count) {
+        System.arraycopy(this.buffer, from, this.buffer, 0, count);
+    }
+
+    @Override
+    int unit(final int index) {
+        return this.buffer[index];
+    }
+
+    @Override
+    int skipPlain(final int from, final int to, final int separator) {
+        final byte[] buf = this.buffer;
+        int i = from;
+        while (i < to) {
+            final byte c = buf[i];
+            if (c == separator || c == '\n' || c == '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    int skipQuoted(final int from, final int to, final int quote, final int escape) {
+        final byte[] buf = this.buffer;
+        int lines = 0;
+        int i = from;
+        while (i < to) {
+            final byte c = buf[i];
+            if (c == quote || c == escape) {
+                break;
+            }
+            if (c == '\n') {
+                lines++;
+            }
+            i++;
+        }
+        this.breaks(lines);
+        return i;
+    }
+
+    @Override
+    void copy(final int from, final int count, final int length) {
+        if (length + count > this.row.length) {
+            this.row = Arrays.copyOf(this.row, Math.max(this.row.length * 2, length + count));
+        }
+        System.arraycopy(this.buffer, from, this.row, length, count);
+    }
+
+    @Override
+    void put(final int unit, final int length) {
+        if (length == this.row.length) {
+            this.row = Arrays.copyOf(this.row, this.row.length * 2);
+        }
+        this.row[length] = (byte) unit;
+    }
+
+    @Override
+    String value(final int index) {
+        final int start = this.start(index);
+        final int end = this.end(index);
+        final ValueCache cache = this.cache(index);
+        if (cache != null) {
+            return cache.get(this.values(), start, end, this.charset);
+        }
+        return new String(this.values(), start, end - start, this.charset);
+    }
+
+    /**
+     * @return The bytes the fields of the current record point into.
+     */
+    private byte[] values() {
+        if (this.buffered()) {
+            return this.buffer;
+        }
+        return this.row;
+    }
+
+}
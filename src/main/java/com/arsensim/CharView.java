@@ -0,0 +1,138 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@code CharSequence} view of a range of a character array, or of a
+ * byte array holding one ISO-8859-1 character per byte, which can be
+ * pointed at another range to be reused.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class CharView implements CharSequence {
+
+    private char[] chars;
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    /**
+     * Creates a view of characters.
+     *
+     * @param chars  The characters.
+     * @param offset The offset of the first character of the view.
+     * @param length The number of characters in the view.
+     */
+    CharView(final char[] chars, final int offset, final int length) {
+        this(chars, null, offset, length);
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param chars  The characters, or {@code null} for a view of bytes.
+     * @param bytes  The bytes of the characters, one per character.
+     * @param offset The offset of the first character of the view.
+     * @param length The number of characters in the view.
+     */
+    private CharView(final char[] chars, final byte[] bytes, final int offset, final int length) {
+        this.chars = chars;
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Points the view at another range.
+     *
+     * @param target The characters.
+     * @param start  The offset of the first character of the view.
+     * @param end    The offset after the last character of the view.
+     * @return This view.
+     */
+    CharView reset(final char[] target, final int start, final int end) {
+        this.chars = target;
+        this.bytes = null;
+        this.offset = start;
+        this.length = end - start;
+        return this;
+    }
+
+    /**
+     * Points the view at a range of bytes, each of which is one character.
+     *
+     * @param target The bytes.
+     * @param start  The offset of the first byte of the view.
+     * @param end    The offset after the last byte of the view.
+     * @return This view.
+     */
+    CharView reset(final byte[] target, final int start, final int end) {
+        this.chars = null;
+        this.bytes = target;
+        this.offset = start;
+        this.length = end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Index %d out of range of length %d", index, this.length)
+            );
+        }
+        if (this.chars == null) {
+            return (char) (this.bytes[this.offset + index] & 0xFF);
+        }
+        return this.chars[this.offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Range [%d, %d) out of range of length %d", start, end, this.length)
+            );
+        }
+        return new CharView(this.chars, this.bytes, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (this.chars == null) {
+            return new String(this.bytes, this.offset, this.length, StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.chars, this.offset, this.length);
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable conjunction of predicates on the raw values of columns,
+ * deciding whether a csv record is kept.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ColumnFilter<I> {
+
+    private static final ColumnFilter<?> NONE = new ColumnFilter<>(
+            Collections.emptyList(),
+            Collections.emptyList()
+    );
+
+    private final List<I> columns;
+    private final List<Predicate<? super CharSequence>> predicates;
+
+    /**
+     * Primary constructor.
+     *
+     * @param columns    The columns tested.
+     * @param predicates The predicate for each column.
+     */
+    private ColumnFilter(final List<I> columns,
+                         final List<Predicate<? super CharSequence>> predicates) {
+        this.columns = columns;
+        this.predicates = predicates;
+    }
+
+    /**
+     * @param <I> The type of header.
+     * @return A filter keeping every record.
+     */
+    @SuppressWarnings("unchecked")
+    static <I> ColumnFilter<I> none() {
+        return (ColumnFilter<I>) NONE;
+    }
+
+    /**
+     * @param column    The column to test.
+     * @param predicate The predicate the value of the column must satisfy.
+     * @return A filter that also requires the predicate.
+     */
+    ColumnFilter<I> and(final I column, final Predicate<? super CharSequence> predicate) {
+        final List<I> columns = new ArrayList<>(this.columns);
+        final List<Predicate<? super CharSequence>> predicates = new ArrayList<>(this.predicates);
+        columns.add(column);
+        predicates.add(predicate);
+        return new ColumnFilter<>(
+                Collections.unmodifiableList(columns),
+                Collections.unmodifiableList(predicates)
+        );
+    }
+
+    /**
+     * @return Whether the filter keeps every record.
+     */
+    boolean empty() {
+        return this.columns.isEmpty();
+    }
+
+    /**
+     * Tests a record.
+     *
+     * @param record The record.
+     * @return Whether the record is kept.
+     */
+    boolean test(final CsvRecord<I> record) {
+        for (int i = 0; i < this.columns.size(); i++) {
+            if (!this.predicates.get(i).test(record.chars(this.columns.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the tested columns to indexes, so that records can be tested
+     * on the raw fields of the tokenizer.
+     *
+     * @param schema The schema of the csv.
+     * @return The tests of the fields of the tokenizer.
+     * @throws CsvException when the schema lacks a tested column.
+     */
+    Fields resolve(final CsvSchema<I> schema) {
+        final int[] indexes = new int[this.columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = schema.index(this.columns.get(i));
+            if (indexes[i] < 0) {
+                throw new CsvException(
+                        String.format("Column %s is not present in csv", this.columns.get(i))
+                );
+            }
+        }
+        return new Fields(indexes, this.predicates);
+    }
+
+    /**
+     * The tests of a filter bound to field indexes, testing the current
+     * record of a tokenizer through reused views of its buffer.
+     */
+    static final class Fields {
+
+        private static final char[] EMPTY = new char[0];
+
+        private final int[] indexes;
+        private final List<Predicate<? super CharSequence>> predicates;
+        private final CharView view;
+
+        private Fields(final int[] indexes,
+                       final List<Predicate<? super CharSequence>> predicates) {
+            this.indexes = indexes;
+            this.predicates = predicates;
+            this.view = new CharView(EMPTY, 0, 0);
+        }
+
+        /**
+         * @return The indexes of the tested fields.
+         */
+        int[] indexes() {
+            return this.indexes.clone();
+        }
+
+        /**
+         * Tests the current record of a tokenizer. Missing fields are tested
+         * as empty values.
+         *
+         * @param tokenizer The tokenizer.
+         * @return Whether the record is kept.
+         */
+        boolean test(final Tokenizer tokenizer) {
+            for (int i = 0; i < this.indexes.length; i++) {
+                final int index = this.indexes[i];
+                final CharSequence value = index < tokenizer.size()
+                        ? tokenizer.chars(index, this.view)
+                        : this.view.reset(EMPTY, 0, 0);
+                if (!this.predicates.get(i).test(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
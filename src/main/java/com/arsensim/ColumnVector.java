@@ -0,0 +1,606 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@link CsvColumn} filled one value at a time. The type starts as
+ * {@link Type#INT} and is widened, converting the values already stored,
+ * as soon as a value does not fit it. Numbers must be written as
+ * {@link #number(CharSequence)} tells, so that identifiers such as
+ * {@code 007} stay text. Strings are interned into a dictionary while they
+ * are added, without creating a {@code String} for values already seen.
+ * The text of decimal values that differs from their canonical form, such
+ * as {@code 1.50} or {@code 1e3}, is kept aside so that the column is
+ * widened to {@link Type#STRING} without rewriting them.
+ * <p>
+ * The column is only filled by {@link ColumnarCsv} and is not modified
+ * once loaded.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ColumnVector implements CsvColumn {
+
+    private static final int CAPACITY = 16;
+
+    private static final int DIGITS = 19;
+
+    private static final long LIMIT = Long.MIN_VALUE / 10L;
+
+    private static final int EXACT = 15;
+
+    private static final double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private Type type;
+    private int size;
+    private long[] nulls;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int[] codes;
+    private String[] dictionary;
+    private int words;
+    private int[] table;
+    private String[] texts;
+    private long number;
+    private double decimal;
+    private boolean canonical;
+
+    /**
+     * Creates an empty column.
+     */
+    ColumnVector() {
+        this.type = Type.INT;
+        this.nulls = new long[1];
+        this.ints = new int[CAPACITY];
+    }
+
+    @Override
+    public Type type() {
+        return this.type;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isNull(final int row) {
+        this.check(row);
+        return (this.nulls[row >>> 6] & 1L << row) != 0L;
+    }
+
+    @Override
+    public int getInt(final int row) {
+        this.check(row);
+        if (this.type != Type.INT) {
+            throw this.mismatch(Type.INT);
+        }
+        return this.ints[row];
+    }
+
+    @Override
+    public long getLong(final int row) {
+        this.check(row);
+        if (this.type == Type.INT) {
+            return this.ints[row];
+        }
+        if (this.type != Type.LONG) {
+            throw this.mismatch(Type.LONG);
+        }
+        return this.longs[row];
+    }
+
+    @Override
+    public double getDouble(final int row) {
+        this.check(row);
+        switch (this.type) {
+            case INT:
+                return this.ints[row];
+            case LONG:
+                return this.longs[row];
+            case DOUBLE:
+                return this.doubles[row];
+            default:
+                throw this.mismatch(Type.DOUBLE);
+        }
+    }
+
+    @Override
+    public String get(final int row) {
+        if (this.isNull(row)) {
+            return null;
+        }
+        switch (this.type) {
+            case INT:
+                return Integer.toString(this.ints[row]);
+            case LONG:
+                return Long.toString(this.longs[row]);
+            case DOUBLE:
+                return render(this.doubles[row]);
+            default:
+                return this.dictionary[this.codes[row]];
+        }
+    }
+
+    @Override
+    public IntStream ints() {
+        if (this.type != Type.INT) {
+            throw this.mismatch(Type.INT);
+        }
+        return this.present().map(row -> this.ints[row]);
+    }
+
+    @Override
+    public LongStream longs() {
+        if (this.type == Type.INT) {
+            return this.present().mapToLong(row -> this.ints[row]);
+        }
+        if (this.type != Type.LONG) {
+            throw this.mismatch(Type.LONG);
+        }
+        return this.present().mapToLong(row -> this.longs[row]);
+    }
+
+    @Override
+    public DoubleStream doubles() {
+        switch (this.type) {
+            case INT:
+                return this.present().mapToDouble(row -> this.ints[row]);
+            case LONG:
+                return this.present().mapToDouble(row -> this.longs[row]);
+            case DOUBLE:
+                return this.present().mapToDouble(row -> this.doubles[row]);
+            default:
+                throw this.mismatch(Type.DOUBLE);
+        }
+    }
+
+    @Override
+    public Stream<String> strings() {
+        return this.present().mapToObj(this::get);
+    }
+
+    /**
+     * Adds a value, widening the type of the column when the value does not
+     * fit it.
+     *
+     * @param value The characters of the value, which are not retained, or
+     *              {@code null} when the record has no such column.
+     */
+    void add(final CharSequence value) {
+        final int row = this.size;
+        this.grow(row + 1);
+        this.size = row + 1;
+        if (value == null || value.length() == 0) {
+            this.nulls[row >>> 6] |= 1L << row;
+            return;
+        }
+        if (this.type != Type.STRING) {
+            if (this.integer(value)) {
+                if (this.type == Type.INT && this.number == (int) this.number) {
+                    this.ints[row] = (int) this.number;
+                    return;
+                }
+                if (this.type != Type.DOUBLE) {
+                    this.widen(Type.LONG);
+                    this.longs[row] = this.number;
+                    return;
+                }
+                this.doubles[row] = this.number;
+                if (!whole(this.number)) {
+                    this.keep(row, value.toString());
+                }
+                return;
+            }
+            if (this.decimal(value)) {
+                this.widen(Type.DOUBLE);
+                this.doubles[row] = this.decimal;
+                if (!this.canonical) {
+                    this.keep(row, value.toString());
+                }
+                return;
+            }
+            this.widen(Type.STRING);
+        }
+        this.codes[row] = this.intern(value);
+    }
+
+    /**
+     * Releases the room left for values that were never added.
+     */
+    void trim() {
+        this.nulls = Arrays.copyOf(this.nulls, (this.size + 63) >>> 6);
+        switch (this.type) {
+            case INT:
+                this.ints = Arrays.copyOf(this.ints, this.size);
+                break;
+            case LONG:
+                this.longs = Arrays.copyOf(this.longs, this.size);
+                break;
+            case DOUBLE:
+                this.doubles = Arrays.copyOf(this.doubles, this.size);
+                if (this.texts != null) {
+                    this.texts = Arrays.copyOf(this.texts, this.size);
+                }
+                break;
+            default:
+                this.codes = Arrays.copyOf(this.codes, this.size);
+                this.dictionary = Arrays.copyOf(this.dictionary, this.words);
+                this.table = null;
+                break;
+        }
+    }
+
+    private IntStream present() {
+        return IntStream.range(0, this.size)
+                .filter(row -> (this.nulls[row >>> 6] & 1L << row) == 0L);
+    }
+
+    private void check(final int row) {
+        if (row < 0 || row >= this.size) {
+            throw new CsvException(
+                    String.format("Row %d is not present in column of %d rows", row, this.size)
+            );
+        }
+    }
+
+    private CsvException mismatch(final Type expected) {
+        return new CsvException(
+                String.format("Column of type %s cannot be read as %s", this.type, expected)
+        );
+    }
+
+    /**
+     * Makes room for a number of values in the arrays of the current type.
+     *
+     * @param count The number of values.
+     */
+    private void grow(final int count) {
+        final int words = (count + 63) >>> 6;
+        if (words > this.nulls.length) {
+            this.nulls = Arrays.copyOf(this.nulls, Math.max(words, this.nulls.length * 2));
+        }
+        switch (this.type) {
+            case INT:
+                if (count > this.ints.length) {
+                    this.ints = Arrays.copyOf(this.ints, Math.max(count, this.ints.length * 2));
+                }
+                break;
+            case LONG:
+                if (count > this.longs.length) {
+                    this.longs = Arrays.copyOf(this.longs, Math.max(count, this.longs.length * 2));
+                }
+                break;
+            case DOUBLE:
+                if (count > this.doubles.length) {
+                    this.doubles = Arrays.copyOf(this.doubles, Math.max(count, this.doubles.length * 2));
+                }
+                break;
+            default:
+                if (count > this.codes.length) {
+                    this.codes = Arrays.copyOf(this.codes, Math.max(count, this.codes.length * 2));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Converts the values already stored to a wider type.
+     *
+     * @param wider The wider type.
+     */
+    private void widen(final Type wider) {
+        if (wider.compareTo(this.type) <= 0) {
+            return;
+        }
+        final int capacity = Math.max(CAPACITY, Integer.highestOneBit(this.size) << 1);
+        final int stored = this.size - 1;
+        switch (wider) {
+            case LONG:
+                this.longs = new long[capacity];
+                for (int row = 0; row < stored; row++) {
+                    this.longs[row] = this.ints[row];
+                }
+                break;
+            case DOUBLE:
+                this.doubles = new double[capacity];
+                for (int row = 0; row < stored; row++) {
+                    if (this.type == Type.INT) {
+                        this.doubles[row] = this.ints[row];
+                    } else {
+                        this.doubles[row] = this.longs[row];
+                        if (!whole(this.longs[row])) {
+                            this.keep(row, Long.toString(this.longs[row]));
+                        }
+                    }
+                }
+                break;
+            default:
+                this.codes = new int[capacity];
+                this.dictionary = new String[CAPACITY];
+                this.table = new int[CAPACITY * 2];
+                for (int row = 0; row < stored; row++) {
+                    if ((this.nulls[row >>> 6] & 1L << row) == 0L) {
+                        this.codes[row] = this.intern(this.source(row));
+                    }
+                }
+                break;
+        }
+        this.ints = null;
+        if (wider != Type.LONG) {
+            this.longs = null;
+        }
+        if (wider == Type.STRING) {
+            this.doubles = null;
+            this.texts = null;
+        }
+        this.type = wider;
+    }
+
+    /**
+     * Keeps the text of a decimal value that its canonical form would not
+     * give back.
+     *
+     * @param row The index of the row.
+     * @param text The text of the value.
+     */
+    private void keep(final int row, final String text) {
+        if (this.texts == null) {
+            this.texts = new String[this.doubles.length];
+        } else if (this.texts.length < this.doubles.length) {
+            this.texts = Arrays.copyOf(this.texts, this.doubles.length);
+        }
+        this.texts[row] = text;
+    }
+
+    /**
+     * @param row The index of a row that is not null.
+     * @return The text the value of the row was added with.
+     */
+    private String source(final int row) {
+        if (this.texts != null && row < this.texts.length && this.texts[row] != null) {
+            return this.texts[row];
+        }
+        return this.get(row);
+    }
+
+    /**
+     * Gives the code of a string in the dictionary, adding it when it is
+     * not there yet.
+     *
+     * @param value The characters of the string.
+     * @return The code.
+     */
+    private int intern(final CharSequence value) {
+        int hash = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        final int mask = this.table.length - 1;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (this.table[slot] != 0) {
+            final String word = this.dictionary[this.table[slot] - 1];
+            if (word.hashCode() == hash && word.contentEquals(value)) {
+                return this.table[slot] - 1;
+            }
+            slot = slot + 1 & mask;
+        }
+        if (this.words == this.dictionary.length) {
+            this.dictionary = Arrays.copyOf(this.dictionary, this.words * 2);
+        }
+        final int code = this.words++;
+        this.dictionary[code] = value.toString();
+        this.table[slot] = code + 1;
+        if (this.words * 2 > this.table.length) {
+            this.rehash();
+        }
+        return code;
+    }
+
+    private void rehash() {
+        final int[] larger = new int[this.table.length * 2];
+        final int mask = larger.length - 1;
+        for (int code = 0; code < this.words; code++) {
+            final int hash = this.dictionary[code].hashCode();
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (larger[slot] != 0) {
+                slot = slot + 1 & mask;
+            }
+            larger[slot] = code + 1;
+        }
+        this.table = larger;
+    }
+
+    /**
+     * Parses an integer written without sign or leading zeros, other than
+     * a minus, into {@link #number}.
+     *
+     * @param value The characters of the value.
+     * @return Whether the value is such an integer that fits in a long.
+     */
+    private boolean integer(final CharSequence value) {
+        final int length = value.length();
+        final boolean negative = value.charAt(0) == '-';
+        final int first = negative ? 1 : 0;
+        final int digits = length - first;
+        if (digits < 1 || digits > DIGITS) {
+            return false;
+        }
+        if (value.charAt(first) == '0' && (digits > 1 || negative)) {
+            return false;
+        }
+        long result = 0L;
+        for (int i = first; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            if (result < LIMIT) {
+                return false;
+            }
+            result = result * 10L - (c - '0');
+            if (result > 0L) {
+                return false;
+            }
+        }
+        if (!negative && result == Long.MIN_VALUE) {
+            return false;
+        }
+        this.number = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Parses a decimal number, with a fraction or an exponent and without
+     * leading zeros, into {@link #decimal}, and tells in {@link #canonical}
+     * whether {@link #render(double)} gives its text back. Numbers with few
+     * enough digits and no exponent are computed exactly without creating a
+     * string.
+     *
+     * @param value The characters of the value.
+     * @return Whether the value is such a finite number.
+     */
+    private boolean decimal(final CharSequence value) {
+        if (!number(value)) {
+            return false;
+        }
+        final int length = value.length();
+        final int start = value.charAt(0) == '-' ? 1 : 0;
+        int point = -1;
+        long mantissa = 0L;
+        int i = start;
+        while (i < length && value.charAt(i) != 'e' && value.charAt(i) != 'E') {
+            if (value.charAt(i) == '.') {
+                point = i;
+            } else {
+                mantissa = mantissa * 10L + (value.charAt(i) - '0');
+            }
+            i++;
+        }
+        if (point < 0 && i == length) {
+            return false;
+        }
+        final int scale = point < 0 ? 0 : i - point - 1;
+        final int significant = point < 0 ? i - start : i - start - 1;
+        if (i == length && significant <= EXACT && scale < POWERS.length) {
+            final double result = mantissa / POWERS[scale];
+            this.decimal = start == 0 ? result : -result;
+            this.canonical = scale > 0 && value.charAt(length - 1) != '0'
+                    && result >= 1e-3 && result < 1e7;
+            return true;
+        }
+        final String text = value.toString();
+        this.decimal = Double.parseDouble(text);
+        this.canonical = render(this.decimal).equals(text);
+        return !Double.isInfinite(this.decimal);
+    }
+
+    /**
+     * Tells whether a value is a number as columns read it: an optional
+     * minus, an integral part without leading zeros, then an optional
+     * fraction and exponent, such as {@code -12}, {@code 0.5} or
+     * {@code 1.5e3}. Plus signs, whitespace, suffixes such as {@code 1d},
+     * hexadecimal, {@code NaN}, {@code Infinity} and {@code -0} are not.
+     *
+     * @param value The characters of the value.
+     * @return Whether the value is such a number.
+     */
+    static boolean number(final CharSequence value) {
+        final int length = value.length();
+        final int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        int i = digits(value, start);
+        if (i == start || i - start > 1 && value.charAt(start) == '0') {
+            return false;
+        }
+        final int integral = i;
+        if (i < length && value.charAt(i) == '.') {
+            final int fraction = i + 1;
+            i = digits(value, fraction);
+            if (i == fraction) {
+                return false;
+            }
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            final int exponent = i;
+            i = digits(value, exponent);
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == length && (start == 0 || i != integral || value.charAt(start) != '0');
+    }
+
+    /**
+     * @param value The characters of a value.
+     * @param from  The index to start from.
+     * @return The index of the first character after the digits found there.
+     */
+    private static int digits(final CharSequence value, final int from) {
+        int i = from;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param value An integer.
+     * @return Whether the integer is rendered as written once stored as a
+     *         decimal number.
+     */
+    private static boolean whole(final long value) {
+        return value > -1e15 && value < 1e15;
+    }
+
+    /**
+     * Renders a decimal number, without fraction when it is integral.
+     *
+     * @param value The number.
+     * @return The text of the number.
+     */
+    private static String render(final double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+}
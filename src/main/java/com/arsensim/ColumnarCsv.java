@@ -0,0 +1,231 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Csv} held in memory column by column. All records of another
+ * csv are loaded once, and each column is stored as a {@link CsvColumn}:
+ * a primitive array for numbers, or dictionary codes for text, with nulls
+ * for empty values. Columns can then be scanned without going through
+ * records, and records are mapped through light views of a row.
+ * <p>
+ * Loading from a csv with flyweight records reads the values straight out
+ * of the parser buffer, so only the distinct strings of the file are ever
+ * created.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class ColumnarCsv<I, E> implements Csv<I, E> {
+
+    private final Set<I> columns;
+    private final Map<I, Integer> indexes;
+    private final ColumnVector[] vectors;
+    private final int rows;
+
+    /**
+     * Loads all records of a csv. A column missing from a record is null
+     * in that row.
+     *
+     * @param source The csv to load.
+     */
+    public ColumnarCsv(final Csv<I, CsvRecord<I>> source) {
+        this(new Loader<>(source));
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param loaded The loaded columns.
+     */
+    private ColumnarCsv(final Loader<I> loaded) {
+        this.columns = Collections.unmodifiableSet(new LinkedHashSet<>(loaded.names));
+        this.indexes = loaded.indexes;
+        this.vectors = loaded.vectors.toArray(new ColumnVector[0]);
+        this.rows = loaded.rows;
+        for (final ColumnVector vector : this.vectors) {
+            vector.trim();
+        }
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int size() {
+        return this.rows;
+    }
+
+    /**
+     * @return The columns, in the order they were first seen.
+     */
+    public Set<I> columns() {
+        return this.columns;
+    }
+
+    /**
+     * @param column The column.
+     * @return The values of the column.
+     * @throws CsvException when there is no such column.
+     */
+    public CsvColumn column(final I column) {
+        final int index = this.index(column);
+        if (index < 0) {
+            throw new CsvException(
+                    String.format("Column %s is not present in csv", column)
+            );
+        }
+        return this.vectors[index];
+    }
+
+    /**
+     * @param row The index of the row.
+     * @return A view of the row as a csv record.
+     * @throws CsvException when there is no such row.
+     */
+    public CsvRecord<I> row(final int row) {
+        if (row < 0 || row >= this.rows) {
+            throw new CsvException(
+                    String.format("Row %d is not present in csv of %d rows", row, this.rows)
+            );
+        }
+        return new ColumnarCsvRecord<>(this, row);
+    }
+
+    @Override
+    public List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
+        return this.stream(mapper).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        return IntStream.range(0, this.rows)
+                .mapToObj(row -> mapper.map(new ColumnarCsvRecord<>(this, row)));
+    }
+
+    /**
+     * @param column The column.
+     * @return The index of the column, or -1 when there is no such column.
+     */
+    int index(final I column) {
+        final Integer index = this.indexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param index The index of a column.
+     * @return The values of the column.
+     */
+    ColumnVector vector(final int index) {
+        return this.vectors[index];
+    }
+
+    /**
+     * Reads the records of a csv into column vectors. The columns of a
+     * record are resolved to vectors once for each distinct column set, which
+     * is usually shared by all records.
+     *
+     * @param <I> the type of header.
+     */
+    private static final class Loader<I> {
+
+        private final List<I> names;
+        private final Map<I, Integer> indexes;
+        private final List<ColumnVector> vectors;
+        private Set<I> last;
+        private List<I> order;
+        private int[] targets;
+        private int rows;
+
+        /**
+         * Loads all records of a csv.
+         *
+         * @param source The csv to load.
+         */
+        Loader(final Csv<I, CsvRecord<I>> source) {
+            this.names = new ArrayList<>();
+            this.indexes = new HashMap<>();
+            this.vectors = new ArrayList<>();
+            this.order = Collections.emptyList();
+            this.targets = new int[0];
+            try (final Stream<CsvRecord<I>> records = source.stream(record -> record)) {
+                records.forEach(this::add);
+            }
+        }
+
+        private void add(final CsvRecord<I> record) {
+            final Set<I> columns = record.columns();
+            if (columns != this.last && !columns.equals(this.last)) {
+                this.resolve(columns);
+            }
+            for (int i = 0; i < this.targets.length; i++) {
+                this.vectors.get(this.targets[i]).add(record.chars(this.order.get(i)));
+            }
+            this.rows++;
+            if (this.targets.length < this.vectors.size()) {
+                for (final ColumnVector vector : this.vectors) {
+                    if (vector.size() < this.rows) {
+                        vector.add(null);
+                    }
+                }
+            }
+        }
+
+        private void resolve(final Set<I> columns) {
+            this.last = columns;
+            this.order = new ArrayList<>(columns);
+            this.targets = new int[this.order.size()];
+            for (int i = 0; i < this.targets.length; i++) {
+                final I column = this.order.get(i);
+                Integer index = this.indexes.get(column);
+                if (index == null) {
+                    index = this.vectors.size();
+                    final ColumnVector vector = new ColumnVector();
+                    for (int row = 0; row < this.rows; row++) {
+                        vector.add(null);
+                    }
+                    this.names.add(column);
+                    this.indexes.put(column, index);
+                    this.vectors.add(vector);
+                }
+                this.targets[i] = index;
+            }
+        }
+
+    }
+
+}
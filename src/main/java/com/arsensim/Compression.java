@@ -0,0 +1,142 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Recognizes compressed input by its leading bytes and decompresses it
+ * while it is read. Gzip, including files of several members, and the
+ * first file of a zip archive are supported. Block gzip files, whose
+ * members record their own size, are inflated in parallel by
+ * {@link BlockGzipInputStream}.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class Compression {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of leading bytes looked at, enough for the header of a
+     * block gzip member.
+     */
+    private static final int HEAD = 512;
+
+    private Compression() {
+    }
+
+    /**
+     * Gives the decompressed content of an input, or the input itself when
+     * it is not compressed. Plain input is not buffered again, since its
+     * readers fill large buffers of their own, so opening a small file
+     * costs no more than its leading bytes.
+     *
+     * @param input The raw input.
+     * @return The content, to be closed instead of the raw input.
+     * @throws IOException when the input could not be read.
+     */
+    static InputStream open(final InputStream input) throws IOException {
+        final PushbackInputStream peeked = new PushbackInputStream(input, HEAD);
+        final byte[] head = new byte[HEAD];
+        final int count = read(peeked, head);
+        peeked.unread(head, 0, count);
+        if (BlockGzipInputStream.blocked(head, count)) {
+            final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            return new BlockGzipInputStream(
+                    new BufferedInputStream(peeked, BUFFER_SIZE), ForkJoinPool.commonPool(), parallelism * 2
+            );
+        }
+        if (gzip(head, count)) {
+            return new GZIPInputStream(peeked, BUFFER_SIZE);
+        }
+        if (zip(head, count)) {
+            final ZipInputStream zip = new ZipInputStream(new BufferedInputStream(peeked, BUFFER_SIZE));
+            ZipEntry entry = zip.getNextEntry();
+            while (entry != null && entry.isDirectory()) {
+                entry = zip.getNextEntry();
+            }
+            if (entry == null) {
+                zip.close();
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            return zip;
+        }
+        return peeked;
+    }
+
+    /**
+     * @param file A file.
+     * @return Whether the file is compressed in a recognized format.
+     * @throws IOException when the file could not be read.
+     */
+    static boolean compressed(final Path file) throws IOException {
+        try (final InputStream input = Files.newInputStream(file)) {
+            final byte[] head = new byte[4];
+            final int count = read(input, head);
+            return gzip(head, count) || zip(head, count);
+        }
+    }
+
+    private static boolean gzip(final byte[] head, final int count) {
+        return count >= 2 && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B;
+    }
+
+    private static boolean zip(final byte[] head, final int count) {
+        return count >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4;
+    }
+
+    /**
+     * Reads as many bytes as fit into an array, unless the input ends first.
+     *
+     * @param input The input.
+     * @param bytes The array to fill.
+     * @return The number of bytes read.
+     * @throws IOException when the input could not be read.
+     */
+    private static int read(final InputStream input, final byte[] bytes) throws IOException {
+        int count = 0;
+        while (count < bytes.length) {
+            final int read = input.read(bytes, count, bytes.length - count);
+            if (read < 0) {
+                break;
+            }
+            count += read;
+        }
+        return count;
+    }
+
+}
@@ -24,10 +24,55 @@
 package com.arsensim;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @FunctionalInterface
 public interface Csv<I, E> {
 
     List<E> map(CsvRecordMapper<I, ? extends E> mapper);
 
+    /**
+     * Maps the csv records lazily, one at a time. Implementations backed by
+     * a resource release it when the returned {@code Stream} is closed, so
+     * the stream should be used in a try-with-resources block.
+     *
+     * @param mapper The mapper to apply to each csv record.
+     * @return A lazy {@code Stream} of mapped records.
+     */
+    default Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        return this.map(mapper).stream();
+    }
+
+    /**
+     * Gives a csv keeping only the records whose value in a column satisfies
+     * a predicate. Rejected records are never mapped, and implementations
+     * that parse files test the raw characters of the field while parsing,
+     * before the record is created. Calls can be chained to require several
+     * predicates.
+     *
+     * @param column    The column to test.
+     * @param predicate The predicate on the characters of the value, which
+     *                  must not be retained.
+     * @return The filtered csv.
+     */
+    default Csv<I, E> filter(final I column, final Predicate<? super CharSequence> predicate) {
+        return new FilteredCsv<>(this, ColumnFilter.<I>none().and(column, predicate));
+    }
+
+    /**
+     * Maps the csv records one at a time and hands each of them over to the
+     * consumer, without retaining them.
+     *
+     * @param mapper   The mapper to apply to each csv record.
+     * @param consumer The consumer of the mapped records.
+     */
+    default void forEach(final CsvRecordMapper<I, ? extends E> mapper,
+                         final Consumer<? super E> consumer) {
+        try (final Stream<E> records = this.stream(mapper)) {
+            records.forEach(consumer);
+        }
+    }
+
 }
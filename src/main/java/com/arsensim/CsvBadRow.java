@@ -0,0 +1,148 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A row of a csv that could not be read or mapped, as handed to the sink of
+ * a {@link CsvErrorPolicy}.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvBadRow {
+
+    /**
+     * Why a row is bad.
+     */
+    public enum Reason {
+
+        /**
+         * The row does not have as many fields as the header, or as the
+         * first row of a csv without header.
+         */
+        COLUMNS,
+
+        /**
+         * The row could not be tokenized, such as a quoted field left open
+         * at the end of the file.
+         */
+        TOKENIZER,
+
+        /**
+         * The mapper failed on the row.
+         */
+        MAPPER
+
+    }
+
+    private final Reason reason;
+    private final long row;
+    private final long line;
+    private final long offset;
+    private final List<String> values;
+    private final RuntimeException error;
+
+    /**
+     * Primary constructor.
+     *
+     * @param reason Why the row is bad.
+     * @param row    The index of the row, from 0 after the header.
+     * @param line   The line at which the row starts, or -1 when unknown.
+     * @param offset The byte offset in the file at which the row starts, or
+     *               -1 when unknown.
+     * @param values The values of the row, when it was tokenized.
+     * @param error  The error.
+     */
+    CsvBadRow(final Reason reason, final long row, final long line, final long offset,
+              final String[] values, final RuntimeException error) {
+        this.reason = reason;
+        this.row = row;
+        this.line = line;
+        this.offset = offset;
+        this.values = values == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(values));
+        this.error = error;
+    }
+
+    /**
+     * @return Why the row is bad.
+     */
+    public Reason reason() {
+        return this.reason;
+    }
+
+    /**
+     * @return The index of the row, from 0 after the header.
+     */
+    public long row() {
+        return this.row;
+    }
+
+    /**
+     * @return The line at which the row starts, from 1, or -1 when unknown.
+     */
+    public long line() {
+        return this.line;
+    }
+
+    /**
+     * @return The byte offset in the file at which the row starts, or -1
+     * when unknown, such as for compressed files or files not tokenized as
+     * bytes.
+     */
+    public long offset() {
+        return this.offset;
+    }
+
+    /**
+     * @return The values of the row, with {@code null} for the columns
+     * skipped by a projection, or no values when the row could not be
+     * tokenized.
+     */
+    public List<String> values() {
+        return this.values;
+    }
+
+    /**
+     * @return The error.
+     */
+    public RuntimeException error() {
+        return this.error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CsvBadRow{reason=%s, row=%d, line=%d, offset=%d, values=%s, error=%s}",
+                this.reason, this.row, this.line, this.offset, this.values, this.error.getMessage()
+        );
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The position up to which a growing csv file has been read, kept in a
+ * small text file so that the next read resumes from there. Only whole
+ * records are committed, so a record still being written at the end of the
+ * file is read again once it is complete.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvCheckpoint {
+
+    private final Path file;
+
+    /**
+     * Creates a checkpoint kept in a file, which does not have to exist
+     * before the first commit.
+     *
+     * @param file The file holding the checkpoint.
+     */
+    public CsvCheckpoint(final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The position in the csv file after the last record committed,
+     *         0 when nothing was committed yet.
+     * @throws CsvException when the checkpoint cannot be read.
+     */
+    long offset() {
+        if (!Files.exists(this.file)) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(
+                    new String(Files.readAllBytes(this.file), StandardCharsets.US_ASCII).trim()
+            );
+        } catch (final IOException | NumberFormatException e) {
+            throw new CsvException(
+                    String.format("Exception while reading checkpoint %s", this.file),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Commits a position. It is written into a temporary file first, so that
+     * a crash never leaves half of it.
+     *
+     * @param offset The position in the csv file after the last record read.
+     * @throws CsvException when the checkpoint cannot be written.
+     */
+    void commit(final long offset) {
+        try {
+            final Path temporary = Files.createTempFile(
+                    this.file.toAbsolutePath().getParent(), this.file.getFileName().toString(), ".tmp"
+            );
+            try {
+                Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+                Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while writing checkpoint %s", this.file),
+                    e
+            );
+        }
+    }
+
+}
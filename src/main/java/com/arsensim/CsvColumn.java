@@ -0,0 +1,134 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A column of a {@link ColumnarCsv}, stored as one primitive array when all
+ * its values are numbers, or as dictionary codes otherwise. Empty values
+ * are null.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public interface CsvColumn {
+
+    /**
+     * The type inferred for the values of a column, from the narrowest to
+     * the widest.
+     */
+    enum Type {
+        /**
+         * Integers that fit in an {@code int}.
+         */
+        INT,
+        /**
+         * Integers that fit in a {@code long}.
+         */
+        LONG,
+        /**
+         * Decimal numbers.
+         */
+        DOUBLE,
+        /**
+         * Any text.
+         */
+        STRING
+    }
+
+    /**
+     * @return The type of the values.
+     */
+    Type type();
+
+    /**
+     * @return The number of values, nulls included.
+     */
+    int size();
+
+    /**
+     * @param row The index of the row.
+     * @return Whether the value of the row is null.
+     */
+    boolean isNull(int row);
+
+    /**
+     * @param row The index of the row.
+     * @return The value of the row, 0 when it is null.
+     * @throws CsvException when the column is not of type {@link Type#INT}.
+     */
+    int getInt(int row);
+
+    /**
+     * @param row The index of the row.
+     * @return The value of the row, 0 when it is null.
+     * @throws CsvException when the column is not of an integer type.
+     */
+    long getLong(int row);
+
+    /**
+     * @param row The index of the row.
+     * @return The value of the row, 0 when it is null.
+     * @throws CsvException when the column is not numeric.
+     */
+    double getDouble(int row);
+
+    /**
+     * Gives the value of a row as text. Numbers are given in their canonical
+     * form, so a decimal value written {@code 1.50} is given as {@code 1.5}.
+     *
+     * @param row The index of the row.
+     * @return The value of the row, or {@code null} when it is null.
+     */
+    String get(int row);
+
+    /**
+     * @return The values that are not null.
+     * @throws CsvException when the column is not of type {@link Type#INT}.
+     */
+    IntStream ints();
+
+    /**
+     * @return The values that are not null.
+     * @throws CsvException when the column is not of an integer type.
+     */
+    LongStream longs();
+
+    /**
+     * @return The values that are not null.
+     * @throws CsvException when the column is not numeric.
+     */
+    DoubleStream doubles();
+
+    /**
+     * @return The values that are not null, as text.
+     */
+    Stream<String> strings();
+
+}
@@ -0,0 +1,356 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQuery;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable registry of {@link CsvConverter}s by target type.
+ * <p>
+ * Built in converters cover {@code String}, the primitive types and their
+ * wrappers, {@code BigDecimal}, {@code BigInteger}, enums and the
+ * {@code java.time} date and time types in their ISO formats. Empty values
+ * are converted to {@code null}, except for {@code String}. Converters
+ * registered with {@link #with(Class, CsvConverter)} or formats registered
+ * with {@link #withFormat(Class, DateTimeFormatter)} take precedence over
+ * the built in ones. A converter registered for a wrapper type is also used
+ * for its primitive type and the other way round.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvConverters {
+
+    private static final Map<Class<?>, TemporalQuery<?>> TEMPORALS;
+
+    private static final Map<Class<?>, CsvConverter<?>> BUILT_IN;
+
+    static {
+        final Map<Class<?>, TemporalQuery<?>> temporals = new HashMap<>();
+        temporals.put(LocalDate.class, LocalDate::from);
+        temporals.put(LocalTime.class, LocalTime::from);
+        temporals.put(LocalDateTime.class, LocalDateTime::from);
+        temporals.put(OffsetDateTime.class, OffsetDateTime::from);
+        temporals.put(ZonedDateTime.class, ZonedDateTime::from);
+        temporals.put(Instant.class, Instant::from);
+        TEMPORALS = Collections.unmodifiableMap(temporals);
+        final Map<Class<?>, CsvConverter<?>> builtIn = new HashMap<>();
+        builtIn.put(String.class, CharSequence::toString);
+        builtIn.put(Integer.class, nullable(Integer.class, CsvConverters::parseInt));
+        builtIn.put(Long.class, nullable(Long.class, CsvConverters::parseLong));
+        builtIn.put(Short.class, nullable(Short.class, value -> (short) parse(value, Short.MIN_VALUE, Short.MAX_VALUE, Short.class)));
+        builtIn.put(Byte.class, nullable(Byte.class, value -> (byte) parse(value, Byte.MIN_VALUE, Byte.MAX_VALUE, Byte.class)));
+        builtIn.put(Double.class, nullable(Double.class, CsvConverters::parseDouble));
+        builtIn.put(Float.class, nullable(Float.class, value -> Float.parseFloat(value.toString())));
+        builtIn.put(Boolean.class, nullable(Boolean.class, CsvConverters::parseBoolean));
+        builtIn.put(Character.class, nullable(Character.class, CsvConverters::parseCharacter));
+        builtIn.put(BigDecimal.class, nullable(BigDecimal.class, value -> new BigDecimal(value.toString())));
+        builtIn.put(BigInteger.class, nullable(BigInteger.class, value -> new BigInteger(value.toString())));
+        builtIn.put(LocalDate.class, temporal(LocalDate.class, DateTimeFormatter.ISO_LOCAL_DATE));
+        builtIn.put(LocalTime.class, temporal(LocalTime.class, DateTimeFormatter.ISO_LOCAL_TIME));
+        builtIn.put(LocalDateTime.class, temporal(LocalDateTime.class, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        builtIn.put(OffsetDateTime.class, temporal(OffsetDateTime.class, DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        builtIn.put(ZonedDateTime.class, temporal(ZonedDateTime.class, DateTimeFormatter.ISO_ZONED_DATE_TIME));
+        builtIn.put(Instant.class, temporal(Instant.class, DateTimeFormatter.ISO_INSTANT));
+        BUILT_IN = Collections.unmodifiableMap(builtIn);
+    }
+
+    private final Map<Class<?>, CsvConverter<?>> registered;
+
+    /**
+     * Creates a registry with the built in converters only.
+     */
+    public CsvConverters() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param registered The converters registered on top of the built in
+     *                   ones, keyed by wrapped type.
+     */
+    private CsvConverters(final Map<Class<?>, CsvConverter<?>> registered) {
+        this.registered = registered;
+    }
+
+    /**
+     * Registers a converter for a type.
+     *
+     * @param type      The type to convert to.
+     * @param converter The converter.
+     * @param <T>       The type to convert to.
+     * @return A new registry including the converter.
+     */
+    public <T> CsvConverters with(final Class<T> type, final CsvConverter<? extends T> converter) {
+        final Map<Class<?>, CsvConverter<?>> copy = new HashMap<>(this.registered);
+        copy.put(wrap(type), converter);
+        return new CsvConverters(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Registers the format of a {@code java.time} type, one of
+     * {@code LocalDate}, {@code LocalTime}, {@code LocalDateTime},
+     * {@code OffsetDateTime}, {@code ZonedDateTime} or {@code Instant}.
+     *
+     * @param type   The date or time type.
+     * @param format The format of its values.
+     * @param <T>    The date or time type.
+     * @return A new registry including the format.
+     * @throws CsvException when the type is not supported.
+     */
+    public <T extends TemporalAccessor> CsvConverters withFormat(final Class<T> type,
+                                                                 final DateTimeFormatter format) {
+        if (!TEMPORALS.containsKey(type)) {
+            throw new CsvException(
+                    String.format("Formats are not supported for %s", type)
+            );
+        }
+        return this.with(type, temporal(type, format));
+    }
+
+    /**
+     * Finds the converter to a type.
+     *
+     * @param type The type to convert to.
+     * @param <T>  The type to convert to.
+     * @return The registered or built in converter.
+     * @throws CsvException when there is no converter to the type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CsvConverter<T> converter(final Class<T> type) {
+        final Class<?> wrapped = wrap(type);
+        final CsvConverter<?> registered = this.registered.get(wrapped);
+        if (registered != null) {
+            return (CsvConverter<T>) registered;
+        }
+        final CsvConverter<?> builtIn = BUILT_IN.get(wrapped);
+        if (builtIn != null) {
+            return (CsvConverter<T>) builtIn;
+        }
+        if (type.isEnum()) {
+            return (CsvConverter<T>) enumeration(type.asSubclass(Enum.class));
+        }
+        throw new CsvException(
+                String.format("No converter registered for %s", type)
+        );
+    }
+
+    /**
+     * Tells whether a converter was registered for a type, replacing the
+     * built in one.
+     *
+     * @param type The type to convert to.
+     * @return Whether a converter was registered.
+     */
+    public boolean registered(final Class<?> type) {
+        return this.registered.containsKey(wrap(type));
+    }
+
+    /**
+     * Parses an {@code int} straight from the characters of a value. Used by
+     * mappers to feed primitive setters without boxing.
+     *
+     * @param value The characters of the value.
+     * @return The parsed value.
+     * @throws CsvException when the value is not an {@code int}.
+     */
+    public static int parseInt(final CharSequence value) {
+        return (int) parse(value, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.class);
+    }
+
+    /**
+     * Parses a {@code long} straight from the characters of a value.
+     *
+     * @param value The characters of the value.
+     * @return The parsed value.
+     * @throws CsvException when the value is not a {@code long}.
+     */
+    public static long parseLong(final CharSequence value) {
+        return parse(value, Long.MIN_VALUE, Long.MAX_VALUE, Long.class);
+    }
+
+    /**
+     * Parses a {@code double}.
+     *
+     * @param value The characters of the value.
+     * @return The parsed value.
+     * @throws CsvException when the value is not a {@code double}.
+     */
+    public static double parseDouble(final CharSequence value) {
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (final NumberFormatException e) {
+            throw failure(value, Double.class, e);
+        }
+    }
+
+    /**
+     * Parses a decimal integer within bounds without creating a
+     * {@code String}. Digits are accumulated negatively so that the minimum
+     * value does not overflow.
+     *
+     * @param value The characters of the value.
+     * @param min   The smallest allowed value.
+     * @param max   The largest allowed value.
+     * @param type  The type parsed, for error messages.
+     * @return The parsed value.
+     * @throws CsvException when the value is not an integer within bounds.
+     */
+    private static long parse(final CharSequence value, final long min, final long max,
+                              final Class<?> type) {
+        final int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i = 1;
+        }
+        if (i == length) {
+            throw failure(value, type, null);
+        }
+        final long limit = negative ? min : -max;
+        final long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw failure(value, type, null);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw failure(value, type, null);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static Boolean parseBoolean(final CharSequence value) {
+        final String text = value.toString();
+        if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(text) || "0".equals(text)) {
+            return Boolean.FALSE;
+        }
+        throw failure(value, Boolean.class, null);
+    }
+
+    private static Character parseCharacter(final CharSequence value) {
+        if (value.length() != 1) {
+            throw failure(value, Character.class, null);
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Makes a converter that returns {@code null} for empty values and
+     * reports conversion failures as {@link CsvException}.
+     *
+     * @param type      The type to convert to.
+     * @param converter The converter of non empty values.
+     * @param <T>       The type to convert to.
+     * @return The converter.
+     */
+    private static <T> CsvConverter<T> nullable(final Class<T> type, final CsvConverter<T> converter) {
+        return value -> {
+            if (value.length() == 0) {
+                return null;
+            }
+            try {
+                return converter.convert(value);
+            } catch (final CsvException e) {
+                throw e;
+            } catch (final RuntimeException e) {
+                throw failure(value, type, e);
+            }
+        };
+    }
+
+    private static <T extends TemporalAccessor> CsvConverter<T> temporal(final Class<T> type,
+                                                                         final DateTimeFormatter format) {
+        @SuppressWarnings("unchecked")
+        final TemporalQuery<T> query = (TemporalQuery<T>) TEMPORALS.get(type);
+        return nullable(type, value -> format.parse(value, query));
+    }
+
+    /**
+     * Makes a converter to an enum, matching the names of its constants
+     * exactly or, failing that, ignoring case.
+     *
+     * @param type The enum type.
+     * @param <T>  The enum type.
+     * @return The converter.
+     */
+    private static <T extends Enum<T>> CsvConverter<T> enumeration(final Class<T> type) {
+        final Map<String, T> exact = new HashMap<>();
+        final Map<String, T> lenient = new HashMap<>();
+        for (final T constant : type.getEnumConstants()) {
+            exact.put(constant.name(), constant);
+            lenient.put(constant.name().toUpperCase(Locale.ROOT), constant);
+        }
+        return nullable(type, value -> {
+            final String text = value.toString();
+            final T constant = exact.get(text);
+            if (constant != null) {
+                return constant;
+            }
+            final T other = lenient.get(text.toUpperCase(Locale.ROOT));
+            if (other == null) {
+                throw failure(value, type, null);
+            }
+            return other;
+        });
+    }
+
+    private static Class<?> wrap(final Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static CsvException failure(final CharSequence value, final Class<?> type,
+                                        final Throwable cause) {
+        return new CsvException(
+                String.format("Could not convert csv value '%s' to %s", value, type),
+                cause
+        );
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+/**
+ * The format of a csv: the delimiter between fields, the quote character
+ * that encloses fields containing delimiters, quotes or line breaks, and
+ * the escape character used inside quoted fields. The delimiter is taken
+ * literally and may be longer than one character.
+ * <p>
+ * By default a quote inside a quoted field is escaped by doubling it, as
+ * described in RFC 4180.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvDialect {
+
+    private final String delimiter;
+    private final char quote;
+    private final char escape;
+
+    /**
+     * Creates a dialect with the given delimiter and RFC 4180 quoting.
+     *
+     * @param delimiter The literal delimiter between fields.
+     */
+    public CsvDialect(final String delimiter) {
+        this(delimiter, '"', '"');
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param delimiter The literal delimiter between fields.
+     * @param quote     The character enclosing quoted fields.
+     * @param escape    The character escaping a quote inside a quoted field.
+     *                  Equal to {@code quote} when quotes are doubled.
+     * @throws CsvException when the delimiter is empty or clashes with the
+     *                      quote or a line break.
+     */
+    public CsvDialect(final String delimiter, final char quote, final char escape) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new CsvException("Csv delimiter must not be empty");
+        }
+        if (delimiter.indexOf(quote) >= 0
+                || delimiter.indexOf('\n') >= 0
+                || delimiter.indexOf('\r') >= 0) {
+            throw new CsvException(
+                    String.format(
+                            "Csv delimiter %s must not contain the quote or a line break",
+                            delimiter
+                    )
+            );
+        }
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.escape = escape;
+    }
+
+    public String delimiter() {
+        return this.delimiter;
+    }
+
+    public char quote() {
+        return this.quote;
+    }
+
+    public char escape() {
+        return this.escape;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CsvDialect{delimiter=%s, quote=%s, escape=%s}",
+                this.delimiter,
+                this.quote,
+                this.escape
+        );
+    }
+
+}
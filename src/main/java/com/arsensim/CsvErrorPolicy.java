@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * What a csv does with rows that cannot be read or mapped: rows with
+ * another number of fields than the header, rows the tokenizer rejects and
+ * rows the mapper fails on. A bad row is either fatal, or skipped after
+ * being handed to a sink, until more bad rows than a limit were found in
+ * one read. Failures to read the file itself are always fatal.
+ * <p>
+ * Nothing is created for a row unless it is bad, so a policy costs nothing
+ * while rows are good.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvErrorPolicy {
+
+    private final long limit;
+    private final Consumer<? super CsvBadRow> sink;
+
+    /**
+     * Primary constructor.
+     *
+     * @param limit The number of bad rows skipped in one read before the
+     *              read fails.
+     * @param sink  Receives the skipped rows.
+     */
+    private CsvErrorPolicy(final long limit, final Consumer<? super CsvBadRow> sink) {
+        if (limit < 0L) {
+            throw new CsvException(
+                    String.format("Bad row limit %d must not be negative", limit)
+            );
+        }
+        this.limit = limit;
+        this.sink = sink;
+    }
+
+    /**
+     * Gives a policy failing on the first bad row, with the error of the
+     * row. Unlike a csv without policy, rows with a wrong number of fields
+     * are bad.
+     *
+     * @return The policy.
+     */
+    public static CsvErrorPolicy failFast() {
+        return new CsvErrorPolicy(0L, row -> { });
+    }
+
+    /**
+     * Gives a policy skipping all bad rows.
+     *
+     * @return The policy.
+     */
+    public static CsvErrorPolicy skip() {
+        return new CsvErrorPolicy(Long.MAX_VALUE, row -> { });
+    }
+
+    /**
+     * Gives a policy collecting up to a number of bad rows, and failing on
+     * the next one.
+     *
+     * @param limit The number of bad rows collected.
+     * @param into  Receives the bad rows.
+     * @return The policy.
+     */
+    public static CsvErrorPolicy collect(final long limit, final Collection<? super CsvBadRow> into) {
+        return new CsvErrorPolicy(limit, into::add);
+    }
+
+    /**
+     * Gives a policy handing all bad rows to a sink, such as a file of
+     * rejected rows to be fixed and read again.
+     *
+     * @param sink Receives the bad rows.
+     * @return The policy.
+     */
+    public static CsvErrorPolicy deadLetter(final Consumer<? super CsvBadRow> sink) {
+        return new CsvErrorPolicy(Long.MAX_VALUE, sink);
+    }
+
+    /**
+     * @param bad The number of bad rows skipped in one read before the read
+     *            fails.
+     * @return The same policy failing after that many bad rows.
+     */
+    public CsvErrorPolicy withLimit(final long bad) {
+        return new CsvErrorPolicy(bad, this.sink);
+    }
+
+    /**
+     * Handles a bad row.
+     *
+     * @param row   The bad row.
+     * @param count The number of bad rows found in the read, including
+     *              this one.
+     * @throws RuntimeException the error of the row, when the policy fails
+     *                          on the first bad row.
+     * @throws CsvException     when there are more bad rows than the limit.
+     */
+    void reject(final CsvBadRow row, final long count) {
+        if (count > this.limit) {
+            if (this.limit == 0L) {
+                throw row.error();
+            }
+            throw new CsvException(
+                    String.format(
+                            "More than %d bad rows, the last at line %d: %s",
+                            this.limit, row.line(), row.error().getMessage()
+                    ),
+                    row.error()
+            );
+        }
+        this.sink.accept(row);
+    }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+/**
+ * Receives the metrics of the reads of a csv, see
+ * {@link FileCsv#withListener(CsvListener)}. Listeners are called on the
+ * thread reading the csv, so they should return quickly.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface CsvListener {
+
+    /**
+     * Receives the metrics of a read once its records are closed.
+     *
+     * @param metrics The metrics of the read.
+     */
+    void read(CsvMetrics metrics);
+
+    /**
+     * Receives an error as soon as it happens, before it is thrown to the
+     * reader of the csv.
+     *
+     * @param row   The index of the row being read, from 0 after the
+     *              header, or -1 when the error happened before the first
+     *              row.
+     * @param error The error.
+     */
+    default void failed(final long row, final RuntimeException error) {
+    }
+
+}
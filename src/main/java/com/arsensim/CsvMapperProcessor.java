@@ -0,0 +1,543 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * An annotation processor that generates a {@link CsvRecordMapper} for each
+ * class annotated with {@link CsvMapped}.
+ * <p>
+ * The generated mapper binds columns the way {@link ReflectiveCsvRecordMapper}
+ * does: names are matched ignoring case and spaces, values are converted by
+ * a {@link CsvConverters} registry, {@code int}, {@code long} and
+ * {@code double} properties are parsed without boxing and empty values
+ * leave primitive properties untouched. Instead of reflective accessors it
+ * calls the setters in a {@code switch} over the bound columns, so the
+ * calls are plain invocations that the JIT can inline.
+ * <p>
+ * A class with an accessible no-arg constructor is populated through its
+ * single argument {@code set*} methods. Any other class, such as a record
+ * or an immutable class, is created through its accessible constructor
+ * with the most parameters, whose parameter names are matched to the
+ * columns. Parameters without a column get {@code 0}, {@code false} or
+ * {@code null}.
+ * <p>
+ * The processor is registered as a service, so it runs whenever this
+ * library is on the compile classpath.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@SupportedAnnotationTypes("com.arsensim.CsvMapped")
+public final class CsvMapperProcessor extends AbstractProcessor {
+
+    /**
+     * The suffix of the name of a generated mapper.
+     */
+    static final String SUFFIX = "CsvRecordMapper";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment round) {
+        for (final Element element : round.getElementsAnnotatedWith(CsvMapped.class)) {
+            try {
+                this.generate((TypeElement) element);
+            } catch (final CsvException e) {
+                this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR, e.getMessage(), element
+                );
+            } catch (final IOException e) {
+                this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR,
+                        String.format("Could not write the mapper of %s: %s", element, e.getMessage()),
+                        element
+                );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives the name of the mapper generated for a class: its binary name
+     * with {@code _} for nesting and a {@link #SUFFIX}.
+     *
+     * @param binary The binary name of the class.
+     * @return The binary name of the mapper.
+     */
+    static String mapper(final String binary) {
+        final int dot = binary.lastIndexOf('.');
+        return binary.substring(0, dot + 1) + binary.substring(dot + 1).replace('$', '_') + SUFFIX;
+    }
+
+    /**
+     * Writes the mapper of a class.
+     *
+     * @param type The annotated class.
+     * @throws IOException when the source cannot be written.
+     * @throws CsvException when the class cannot be mapped.
+     */
+    private void generate(final TypeElement type) throws IOException {
+        final Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS && !"RECORD".equals(type.getKind().name())
+                || modifiers.contains(Modifier.ABSTRACT)
+                || modifiers.contains(Modifier.PRIVATE)
+                || type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC)) {
+            throw new CsvException(
+                    String.format("Class %s must be a concrete, non-private, top level or static class", type)
+            );
+        }
+        final PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(type);
+        ExecutableElement constructor = null;
+        for (final ExecutableElement candidate : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (candidate.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (candidate.getParameters().isEmpty()) {
+                constructor = candidate;
+                break;
+            }
+            if (constructor == null || candidate.getParameters().size() > constructor.getParameters().size()) {
+                constructor = candidate;
+            }
+        }
+        if (constructor == null) {
+            throw new CsvException(
+                    String.format("No accessible constructor found in class %s", type)
+            );
+        }
+        final List<Slot> slots = new ArrayList<>();
+        if (constructor.getParameters().isEmpty()) {
+            this.setters(type, pkg).forEach(
+                    (name, method) -> slots.add(
+                            new Slot(name, method.getSimpleName().toString(), method.getParameters().get(0).asType())
+                    )
+            );
+        } else {
+            for (final VariableElement parameter : constructor.getParameters()) {
+                slots.add(new Slot(normalize(parameter.getSimpleName().toString()), null, parameter.asType()));
+            }
+        }
+        final String binary = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        final String name = mapper(binary);
+        try (final Writer writer = this.processingEnv.getFiler().createSourceFile(name, type).openWriter()) {
+            writer.write(this.source(type, pkg, name.substring(name.lastIndexOf('.') + 1), slots));
+        }
+    }
+
+    /**
+     * Resolves the single argument setters of a class and its superclasses
+     * the way {@link ReflectiveCsvRecordMapper} does. Setters that the
+     * generated mapper cannot call are left out with a warning.
+     *
+     * @param type The class.
+     * @param pkg  The package of the generated mapper.
+     * @return The setters keyed by normalized name, in declaration order.
+     */
+    private Map<String, ExecutableElement> setters(final TypeElement type, final PackageElement pkg) {
+        final Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+        for (TypeElement current = type; current != null
+                && !current.getQualifiedName().contentEquals("java.lang.Object"); current = superclass(current)) {
+            for (final ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (method.getParameters().size() != 1
+                        || !method.getSimpleName().toString().startsWith("set")
+                        || method.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                final String name = normalize(method.getSimpleName().toString().substring(3));
+                final ExecutableElement known = methods.get(name);
+                if (known == null
+                        || known.getEnclosingElement().equals(method.getEnclosingElement())
+                        && method.getParameters().get(0).asType().toString().equals("java.lang.String")) {
+                    methods.put(name, method);
+                }
+            }
+        }
+        methods.values().removeIf(method -> {
+            final Set<Modifier> modifiers = method.getModifiers();
+            final boolean hidden = modifiers.contains(Modifier.PRIVATE)
+                    || !modifiers.contains(Modifier.PUBLIC)
+                    && !this.processingEnv.getElementUtils().getPackageOf(method).equals(pkg);
+            if (hidden) {
+                this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.WARNING,
+                        String.format("Setter %s is not accessible to the generated mapper and is ignored", method),
+                        method
+                );
+            }
+            return hidden;
+        });
+        return methods;
+    }
+
+    /**
+     * Writes the source of a mapper.
+     *
+     * @param type  The mapped class.
+     * @param pkg   The package of the mapper.
+     * @param name  The simple name of the mapper.
+     * @param slots The properties or constructor parameters.
+     * @return The source.
+     */
+    private String source(final TypeElement type, final PackageElement pkg,
+                          final String name, final List<Slot> slots) {
+        final String target = this.processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        final boolean creating = !slots.isEmpty() && slots.get(0).setter == null;
+        final Source out = new Source();
+        if (!pkg.isUnnamed()) {
+            out.line("package %s;", pkg.getQualifiedName()).line("");
+        }
+        out.line("import com.arsensim.CsvConverter;")
+                .line("import com.arsensim.CsvConverters;")
+                .line("import com.arsensim.CsvException;")
+                .line("import com.arsensim.CsvRecord;")
+                .line("import com.arsensim.CsvRecordMapper;")
+                .line("import java.util.Locale;")
+                .line("import java.util.Set;")
+                .line("")
+                .line("/**")
+                .line(" * Maps csv records to {@link %s}. Generated by {@link com.arsensim.CsvMapperProcessor}.", target)
+                .line(" */")
+                .line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})")
+                .line("public final class %s implements CsvRecordMapper<String, %s> {", name, target)
+                .line("")
+                .line("    private final CsvConverters converters;")
+                .line("")
+                .line("    private volatile Layout layout;")
+                .line("")
+                .line("    public %s() {", name)
+                .line("        this(new CsvConverters());")
+                .line("    }")
+                .line("")
+                .line("    public %s(final CsvConverters converters) {", name)
+                .line("        this.converters = converters;")
+                .line("    }")
+                .line("")
+                .line("    @Override")
+                .line("    public %s map(final CsvRecord<String> record) {", target)
+                .line("        final Layout current = this.layout(record.columns());");
+        if (creating) {
+            for (int i = 0; i < slots.size(); i++) {
+                final TypeMirror kind = slots.get(i).type;
+                out.line("        %s a%d = %s;", this.erasure(kind), i, fallback(kind));
+            }
+        } else {
+            out.line("        final %s target = new %s();", target, target);
+        }
+        out.line("        for (int i = 0; i < current.slots.length; i++) {")
+                .line("            final CharSequence value = record.chars(current.columns[i]);")
+                .line("            final CsvConverter converter = current.converters[i];")
+                .line("            try {")
+                .line("                switch (current.slots[i]) {");
+        for (int i = 0; i < slots.size(); i++) {
+            out.line("                    case %d:", i);
+            this.assignment(out, slots.get(i), i);
+            out.line("                        break;");
+        }
+        out.line("                    default:")
+                .line("                        break;")
+                .line("                }")
+                .line("            } catch (final CsvException e) {")
+                .line("                throw e;")
+                .line("            } catch (final RuntimeException e) {")
+                .line("                throw new CsvException(")
+                .line("                        String.format(")
+                .line("                                \"Could not set value for object of class %%s using csv column %%s\",")
+                .line("                                %s.class,", target)
+                .line("                                current.columns[i]")
+                .line("                        ),")
+                .line("                        e")
+                .line("                );")
+                .line("            }")
+                .line("        }");
+        if (creating) {
+            final StringBuilder arguments = new StringBuilder();
+            for (int i = 0; i < slots.size(); i++) {
+                if (i > 0) {
+                    arguments.append(", ");
+                }
+                arguments.append('a').append(i);
+            }
+            out.line("        return new %s(%s);", target, arguments);
+        } else {
+            out.line("        return target;");
+        }
+        out.line("    }")
+                .line("")
+                .line("    private Layout layout(final Set<String> columns) {")
+                .line("        final Layout current = this.layout;")
+                .line("        if (current != null")
+                .line("                && (current.header == columns || current.header.equals(columns))) {")
+                .line("            return current;")
+                .line("        }")
+                .line("        final Layout resolved = new Layout(columns, this.converters);")
+                .line("        this.layout = resolved;")
+                .line("        return resolved;")
+                .line("    }")
+                .line("")
+                .line("    private static int slot(final String name) {")
+                .line("        switch (name) {");
+        for (int i = 0; i < slots.size(); i++) {
+            out.line("            case \"%s\":", slots.get(i).name)
+                    .line("                return %d;", i);
+        }
+        out.line("            default:")
+                .line("                return -1;")
+                .line("        }")
+                .line("    }")
+                .line("")
+                .line("    private static CsvConverter converter(final int slot, final CsvConverters converters) {")
+                .line("        switch (slot) {");
+        for (int i = 0; i < slots.size(); i++) {
+            final TypeMirror kind = slots.get(i).type;
+            out.line("            case %d:", i);
+            if (direct(kind)) {
+                out.line("                return converters.registered(%s.class) ? converters.converter(%<s.class) : null;", kind);
+            } else {
+                out.line("                return converters.converter(%s.class);", this.erasure(kind));
+            }
+        }
+        out.line("            default:")
+                .line("                return null;")
+                .line("        }")
+                .line("    }")
+                .line("")
+                .line("    private static final class Layout {")
+                .line("")
+                .line("        private final Set<String> header;")
+                .line("        private final String[] columns;")
+                .line("        private final int[] slots;")
+                .line("        private final CsvConverter[] converters;")
+                .line("")
+                .line("        Layout(final Set<String> header, final CsvConverters converters) {")
+                .line("            this.header = header;")
+                .line("            this.columns = header.toArray(new String[0]);")
+                .line("            this.slots = new int[this.columns.length];")
+                .line("            this.converters = new CsvConverter[this.columns.length];")
+                .line("            for (int i = 0; i < this.columns.length; i++) {")
+                .line("                final int slot = slot(this.columns[i].toLowerCase(Locale.ROOT).replace(\" \", \"\"));")
+                .line("                if (slot < 0) {")
+                .line("                    throw new CsvException(")
+                .line("                            String.format(")
+                .line("                                    \"No appropriate %s found for csv column %%s in class %%s\",",
+                        creating ? "constructor parameter" : "setter method")
+                .line("                                    this.columns[i],")
+                .line("                                    %s.class", target)
+                .line("                            )")
+                .line("                    );")
+                .line("                }")
+                .line("                this.slots[i] = slot;")
+                .line("                this.converters[i] = converter(slot, converters);")
+                .line("            }")
+                .line("        }")
+                .line("")
+                .line("    }")
+                .line("")
+                .line("}");
+        return out.toString();
+    }
+
+    /**
+     * Writes the conversion of a value and its assignment to a property or
+     * to a constructor argument.
+     *
+     * @param out   The source.
+     * @param slot  The property or constructor parameter.
+     * @param index The index of the slot.
+     */
+    private void assignment(final Source out, final Slot slot, final int index) {
+        final String store = slot.setter == null
+                ? "                        a" + index + " = %s;"
+                : "                        target." + slot.setter + "(%s);";
+        final String indented = "    " + store;
+        if (direct(slot.type)) {
+            final String parse = slot.type.getKind() == TypeKind.INT ? "parseInt"
+                    : slot.type.getKind() == TypeKind.LONG ? "parseLong" : "parseDouble";
+            out.line("                        if (converter == null) {")
+                    .line("                            if (value.length() > 0) {")
+                    .line("        " + store, "CsvConverters." + parse + "(value)")
+                    .line("                            }")
+                    .line("                        } else {")
+                    .line("                            final Object converted = converter.convert(value);")
+                    .line("                            if (converted != null) {")
+                    .line("        " + store, "(" + this.boxed(slot.type) + ") converted")
+                    .line("                            }")
+                    .line("                        }");
+        } else if (slot.type.getKind().isPrimitive()) {
+            out.line("                        final Object converted = converter.convert(value);")
+                    .line("                        if (converted != null) {")
+                    .line(indented, "(" + this.boxed(slot.type) + ") converted")
+                    .line("                        }");
+        } else {
+            out.line(store, "(" + this.erasure(slot.type) + ") converter.convert(value)");
+        }
+    }
+
+    /**
+     * Gives the erasure of a type as source.
+     *
+     * @param type The type.
+     * @return The erased type name.
+     */
+    private String erasure(final TypeMirror type) {
+        return this.processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    /**
+     * Gives the wrapper of a primitive type as source.
+     *
+     * @param type The primitive type.
+     * @return The wrapper type name.
+     */
+    private String boxed(final TypeMirror type) {
+        return this.processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+    }
+
+    /**
+     * Tells whether values of a type are parsed without boxing unless a
+     * converter was registered for it.
+     *
+     * @param type The type.
+     * @return Whether the type is {@code int}, {@code long} or {@code double}.
+     */
+    private static boolean direct(final TypeMirror type) {
+        final TypeKind kind = type.getKind();
+        return kind == TypeKind.INT || kind == TypeKind.LONG || kind == TypeKind.DOUBLE;
+    }
+
+    /**
+     * Gives the default value of a type as source.
+     *
+     * @param type The type.
+     * @return The default value.
+     */
+    private static String fallback(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "(" + type + ") 0";
+            default:
+                return "null";
+        }
+    }
+
+    /**
+     * Gives the superclass of a class.
+     *
+     * @param type The class.
+     * @return The superclass or {@code null}.
+     */
+    private static TypeElement superclass(final TypeElement type) {
+        final TypeMirror parent = type.getSuperclass();
+        if (parent.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) parent).asElement();
+    }
+
+    /**
+     * Normalizes a name the way {@link ReflectiveCsvRecordMapper} does.
+     *
+     * @param name The name.
+     * @return The name in lower case without spaces.
+     */
+    private static String normalize(final String name) {
+        return name.toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    /**
+     * A property or a constructor parameter of the mapped class.
+     */
+    private static final class Slot {
+
+        private final String name;
+        private final String setter;
+        private final TypeMirror type;
+
+        Slot(final String name, final String setter, final TypeMirror type) {
+            this.name = name;
+            this.setter = setter;
+            this.type = type;
+        }
+
+    }
+
+    /**
+     * The source of a generated class, written line by line.
+     */
+    private static final class Source {
+
+        private final StringBuilder text = new StringBuilder();
+
+        Source line(final String format, final Object... args) {
+            this.text.append(String.format(format, args)).append('\n');
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return this.text.toString();
+        }
+
+    }
+
+}
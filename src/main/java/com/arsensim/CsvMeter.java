@@ -0,0 +1,283 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Measures one read of a csv file for a {@link CsvListener}, and reports
+ * its {@link CsvMetrics} when closed. A meter is used by the reading thread
+ * only.
+ * <p>
+ * The clock is read once when a record is ready and once when it is
+ * mapped, and each stage is charged the time since the previous reading,
+ * so the time the consumer spends between two records is charged to
+ * tokenizing the next one.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class CsvMeter implements AutoCloseable {
+
+    private static final int SLOWEST = 5;
+
+    private final CsvListener listener;
+    private final Path file;
+    private final long started;
+    private long mark;
+    private long read;
+    private final long thread;
+    private final long allocation;
+    private final long[] slowRows;
+    private final long[] slowNanos;
+    private int slow;
+    private long row;
+    private long current;
+    private long currentRow;
+    private long rows;
+    private long bytes;
+    private long errors;
+    private long reading;
+    private long tokenizing;
+    private long mapping;
+    private boolean closed;
+
+    /**
+     * Primary constructor, which starts the measure.
+     *
+     * @param listener The listener to report to.
+     * @param file     The file read.
+     * @param first    The index of the first row read.
+     */
+    CsvMeter(final CsvListener listener, final Path file, final long first) {
+        this.listener = listener;
+        this.file = file;
+        this.started = System.nanoTime();
+        this.mark = this.started;
+        this.thread = Thread.currentThread().getId();
+        this.allocation = allocated();
+        this.slowRows = new long[SLOWEST];
+        this.slowNanos = new long[SLOWEST];
+        this.row = first - 1L;
+    }
+
+    /**
+     * Counts the bytes read from an input and the time spent waiting for
+     * them.
+     *
+     * @param input The input.
+     * @return The measured input.
+     */
+    InputStream input(final InputStream input) {
+        return new Metered(input);
+    }
+
+    /**
+     * Counts a row that was tokenized, whether or not it is handed to the
+     * reader.
+     */
+    void tokenized() {
+        this.row++;
+    }
+
+    /**
+     * Accounts for a record that is ready to be handed to the reader, or
+     * for the end of the file.
+     *
+     * @param found Whether there is a record.
+     */
+    void delivered(final boolean found) {
+        this.finish();
+        final long now = System.nanoTime();
+        final long spent = now - this.mark;
+        this.tokenizing += spent - (this.reading - this.read);
+        this.mark = now;
+        this.read = this.reading;
+        if (found) {
+            this.current = spent;
+            this.currentRow = this.row;
+            this.rows++;
+        }
+    }
+
+    /**
+     * Maps a record, accounting for the time spent in the mapper.
+     *
+     * @param mapper The mapper.
+     * @param record The record.
+     * @param <I>    The type of header.
+     * @param <E>    The type to which the record is mapped.
+     * @return The mapped record.
+     */
+    <I, E> E map(final Function<CsvRecord<I>, ? extends E> mapper, final CsvRecord<I> record) {
+        final E mapped;
+        try {
+            mapped = mapper.apply(record);
+        } catch (final RuntimeException e) {
+            this.failed(e);
+            throw e;
+        }
+        final long now = System.nanoTime();
+        final long spent = now - this.mark;
+        this.mapping += spent;
+        this.current += spent;
+        this.mark = now;
+        return mapped;
+    }
+
+    /**
+     * Counts an error and passes it to the listener.
+     *
+     * @param error The error.
+     */
+    void failed(final RuntimeException error) {
+        this.errors++;
+        this.listener.failed(this.row, error);
+    }
+
+    /**
+     * Reports the metrics of the read, once.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.finish();
+        final long elapsed = System.nanoTime() - this.started;
+        final long allocated = this.allocation >= 0L && Thread.currentThread().getId() == this.thread
+                ? allocated() - this.allocation
+                : -1L;
+        final List<CsvMetrics.SlowRow> slowest = new ArrayList<>(this.slow);
+        for (int i = 0; i < this.slow; i++) {
+            slowest.add(new CsvMetrics.SlowRow(this.slowRows[i], Duration.ofNanos(this.slowNanos[i])));
+        }
+        this.listener.read(
+                new CsvMetrics(
+                        this.file, this.rows, this.bytes, this.errors,
+                        Duration.ofNanos(this.reading), Duration.ofNanos(this.tokenizing),
+                        Duration.ofNanos(this.mapping), Duration.ofNanos(elapsed), allocated,
+                        Collections.unmodifiableList(slowest)
+                )
+        );
+    }
+
+    /**
+     * Ranks the row that was last delivered among the slowest rows, which
+     * are kept sorted, slowest first. Rows skipped after it have moved the
+     * count of tokenized rows on already, so its index is the one kept when
+     * it was delivered.
+     */
+    private void finish() {
+        if (this.current == 0L) {
+            return;
+        }
+        int at = this.slow;
+        while (at > 0 && this.slowNanos[at - 1] < this.current) {
+            at--;
+        }
+        if (at < SLOWEST) {
+            final int moved = Math.min(this.slow, SLOWEST - 1) - at;
+            System.arraycopy(this.slowRows, at, this.slowRows, at + 1, moved);
+            System.arraycopy(this.slowNanos, at, this.slowNanos, at + 1, moved);
+            this.slowRows[at] = this.currentRow;
+            this.slowNanos[at] = this.current;
+            this.slow = Math.min(this.slow + 1, SLOWEST);
+        }
+        this.current = 0L;
+    }
+
+    /**
+     * Gives the bytes allocated by the current thread so far.
+     *
+     * @return The allocated bytes, or -1 when the JVM does not tell.
+     */
+    private static long allocated() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (final LinkageError | UnsupportedOperationException e) {
+            return -1L;
+        }
+        return -1L;
+    }
+
+    /**
+     * An input counting the bytes read and the time spent reading them.
+     */
+    private final class Metered extends FilterInputStream {
+
+        Metered(final InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long start = System.nanoTime();
+            final int read = super.read();
+            CsvMeter.this.reading += System.nanoTime() - start;
+            if (read >= 0) {
+                CsvMeter.this.bytes++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final long start = System.nanoTime();
+            final int read = super.read(buffer, offset, length);
+            CsvMeter.this.reading += System.nanoTime() - start;
+            if (read > 0) {
+                CsvMeter.this.bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            final long skipped = super.skip(count);
+            CsvMeter.this.bytes += skipped;
+            return skipped;
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How a read of a csv file went: how many rows and bytes were read, and
+ * how the time was split between reading the file, tokenizing it and
+ * mapping the records. Reading is the time the parser spent waiting for
+ * bytes, which includes decompression and, with a {@link ReadAhead}, only
+ * the waits for the reading thread. Mapping is only measured when the
+ * records are mapped by the csv itself.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvMetrics {
+
+    private final Path file;
+    private final long rows;
+    private final long bytes;
+    private final long errors;
+    private final Duration reading;
+    private final Duration tokenizing;
+    private final Duration mapping;
+    private final Duration elapsed;
+    private final long allocated;
+    private final List<SlowRow> slowest;
+
+    /**
+     * Primary constructor.
+     *
+     * @param file       The file read.
+     * @param rows       The number of records read.
+     * @param bytes      The number of bytes handed to the parser.
+     * @param errors     The number of errors.
+     * @param reading    The time spent waiting for bytes.
+     * @param tokenizing The time spent tokenizing.
+     * @param mapping    The time spent mapping.
+     * @param elapsed    The time from opening to closing the records.
+     * @param allocated  The bytes allocated by the reading thread, or -1
+     *                   when unknown.
+     * @param slowest    The slowest rows, slowest first.
+     */
+    CsvMetrics(final Path file, final long rows, final long bytes, final long errors,
+               final Duration reading, final Duration tokenizing, final Duration mapping,
+               final Duration elapsed, final long allocated, final List<SlowRow> slowest) {
+        this.file = file;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.errors = errors;
+        this.reading = reading;
+        this.tokenizing = tokenizing;
+        this.mapping = mapping;
+        this.elapsed = elapsed;
+        this.allocated = allocated;
+        this.slowest = slowest;
+    }
+
+    /**
+     * @return The file read.
+     */
+    public Path file() {
+        return this.file;
+    }
+
+    /**
+     * @return The number of records read, after filters.
+     */
+    public long rows() {
+        return this.rows;
+    }
+
+    /**
+     * @return The number of bytes handed to the parser, after
+     * decompression.
+     */
+    public long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * @return The number of errors raised while reading or mapping.
+     */
+    public long errors() {
+        return this.errors;
+    }
+
+    /**
+     * @return The time the parser waited for bytes.
+     */
+    public Duration reading() {
+        return this.reading;
+    }
+
+    /**
+     * @return The time spent tokenizing, without the waits for bytes.
+     */
+    public Duration tokenizing() {
+        return this.tokenizing;
+    }
+
+    /**
+     * @return The time spent in the mapper.
+     */
+    public Duration mapping() {
+        return this.mapping;
+    }
+
+    /**
+     * @return The time from opening to closing the records.
+     */
+    public Duration elapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * @return The bytes allocated by the reading thread while the records
+     * were open, or -1 when the JVM does not tell or the records were
+     * closed on another thread.
+     */
+    public long allocated() {
+        return this.allocated;
+    }
+
+    /**
+     * @return The rows that took longest to tokenize and map, slowest
+     * first.
+     */
+    public List<SlowRow> slowest() {
+        return this.slowest;
+    }
+
+    /**
+     * @return The number of records read per second.
+     */
+    public double rowsPerSecond() {
+        return rate(this.rows, this.elapsed);
+    }
+
+    /**
+     * @return The number of bytes read per second.
+     */
+    public double bytesPerSecond() {
+        return rate(this.bytes, this.elapsed);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CsvMetrics{file=%s, rows=%d, bytes=%d, errors=%d, reading=%s, tokenizing=%s, mapping=%s, elapsed=%s, allocated=%d, slowest=%s}",
+                this.file, this.rows, this.bytes, this.errors, this.reading, this.tokenizing,
+                this.mapping, this.elapsed, this.allocated, this.slowest
+        );
+    }
+
+    /**
+     * Gives a count per second.
+     *
+     * @param count   The count.
+     * @param elapsed The time over which it was counted.
+     * @return The count per second, or 0 when no time elapsed.
+     */
+    private static double rate(final long count, final Duration elapsed) {
+        final long nanos = elapsed.toNanos();
+        if (nanos == 0L) {
+            return 0.0;
+        }
+        return count * 1e9 / nanos;
+    }
+
+    /**
+     * A row that took long to tokenize and map.
+     */
+    public static final class SlowRow {
+
+        private final long row;
+        private final Duration duration;
+
+        /**
+         * Primary constructor.
+         *
+         * @param row      The index of the row, from 0 after the header.
+         * @param duration The time spent on the row.
+         */
+        SlowRow(final long row, final Duration duration) {
+            this.row = row;
+            this.duration = duration;
+        }
+
+        /**
+         * @return The index of the row, from 0 after the header.
+         */
+        public long row() {
+            return this.row;
+        }
+
+        /**
+         * @return The time spent tokenizing and mapping the row.
+         */
+        public Duration duration() {
+            return this.duration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d=%s", this.row, this.duration);
+        }
+
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The format of a csv file as found by a {@link CsvSniffer}: its dialect,
+ * charset, line separator, whether it starts with a header, and the type
+ * of the values of each column. It configures the csvs that read the file,
+ * or other files of the same feed, and converts their values to the types
+ * found.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvProfile {
+
+    private final CsvDialect dialect;
+    private final Charset charset;
+    private final String separator;
+    private final List<String> header;
+    private final List<Class<?>> types;
+
+    /**
+     * Primary constructor.
+     *
+     * @param dialect   The format of the csv.
+     * @param charset   The charset of the file.
+     * @param separator The line separator.
+     * @param header    The names of the columns, empty when the file has no
+     *                  header.
+     * @param types     The type of the values of each column.
+     */
+    CsvProfile(final CsvDialect dialect, final Charset charset, final String separator,
+               final List<String> header, final List<Class<?>> types) {
+        this.dialect = dialect;
+        this.charset = charset;
+        this.separator = separator;
+        this.header = Collections.unmodifiableList(new ArrayList<>(header));
+        this.types = Collections.unmodifiableList(new ArrayList<>(types));
+    }
+
+    public CsvDialect dialect() {
+        return this.dialect;
+    }
+
+    public Charset charset() {
+        return this.charset;
+    }
+
+    /**
+     * @return The line separator, {@code \n}, {@code \r\n} or {@code \r}.
+     */
+    public String lineSeparator() {
+        return this.separator;
+    }
+
+    /**
+     * @return Whether the first row of the file is a header.
+     */
+    public boolean headed() {
+        return !this.header.isEmpty();
+    }
+
+    /**
+     * @return The names of the columns, or an empty list when the file has
+     * no header.
+     */
+    public List<String> header() {
+        return this.header;
+    }
+
+    /**
+     * @return The type of the values of each column: {@code Integer},
+     * {@code Long}, {@code Double}, {@code Boolean}, a date or time type of
+     * {@code java.time}, or {@code String}.
+     */
+    public List<Class<?>> types() {
+        return this.types;
+    }
+
+    /**
+     * Gives the converter of the values of a column to its type.
+     *
+     * @param column     The index of the column.
+     * @param converters The registry of converters.
+     * @return The converter.
+     * @throws CsvException when the profile has no such column.
+     */
+    public CsvConverter<?> converter(final int column, final CsvConverters converters) {
+        if (column < 0 || column >= this.types.size()) {
+            throw new CsvException(
+                    String.format("Column %d is not present in csv of %d columns", column, this.types.size())
+            );
+        }
+        return converters.converter(this.types.get(column));
+    }
+
+    /**
+     * Gives a mapper of positional records to the values of their columns,
+     * converted to the types of the profile. Columns past the profile are
+     * kept as {@code String}.
+     *
+     * @param converters The registry of converters.
+     * @return The mapper.
+     */
+    public CsvRecordMapper<Integer, List<Object>> values(final CsvConverters converters) {
+        final CsvConverter<?>[] typed = new CsvConverter<?>[this.types.size()];
+        for (int column = 0; column < typed.length; column++) {
+            typed[column] = this.converter(column, converters);
+        }
+        return record -> {
+            final int size = record.columns().size();
+            final List<Object> values = new ArrayList<>(size);
+            for (int column = 0; column < size; column++) {
+                final CharSequence value = record.chars(column);
+                values.add(column < typed.length ? typed[column].convert(value) : value.toString());
+            }
+            return values;
+        };
+    }
+
+    /**
+     * Gives a csv reading a file of this format by column index, skipping
+     * the header when there is one.
+     *
+     * @param file The csv file.
+     * @param <E>  The type to which each csv record will be mapped.
+     * @return The csv.
+     */
+    public <E> FileCsv<E> positional(final Path file) {
+        final FileCsv<E> csv = new FileCsv<>(file, this.dialect, this.charset);
+        if (this.headed()) {
+            return csv.withRows(1L, Long.MAX_VALUE);
+        }
+        return csv;
+    }
+
+    /**
+     * Gives a csv reading a file of this format by column name.
+     *
+     * @param file The csv file.
+     * @param <E>  The type to which each csv record will be mapped.
+     * @return The csv.
+     * @throws CsvException when the profile found no header.
+     */
+    public <E> HeadedFileCsv<E> headed(final Path file) {
+        if (!this.headed()) {
+            throw new CsvException(
+                    String.format("Csv profile has no header to read file %s by column name", file)
+            );
+        }
+        return new HeadedFileCsv<>(file, this.dialect, this.charset);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CsvProfile{dialect=%s, charset=%s, header=%s, types=%s}",
+                this.dialect,
+                this.charset,
+                this.header,
+                this.types
+        );
+    }
+
+}
@@ -24,6 +24,7 @@
 package com.arsensim;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A record in a csv.
@@ -35,4 +36,39 @@ public interface CsvRecord<I> {
     String get(I column);
 
     Map<I, String> toMap();
+
+    /**
+     * Gives the characters of a column. Implementations may return a view of
+     * a buffer that is only valid while this record is being mapped, which
+     * spares creating a {@code String} for values that are converted to
+     * other types.
+     *
+     * @param column The column.
+     * @return The characters of the value.
+     */
+    default CharSequence chars(final I column) {
+        return this.get(column);
+    }
+
+    /**
+     * Gives the columns of this record. Records of one csv should return
+     * equal sets, ideally the same instance, so that mappers can resolve
+     * them once and reuse the result.
+     *
+     * @return The columns present in this record.
+     */
+    default Set<I> columns() {
+        return this.toMap().keySet();
+    }
+
+    /**
+     * Gives a copy of this record that stays valid after the mapping of the
+     * record is done. Records that are not backed by reused buffers are
+     * immutable and return themselves.
+     *
+     * @return A record that can be retained.
+     */
+    default CsvRecord<I> copy() {
+        return this;
+    }
 }
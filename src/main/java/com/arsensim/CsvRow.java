@@ -0,0 +1,70 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+/**
+ * A csv row being written. Values are appended field by field straight
+ * into the buffer of the writer, quoted when needed.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public interface CsvRow {
+
+    /**
+     * Appends a text field.
+     *
+     * @param value The characters of the field, or {@code null} for an
+     *              empty field.
+     * @return This row.
+     */
+    CsvRow add(CharSequence value);
+
+    /**
+     * Appends an integer field without creating a {@code String}.
+     *
+     * @param value The value of the field.
+     * @return This row.
+     */
+    CsvRow add(long value);
+
+    /**
+     * Appends a floating point field.
+     *
+     * @param value The value of the field.
+     * @return This row.
+     */
+    CsvRow add(double value);
+
+    /**
+     * Appends a field holding the {@code toString} of a value.
+     *
+     * @param value The value of the field, or {@code null} for an empty
+     *              field.
+     * @return This row.
+     */
+    CsvRow add(Object value);
+
+}
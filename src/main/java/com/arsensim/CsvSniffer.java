@@ -0,0 +1,441 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the format of a csv file from a sample at its start, so that files
+ * of an unknown feed can be read without a first pass over all of them.
+ * The sample is decompressed when the file is compressed, and a byte order
+ * mark overrides the assumed charset.
+ * <p>
+ * The delimiter is the candidate splitting the sampled rows into the most
+ * consistent number of fields, more than one. Quotes are double quotes
+ * unless the sample has none and fields are enclosed in single quotes, and
+ * are escaped by a backslash when the sample has backslashed quotes and no
+ * doubled ones. The first row is taken as a header when its values do not
+ * fit the types of the columns below, or, for text columns, when they have
+ * another length than values of a fixed length below. When this is
+ * undecided, the first row is a header when its values are distinct, not
+ * empty and do not occur again in their column. A sample of one row is
+ * never headed.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvSniffer {
+
+    private static final int SAMPLE = 16 << 10;
+
+    private static final List<String> DELIMITERS = Arrays.asList(",", ";", "\t", "|", ":");
+
+    /**
+     * The types tried for the values of a column, from the narrowest to the
+     * widest.
+     */
+    private static final List<Class<?>> TYPES = Arrays.asList(
+            Integer.class, Long.class, Double.class, Boolean.class,
+            LocalDate.class, LocalDateTime.class, OffsetDateTime.class, String.class
+    );
+
+    /**
+     * The types of numbers, which are only tried for values written as
+     * {@link ColumnVector#number(CharSequence)} tells.
+     */
+    private static final List<Class<?>> NUMBERS = Arrays.asList(
+            Integer.class, Long.class, Double.class
+    );
+
+    private static final CsvConverters CONVERTERS = new CsvConverters();
+
+    private final int sample;
+    private final Charset charset;
+
+    /**
+     * Creates a sniffer reading the first 16 KB of files in UTF-8.
+     */
+    public CsvSniffer() {
+        this(SAMPLE, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param sample  The number of bytes read from the start of a file.
+     * @param charset The charset assumed when a file has no byte order mark.
+     */
+    private CsvSniffer(final int sample, final Charset charset) {
+        if (sample < 1) {
+            throw new CsvException(
+                    String.format("Sample size must be positive but was %d", sample)
+            );
+        }
+        this.sample = sample;
+        this.charset = charset;
+    }
+
+    /**
+     * @param bytes The number of bytes read from the start of a file.
+     * @return The same sniffer reading samples of the given size.
+     */
+    public CsvSniffer withSample(final int bytes) {
+        return new CsvSniffer(bytes, this.charset);
+    }
+
+    /**
+     * @param assumed The charset assumed when a file has no byte order mark.
+     * @return The same sniffer decoding samples in the given charset.
+     */
+    public CsvSniffer withCharset(final Charset assumed) {
+        return new CsvSniffer(this.sample, assumed);
+    }
+
+    /**
+     * Finds the format of a csv file.
+     *
+     * @param file The csv file.
+     * @return The format of the file.
+     * @throws CsvException when the file cannot be read.
+     */
+    public CsvProfile sniff(final Path file) {
+        if (!Files.exists(file)) {
+            throw new CsvException(
+                    String.format("File %s not found", file)
+            );
+        }
+        final byte[] bytes = new byte[this.sample];
+        int count = 0;
+        final boolean truncated;
+        final Charset encoding;
+        try (final InputStream content = Compression.open(Files.newInputStream(file))) {
+            final PushbackInputStream input = new PushbackInputStream(content, FileRecords.BOM_SIZE);
+            encoding = FileRecords.bom(input, this.charset);
+            while (count < bytes.length) {
+                final int read = input.read(bytes, count, bytes.length - count);
+                if (read < 0) {
+                    break;
+                }
+                count += read;
+            }
+            truncated = count == bytes.length && input.read() >= 0;
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", file),
+                    e
+            );
+        }
+        return sniff(new String(bytes, 0, count, encoding), truncated, encoding);
+    }
+
+    /**
+     * Finds the format of a sample of csv.
+     *
+     * @param text      The sample.
+     * @param truncated Whether the file goes on after the sample, so that its
+     *                  last row may be incomplete.
+     * @param encoding  The charset of the file.
+     * @return The format of the sample.
+     */
+    private static CsvProfile sniff(final String text, final boolean truncated, final Charset encoding) {
+        CsvDialect dialect = new CsvDialect(DELIMITERS.get(0));
+        List<String[]> rows = Collections.emptyList();
+        double best = -1.0;
+        for (final String delimiter : DELIMITERS) {
+            final CsvDialect candidate = new CsvDialect(delimiter);
+            final List<String[]> split = rows(text, candidate, truncated);
+            final double score = score(split);
+            if (score > best) {
+                best = score;
+                dialect = candidate;
+                rows = split;
+            }
+        }
+        final CsvDialect quoted = quoting(text, dialect);
+        if (quoted != dialect) {
+            dialect = quoted;
+            rows = rows(text, dialect, truncated);
+        }
+        final int width = width(rows);
+        final List<String[]> complete = new ArrayList<>(rows.size());
+        for (final String[] row : rows) {
+            if (row.length == width) {
+                complete.add(row);
+            }
+        }
+        final List<String> header;
+        final List<Class<?>> types;
+        if (complete.size() > 1 && headed(complete, types(complete.subList(1, complete.size()), width))) {
+            header = Arrays.asList(complete.get(0));
+            types = types(complete.subList(1, complete.size()), width);
+        } else {
+            header = Collections.emptyList();
+            types = types(complete, width);
+        }
+        return new CsvProfile(dialect, encoding, separator(text), header, types);
+    }
+
+    /**
+     * Tokenizes the rows of a sample, stopping at the first that cannot be
+     * tokenized, which may be the last one cut in a quoted field.
+     *
+     * @param text      The sample.
+     * @param dialect   The format to try.
+     * @param truncated Whether the last row may be incomplete and is dropped
+     *                  when it was tokenized.
+     * @return The values of the rows.
+     */
+    private static List<String[]> rows(final String text, final CsvDialect dialect,
+                                       final boolean truncated) {
+        final List<String[]> rows = new ArrayList<>();
+        boolean failed = false;
+        try (final CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(text), dialect)) {
+            while (tokenizer.next()) {
+                rows.add(tokenizer.toArray());
+            }
+        } catch (final CsvException e) {
+            failed = true;
+        }
+        if (truncated && !failed && rows.size() > 1) {
+            rows.remove(rows.size() - 1);
+        }
+        return rows;
+    }
+
+    /**
+     * Scores how well a dialect splits the rows: the number of rows with the
+     * most common number of fields, plus a little for each field so that
+     * the wider of two consistent splits wins. Rows that could not be
+     * tokenized do not count, and a split into single fields scores zero.
+     *
+     * @param rows The values of the rows.
+     * @return The score.
+     */
+    private static double score(final List<String[]> rows) {
+        final int width = width(rows);
+        if (width < 2) {
+            return 0.0;
+        }
+        int consistent = 0;
+        for (final String[] row : rows) {
+            if (row.length == width) {
+                consistent++;
+            }
+        }
+        return consistent + width * 1e-6;
+    }
+
+    /**
+     * @param rows The values of the rows.
+     * @return The most common number of fields, the largest on a tie.
+     */
+    private static int width(final List<String[]> rows) {
+        final Map<Integer, Integer> counts = new HashMap<>();
+        int width = 0;
+        int most = 0;
+        for (final String[] row : rows) {
+            final int count = counts.merge(row.length, 1, Integer::sum);
+            if (count > most || count == most && row.length > width) {
+                most = count;
+                width = row.length;
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Switches to single quotes when the sample has no double quotes and
+     * encloses fields in single quotes, and to backslash escapes when quotes
+     * are backslashed and never doubled.
+     *
+     * @param text    The sample.
+     * @param dialect The dialect found so far, with double quotes.
+     * @return The dialect with the quoting of the sample.
+     */
+    private static CsvDialect quoting(final String text, final CsvDialect dialect) {
+        char quote = dialect.quote();
+        if (text.indexOf(quote) < 0) {
+            final String delimiter = Pattern.quote(dialect.delimiter());
+            final Pattern single = Pattern.compile(
+                    String.format("(?:^|[\\r\\n]|%s)'[^']*'(?:$|[\\r\\n]|%s)", delimiter, delimiter)
+            );
+            if (!single.matcher(text).find()) {
+                return dialect;
+            }
+            quote = '\'';
+        }
+        final String doubled = new String(new char[]{quote, quote});
+        final char escape = text.contains("\\" + quote) && !text.contains(doubled) ? '\\' : quote;
+        if (quote == dialect.quote() && escape == dialect.escape()) {
+            return dialect;
+        }
+        return new CsvDialect(dialect.delimiter(), quote, escape);
+    }
+
+    /**
+     * Finds the narrowest type that all non empty values of each column
+     * convert to.
+     *
+     * @param rows  The values of the rows, all of the given width.
+     * @param width The number of columns.
+     * @return The type of each column, {@code String} when it has no value.
+     */
+    private static List<Class<?>> types(final List<String[]> rows, final int width) {
+        final List<Class<?>> types = new ArrayList<>(width);
+        for (int column = 0; column < width; column++) {
+            int type = 0;
+            boolean valued = false;
+            for (final String[] row : rows) {
+                final String value = row[column];
+                if (value.isEmpty()) {
+                    continue;
+                }
+                valued = true;
+                while (!converts(value, TYPES.get(type))) {
+                    type++;
+                }
+            }
+            types.add(valued ? TYPES.get(type) : String.class);
+        }
+        return types;
+    }
+
+    /**
+     * Tells whether a value converts to a type. Numbers must be plain
+     * finite decimals, as in {@link ColumnVector}, so that codes such as
+     * {@code 00501} or {@code 7f} stay text rather than losing their
+     * characters.
+     *
+     * @param value A non empty value.
+     * @param type  A type.
+     * @return Whether the value converts to the type.
+     */
+    private static boolean converts(final String value, final Class<?> type) {
+        if (NUMBERS.contains(type) && !ColumnVector.number(value)) {
+            return false;
+        }
+        try {
+            final Object converted = CONVERTERS.converter(type).convert(value);
+            return !(converted instanceof Double) || !((Double) converted).isInfinite();
+        } catch (final CsvException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tells whether the first of the rows is a header, by letting each
+     * column vote.
+     *
+     * @param rows  The values of the rows, all of the same width and at
+     *              least two.
+     * @param types The types of the columns below the first row.
+     * @return Whether the first row is a header.
+     */
+    private static boolean headed(final List<String[]> rows, final List<Class<?>> types) {
+        final String[] first = rows.get(0);
+        final List<String[]> below = rows.subList(1, rows.size());
+        int votes = 0;
+        for (int column = 0; column < first.length; column++) {
+            final Class<?> type = types.get(column);
+            if (type != String.class) {
+                votes += !first[column].isEmpty() && converts(first[column], type) ? -1 : 1;
+                continue;
+            }
+            final int length = below.get(0)[column].length();
+            boolean fixed = true;
+            for (final String[] row : below) {
+                fixed &= row[column].length() == length;
+            }
+            if (fixed) {
+                votes += first[column].length() == length ? -1 : 1;
+            }
+        }
+        if (votes != 0) {
+            return votes > 0;
+        }
+        final Set<String> names = new HashSet<>();
+        for (int column = 0; column < first.length; column++) {
+            if (first[column].isEmpty() || !names.add(first[column])) {
+                return false;
+            }
+            for (final String[] row : below) {
+                if (row[column].equals(first[column])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param text The sample.
+     * @return The most common line separator, {@code \n} when there is none.
+     */
+    private static String separator(final String text) {
+        int crlf = 0;
+        int lf = 0;
+        int cr = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    crlf++;
+                    i++;
+                } else {
+                    cr++;
+                }
+            } else if (c == '\n') {
+                lf++;
+            }
+        }
+        if (crlf > lf && crlf >= cr) {
+            return "\r\n";
+        }
+        if (cr > lf) {
+            return "\r";
+        }
+        return "\n";
+    }
+
+}
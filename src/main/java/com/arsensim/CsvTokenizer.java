@@ -0,0 +1,166 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A single pass RFC 4180 tokenizer. It reads characters from a
+ * {@code Reader} into its own buffer and splits them into records and fields
+ * as {@link BufferedTokenizer} does. The values of the current record are
+ * unescaped into one shared character array, so a {@code String} is created
+ * only for the fields that are asked for.
+ * <p>
+ * This tokenizer works with any charset, decoded by the {@code Reader}.
+ * Input in UTF-8 or a single-byte charset is better served by
+ * {@link ByteCsvTokenizer}, which skips decoding the fields not asked for.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class CsvTokenizer extends BufferedTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private char[] row;
+
+    /**
+     * Primary constructor.
+     *
+     * @param reader  The source of characters. It is closed together with
+     *                the tokenizer.
+     * @param dialect The format of the csv.
+     */
+    CsvTokenizer(final Reader reader, final CsvDialect dialect) {
+        super(dialect);
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.row = new char[256];
+    }
+
+    @Override
+    public CharSequence chars(final int index, final CharView view) {
+        return view.reset(this.values(), this.start(index), this.end(index));
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.reader.close();
+        } catch (final IOException e) {
+            throw new CsvException("Exception while closing csv input", e);
+        }
+    }
+
+    @Override
+    int read(final int from) throws IOException {
+        return this.reader.read(this.buffer, from, this.buffer.length - from);
+    }
+
+    @Override
+    void compact(final int from, final int count) {
+        System.arraycopy(this.buffer, from, this.buffer, 0, count);
+    }
+
+    @Override
+    int unit(final int index) {
+        return this.buffer[index];
+    }
+
+    @Override
+    int skipPlain(final int from, final int to, final int separator) {
+        final char[] buf = this.buffer;
+        int i = from;
+        while (i < to) {
+            final char c = buf[i];
+            if (c == separator || c == '\n' || c == '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    int skipQuoted(final int from, final int to, final int quote, final int escape) {
+        final char[] buf = this.buffer;
+        int lines = 0;
+        int i = from;
+        while (i < to) {
+            final char c = buf[i];
+            if (c == quote || c == escape) {
+                break;
+            }
+            if (c == '\n') {
+                lines++;
+            }
+            i++;
+        }
+        this.breaks(lines);
+        return i;
+    }
+
+    @Override
+    void copy(final int from, final int count, final int length) {
+        if (length + count > this.row.length) {
+            this.row = Arrays.copyOf(this.row, Math.max(this.row.length * 2, length + count));
+        }
+        System.arraycopy(this.buffer, from, this.row, length, count);
+    }
+
+    @Override
+    void put(final int unit, final int length) {
+        if (length == this.row.length) {
+            this.row = Arrays.copyOf(this.row, this.row.length * 2);
+        }
+        this.row[length] = (char) unit;
+    }
+
+    @Override
+    String value(final int index) {
+        final int start = this.start(index);
+        final int end = this.end(index);
+        final ValueCache cache = this.cache(index);
+        if (cache != null) {
+            return cache.get(this.values(), start, end);
+        }
+        return new String(this.values(), start, end - start);
+    }
+
+    /**
+     * @return The characters the fields of the current record point into.
+     */
+    private char[] values() {
+        if (this.buffered()) {
+            return this.buffer;
+        }
+        return this.row;
+    }
+
+}
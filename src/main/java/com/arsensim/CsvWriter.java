@@ -0,0 +1,383 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes objects as csv rows, the counterpart of {@link Csv}. Each object
+ * is turned into fields by a {@link CsvRowMapper}, which appends them
+ * straight into one reused character buffer, so no {@code String} is built
+ * per row or per field. Fields holding the delimiter, the quote, the escape
+ * or a line break are quoted, with quotes and escapes escaped; the others
+ * are written as they are. Rows end with {@code \n}.
+ * <p>
+ * A writer is not thread safe. It must be closed, which flushes it.
+ *
+ * @param <E> the type of the objects written.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class CsvWriter<E> implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The longest text of a {@code long}.
+     */
+    private static final int LONG_SIZE = 20;
+
+    private final Writer writer;
+    private final CsvRowMapper<? super E> mapper;
+    private final char[] delimiter;
+    private final char quote;
+    private final char escape;
+    private final char[] buffer;
+    private final Row row;
+    private int length;
+
+    /**
+     * Creates a writer of a csv file in UTF-8, replacing the file.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param mapper  The mapper of objects to rows.
+     */
+    public CsvWriter(final Path file, final CsvDialect dialect,
+                     final CsvRowMapper<? super E> mapper) {
+        this(file, dialect, StandardCharsets.UTF_8, mapper);
+    }
+
+    /**
+     * Creates a writer of a csv file, replacing the file.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the csv file.
+     * @param mapper  The mapper of objects to rows.
+     */
+    public CsvWriter(final Path file, final CsvDialect dialect, final Charset charset,
+                     final CsvRowMapper<? super E> mapper) {
+        this(open(file), dialect, charset, mapper);
+    }
+
+    /**
+     * Creates a writer of csv to a stream.
+     *
+     * @param output  The stream, which is closed with the writer.
+     * @param dialect The format of the csv.
+     * @param charset The charset of the csv.
+     * @param mapper  The mapper of objects to rows.
+     */
+    public CsvWriter(final OutputStream output, final CsvDialect dialect, final Charset charset,
+                     final CsvRowMapper<? super E> mapper) {
+        this(new OutputStreamWriter(output, charset), dialect, mapper);
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param writer  The destination of the characters.
+     * @param dialect The format of the csv.
+     * @param mapper  The mapper of objects to rows.
+     */
+    private CsvWriter(final Writer writer, final CsvDialect dialect,
+                      final CsvRowMapper<? super E> mapper) {
+        this.writer = writer;
+        this.mapper = mapper;
+        this.delimiter = dialect.delimiter().toCharArray();
+        this.quote = dialect.quote();
+        this.escape = dialect.escape();
+        this.buffer = new char[BUFFER_SIZE];
+        this.row = new Row();
+    }
+
+    /**
+     * Writes a header row.
+     *
+     * @param columns The names of the columns, for example those of a
+     *                {@link ReflectiveCsvRowMapper}.
+     */
+    public void header(final List<String> columns) {
+        this.row.first = true;
+        for (final String column : columns) {
+            this.row.add(column);
+        }
+        this.put('\n');
+    }
+
+    /**
+     * Writes an object as a row.
+     *
+     * @param value The object.
+     */
+    public void write(final E value) {
+        this.row.first = true;
+        this.mapper.map(value, this.row);
+        this.put('\n');
+    }
+
+    /**
+     * Writes objects as rows.
+     *
+     * @param values The objects.
+     */
+    public void writeAll(final Iterable<? extends E> values) {
+        for (final E value : values) {
+            this.write(value);
+        }
+    }
+
+    /**
+     * Writes objects as rows, in the order of the stream.
+     *
+     * @param values The objects.
+     */
+    public void writeAll(final Stream<? extends E> values) {
+        values.forEachOrdered(this::write);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            this.drain();
+            this.writer.flush();
+        } catch (final IOException e) {
+            throw new CsvException("Exception while writing csv", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            try {
+                this.drain();
+            } finally {
+                this.writer.close();
+            }
+        } catch (final IOException e) {
+            throw new CsvException("Exception while writing csv", e);
+        }
+    }
+
+    /**
+     * Writes the buffer out and empties it.
+     *
+     * @throws IOException when the destination could not be written.
+     */
+    private void drain() throws IOException {
+        this.writer.write(this.buffer, 0, this.length);
+        this.length = 0;
+    }
+
+    /**
+     * Makes room for {@code count} more characters in the buffer, writing
+     * it out when needed.
+     *
+     * @param count The number of characters, at most the buffer size.
+     */
+    private void reserve(final int count) {
+        if (this.length + count > this.buffer.length) {
+            try {
+                this.drain();
+            } catch (final IOException e) {
+                throw new CsvException("Exception while writing csv", e);
+            }
+        }
+    }
+
+    private void put(final char c) {
+        this.reserve(1);
+        this.buffer[this.length++] = c;
+    }
+
+    /**
+     * Appends characters that need no quoting.
+     *
+     * @param value The characters.
+     * @param start The offset of the first character.
+     * @param end   The offset after the last character.
+     */
+    private void plain(final CharSequence value, final int start, final int end) {
+        int from = start;
+        while (from < end) {
+            this.reserve(Math.min(end - from, this.buffer.length));
+            final int count = Math.min(end - from, this.buffer.length - this.length);
+            if (value instanceof String) {
+                ((String) value).getChars(from, from + count, this.buffer, this.length);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    this.buffer[this.length + i] = value.charAt(from + i);
+                }
+            }
+            this.length += count;
+            from += count;
+        }
+    }
+
+    /**
+     * Appends characters enclosed in quotes, escaping quotes and escapes.
+     *
+     * @param value The characters.
+     */
+    private void quoted(final CharSequence value) {
+        this.put(this.quote);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == this.quote || c == this.escape) {
+                this.put(this.escape);
+            }
+            this.put(c);
+        }
+        this.put(this.quote);
+    }
+
+    /**
+     * @param value The characters of a field.
+     * @return Whether the field has to be quoted.
+     */
+    private boolean special(final CharSequence value) {
+        final char first = this.delimiter[0];
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == first || c == this.quote || c == this.escape || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The row being written, appending into the buffer of the writer.
+     */
+    private final class Row implements CsvRow {
+
+        private boolean first;
+
+        @Override
+        public CsvRow add(final CharSequence value) {
+            this.separate();
+            if (value == null) {
+                return this;
+            }
+            if (CsvWriter.this.special(value)) {
+                CsvWriter.this.quoted(value);
+            } else {
+                CsvWriter.this.plain(value, 0, value.length());
+            }
+            return this;
+        }
+
+        @Override
+        public CsvRow add(final long value) {
+            this.separate();
+            CsvWriter.this.reserve(LONG_SIZE);
+            final char[] buf = CsvWriter.this.buffer;
+            if (value == Long.MIN_VALUE) {
+                CsvWriter.this.plain(Long.toString(value), 0, LONG_SIZE);
+                return this;
+            }
+            long rest = Math.abs(value);
+            int digits = 1;
+            for (long bound = 10; digits < 19 && rest >= bound; bound *= 10) {
+                digits++;
+            }
+            int position = CsvWriter.this.length;
+            if (value < 0) {
+                buf[position++] = '-';
+            }
+            int end = position + digits;
+            CsvWriter.this.length = end;
+            do {
+                buf[--end] = (char) ('0' + rest % 10);
+                rest /= 10;
+            } while (rest != 0);
+            return this;
+        }
+
+        @Override
+        public CsvRow add(final double value) {
+            this.separate();
+            final String text = Double.toString(value);
+            CsvWriter.this.plain(text, 0, text.length());
+            return this;
+        }
+
+        @Override
+        public CsvRow add(final Object value) {
+            if (value instanceof CharSequence || value == null) {
+                return this.add((CharSequence) value);
+            }
+            return this.add(value.toString());
+        }
+
+        /**
+         * Appends the delimiter unless this is the first field of the row.
+         */
+        private void separate() {
+            if (this.first) {
+                this.first = false;
+            } else {
+                final char[] separator = CsvWriter.this.delimiter;
+                CsvWriter.this.reserve(separator.length);
+                System.arraycopy(
+                        separator, 0, CsvWriter.this.buffer, CsvWriter.this.length, separator.length
+                );
+                CsvWriter.this.length += separator.length;
+            }
+        }
+
+    }
+
+    /**
+     * Opens a csv file for writing.
+     *
+     * @param file The csv file.
+     * @return The stream of the file.
+     * @throws CsvException when the file could not be opened.
+     */
+    private static OutputStream open(final Path file) {
+        try {
+            return Files.newOutputStream(file);
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while opening file %s for writing", file),
+                    e
+            );
+        }
+    }
+
+}
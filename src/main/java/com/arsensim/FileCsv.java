@@ -23,12 +23,9 @@
  */
 package com.arsensim;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * This class is an implementation of {@link Csv} that parses a csv file as
@@ -39,57 +36,89 @@ import java.util.stream.Collectors;
  * @version $Id$
  * @since 1.0
  */
-public final class FileCsv<E> implements Csv<Integer, E> {
+public final class FileCsv<E> extends AbstractFileCsv<Integer, E, FileCsv<E>> {
 
-    private final Path file;
-    private final String delimiter;
+    /**
+     * Creates a csv with the given literal delimiter and RFC 4180 quoting.
+     *
+     * @param file      The csv file.
+     * @param delimiter The literal delimiter between fields.
+     */
+    public FileCsv(final Path file, final String delimiter) {
+        this(file, new CsvDialect(delimiter));
+    }
 
+    /**
+     * Creates a csv in UTF-8 with the given format.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     */
+    public FileCsv(final Path file, final CsvDialect dialect) {
+        this(file, dialect, StandardCharsets.UTF_8);
+    }
 
-    public FileCsv(final Path file, final String delimiter) {
-        this.file = file;
-        this.delimiter = delimiter;
+    /**
+     * Creates a csv with the given format and charset. A byte order mark at
+     * the start of the file overrides the charset. Files in UTF-8 or an
+     * ASCII compatible single-byte charset are tokenized as bytes, and only
+     * the values asked for are decoded.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the csv file.
+     */
+    public FileCsv(final Path file, final CsvDialect dialect, final Charset charset) {
+        this(new FileRecords<>(file, dialect, charset, FileRecords::positional));
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param records The records of the file.
+     */
+    private FileCsv(final FileRecords<Integer> records) {
+        super(records);
     }
 
     @Override
-    public List<E> map(final CsvRecordMapper<Integer, ? extends E> mapper) {
-        this.assertFileExists();
-        try (final BufferedReader reader = Files.newBufferedReader(this.file)) {
-            final List<String[]> rows = reader.lines()
-                    .map(line -> line.split(this.delimiter))
-                    .collect(Collectors.toList());
-            final ArrayList<CsvRecord<Integer>> records = new ArrayList<>();
-            // todo validate same size
-            for (final String[] row : rows) {
-                final HashMap<Integer, String> data = new HashMap<>();
-                for (int i = 0; i < row.length; i++) {
-                    data.put(i, row[i]);
-                }
-                records.add(
-                        new SimpleCsvRecord<>(data)
-                );
-            }
-            return records.stream()
-                    .map(mapper::map)
-                    .collect(Collectors.toList());
-        } catch (final IOException e) {
-            throw new CsvException(
-                    String.format("Exception while reading file %s", this.file),
-                    e
-            );
-        }
+    FileCsv<E> with(final FileRecords<Integer> changed) {
+        return new FileCsv<>(changed);
+    }
+
+    /**
+     * Gives a csv whose records only have the given columns. The values of
+     * the other columns are skipped by the parser without being stored.
+     *
+     * @param indexes The indexes of the columns needed.
+     * @return The csv with only the needed columns.
+     */
+    public FileCsv<E> withColumns(final int... indexes) {
+        return this.with(options -> options.withProjection(FileRecords.indexes(indexes)));
+    }
+
+    /**
+     * Gives a csv sharing one {@code String} between the occurrences of a
+     * repeated value in the given columns, which should have few distinct
+     * values, such as countries or currencies. Each column has a bounded
+     * cache that is looked up with the raw bytes of the field, so a
+     * repeated value costs no allocation.
+     *
+     * @param indexes The indexes of the columns to cache.
+     * @return The csv sharing repeated values.
+     */
+    public FileCsv<E> withInterning(final int... indexes) {
+        return this.with(options -> options.withInterning(FileRecords.interned(indexes)));
     }
 
     /**
-     * Checks if the file exist.
+     * Wraps a parsed row into a csv record keyed by column index.
      *
-     * @throws CsvException when file does not exist.
+     * @param row The values of the row.
+     * @return The csv record.
      */
-    private void assertFileExists() {
-        if (!Files.exists(this.file)) {
-            throw new CsvException(
-                    String.format("File %s not found", this.file)
-            );
-        }
+    static CsvRecord<Integer> record(final String[] row) {
+        return new ArrayCsvRecord<>(PositionalSchema.INSTANCE, row);
     }
 
 }
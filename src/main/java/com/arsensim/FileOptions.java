@@ -0,0 +1,306 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The options of the reads of a csv file by {@link FileRecords}. Each
+ * with-er gives a changed copy, and options handed out are never changed,
+ * so they can be shared by any number of reads.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class FileOptions<I> {
+
+    private boolean flyweight;
+    private Function<CsvSchema<I>, ProjectedSchema<I>> projection;
+    private ColumnFilter<I> filter;
+    private ReadAhead ahead;
+    private int interval;
+    private long from;
+    private long to;
+    private CsvCheckpoint checkpoint;
+    private Function<CsvSchema<I>, ValueCaches> interning;
+    private CsvListener listener;
+    private CsvErrorPolicy errors;
+    private boolean cached;
+
+    /**
+     * Creates the options of a read of all rows, copied out of the parser
+     * buffer on the parsing thread.
+     */
+    FileOptions() {
+        this.filter = ColumnFilter.none();
+        this.to = Long.MAX_VALUE;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param options The options to copy.
+     */
+    private FileOptions(final FileOptions<I> options) {
+        this.flyweight = options.flyweight;
+        this.projection = options.projection;
+        this.filter = options.filter;
+        this.ahead = options.ahead;
+        this.interval = options.interval;
+        this.from = options.from;
+        this.to = options.to;
+        this.checkpoint = options.checkpoint;
+        this.interning = options.interning;
+        this.listener = options.listener;
+        this.errors = options.errors;
+        this.cached = options.cached;
+    }
+
+    /**
+     * @return The same options, reading into one reused flyweight record.
+     */
+    FileOptions<I> withFlyweight() {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.flyweight = true;
+        return options;
+    }
+
+    /**
+     * @param columns Restricts the schema to the columns needed.
+     * @return The same options, keeping only the needed columns.
+     */
+    FileOptions<I> withProjection(final Function<CsvSchema<I>, ProjectedSchema<I>> columns) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.projection = columns;
+        return options;
+    }
+
+    /**
+     * @param column    The column to test.
+     * @param predicate The predicate the value of the column must satisfy.
+     * @return The same options, also rejecting the records that do not
+     *         satisfy the predicate.
+     */
+    FileOptions<I> withFilter(final I column, final Predicate<? super CharSequence> predicate) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.filter = this.filter.and(column, predicate);
+        return options;
+    }
+
+    /**
+     * @param config The size and number of the buffers read ahead.
+     * @return The same options, reading the file ahead of the parser on a
+     *         dedicated thread.
+     */
+    FileOptions<I> withReadAhead(final ReadAhead config) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.ahead = config;
+        return options;
+    }
+
+    /**
+     * @param every The number of records between two offsets of the index.
+     * @return The same options, using the index of the file to position
+     *         the file at the first row read.
+     * @throws CsvException when the interval is not positive.
+     */
+    FileOptions<I> withIndex(final int every) {
+        if (every <= 0) {
+            throw new CsvException(
+                    String.format("Row index interval %d must be positive", every)
+            );
+        }
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.interval = every;
+        return options;
+    }
+
+    /**
+     * @param first The index of the first row read, from 0 after the header.
+     * @param end   The index of the row after the last row read.
+     * @return The same options, reading the rows in the range.
+     * @throws CsvException when the range is not valid.
+     */
+    FileOptions<I> withRows(final long first, final long end) {
+        if (first < 0L || end < first) {
+            throw new CsvException(
+                    String.format("Row range [%d, %d) is not valid", first, end)
+            );
+        }
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.from = first;
+        options.to = end;
+        return options;
+    }
+
+    /**
+     * @param position The position from which to resume reading, which is
+     *                 committed once all records are consumed.
+     * @return The same options, reading from the position on.
+     */
+    FileOptions<I> withCheckpoint(final CsvCheckpoint position) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.checkpoint = position;
+        return options;
+    }
+
+    /**
+     * @param caches Gives the caches of repeated values of the columns.
+     * @return The same options, sharing one string between the occurrences
+     *         of a repeated value.
+     */
+    FileOptions<I> withInterning(final Function<CsvSchema<I>, ValueCaches> caches) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.interning = caches;
+        return options;
+    }
+
+    /**
+     * @param metrics Receives the metrics of each read.
+     * @return The same options, measuring each read.
+     */
+    FileOptions<I> withListener(final CsvListener metrics) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.listener = metrics;
+        return options;
+    }
+
+    /**
+     * @param policy What to do with bad rows.
+     * @return The same options, checking the number of fields of each row
+     *         and handling bad rows by the policy.
+     */
+    FileOptions<I> withErrorPolicy(final CsvErrorPolicy policy) {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.errors = policy;
+        return options;
+    }
+
+    /**
+     * @return The same options, reading the records from the cache of the
+     *         file. Ignored when the file is indexed or resumed.
+     */
+    FileOptions<I> withCache() {
+        final FileOptions<I> options = new FileOptions<>(this);
+        options.cached = true;
+        return options;
+    }
+
+    /**
+     * @return Whether one {@link FlyweightCsvRecord} is reused for all
+     *         records.
+     */
+    boolean flyweight() {
+        return this.flyweight;
+    }
+
+    /**
+     * @return Restricts the schema to the columns needed, or {@code null}
+     *         to keep all columns.
+     */
+    Function<CsvSchema<I>, ProjectedSchema<I>> projection() {
+        return this.projection;
+    }
+
+    /**
+     * @return The filter of the records.
+     */
+    ColumnFilter<I> filter() {
+        return this.filter;
+    }
+
+    /**
+     * @return Reads the file ahead of the parser, or {@code null} to read
+     *         it on the parsing thread.
+     */
+    ReadAhead ahead() {
+        return this.ahead;
+    }
+
+    /**
+     * @return The number of records between two offsets of the
+     *         {@link RowIndex} of the file, or 0 to not index it.
+     */
+    int interval() {
+        return this.interval;
+    }
+
+    /**
+     * @return The index of the first row read.
+     */
+    long from() {
+        return this.from;
+    }
+
+    /**
+     * @return The index of the row after the last row read.
+     */
+    long to() {
+        return this.to;
+    }
+
+    /**
+     * @return The position from which to resume reading, or {@code null}
+     *         to read the file from its start.
+     */
+    CsvCheckpoint checkpoint() {
+        return this.checkpoint;
+    }
+
+    /**
+     * @return Gives the caches of repeated values of the columns, or
+     *         {@code null} to not share values.
+     */
+    Function<CsvSchema<I>, ValueCaches> interning() {
+        return this.interning;
+    }
+
+    /**
+     * @return Receives the metrics of each read, or {@code null} to not
+     *         measure reads.
+     */
+    CsvListener listener() {
+        return this.listener;
+    }
+
+    /**
+     * @return What to do with bad rows, or {@code null} to throw the first
+     *         error and not check the number of fields.
+     */
+    CsvErrorPolicy errors() {
+        return this.errors;
+    }
+
+    /**
+     * @return Whether the records are read from the {@link RecordCache} of
+     *         the file, which is written when missing or stale.
+     */
+    boolean cached() {
+        return this.cached;
+    }
+
+}
@@ -0,0 +1,1112 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The records of a csv file, read lazily. This is the common part of
+ * {@link FileCsv} and {@link HeadedFileCsv}, which only differ in how the
+ * schema of the records is obtained. How the file is read is given by
+ * its {@link FileOptions}.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class FileRecords<I> {
+
+    static final int BOM_SIZE = 3;
+
+    private static final long WAIT = 1L;
+
+    private static final long UNKNOWN = -2L;
+
+    private final Path file;
+    private final CsvDialect dialect;
+    private final Charset charset;
+    private final Function<Tokenizer, CsvSchema<I>> header;
+    private final FileOptions<I> options;
+
+    /**
+     * Creates records that are copied out of the parser buffer.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file, unless it starts with a byte
+     *                order mark.
+     * @param header  Reads the schema from the start of the file, returning
+     *                {@code null} when the file is empty.
+     */
+    FileRecords(final Path file, final CsvDialect dialect, final Charset charset,
+                final Function<Tokenizer, CsvSchema<I>> header) {
+        this(file, dialect, charset, header, new FileOptions<>());
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file, unless it starts with a byte
+     *                order mark.
+     * @param header  Reads the schema from the start of the file, returning
+     *                {@code null} when the file is empty.
+     * @param options How the file is read.
+     */
+    private FileRecords(final Path file, final CsvDialect dialect, final Charset charset,
+                        final Function<Tokenizer, CsvSchema<I>> header,
+                        final FileOptions<I> options) {
+        this.file = file;
+        this.dialect = dialect;
+        this.charset = charset;
+        this.header = header;
+        this.options = options;
+    }
+
+    /**
+     * @param change Gives the changed options from the current ones.
+     * @return The same records, read with the changed options.
+     */
+    FileRecords<I> with(final UnaryOperator<FileOptions<I>> change) {
+        return new FileRecords<>(
+                this.file, this.dialect, this.charset, this.header, change.apply(this.options)
+        );
+    }
+
+    /**
+     * Opens the file and reads its records lazily. Records rejected by the
+     * filter are skipped right after they are tokenized, before anything is
+     * created for them. The rows before the range read are tokenized without
+     * storing their fields, unless the {@link RowIndex} of the file lets the
+     * file be positioned close to the first of them. When the file is meant
+     * to be indexed and has no index yet, the index is built on demand for a
+     * range, or on the way when the file is read to its end. When resumed
+     * from a checkpoint, the records after it are read and the position after
+     * the last whole record is committed once all records are consumed.
+     * With an error policy, rows with another number of fields than the
+     * header, or than the first row, and rows the tokenizer rejects are
+     * handled by the policy. When cached, the fields are read from the
+     * {@link RecordCache} of the file instead of being tokenized, and the
+     * cache is written as the file is read to its end when it is missing or
+     * stale. The file is closed, and the metrics of the read are reported to
+     * the listener, when the returned {@code Stream} is closed.
+     *
+     * @return The records.
+     */
+    Stream<CsvRecord<I>> stream() {
+        return this.map(Function.identity());
+    }
+
+    /**
+     * Reads and maps the records, see {@link #stream()}. The time spent in
+     * the mapper is measured when there is a listener, and the failures of
+     * the mapper are handled by the error policy when there is one.
+     *
+     * @param mapper The mapper to apply to each record.
+     * @param <E>    The type to which the records are mapped.
+     * @return The mapped records.
+     */
+    <E> Stream<E> map(final Function<CsvRecord<I>, ? extends E> mapper) {
+        final CsvCheckpoint position = this.options.checkpoint();
+        return this.stream(position == null ? null : position::commit, mapper);
+    }
+
+    /**
+     * Follows the file as it grows: reads the records after the checkpoint,
+     * hands them to a consumer in batches and commits the checkpoint after
+     * each batch, then waits for the file to change, until the thread is
+     * interrupted. A batch that fails is read again by the next follower.
+     *
+     * @param mapper   The mapper to apply to each record.
+     * @param batch    The greatest number of records in a batch.
+     * @param consumer The consumer of the batches.
+     * @param <E>      The type to which the records are mapped.
+     * @throws CsvException when there is no checkpoint, or the file cannot
+     *                      be read or watched.
+     */
+    <E> void follow(final Function<CsvRecord<I>, E> mapper, final int batch,
+                    final Consumer<? super List<E>> consumer) {
+        if (this.options.checkpoint() == null) {
+            throw new CsvException(
+                    String.format("File %s cannot be followed without a checkpoint", this.file)
+            );
+        }
+        if (batch < 1) {
+            throw new CsvException(
+                    String.format("Batch size %d must be positive", batch)
+            );
+        }
+        final FileRecords<I> batches = this.with(options -> options.withRows(0L, batch));
+        try (final WatchService watcher = this.file.getFileSystem().newWatchService()) {
+            this.file.toAbsolutePath().getParent().register(
+                    watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            while (!Thread.currentThread().isInterrupted()) {
+                if (Files.exists(this.file)) {
+                    try {
+                        batches.drain(mapper, consumer);
+                    } catch (final CsvException e) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        throw e;
+                    }
+                }
+                final WatchKey key = watcher.poll(WAIT, TimeUnit.SECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while watching file %s", this.file),
+                    e
+            );
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads batches of the records after the checkpoint until there are no
+     * more whole records, committing the checkpoint after each batch.
+     *
+     * @param mapper   The mapper to apply to each record.
+     * @param consumer The consumer of the batches.
+     * @param <E>      The type to which the records are mapped.
+     */
+    private <E> void drain(final Function<CsvRecord<I>, E> mapper,
+                           final Consumer<? super List<E>> consumer) {
+        long committed = this.options.checkpoint().offset();
+        while (true) {
+            final long[] end = {-1L};
+            final List<E> mapped;
+            try (Stream<E> records = this.stream(offset -> end[0] = offset, mapper)) {
+                mapped = records.collect(Collectors.toList());
+            }
+            if (end[0] < 0L || end[0] == committed) {
+                return;
+            }
+            if (!mapped.isEmpty()) {
+                consumer.accept(mapped);
+            }
+            this.options.checkpoint().commit(end[0]);
+            committed = end[0];
+        }
+    }
+
+    /**
+     * Opens the file and reads and maps its records lazily, see
+     * {@link #stream()}.
+     *
+     * @param ended  Receives the position after the last whole record once
+     *               all records are consumed, or {@code null} when the file
+     *               is not resumed from a checkpoint.
+     * @param mapper The mapper to apply to each record.
+     * @param <E>    The type to which the records are mapped.
+     * @return The mapped records.
+     */
+    private <E> Stream<E> stream(final LongConsumer ended, final Function<CsvRecord<I>, ? extends E> mapper) {
+        final Read read = new Read(this.meter());
+        if (!read.open()) {
+            return empty(read.meter);
+        }
+        return StreamSupport.stream(new Records<E>(read, ended, mapper), false).onClose(read::close);
+    }
+
+    /**
+     * Gives the meter of a read.
+     *
+     * @return The meter, or {@code null} when there is no listener.
+     */
+    private CsvMeter meter() {
+        if (this.options.listener() == null) {
+            return null;
+        }
+        return new CsvMeter(
+                this.options.listener(), this.file,
+                this.options.checkpoint() == null ? this.options.from() : 0L
+        );
+    }
+
+    /**
+     * Gives no records, reporting the read when it is measured.
+     *
+     * @param meter Measures the read, or {@code null}.
+     * @param <T>   The type of the records.
+     * @return The empty records.
+     */
+    private static <T> Stream<T> empty(final CsvMeter meter) {
+        if (meter == null) {
+            return Stream.empty();
+        }
+        return Stream.<T>empty().onClose(meter::close);
+    }
+
+    /**
+     * Reports a read that failed before its records were returned.
+     *
+     * @param meter Measures the read, or {@code null}.
+     * @param error The error.
+     */
+    private static void fail(final CsvMeter meter, final RuntimeException error) {
+        if (meter != null) {
+            meter.failed(error);
+            meter.close();
+        }
+    }
+
+    /**
+     * Moves a resume position past the line feed of a line break that it
+     * splits. A record ending with a carriage return at the end of the file
+     * is committed before the line feed that may follow it is written,
+     * which would otherwise be read as an empty record.
+     *
+     * @param offset The committed position, after the start of the content.
+     * @return The position at which the next record starts.
+     * @throws IOException when the file could not be read.
+     */
+    private long resumed(final long offset) throws IOException {
+        try (final FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            final ByteBuffer pair = ByteBuffer.allocate(2);
+            while (pair.hasRemaining() && channel.read(pair, offset - 1L + pair.position()) > 0) {
+                // keep reading the two bytes around the position
+            }
+            if (!pair.hasRemaining() && pair.get(0) == '\r' && pair.get(1) == '\n') {
+                return offset + 1L;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Opens a tokenizer over the file from a position, where a record
+     * starts.
+     *
+     * @param position The position in the file.
+     * @param encoding The charset of the file.
+     * @param meter    Measures the read, or {@code null}.
+     * @return The tokenizer, which has to be closed.
+     * @throws CsvException when the file cannot be opened.
+     */
+    private Tokenizer seek(final long position, final Charset encoding, final CsvMeter meter) {
+        final InputStream input = RowIndex.position(this.file, position);
+        final ReadAhead ahead = this.options.ahead();
+        final InputStream content = ahead == null ? input : new ReadAheadInputStream(input, ahead);
+        return new ByteCsvTokenizer(
+                meter == null ? content : meter.input(content),
+                this.dialect,
+                encoding
+        );
+    }
+
+    /**
+     * Extends the mask of a projection with the fields tested by a filter,
+     * so that the tokenizer keeps them even when they are projected out.
+     *
+     * @param mask  The mask of the projection.
+     * @param tests The tests of the filter, or {@code null}.
+     * @return The mask of the fields the tokenizer has to keep.
+     */
+    private static boolean[] mask(final boolean[] mask, final ColumnFilter.Fields tests) {
+        if (tests == null) {
+            return mask;
+        }
+        boolean[] kept = mask;
+        for (final int index : tests.indexes()) {
+            if (index >= kept.length) {
+                kept = Arrays.copyOf(kept, index + 1);
+            }
+            kept[index] = true;
+        }
+        return kept;
+    }
+
+    /**
+     * The schema of a csv without header.
+     *
+     * @param tokenizer The tokenizer at the start of the file.
+     * @return The positional schema.
+     */
+    static CsvSchema<Integer> positional(final Tokenizer tokenizer) {
+        return PositionalSchema.INSTANCE;
+    }
+
+    /**
+     * Reads the header of a csv.
+     *
+     * @param tokenizer The tokenizer at the start of the file.
+     * @return The schema defined by the header, or {@code null} when the
+     *         file is empty.
+     */
+    static CsvSchema<String> header(final Tokenizer tokenizer) {
+        if (!tokenizer.next()) {
+            return null;
+        }
+        return new HeaderSchema(tokenizer.toArray());
+    }
+
+    /**
+     * Projects a schema on columns given by index.
+     *
+     * @param indexes The indexes of the columns needed.
+     * @param <I>     The type of header.
+     * @return The projection.
+     */
+    static <I> Function<CsvSchema<I>, ProjectedSchema<I>> indexes(final int... indexes) {
+        int size = 0;
+        for (final int index : indexes) {
+            if (index < 0) {
+                throw new CsvException(
+                        String.format("Column index %d must not be negative", index)
+                );
+            }
+            size = Math.max(size, index + 1);
+        }
+        final boolean[] mask = new boolean[size];
+        for (final int index : indexes) {
+            mask[index] = true;
+        }
+        return schema -> new ProjectedSchema<>(schema, mask);
+    }
+
+    /**
+     * Projects a schema on columns given by name.
+     *
+     * @param names The names of the columns needed.
+     * @return The projection.
+     * @throws CsvException when the schema lacks one of the columns.
+     */
+    static Function<CsvSchema<String>, ProjectedSchema<String>> names(final String... names) {
+        final String[] columns = names.clone();
+        return schema -> {
+            final int[] indexes = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                indexes[i] = schema.index(columns[i]);
+                if (indexes[i] < 0) {
+                    throw new CsvException(
+                            String.format("Column %s is not present in csv header", columns[i])
+                    );
+                }
+            }
+            return FileRecords.<String>indexes(indexes).apply(schema);
+        };
+    }
+
+    /**
+     * Projects a schema on the columns that have a setter in a class, with
+     * the name matching of {@link ReflectiveCsvRecordMapper}.
+     *
+     * @param clazz The class to which the records will be mapped.
+     * @return The projection.
+     */
+    static Function<CsvSchema<String>, ProjectedSchema<String>> setters(final Class<?> clazz) {
+        return schema -> {
+            final ReflectiveBinding<?> binding = ReflectiveBinding.of(clazz);
+            final Set<String> columns = schema.columns(Integer.MAX_VALUE);
+            final int[] indexes = columns.stream()
+                    .filter(binding::has)
+                    .mapToInt(schema::index)
+                    .toArray();
+            return FileRecords.<String>indexes(indexes).apply(schema);
+        };
+    }
+
+    /**
+     * Caches the values of columns given by index.
+     *
+     * @param indexes The indexes of the columns to cache.
+     * @param <I>     The type of header.
+     * @return The caches.
+     */
+    static <I> Function<CsvSchema<I>, ValueCaches> interned(final int... indexes) {
+        for (final int index : indexes) {
+            if (index < 0) {
+                throw new CsvException(
+                        String.format("Column index %d must not be negative", index)
+                );
+            }
+        }
+        final int[] columns = indexes.clone();
+        return schema -> ValueCaches.of(columns);
+    }
+
+    /**
+     * Caches the values of columns given by name.
+     *
+     * @param names The names of the columns to cache.
+     * @return The caches.
+     * @throws CsvException when the schema lacks one of the columns.
+     */
+    static Function<CsvSchema<String>, ValueCaches> interned(final String... names) {
+        final String[] columns = names.clone();
+        return schema -> {
+            final int[] indexes = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                indexes[i] = schema.index(columns[i]);
+                if (indexes[i] < 0) {
+                    throw new CsvException(
+                            String.format("Column %s is not present in csv header", columns[i])
+                    );
+                }
+            }
+            return ValueCaches.of(indexes);
+        };
+    }
+
+    /**
+     * Opens a tokenizer over a csv file, which is decompressed while it is
+     * read when it is compressed, see {@link Compression}. A byte order mark
+     * at the start of the content is skipped and overrides the given
+     * charset. The content is tokenized as bytes when its charset allows it.
+     * When read ahead, the file is also decompressed on the reading thread.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file.
+     * @param ahead   Reads the file ahead of the parser, or {@code null}.
+     * @param meter   Measures the read, or {@code null}.
+     * @return The tokenizer, which has to be closed.
+     * @throws CsvException when file does not exist or cannot be opened.
+     */
+    static Tokenizer tokenizer(final Path file, final CsvDialect dialect, final Charset charset,
+                               final ReadAhead ahead, final CsvMeter meter) {
+        if (!Files.exists(file)) {
+            throw new CsvException(
+                    String.format("File %s not found", file)
+            );
+        }
+        try {
+            final InputStream raw = Files.newInputStream(file);
+            try {
+                final InputStream content = ahead == null
+                        ? Compression.open(raw)
+                        : new ReadAheadInputStream(Compression.open(raw), ahead);
+                final PushbackInputStream input = new PushbackInputStream(
+                        meter == null ? content : meter.input(content), BOM_SIZE
+                );
+                final Charset encoding = bom(input, charset);
+                if (ByteCsvTokenizer.supports(encoding, dialect)) {
+                    return new ByteCsvTokenizer(input, dialect, encoding);
+                }
+                return new CsvTokenizer(new InputStreamReader(input, encoding), dialect);
+            } catch (final IOException | RuntimeException e) {
+                raw.close();
+                throw e;
+            }
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", file),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Consumes the byte order mark at the start of an input, if any.
+     *
+     * @param input   The input, which can have three bytes pushed back.
+     * @param charset The charset to assume when there is no byte order mark.
+     * @return The charset given by the byte order mark, or the assumed one.
+     * @throws IOException when the input could not be read.
+     */
+    static Charset bom(final PushbackInputStream input,
+                       final Charset charset) throws IOException {
+        final byte[] head = new byte[BOM_SIZE];
+        int count = 0;
+        while (count < head.length) {
+            final int read = input.read(head, count, head.length - count);
+            if (read < 0) {
+                break;
+            }
+            count += read;
+        }
+        final Charset marked;
+        final int skipped;
+        if (count >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB
+                && (head[2] & 0xFF) == 0xBF) {
+            marked = StandardCharsets.UTF_8;
+            skipped = 3;
+        } else if (count >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            marked = StandardCharsets.UTF_16BE;
+            skipped = 2;
+        } else if (count >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            marked = StandardCharsets.UTF_16LE;
+            skipped = 2;
+        } else {
+            marked = charset;
+            skipped = 0;
+        }
+        input.unread(head, skipped, count - skipped);
+        return marked;
+    }
+
+    /**
+     * One read of the file, opened in stages: the tokenizer is opened over
+     * the file or its cache, the header is read, the file is positioned
+     * after the checkpoint or by the row index, the rows before the range
+     * are skipped, and the values are interned and projected. The read then
+     * keeps what its records need to commit the checkpoint, build the index
+     * and locate bad rows.
+     */
+    private final class Read {
+
+        private final CsvMeter meter;
+        private Tokenizer tokenizer;
+        private CsvSchema<I> schema;
+        private ColumnFilter.Fields tests;
+        private int width;
+        private RowIndex.Builder builder;
+        private long start = -1L;
+        private long base;
+        private long end;
+        private long origin = UNKNOWN;
+        private boolean seeked;
+        private long skipped;
+
+        /**
+         * Prepares a read, which still has to be opened.
+         *
+         * @param meter Measures the read, or {@code null}.
+         */
+        Read(final CsvMeter meter) {
+            this.meter = meter;
+            this.skipped = FileRecords.this.options.from();
+        }
+
+        /**
+         * Opens the file, reads its header and positions it at the first
+         * row read.
+         *
+         * @return Whether there may be rows to read. The file is closed when
+         *         there are none.
+         * @throws CsvException when the file cannot be opened or read.
+         */
+        boolean open() {
+            final FileOptions<I> options = FileRecords.this.options;
+            try {
+                if (options.cached() && options.interval() == 0 && options.checkpoint() == null) {
+                    this.tokenizer = RecordCache.open(
+                            FileRecords.this.file, FileRecords.this.dialect, FileRecords.this.charset,
+                            options.ahead(), this.meter
+                    );
+                } else {
+                    this.tokenizer = tokenizer(
+                            FileRecords.this.file, FileRecords.this.dialect, FileRecords.this.charset,
+                            options.ahead(), this.meter
+                    );
+                }
+            } catch (final CsvException e) {
+                fail(this.meter, e);
+                throw e;
+            }
+            try {
+                final CsvSchema<I> full = FileRecords.this.header.apply(this.tokenizer);
+                if (full == null) {
+                    this.tokenizer.close();
+                    return false;
+                }
+                this.tests = options.filter().empty() ? null : options.filter().resolve(full);
+                if (options.errors() == null) {
+                    this.width = -1;
+                } else {
+                    this.width = full instanceof HeaderSchema ? ((HeaderSchema) full).size() : 0;
+                }
+                if (!this.position()) {
+                    this.tokenizer.close();
+                    return false;
+                }
+                this.skip();
+                this.schema = this.project(full);
+                return true;
+            } catch (final IOException e) {
+                this.tokenizer.close();
+                final CsvException error = new CsvException(
+                        String.format("Exception while reading file %s", FileRecords.this.file),
+                        e
+                );
+                fail(this.meter, error);
+                throw error;
+            } catch (final RuntimeException e) {
+                this.tokenizer.close();
+                fail(this.meter, e);
+                throw e;
+            }
+        }
+
+        /**
+         * Positions the file after the checkpoint, or close to the first row
+         * read by the row index, when the file is resumed or indexed.
+         *
+         * @return Whether there may be rows to read.
+         * @throws IOException when the file could not be read.
+         */
+        private boolean position() throws IOException {
+            final FileOptions<I> options = FileRecords.this.options;
+            if (options.interval() == 0 && options.checkpoint() == null) {
+                return true;
+            }
+            this.start = RowIndex.start(FileRecords.this.file, FileRecords.this.dialect, FileRecords.this.charset);
+            this.origin = this.start;
+            if (options.checkpoint() != null) {
+                return this.resume(options.checkpoint());
+            }
+            return this.start < 0L || this.index(options.interval(), options.from());
+        }
+
+        /**
+         * Positions the file after the last record committed to a
+         * checkpoint. A file smaller than the committed position is
+         * considered replaced and is read from its start.
+         *
+         * @param checkpoint The position from which to resume.
+         * @return Whether there may be rows to read, which is not the case
+         *         when the first record is still being written.
+         * @throws IOException when the file could not be read.
+         */
+        private boolean resume(final CsvCheckpoint checkpoint) throws IOException {
+            if (this.start < 0L) {
+                throw new CsvException(
+                        String.format(
+                                "File %s cannot be resumed, only plain files tokenized as bytes can",
+                                FileRecords.this.file
+                        )
+                );
+            }
+            long offset = checkpoint.offset();
+            if (offset > Files.size(FileRecords.this.file)) {
+                offset = 0L;
+            }
+            if (offset > this.start) {
+                offset = FileRecords.this.resumed(offset);
+                this.seek(offset);
+                this.base = offset;
+            } else {
+                final ByteCsvTokenizer bytes = (ByteCsvTokenizer) this.tokenizer;
+                if (bytes.record() >= 0L && !bytes.terminated()) {
+                    return false;
+                }
+                this.base = this.start;
+                this.end = bytes.consumed();
+            }
+            ((ByteCsvTokenizer) this.tokenizer).follow();
+            return true;
+        }
+
+        /**
+         * Positions the file close to the first row read by its row index,
+         * which is built first when it is missing or stale. When the file is
+         * read from its start, the index is rather built on the way.
+         *
+         * @param interval The number of records between two offsets of the
+         *                 index.
+         * @param from     The index of the first row read.
+         * @return Whether there may be rows to read.
+         */
+        private boolean index(final int interval, final long from) {
+            final ByteCsvTokenizer bytes = (ByteCsvTokenizer) this.tokenizer;
+            RowIndex index = RowIndex.load(FileRecords.this.file, FileRecords.this.dialect, interval);
+            if (index == null && from > 0L) {
+                index = RowIndex.build(FileRecords.this.file, FileRecords.this.dialect, interval, this.start);
+                index.save(FileRecords.this.file, FileRecords.this.dialect);
+            }
+            if (index == null) {
+                this.builder = new RowIndex.Builder(FileRecords.this.file, interval, this.start);
+                if (bytes.record() >= 0L) {
+                    this.builder.add(bytes);
+                }
+            } else if (from > 0L) {
+                final long first = from + bytes.record() + 1L;
+                if (first >= index.records()) {
+                    return false;
+                }
+                this.seek(index.position(first));
+                this.skipped = index.skipped(first);
+            }
+            return true;
+        }
+
+        /**
+         * Reopens the file at a position where a record starts. The lines
+         * of the records are not known from there.
+         *
+         * @param position The position in the file.
+         */
+        private void seek(final long position) {
+            this.tokenizer.close();
+            this.tokenizer = FileRecords.this.seek(
+                    position,
+                    this.start > 0L ? StandardCharsets.UTF_8 : FileRecords.this.charset,
+                    this.meter
+            );
+            this.origin = position;
+            this.seeked = true;
+        }
+
+        /**
+         * Tokenizes the rows before the range read without storing their
+         * fields.
+         */
+        private void skip() {
+            if (this.skipped <= 0L) {
+                return;
+            }
+            this.tokenizer.project(new boolean[0]);
+            for (long row = 0L; row < this.skipped && this.tokenizer.next(); row++) {
+                if (!this.passed()) {
+                    break;
+                }
+            }
+            this.tokenizer.project(null);
+        }
+
+        /**
+         * Sets up the interning and the projection of the values.
+         *
+         * @param full The schema of all the columns of the file.
+         * @return The schema of the records.
+         */
+        private CsvSchema<I> project(final CsvSchema<I> full) {
+            final FileOptions<I> options = FileRecords.this.options;
+            if (options.interning() != null) {
+                this.tokenizer.intern(options.interning().apply(full));
+            }
+            if (options.projection() == null) {
+                return full;
+            }
+            final ProjectedSchema<I> projected = options.projection().apply(full);
+            this.tokenizer.project(mask(projected.mask(), this.tests));
+            return projected;
+        }
+
+        /**
+         * Takes note of the record just tokenized for the checkpoint and the
+         * index.
+         *
+         * @return Whether the record is whole. A record still being written
+         *         at the end of a resumed file ends the read.
+         */
+        boolean passed() {
+            if (FileRecords.this.options.checkpoint() != null) {
+                final ByteCsvTokenizer bytes = (ByteCsvTokenizer) this.tokenizer;
+                if (!bytes.terminated()) {
+                    return false;
+                }
+                this.end = bytes.consumed();
+            }
+            if (this.builder != null) {
+                this.builder.add((ByteCsvTokenizer) this.tokenizer);
+            }
+            return true;
+        }
+
+        /**
+         * Saves the index built on the way, once the file is read to its
+         * end.
+         */
+        void indexed() {
+            if (this.builder != null) {
+                this.builder.build().save(FileRecords.this.file, FileRecords.this.dialect);
+                this.builder = null;
+            }
+        }
+
+        /**
+         * @return The position after the last whole record read.
+         */
+        long committed() {
+            return this.base + this.end;
+        }
+
+        /**
+         * @return The line of the current record, or -1 when the file was
+         *         positioned past its start.
+         */
+        long line() {
+            if (this.seeked) {
+                return -1L;
+            }
+            return this.tokenizer.line();
+        }
+
+        /**
+         * @return The byte offset of the current record in the file, or -1
+         *         when it is not known.
+         */
+        long offset() {
+            if (this.origin == UNKNOWN) {
+                this.origin = RowIndex.start(FileRecords.this.file, FileRecords.this.dialect,
+                        FileRecords.this.charset);
+            }
+            if (this.origin < 0L || !(this.tokenizer instanceof ByteCsvTokenizer)) {
+                return -1L;
+            }
+            return this.origin + ((ByteCsvTokenizer) this.tokenizer).offset();
+        }
+
+        /**
+         * Closes the file and reports the metrics of the read.
+         */
+        void close() {
+            this.tokenizer.close();
+            if (this.meter != null) {
+                this.meter.close();
+            }
+        }
+
+    }
+
+    /**
+     * The records of a read, mapped one at a time. Each record is checked
+     * for its number of fields and tested by the filter as soon as it is
+     * tokenized, and bad rows are handed to the error policy when there is
+     * one. Once all records are consumed, the index built on the way is
+     * saved and the position after the last whole record is handed over.
+     *
+     * @param <E> The type to which the records are mapped.
+     */
+    private final class Records<E> extends Spliterators.AbstractSpliterator<E> {
+
+        private final Read read;
+        private final LongConsumer ended;
+        private final Function<CsvRecord<I>, ? extends E> mapper;
+        private final CsvRecord<I> reused;
+        private long remaining;
+        private long row;
+        private int fields;
+        private long bad;
+        private boolean done;
+
+        /**
+         * Maps the records of an opened read.
+         *
+         * @param read   The read, positioned at the first row read.
+         * @param ended  Receives the position after the last whole record,
+         *               or {@code null}.
+         * @param mapper The mapper to apply to each record.
+         */
+        Records(final Read read, final LongConsumer ended,
+                final Function<CsvRecord<I>, ? extends E> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            final FileOptions<I> options = FileRecords.this.options;
+            this.read = read;
+            this.ended = ended;
+            this.mapper = mapper;
+            this.reused = options.flyweight()
+                    ? new FlyweightCsvRecord<>(read.schema, read.tokenizer)
+                    : null;
+            this.remaining = options.to() - options.from();
+            this.row = (options.checkpoint() == null ? options.from() : 0L) - 1L;
+            this.fields = read.width;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            final Tokenizer source = this.read.tokenizer;
+            while (this.remaining > 0L && this.next()) {
+                if (!this.read.passed()) {
+                    break;
+                }
+                this.remaining--;
+                if (!this.counted() || this.read.tests != null && !this.read.tests.test(source)) {
+                    continue;
+                }
+                final CsvRecord<I> record = this.reused != null
+                        ? this.reused
+                        : new ArrayCsvRecord<>(this.read.schema, source.toArray());
+                if (this.deliver(record, action)) {
+                    return true;
+                }
+            }
+            this.finish();
+            return false;
+        }
+
+        /**
+         * Tokenizes the next record, counting it when there is a meter. With
+         * an error policy, a record the tokenizer rejects is handled by the
+         * policy and ends the records, as the tokenizer cannot go on after
+         * it.
+         *
+         * @return Whether there was a record.
+         */
+        private boolean next() {
+            final Tokenizer source = this.read.tokenizer;
+            final CsvMeter meter = this.read.meter;
+            final CsvErrorPolicy errors = FileRecords.this.options.errors();
+            if (meter == null && errors == null) {
+                return source.next();
+            }
+            final boolean found;
+            try {
+                found = source.next();
+            } catch (final RuntimeException e) {
+                if (meter != null) {
+                    meter.failed(e);
+                }
+                if (errors == null || e.getCause() instanceof IOException) {
+                    throw e;
+                }
+                this.row++;
+                this.reject(CsvBadRow.Reason.TOKENIZER, e, false);
+                this.remaining = 0L;
+                return false;
+            }
+            if (found) {
+                this.row++;
+                if (meter != null) {
+                    meter.tokenized();
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Checks the number of fields of the record, when there is an error
+         * policy. Without header, the first row gives the number of fields.
+         *
+         * @return Whether the record has the number of fields expected.
+         */
+        private boolean counted() {
+            final Tokenizer source = this.read.tokenizer;
+            if (this.fields < 0 || source.size() == this.fields) {
+                return true;
+            }
+            if (this.fields == 0) {
+                this.fields = source.size();
+                return true;
+            }
+            this.reject(
+                    CsvBadRow.Reason.COLUMNS,
+                    new CsvException(
+                            String.format(
+                                    "Csv record at line %d has %d fields instead of %d",
+                                    source.line(), source.size(), this.fields
+                            )
+                    ),
+                    true
+            );
+            return false;
+        }
+
+        /**
+         * Maps a record and hands it to the action. With an error policy, a
+         * record the mapper fails on is handled by the policy instead.
+         *
+         * @param record The record.
+         * @param action The action to perform on the mapped record.
+         * @return Whether the record was handed to the action.
+         */
+        private boolean deliver(final CsvRecord<I> record, final Consumer<? super E> action) {
+            final CsvMeter meter = this.read.meter;
+            if (meter != null) {
+                meter.delivered(true);
+            }
+            final E mapped;
+            try {
+                mapped = meter == null ? this.mapper.apply(record) : meter.map(this.mapper, record);
+            } catch (final RuntimeException e) {
+                if (FileRecords.this.options.errors() == null) {
+                    throw e;
+                }
+                this.reject(CsvBadRow.Reason.MAPPER, e, true);
+                return false;
+            }
+            action.accept(mapped);
+            return true;
+        }
+
+        /**
+         * Hands a bad row to the error policy.
+         *
+         * @param reason    Why the row is bad.
+         * @param error     The error.
+         * @param tokenized Whether the values of the row are known.
+         */
+        private void reject(final CsvBadRow.Reason reason, final RuntimeException error,
+                            final boolean tokenized) {
+            if (this.read.meter != null && reason == CsvBadRow.Reason.COLUMNS) {
+                this.read.meter.failed(error);
+            }
+            final long offset = this.read.offset();
+            this.bad++;
+            FileRecords.this.options.errors().reject(
+                    new CsvBadRow(
+                            reason, this.row, this.read.line(), offset,
+                            tokenized ? this.read.tokenizer.toArray() : null, error
+                    ),
+                    this.bad
+            );
+        }
+
+        /**
+         * Ends the records: saves the index built on the way when the file
+         * was read to its end, and hands the position after the last whole
+         * record over once.
+         */
+        private void finish() {
+            if (this.read.meter != null) {
+                this.read.meter.delivered(false);
+            }
+            if (this.remaining > 0L) {
+                this.read.indexed();
+            }
+            if (this.ended != null && !this.done) {
+                this.done = true;
+                this.ended.accept(this.read.committed());
+            }
+        }
+
+    }
+
+}
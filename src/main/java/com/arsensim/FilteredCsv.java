@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Csv} decorator that drops the records rejected by a filter
+ * before they are mapped. It serves implementations that cannot evaluate
+ * the filter while parsing.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class FilteredCsv<I, E> implements Csv<I, E> {
+
+    /**
+     * Stands in for the records that were not mapped. It never leaves this
+     * class, so the unchecked cast to {@code E} is never observed.
+     */
+    private static final Object SKIPPED = new Object();
+
+    private final Csv<I, E> origin;
+    private final ColumnFilter<I> filter;
+
+    /**
+     * Primary constructor.
+     *
+     * @param origin The csv to filter.
+     * @param filter The filter of the records.
+     */
+    FilteredCsv(final Csv<I, E> origin, final ColumnFilter<I> filter) {
+        this.origin = origin;
+        this.filter = filter;
+    }
+
+    @Override
+    public List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
+        try (final Stream<E> records = this.stream(mapper)) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        return this.origin.stream(
+                record -> this.filter.test(record) ? mapper.map(record) : (E) SKIPPED
+        ).filter(record -> record != SKIPPED);
+    }
+
+    @Override
+    public Csv<I, E> filter(final I column, final Predicate<? super CharSequence> predicate) {
+        return new FilteredCsv<>(this.origin, this.filter.and(column, predicate));
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CsvRecord} that is a view of the current record of a tokenizer.
+ * One instance is reused for all records of a csv and only the offsets of
+ * the fields are kept, so a {@code String} is created only when a value is
+ * asked for with {@link #get(Object)}, and {@link #chars(Object)} creates
+ * nothing at all.
+ * <p>
+ * The record is only valid while it is being mapped. Use {@link #copy()}
+ * to keep it any longer.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class FlyweightCsvRecord<I> implements CsvRecord<I> {
+
+    private final CsvSchema<I> schema;
+    private final Tokenizer tokenizer;
+    private CharView[] views;
+
+    /**
+     * Primary constructor.
+     *
+     * @param schema    The columns of the csv.
+     * @param tokenizer The tokenizer whose current record this is.
+     */
+    FlyweightCsvRecord(final CsvSchema<I> schema, final Tokenizer tokenizer) {
+        this.schema = schema;
+        this.tokenizer = tokenizer;
+        this.views = new CharView[0];
+    }
+
+    @Override
+    public String get(final I column) {
+        return this.tokenizer.get(this.index(column));
+    }
+
+    /**
+     * Gives a view of the characters of a column, which is reused for the
+     * same column of the next record.
+     *
+     * @param column The column.
+     * @return The characters of the value.
+     */
+    @Override
+    public CharSequence chars(final I column) {
+        final int index = this.index(column);
+        if (index >= this.views.length) {
+            this.views = Arrays.copyOf(this.views, this.tokenizer.size());
+        }
+        CharView view = this.views[index];
+        if (view == null) {
+            view = new CharView(null, 0, 0);
+            this.views[index] = view;
+        }
+        return this.tokenizer.chars(index, view);
+    }
+
+    @Override
+    public Map<I, String> toMap() {
+        final Map<I, String> map = new LinkedHashMap<>();
+        for (final I column : this.columns()) {
+            map.put(column, this.get(column));
+        }
+        return map;
+    }
+
+    @Override
+    public Set<I> columns() {
+        return this.schema.columns(this.tokenizer.size());
+    }
+
+    /**
+     * Detaches the current values from the reused buffer.
+     *
+     * @return An immutable copy of this record.
+     */
+    @Override
+    public CsvRecord<I> copy() {
+        return new ArrayCsvRecord<>(this.schema, this.tokenizer.toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.tokenizer.toArray());
+    }
+
+    private int index(final I column) {
+        final int index = this.schema.index(column);
+        if (index < 0 || index >= this.tokenizer.size()) {
+            throw new CsvException(
+                    String.format("Column %s is not present in csv record %s", column, this)
+            );
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * This class is an implementation of {@link CsvRecordMapper} that delegates
+ * to the mapper that {@link CsvMapperProcessor} generated for {@code E}, and
+ * falls back to a {@link ReflectiveCsvRecordMapper} when the class was not
+ * annotated with {@link CsvMapped}. It is a drop-in replacement of
+ * {@link ReflectiveCsvRecordMapper}: columns are bound and values converted
+ * by the same rules.
+ *
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class GeneratedCsvRecordMapper<E> implements CsvRecordMapper<String, E> {
+
+    private final CsvRecordMapper<String, E> origin;
+
+    /**
+     * A constructor that expects as a parameter the target class of mapped
+     * object.
+     *
+     * @param clazz The class to which the output will be mapped.
+     */
+    public GeneratedCsvRecordMapper(final Class<E> clazz) {
+        this(clazz, new CsvConverters());
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param clazz      The class to which the output will be mapped.
+     * @param converters The converters of values to property types.
+     * @throws CsvException when the generated mapper cannot be created.
+     */
+    public GeneratedCsvRecordMapper(final Class<E> clazz, final CsvConverters converters) {
+        this.origin = mapper(clazz, converters);
+    }
+
+    @Override
+    public E map(final CsvRecord<String> record) {
+        return this.origin.map(record);
+    }
+
+    /**
+     * Tells whether a mapper was generated for a class.
+     *
+     * @param clazz The class.
+     * @return Whether the class was annotated with {@link CsvMapped}.
+     */
+    public static boolean generated(final Class<?> clazz) {
+        try {
+            Class.forName(CsvMapperProcessor.mapper(clazz.getName()), false, clazz.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the generated mapper of a class, or a reflective one.
+     *
+     * @param clazz      The class to which the output will be mapped.
+     * @param converters The converters of values to property types.
+     * @param <E>        the type to which each csv record will be mapped.
+     * @return The mapper.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> CsvRecordMapper<String, E> mapper(final Class<E> clazz,
+                                                        final CsvConverters converters) {
+        final Class<?> type;
+        try {
+            type = Class.forName(CsvMapperProcessor.mapper(clazz.getName()), true, clazz.getClassLoader());
+        } catch (final ClassNotFoundException e) {
+            return new ReflectiveCsvRecordMapper<>(clazz, converters);
+        }
+        try {
+            final Constructor<?> constructor = type.getConstructor(CsvConverters.class);
+            return (CsvRecordMapper<String, E>) constructor.newInstance(converters);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            throw new CsvException(
+                    String.format("Could not create the generated mapper %s of %s", type, clazz),
+                    e
+            );
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * This class is an implementation of {@link Csv} that parses a csv file
+ * whose first line is a header naming the columns. The records are keyed
+ * by column name, so they can be mapped by a
+ * {@link ReflectiveCsvRecordMapper}.
+ * <p>
+ * The header is parsed once into a schema shared by all records, and each
+ * record only holds the array of its values.
+ *
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class HeadedFileCsv<E> extends AbstractFileCsv<String, E, HeadedFileCsv<E>> {
+
+    /**
+     * Creates a csv with the given literal delimiter and RFC 4180 quoting.
+     *
+     * @param file      The csv file.
+     * @param delimiter The literal delimiter between fields.
+     */
+    public HeadedFileCsv(final Path file, final String delimiter) {
+        this(file, new CsvDialect(delimiter));
+    }
+
+    /**
+     * Creates a csv in UTF-8 with the given format.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     */
+    public HeadedFileCsv(final Path file, final CsvDialect dialect) {
+        this(file, dialect, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a csv with the given format and charset. A byte order mark at
+     * the start of the file overrides the charset. Files in UTF-8 or an
+     * ASCII compatible single-byte charset are tokenized as bytes, and only
+     * the values asked for are decoded.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the csv file.
+     */
+    public HeadedFileCsv(final Path file, final CsvDialect dialect, final Charset charset) {
+        this(new FileRecords<>(file, dialect, charset, FileRecords::header));
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param records The records of the file.
+     */
+    private HeadedFileCsv(final FileRecords<String> records) {
+        super(records);
+    }
+
+    @Override
+    HeadedFileCsv<E> with(final FileRecords<String> changed) {
+        return new HeadedFileCsv<>(changed);
+    }
+
+    /**
+     * Gives a csv whose records only have the given columns. The values of
+     * the other columns are skipped by the parser without being stored.
+     *
+     * @param names The names of the columns needed.
+     * @return The csv with only the needed columns.
+     * @throws CsvException on mapping when the header lacks a column.
+     */
+    public HeadedFileCsv<E> withColumns(final String... names) {
+        return this.with(options -> options.withProjection(FileRecords.names(names)));
+    }
+
+    /**
+     * Gives a csv whose records only have the columns that a
+     * {@link ReflectiveCsvRecordMapper} of the class would set. The values
+     * of the other columns are skipped by the parser without being stored.
+     *
+     * @param clazz The class to which the records will be mapped.
+     * @return The csv with only the needed columns.
+     */
+    public HeadedFileCsv<E> withColumnsOf(final Class<?> clazz) {
+        return this.with(options -> options.withProjection(FileRecords.setters(clazz)));
+    }
+
+    /**
+     * Gives a csv sharing one {@code String} between the occurrences of a
+     * repeated value in the given columns, which should have few distinct
+     * values, such as countries or currencies. Each column has a bounded
+     * cache that is looked up with the raw bytes of the field, so a
+     * repeated value costs no allocation.
+     *
+     * @param names The names of the columns to cache.
+     * @return The csv sharing repeated values.
+     */
+    public HeadedFileCsv<E> withInterning(final String... names) {
+        return this.with(options -> options.withInterning(FileRecords.interned(names)));
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CsvSchema} defined by the header line of a csv. When a name
+ * occurs more than once in the header, it refers to its first column.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class HeaderSchema implements CsvSchema<String> {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+    private final Set<String> columns;
+
+    /**
+     * Primary constructor.
+     *
+     * @param names The names of the columns, in order.
+     */
+    HeaderSchema(final String[] names) {
+        this.names = names.clone();
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            this.indexes.putIfAbsent(names[i], i);
+        }
+        this.columns = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(names)));
+    }
+
+    @Override
+    public int index(final String column) {
+        final Integer index = this.indexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public String column(final int index) {
+        return this.names[index];
+    }
+
+    @Override
+    public Set<String> columns(final int size) {
+        if (size >= this.names.length) {
+            return this.columns;
+        }
+        return Collections.unmodifiableSet(
+                new LinkedHashSet<>(Arrays.asList(this.names).subList(0, size))
+        );
+    }
+
+    /**
+     * @return The number of columns in the header.
+     */
+    int size() {
+        return this.names.length;
+    }
+
+}
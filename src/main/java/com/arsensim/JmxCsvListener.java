@@ -0,0 +1,294 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A {@link CsvListener} keeping counters over all the reads it is given,
+ * exposed over JMX once registered. It also takes the metrics of read-ahead
+ * and of mapping pipelines, so that one bean shows where the time of a csv
+ * goes:
+ * <pre>
+ * JmxCsvListener jmx = new JmxCsvListener("orders").register();
+ * new HeadedFileCsv&lt;Order&gt;(file, ",")
+ *     .withListener(jmx)
+ *     .withReadAhead(new ReadAhead().withMetrics(jmx::readAhead))
+ *     .map(mapper);
+ * </pre>
+ * The counters are safe to update from several threads.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class JmxCsvListener implements CsvListener, JmxCsvListenerMBean, AutoCloseable {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final ObjectName name;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder reading = new LongAdder();
+    private final LongAdder tokenizing = new LongAdder();
+    private final LongAdder mapping = new LongAdder();
+    private final LongAdder elapsed = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder backpressure = new LongAdder();
+    private final LongAdder starving = new LongAdder();
+    private volatile String error;
+    private volatile double rowRate;
+    private volatile double byteRate;
+    private volatile long slowest;
+
+    /**
+     * Primary constructor.
+     *
+     * @param name The name of the bean, under {@code com.arsensim:type=Csv}.
+     * @throws CsvException when the name is not valid.
+     */
+    public JmxCsvListener(final String name) {
+        try {
+            this.name = new ObjectName(String.format("com.arsensim:type=Csv,name=%s", ObjectName.quote(name)));
+        } catch (final JMException e) {
+            throw new CsvException(
+                    String.format("Name %s is not a valid bean name", name),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Registers this listener with the platform bean server.
+     *
+     * @return This listener.
+     * @throws CsvException when the bean cannot be registered.
+     */
+    public JmxCsvListener register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+        } catch (final JMException e) {
+            throw new CsvException(
+                    String.format("Could not register bean %s", this.name),
+                    e
+            );
+        }
+        return this;
+    }
+
+    /**
+     * Unregisters this listener from the platform bean server, if it was
+     * registered.
+     */
+    @Override
+    public void close() {
+        try {
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(this.name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+            }
+        } catch (final JMException e) {
+            throw new CsvException(
+                    String.format("Could not unregister bean %s", this.name),
+                    e
+            );
+        }
+    }
+
+    /**
+     * @return The name of the bean.
+     */
+    public ObjectName name() {
+        return this.name;
+    }
+
+    @Override
+    public void read(final CsvMetrics metrics) {
+        this.reads.increment();
+        this.rows.add(metrics.rows());
+        this.bytes.add(metrics.bytes());
+        this.reading.add(metrics.reading().toNanos());
+        this.tokenizing.add(metrics.tokenizing().toNanos());
+        this.mapping.add(metrics.mapping().toNanos());
+        this.elapsed.add(metrics.elapsed().toNanos());
+        if (metrics.allocated() > 0L) {
+            this.allocated.add(metrics.allocated());
+        }
+        this.rowRate = metrics.rowsPerSecond();
+        this.byteRate = metrics.bytesPerSecond();
+        if (!metrics.slowest().isEmpty()) {
+            final long nanos = metrics.slowest().get(0).duration().toNanos();
+            synchronized (this) {
+                this.slowest = Math.max(this.slowest, nanos);
+            }
+        }
+    }
+
+    @Override
+    public void failed(final long row, final RuntimeException failure) {
+        this.errors.increment();
+        this.error = String.format("Row %d: %s", row, failure.getMessage());
+    }
+
+    /**
+     * Accounts for a read through a {@link ReadAhead}, see
+     * {@link ReadAhead#withMetrics(java.util.function.Consumer)}.
+     *
+     * @param metrics The metrics of the read-ahead.
+     */
+    public void readAhead(final ReadAheadMetrics metrics) {
+        this.waits.add(metrics.waits());
+        this.waited.add(metrics.waited().toNanos());
+    }
+
+    /**
+     * Accounts for a run of a {@link MappingPipeline}, see
+     * {@link MappingPipeline#withTimings(java.util.function.Consumer)}.
+     *
+     * @param timings The timings of the run.
+     */
+    public void pipeline(final MappingTimings timings) {
+        this.mapping.add(timings.mapping().toNanos());
+        this.backpressure.add(timings.backpressure().toNanos());
+        this.starving.add(timings.starving().toNanos());
+    }
+
+    @Override
+    public long getReads() {
+        return this.reads.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return this.rows.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return this.errors.sum();
+    }
+
+    @Override
+    public String getLastError() {
+        return this.error;
+    }
+
+    @Override
+    public long getReadingMillis() {
+        return millis(this.reading);
+    }
+
+    @Override
+    public long getTokenizingMillis() {
+        return millis(this.tokenizing);
+    }
+
+    @Override
+    public long getMappingMillis() {
+        return millis(this.mapping);
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return millis(this.elapsed);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return this.allocated.sum();
+    }
+
+    @Override
+    public double getLastRowsPerSecond() {
+        return this.rowRate;
+    }
+
+    @Override
+    public double getLastBytesPerSecond() {
+        return this.byteRate;
+    }
+
+    @Override
+    public double getSlowestRowMillis() {
+        return this.slowest / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getReadAheadWaits() {
+        return this.waits.sum();
+    }
+
+    @Override
+    public long getReadAheadWaitMillis() {
+        return millis(this.waited);
+    }
+
+    @Override
+    public long getBackpressureMillis() {
+        return millis(this.backpressure);
+    }
+
+    @Override
+    public long getStarvingMillis() {
+        return millis(this.starving);
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (final LongAdder counter : new LongAdder[]{
+            this.reads, this.rows, this.bytes, this.errors, this.reading, this.tokenizing,
+            this.mapping, this.elapsed, this.allocated, this.waits, this.waited,
+            this.backpressure, this.starving,
+        }) {
+            counter.reset();
+        }
+        this.error = null;
+        this.rowRate = 0.0;
+        this.byteRate = 0.0;
+        this.slowest = 0L;
+    }
+
+    /**
+     * Gives a sum of nanoseconds in milliseconds.
+     *
+     * @param nanos The sum of nanoseconds.
+     * @return The milliseconds.
+     */
+    private static long millis(final LongAdder nanos) {
+        return Duration.ofNanos(nanos.sum()).toMillis();
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+/**
+ * The counters of a {@link JmxCsvListener}, as seen over JMX. Times are in
+ * milliseconds and are summed over all reads.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public interface JmxCsvListenerMBean {
+
+    /**
+     * @return The number of reads reported.
+     */
+    long getReads();
+
+    /**
+     * @return The number of records read.
+     */
+    long getRows();
+
+    /**
+     * @return The number of bytes handed to the parser.
+     */
+    long getBytes();
+
+    /**
+     * @return The number of errors raised while reading or mapping.
+     */
+    long getErrors();
+
+    /**
+     * @return The message of the last error, or {@code null}.
+     */
+    String getLastError();
+
+    /**
+     * @return The time the parsers waited for bytes.
+     */
+    long getReadingMillis();
+
+    /**
+     * @return The time spent tokenizing.
+     */
+    long getTokenizingMillis();
+
+    /**
+     * @return The time spent mapping, in the reads and in mapping
+     * pipelines.
+     */
+    long getMappingMillis();
+
+    /**
+     * @return The time from opening to closing the records of the reads.
+     */
+    long getElapsedMillis();
+
+    /**
+     * @return The bytes allocated by the reads that could be measured.
+     */
+    long getAllocatedBytes();
+
+    /**
+     * @return The rows per second of the last read.
+     */
+    double getLastRowsPerSecond();
+
+    /**
+     * @return The bytes per second of the last read.
+     */
+    double getLastBytesPerSecond();
+
+    /**
+     * @return The time spent on the slowest row of any read.
+     */
+    double getSlowestRowMillis();
+
+    /**
+     * @return The number of times parsers waited for a read-ahead buffer.
+     */
+    long getReadAheadWaits();
+
+    /**
+     * @return The time parsers waited for read-ahead buffers.
+     */
+    long getReadAheadWaitMillis();
+
+    /**
+     * @return The time mapping pipelines waited for their consumer.
+     */
+    long getBackpressureMillis();
+
+    /**
+     * @return The time consumers of mapping pipelines waited for records.
+     */
+    long getStarvingMillis();
+
+    /**
+     * Sets all counters back to zero.
+     */
+    void reset();
+
+}
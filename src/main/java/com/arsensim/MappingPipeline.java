@@ -0,0 +1,189 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The configuration of a parallel mapping stage: records are parsed on one
+ * thread and handed in batches to a number of mapper workers. At most
+ * {@link #withCapacity(int) capacity} batches are parsed ahead of the
+ * consumer, so the parser blocks rather than filling memory when mapping
+ * or consuming falls behind.
+ * <p>
+ * Worker and parser threads come from a {@link ThreadFactory}, daemon
+ * platform threads by default. On a runtime with virtual threads, pass
+ * {@code Thread.ofVirtual().factory()} to run mappers that block on I/O.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class MappingPipeline {
+
+    private static final int BATCH = 256;
+
+    private static final AtomicInteger POOLS = new AtomicInteger();
+
+    private final int workers;
+    private final boolean ordered;
+    private final int batch;
+    private final int capacity;
+    private final ThreadFactory threads;
+    private final Consumer<MappingTimings> timings;
+
+    /**
+     * Creates a pipeline delivering records in their original order, in
+     * batches of 256 records with twice as many batches in flight as there
+     * are workers.
+     *
+     * @param workers The number of mapper threads.
+     */
+    public MappingPipeline(final int workers) {
+        this(workers, true, BATCH, workers * 2, MappingPipeline.daemons(), timings -> { });
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param workers  The number of mapper threads.
+     * @param ordered  Whether records are delivered in their original order.
+     * @param batch    The number of records handed to a worker at once.
+     * @param capacity The number of batches parsed ahead of the consumer.
+     * @param threads  Creates the parser and worker threads.
+     * @param timings  Receives the timings of each run.
+     */
+    private MappingPipeline(final int workers, final boolean ordered, final int batch,
+                            final int capacity, final ThreadFactory threads,
+                            final Consumer<MappingTimings> timings) {
+        if (workers < 1 || batch < 1 || capacity < 1) {
+            throw new CsvException(
+                    String.format(
+                            "Workers, batch and capacity must be positive but were %d, %d and %d",
+                            workers, batch, capacity
+                    )
+            );
+        }
+        this.workers = workers;
+        this.ordered = ordered;
+        this.batch = batch;
+        this.capacity = capacity;
+        this.threads = threads;
+        this.timings = timings;
+    }
+
+    /**
+     * @return The same pipeline, delivering batches as soon as they are
+     * mapped rather than in their original order.
+     */
+    public MappingPipeline unordered() {
+        return new MappingPipeline(
+                this.workers, false, this.batch, this.capacity, this.threads, this.timings
+        );
+    }
+
+    /**
+     * @param records The number of records handed to a worker at once.
+     * @return The same pipeline with the given batch size.
+     */
+    public MappingPipeline withBatch(final int records) {
+        return new MappingPipeline(
+                this.workers, this.ordered, records, this.capacity, this.threads, this.timings
+        );
+    }
+
+    /**
+     * @param batches The number of batches parsed ahead of the consumer.
+     * @return The same pipeline with the given capacity.
+     */
+    public MappingPipeline withCapacity(final int batches) {
+        return new MappingPipeline(
+                this.workers, this.ordered, this.batch, batches, this.threads, this.timings
+        );
+    }
+
+    /**
+     * @param factory Creates the parser and worker threads.
+     * @return The same pipeline running on the given threads.
+     */
+    public MappingPipeline withThreads(final ThreadFactory factory) {
+        return new MappingPipeline(
+                this.workers, this.ordered, this.batch, this.capacity, factory, this.timings
+        );
+    }
+
+    /**
+     * @param listener Receives the timings of each run when its
+     *                 {@code Stream} is exhausted or closed.
+     * @return The same pipeline reporting its timings.
+     */
+    public MappingPipeline withTimings(final Consumer<MappingTimings> listener) {
+        return new MappingPipeline(
+                this.workers, this.ordered, this.batch, this.capacity, this.threads, listener
+        );
+    }
+
+    int workers() {
+        return this.workers;
+    }
+
+    boolean ordered() {
+        return this.ordered;
+    }
+
+    int batch() {
+        return this.batch;
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+
+    ThreadFactory threads() {
+        return this.threads;
+    }
+
+    Consumer<MappingTimings> timings() {
+        return this.timings;
+    }
+
+    /**
+     * @return A factory of daemon threads named after their pool.
+     */
+    private static ThreadFactory daemons() {
+        final int pool = POOLS.incrementAndGet();
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory origin = Executors.defaultThreadFactory();
+        return task -> {
+            final Thread thread = origin.newThread(task);
+            thread.setName(String.format("csv-mapping-%d-%d", pool, count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
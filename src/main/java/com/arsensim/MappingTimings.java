@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.time.Duration;
+
+/**
+ * The time spent in each stage of a run of a {@link MappingPipeline}.
+ * Parsing and its waits are measured on the parser thread, mapping is
+ * summed over all workers, so it may exceed the elapsed time.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class MappingTimings {
+
+    private final long records;
+    private final long batches;
+    private final Duration parsing;
+    private final Duration backpressure;
+    private final Duration mapping;
+    private final Duration starving;
+    private final Duration elapsed;
+
+    /**
+     * Primary constructor.
+     *
+     * @param records      The number of records parsed.
+     * @param batches      The number of batches parsed.
+     * @param parsing      The time spent parsing.
+     * @param backpressure The time the parser waited for the consumer.
+     * @param mapping      The time spent mapping, over all workers.
+     * @param starving     The time the consumer waited for mapped records.
+     * @param elapsed      The time from the start to the end of the run.
+     */
+    MappingTimings(final long records, final long batches, final Duration parsing,
+                   final Duration backpressure, final Duration mapping,
+                   final Duration starving, final Duration elapsed) {
+        this.records = records;
+        this.batches = batches;
+        this.parsing = parsing;
+        this.backpressure = backpressure;
+        this.mapping = mapping;
+        this.starving = starving;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return The number of records parsed.
+     */
+    public long records() {
+        return this.records;
+    }
+
+    /**
+     * @return The number of batches parsed.
+     */
+    public long batches() {
+        return this.batches;
+    }
+
+    /**
+     * @return The time spent parsing.
+     */
+    public Duration parsing() {
+        return this.parsing;
+    }
+
+    /**
+     * @return The time the parser was blocked because the consumer had not
+     * taken the batches in flight yet.
+     */
+    public Duration backpressure() {
+        return this.backpressure;
+    }
+
+    /**
+     * @return The time spent mapping, summed over all workers.
+     */
+    public Duration mapping() {
+        return this.mapping;
+    }
+
+    /**
+     * @return The time the consumer waited for the next mapped batch.
+     */
+    public Duration starving() {
+        return this.starving;
+    }
+
+    /**
+     * @return The time from the start to the end of the run.
+     */
+    public Duration elapsed() {
+        return this.elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "MappingTimings{records=%d, batches=%d, parsing=%s, backpressure=%s, mapping=%s, starving=%s, elapsed=%s}",
+                this.records, this.batches, this.parsing, this.backpressure,
+                this.mapping, this.starving, this.elapsed
+        );
+    }
+
+}
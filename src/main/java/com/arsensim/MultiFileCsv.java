@@ -0,0 +1,429 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class is an implementation of {@link Csv} over many csv files, which
+ * are parsed and mapped concurrently, one file per task, and merged into a
+ * single list or stream, or kept apart by {@link #mapEach(CsvRecordMapper)}.
+ * Records keep their order within a file, and files keep their order in the
+ * list unless the csv is {@link #unordered()}.
+ * <p>
+ * Tasks run on a fixed number of threads from a {@link ThreadFactory},
+ * daemon platform threads by default. On a runtime with virtual threads,
+ * pass {@code Thread.ofVirtual().factory()}. Files are parsed ahead of the
+ * consumer only while the total size of the files parsed but not yet
+ * consumed stays within a memory budget, so a slow consumer stalls the
+ * workers rather than filling memory. A file larger than the budget is
+ * still parsed, alone. The read buffers of the tokenizers are pooled, so
+ * small files do not each allocate one.
+ * <p>
+ * The mapper is called from several threads at once and has to be thread
+ * safe.
+ *
+ * @param <I> the type of the column identifiers of the records.
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class MultiFileCsv<I, E> implements Csv<I, E> {
+
+    /**
+     * The size of the files parsed ahead of the consumer by default.
+     */
+    private static final long BUDGET = 256L << 20;
+
+    private static final AtomicInteger POOLS = new AtomicInteger();
+
+    private final List<Path> files;
+    private final Function<? super Path, ? extends Csv<I, E>> source;
+    private final int threads;
+    private final ThreadFactory factory;
+    private final long budget;
+    private final boolean ordered;
+
+    /**
+     * Creates a csv parsed on all available processors, keeping the order of
+     * the files, with a budget of 256 MB.
+     *
+     * @param files  The csv files.
+     * @param source Gives the csv of each file, which is read on a worker
+     *               thread.
+     */
+    public MultiFileCsv(final List<Path> files, final Function<? super Path, ? extends Csv<I, E>> source) {
+        this(
+                files, source, Runtime.getRuntime().availableProcessors(),
+                MultiFileCsv.daemons(), BUDGET, true
+        );
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param files   The csv files.
+     * @param source  Gives the csv of each file.
+     * @param threads The number of files parsed at once.
+     * @param factory Creates the worker threads.
+     * @param budget  The size in bytes of the files parsed ahead of the
+     *                consumer.
+     * @param ordered Whether files keep their order.
+     */
+    private MultiFileCsv(final List<Path> files, final Function<? super Path, ? extends Csv<I, E>> source,
+                         final int threads, final ThreadFactory factory, final long budget,
+                         final boolean ordered) {
+        if (threads < 1 || budget < 1L) {
+            throw new CsvException(
+                    String.format(
+                            "Threads and budget must be positive but were %d and %d", threads, budget
+                    )
+            );
+        }
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+        this.source = source;
+        this.threads = threads;
+        this.factory = factory;
+        this.budget = budget;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Creates a csv over the files of a directory whose names match a glob,
+     * such as {@code *.csv}, each read by {@link FileCsv}.
+     *
+     * @param directory The directory.
+     * @param glob      The pattern of the file names.
+     * @param dialect   The format of the csv files.
+     * @param <E>       The type to which each csv record will be mapped.
+     * @return The csv of the files.
+     * @throws CsvException when the directory cannot be listed.
+     */
+    public static <E> MultiFileCsv<Integer, E> positional(final Path directory, final String glob,
+                                                          final CsvDialect dialect) {
+        return new MultiFileCsv<>(files(directory, glob), file -> new FileCsv<E>(file, dialect));
+    }
+
+    /**
+     * Creates a csv over the files of a directory whose names match a glob,
+     * such as {@code *.csv}, each read by {@link HeadedFileCsv}.
+     *
+     * @param directory The directory.
+     * @param glob      The pattern of the file names.
+     * @param dialect   The format of the csv files.
+     * @param <E>       The type to which each csv record will be mapped.
+     * @return The csv of the files.
+     * @throws CsvException when the directory cannot be listed.
+     */
+    public static <E> MultiFileCsv<String, E> headed(final Path directory, final String glob,
+                                                     final CsvDialect dialect) {
+        return new MultiFileCsv<>(files(directory, glob), file -> new HeadedFileCsv<E>(file, dialect));
+    }
+
+    /**
+     * Lists the regular files of a directory whose names match a glob,
+     * sorted by name.
+     *
+     * @param directory The directory.
+     * @param glob      The pattern of the file names, see
+     *                  {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+     * @return The files.
+     * @throws CsvException when the directory cannot be listed.
+     */
+    public static List<Path> files(final Path directory, final String glob) {
+        final List<Path> files = new ArrayList<>();
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory, glob)) {
+            for (final Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while listing directory %s", directory),
+                    e
+            );
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * @param count The number of files parsed at once.
+     * @return The same csv parsing the given number of files at once.
+     */
+    public MultiFileCsv<I, E> withThreads(final int count) {
+        return new MultiFileCsv<>(
+                this.files, this.source, count, this.factory, this.budget, this.ordered
+        );
+    }
+
+    /**
+     * @param threads Creates the worker threads.
+     * @return The same csv parsing on the given threads.
+     */
+    public MultiFileCsv<I, E> withThreadFactory(final ThreadFactory threads) {
+        return new MultiFileCsv<>(
+                this.files, this.source, this.threads, threads, this.budget, this.ordered
+        );
+    }
+
+    /**
+     * @param bytes The total size of the files parsed ahead of the consumer.
+     * @return The same csv with the given memory budget.
+     */
+    public MultiFileCsv<I, E> withBudget(final long bytes) {
+        return new MultiFileCsv<>(
+                this.files, this.source, this.threads, this.factory, bytes, this.ordered
+        );
+    }
+
+    /**
+     * @return The same csv, delivering files as soon as they are parsed
+     * rather than in their original order.
+     */
+    public MultiFileCsv<I, E> unordered() {
+        return new MultiFileCsv<>(
+                this.files, this.source, this.threads, this.factory, this.budget, false
+        );
+    }
+
+    @Override
+    public List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
+        try (final Stream<E> records = this.stream(mapper)) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Maps the files concurrently and merges their records. Each file is
+     * mapped as a whole by a worker, and its records are delivered once it
+     * is done. The workers are stopped when the returned {@code Stream} is
+     * closed.
+     *
+     * @param mapper The mapper to apply to each csv record.
+     * @return A lazy {@code Stream} of mapped records.
+     */
+    @Override
+    public Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        final Run run = new Run(mapper);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        run, this.ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL
+                ),
+                false
+        ).flatMap(parsed -> parsed.records.stream()).onClose(run::close);
+    }
+
+    /**
+     * Maps the files concurrently, keeping the records of each file apart.
+     *
+     * @param mapper The mapper to apply to each csv record.
+     * @return The records of each file, in the order of the files or of
+     * their parsing when unordered.
+     */
+    public Map<Path, List<E>> mapEach(final CsvRecordMapper<I, ? extends E> mapper) {
+        final Map<Path, List<E>> results = new LinkedHashMap<>();
+        try (final Run run = new Run(mapper)) {
+            while (run.hasNext()) {
+                final Parsed<E> parsed = run.next();
+                results.put(parsed.file, parsed.records);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gives the size of a file, which bounds the memory taken by its records
+     * well enough to budget it.
+     *
+     * @param file The file.
+     * @return Its size, or zero when it cannot be read, which its csv reports.
+     */
+    private static long size(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (final IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * @return A factory of daemon threads named after their pool.
+     */
+    private static ThreadFactory daemons() {
+        final int pool = POOLS.incrementAndGet();
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory origin = Executors.defaultThreadFactory();
+        return task -> {
+            final Thread thread = origin.newThread(task);
+            thread.setName(String.format("csv-files-%d-%d", pool, count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The mapped records of a file.
+     *
+     * @param <E> the type of the records.
+     */
+    private static final class Parsed<E> {
+
+        private final Path file;
+        private final long size;
+        private final List<E> records;
+
+        private Parsed(final Path file, final long size, final List<E> records) {
+            this.file = file;
+            this.size = size;
+            this.records = records;
+        }
+
+    }
+
+    /**
+     * A run over the files, submitting them to the workers from the
+     * consumer thread as the budget allows and handing their records over
+     * one file at a time.
+     */
+    private final class Run implements Iterator<Parsed<E>>, AutoCloseable {
+
+        private final CsvRecordMapper<I, ? extends E> mapper;
+        private final ExecutorService executor;
+        private final CompletionService<Parsed<E>> completion;
+        private final Deque<Future<Parsed<E>>> pending;
+        private int submitted;
+        private int delivered;
+        private long reserved;
+        private long consumed;
+
+        private Run(final CsvRecordMapper<I, ? extends E> mapper) {
+            this.mapper = mapper;
+            this.executor = Executors.newFixedThreadPool(
+                    Math.min(MultiFileCsv.this.threads, Math.max(1, MultiFileCsv.this.files.size())),
+                    MultiFileCsv.this.factory
+            );
+            this.completion = new ExecutorCompletionService<>(this.executor);
+            this.pending = new ArrayDeque<>();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.delivered < MultiFileCsv.this.files.size();
+        }
+
+        @Override
+        public Parsed<E> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.reserved -= this.consumed;
+            this.consumed = 0L;
+            this.submit();
+            final Parsed<E> parsed;
+            try {
+                if (MultiFileCsv.this.ordered) {
+                    parsed = this.pending.removeFirst().get();
+                } else {
+                    parsed = this.completion.take().get();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CsvException("Interrupted while reading files", e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new CsvException("Exception while reading files", e.getCause());
+            }
+            this.delivered++;
+            this.consumed = parsed.size;
+            return parsed;
+        }
+
+        @Override
+        public void close() {
+            this.executor.shutdownNow();
+        }
+
+        /**
+         * Submits the next files while they fit in the budget, and at least
+         * one when none is being parsed.
+         */
+        private void submit() {
+            final List<Path> files = MultiFileCsv.this.files;
+            while (this.submitted < files.size()) {
+                final Path file = files.get(this.submitted);
+                final long size = size(file);
+                if (this.submitted > this.delivered && this.reserved + size > MultiFileCsv.this.budget) {
+                    return;
+                }
+                this.reserved += size;
+                this.submitted++;
+                final Callable<Parsed<E>> task = () -> new Parsed<>(
+                        file, size, MultiFileCsv.this.source.apply(file).map(this.mapper)
+                );
+                if (MultiFileCsv.this.ordered) {
+                    this.pending.addLast(this.executor.submit(task));
+                } else {
+                    this.completion.submit(task);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,412 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class is an implementation of {@link Csv} that parses a csv file on
+ * several threads. The file is memory mapped and split into byte ranges
+ * that start and end on record boundaries, which are parsed and mapped on a
+ * fork-join pool. Files smaller than a threshold and compressed files are
+ * parsed sequentially by {@link FileCsv}.
+ * <p>
+ * Record boundaries are found by tracking whether a line break falls inside
+ * a quoted field, so quotes are expected to enclose whole fields and to be
+ * escaped by doubling them. Dialects with another escape character are
+ * parsed sequentially. The file is read as UTF-8, skipping a byte order
+ * mark. The mapper is called from several threads at once and has to be
+ * thread safe.
+ *
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class ParallelFileCsv<E> implements Csv<Integer, E> {
+
+    /**
+     * Files smaller than this are parsed sequentially by default.
+     */
+    private static final long SEQUENTIAL_THRESHOLD = 16L << 20;
+
+    /**
+     * The smallest byte range worth parsing on its own.
+     */
+    private static final long MIN_CHUNK = 1L << 20;
+
+    /**
+     * The largest byte range aimed at, well below the mapping limit.
+     */
+    private static final long MAX_CHUNK = 256L << 20;
+
+    /**
+     * The number of bytes mapped at once while looking for a boundary.
+     */
+    private static final int WINDOW = 1 << 20;
+
+    private final Path file;
+    private final CsvDialect dialect;
+    private final int parallelism;
+    private final boolean ordered;
+    private final long threshold;
+
+    /**
+     * Creates a csv parsed on all available processors, keeping the original
+     * order of records.
+     *
+     * @param file      The csv file.
+     * @param delimiter The literal delimiter between fields.
+     */
+    public ParallelFileCsv(final Path file, final String delimiter) {
+        this(file, new CsvDialect(delimiter), Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Creates a csv that is parsed sequentially when smaller than 16 MB.
+     *
+     * @param file        The csv file.
+     * @param dialect     The format of the csv file.
+     * @param parallelism The number of threads parsing the file.
+     * @param ordered     Whether the records keep their order in the file.
+     */
+    public ParallelFileCsv(final Path file, final CsvDialect dialect,
+                           final int parallelism, final boolean ordered) {
+        this(file, dialect, parallelism, ordered, SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param file        The csv file.
+     * @param dialect     The format of the csv file.
+     * @param parallelism The number of threads parsing the file.
+     * @param ordered     Whether the records keep their order in the file.
+     * @param threshold   The size in bytes below which the file is parsed
+     *                    sequentially.
+     */
+    public ParallelFileCsv(final Path file, final CsvDialect dialect,
+                           final int parallelism, final boolean ordered,
+                           final long threshold) {
+        if (parallelism < 1) {
+            throw new CsvException(
+                    String.format("Parallelism must be positive but was %d", parallelism)
+            );
+        }
+        this.file = file;
+        this.dialect = dialect;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public List<E> map(final CsvRecordMapper<Integer, ? extends E> mapper) {
+        final long size = this.size();
+        if (size < this.threshold
+                || this.parallelism == 1
+                || this.compressed()
+                || this.dialect.escape() != this.dialect.quote()
+                || this.dialect.quote() > 0x7F) {
+            return new FileCsv<E>(this.file, this.dialect).map(mapper);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try (final FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            final long[] bounds = this.bounds(channel, size, pool);
+            final List<Callable<List<E>>> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                final long from = bounds[i];
+                final long to = bounds[i + 1];
+                chunks.add(() -> this.chunk(channel, from, to, mapper));
+            }
+            final List<E> result = new ArrayList<>();
+            for (final List<E> chunk : this.run(pool, chunks, this.ordered)) {
+                result.addAll(chunk);
+            }
+            return result;
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", this.file),
+                    e
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits the file into byte ranges that start at the beginning of a
+     * record. The quotes of evenly sized segments are counted in parallel to
+     * tell whether each segment starts inside a quoted field, and then the
+     * first line break outside quotes after each segment start is searched
+     * for in parallel.
+     *
+     * @param channel The channel of the file.
+     * @param size    The size of the file.
+     * @param pool    The pool to run on.
+     * @return The offsets of the ranges, starting with 0 and ending with the
+     *         size of the file.
+     * @throws IOException when the file could not be read.
+     */
+    private long[] bounds(final FileChannel channel, final long size,
+                          final ForkJoinPool pool) throws IOException {
+        final int count = (int) Math.max(
+                Math.max(Math.min(this.parallelism * 4L, size / MIN_CHUNK), 1L),
+                (size + MAX_CHUNK - 1) / MAX_CHUNK
+        );
+        final long[] segments = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            segments[i] = size / count * i + Math.min(i, size % count);
+        }
+        final List<Callable<Long>> counting = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long from = segments[i];
+            final long to = segments[i + 1];
+            counting.add(() -> this.quotes(channel, from, to));
+        }
+        final List<Long> quotes = this.run(pool, counting, true);
+        final List<Callable<Long>> searching = new ArrayList<>(count);
+        boolean quoted = false;
+        for (int i = 1; i < count; i++) {
+            quoted ^= (quotes.get(i - 1) & 1) == 1;
+            final long from = segments[i];
+            final boolean inside = quoted;
+            searching.add(() -> this.boundary(channel, from, size, inside));
+        }
+        final List<Long> found = this.run(pool, searching, true);
+        final long[] bounds = new long[count + 1];
+        for (int i = 1; i < count; i++) {
+            bounds[i] = Math.max(bounds[i - 1], found.get(i - 1));
+        }
+        bounds[count] = size;
+        return bounds;
+    }
+
+    /**
+     * Counts the quotes in a byte range of the file.
+     *
+     * @param channel The channel of the file.
+     * @param from    The offset of the first byte.
+     * @param to      The offset after the last byte.
+     * @return The number of quotes.
+     * @throws IOException when the file could not be read.
+     */
+    private long quotes(final FileChannel channel, final long from,
+                        final long to) throws IOException {
+        final byte quote = (byte) this.dialect.quote();
+        long count = 0;
+        for (long start = from; start < to; start += WINDOW) {
+            final MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    start,
+                    Math.min(WINDOW, to - start)
+            );
+            final int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                if (window.get(i) == quote) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the start of the first record after an offset.
+     *
+     * @param channel The channel of the file.
+     * @param from    The offset at which to start looking.
+     * @param size    The size of the file.
+     * @param quoted  Whether the offset is inside a quoted field.
+     * @return The offset after the first line break outside quotes, or the
+     *         size of the file when there is none.
+     * @throws IOException when the file could not be read.
+     */
+    private long boundary(final FileChannel channel, final long from,
+                          final long size, final boolean quoted) throws IOException {
+        final byte quote = (byte) this.dialect.quote();
+        boolean inside = quoted;
+        for (long start = from; start < size; start += WINDOW) {
+            final MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    start,
+                    Math.min(WINDOW, size - start)
+            );
+            final int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                final byte b = window.get(i);
+                if (b == quote) {
+                    inside = !inside;
+                } else if (b == '\n' && !inside) {
+                    return start + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parses and maps the records in a byte range of the file.
+     *
+     * @param channel The channel of the file.
+     * @param from    The offset of the first record.
+     * @param to      The offset after the last record.
+     * @param mapper  The mapper to apply to each csv record.
+     * @return The mapped records.
+     * @throws IOException when the file could not be read.
+     */
+    private List<E> chunk(final FileChannel channel, final long from, final long to,
+                          final CsvRecordMapper<Integer, ? extends E> mapper) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new CsvException(
+                    String.format(
+                            "Records between bytes %d and %d of file %s are too large to map",
+                            from,
+                            to,
+                            this.file
+                    )
+            );
+        }
+        final List<E> records = new ArrayList<>();
+        if (from == to) {
+            return records;
+        }
+        final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        if (from == 0 && region.limit() >= 3 && (region.get(0) & 0xFF) == 0xEF
+                && (region.get(1) & 0xFF) == 0xBB && (region.get(2) & 0xFF) == 0xBF) {
+            region.position(3);
+        }
+        final ByteBufferInputStream input = new ByteBufferInputStream(region);
+        try (final Tokenizer tokenizer = ByteCsvTokenizer.supports(StandardCharsets.UTF_8, this.dialect)
+                ? new ByteCsvTokenizer(input, this.dialect, StandardCharsets.UTF_8)
+                : new CsvTokenizer(new InputStreamReader(input, StandardCharsets.UTF_8), this.dialect)) {
+            while (tokenizer.next()) {
+                records.add(mapper.map(FileCsv.record(tokenizer.toArray())));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return Whether the file is compressed, in which case it cannot be
+     *         split by offset.
+     */
+    private boolean compressed() {
+        try {
+            return Compression.compressed(this.file);
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", this.file),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Runs the tasks on the pool and waits for their results.
+     *
+     * @param pool    The pool to run on.
+     * @param tasks   The tasks to run.
+     * @param ordered Whether the results must be in the order of the tasks
+     *                rather than in the order of completion.
+     * @param <T>     The type of the results.
+     * @return The results.
+     */
+    private <T> List<T> run(final ForkJoinPool pool, final List<Callable<T>> tasks,
+                            final boolean ordered) {
+        final List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (ordered) {
+                final List<Future<T>> futures = new ArrayList<>(tasks.size());
+                for (final Callable<T> task : tasks) {
+                    futures.add(pool.submit(task));
+                }
+                for (final Future<T> future : futures) {
+                    results.add(future.get());
+                }
+            } else {
+                final CompletionService<T> completion = new ExecutorCompletionService<>(pool);
+                for (final Callable<T> task : tasks) {
+                    completion.submit(task);
+                }
+                for (int i = 0; i < tasks.size(); i++) {
+                    results.add(completion.take().get());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CsvException(
+                    String.format("Interrupted while parsing file %s", this.file),
+                    e
+            );
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof CsvException) {
+                throw (CsvException) e.getCause();
+            }
+            throw new CsvException(
+                    String.format("Exception while parsing file %s", this.file),
+                    e.getCause()
+            );
+        }
+        return results;
+    }
+
+    /**
+     * Gives the size of the file.
+     *
+     * @return The size in bytes.
+     * @throws CsvException when file does not exist or cannot be read.
+     */
+    private long size() {
+        if (!Files.exists(this.file)) {
+            throw new CsvException(
+                    String.format("File %s not found", this.file)
+            );
+        }
+        try {
+            return Files.size(this.file);
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", this.file),
+                    e
+            );
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link Csv} decorator that maps the records of another csv on the
+ * workers of a {@link MappingPipeline}. The records are copied out of the
+ * parser with {@link CsvRecord#copy()} before being handed over, and the
+ * mapper is called from several threads at once, so it has to be thread
+ * safe.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @param <E> the type to which each csv record will be mapped.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class PipelinedCsv<I, E> implements Csv<I, E> {
+
+    private final Csv<I, CsvRecord<I>> origin;
+    private final MappingPipeline pipeline;
+
+    /**
+     * Primary constructor.
+     *
+     * @param origin   The csv giving the parsed records.
+     * @param pipeline The configuration of the mapping stage.
+     */
+    PipelinedCsv(final Csv<I, CsvRecord<I>> origin, final MappingPipeline pipeline) {
+        this.origin = origin;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
+        try (final Stream<E> records = this.stream(mapper)) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Starts parsing and mapping the records in the background. The threads
+     * are stopped and the source is closed when the returned {@code Stream}
+     * is exhausted or closed.
+     *
+     * @param mapper The mapper to apply to each csv record.
+     * @return A lazy {@code Stream} of mapped records.
+     */
+    @Override
+    public Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        final Run<I, E> run = new Run<>(this.origin.stream(CsvRecord::copy), mapper, this.pipeline);
+        run.start();
+        return StreamSupport.stream(run, false).onClose(run::close);
+    }
+
+    /**
+     * One run of the pipeline: the parser thread, the workers and the
+     * consuming end, which is the spliterator of the resulting stream.
+     *
+     * @param <I> the type of header.
+     * @param <E> the type to which each csv record is mapped.
+     */
+    private static final class Run<I, E> extends Spliterators.AbstractSpliterator<E> {
+
+        private final Stream<CsvRecord<I>> records;
+        private final CsvRecordMapper<I, ? extends E> mapper;
+        private final MappingPipeline pipeline;
+        private final ExecutorService workers;
+        private final Thread parser;
+        private final Semaphore permits;
+        private final BlockingQueue<Future<List<E>>> results;
+        private final CompletionService<List<E>> completion;
+        private final AtomicBoolean closed;
+        private final LongAdder parsing;
+        private final LongAdder backpressure;
+        private final LongAdder mapping;
+        private final LongAdder starving;
+        private final long started;
+        private volatile long parsed;
+        private volatile long batches;
+        private long taken;
+        private Iterator<E> current;
+
+        /**
+         * Primary constructor.
+         *
+         * @param records  The records to map, copied out of the parser.
+         * @param mapper   The mapper to apply to each record.
+         * @param pipeline The configuration of the mapping stage.
+         */
+        Run(final Stream<CsvRecord<I>> records, final CsvRecordMapper<I, ? extends E> mapper,
+            final MappingPipeline pipeline) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL | (pipeline.ordered() ? Spliterator.ORDERED : 0));
+            this.records = records;
+            this.mapper = mapper;
+            this.pipeline = pipeline;
+            this.workers = Executors.newFixedThreadPool(pipeline.workers(), pipeline.threads());
+            this.parser = pipeline.threads().newThread(this::parse);
+            this.permits = new Semaphore(pipeline.capacity());
+            this.results = new LinkedBlockingQueue<>();
+            this.completion = new ExecutorCompletionService<>(this.workers, this.results);
+            this.closed = new AtomicBoolean();
+            this.parsing = new LongAdder();
+            this.backpressure = new LongAdder();
+            this.mapping = new LongAdder();
+            this.starving = new LongAdder();
+            this.started = System.nanoTime();
+            this.batches = -1L;
+            this.current = Collections.emptyIterator();
+        }
+
+        /**
+         * Starts the parser thread.
+         */
+        void start() {
+            this.parser.start();
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            while (!this.current.hasNext()) {
+                if (this.closed.get()) {
+                    return false;
+                }
+                final List<E> batch = this.take();
+                if (batch == null) {
+                    this.close();
+                    return false;
+                }
+                this.current = batch.iterator();
+            }
+            action.accept(this.current.next());
+            return true;
+        }
+
+        /**
+         * Stops the threads, closes the source and reports the timings. Has
+         * no effect after the first call.
+         */
+        void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                this.parser.interrupt();
+                this.workers.shutdownNow();
+                this.pipeline.timings().accept(
+                        new MappingTimings(
+                                this.parsed,
+                                Math.max(this.batches, this.taken),
+                                Duration.ofNanos(this.parsing.sum()),
+                                Duration.ofNanos(this.backpressure.sum()),
+                                Duration.ofNanos(this.mapping.sum()),
+                                Duration.ofNanos(this.starving.sum()),
+                                Duration.ofNanos(System.nanoTime() - this.started)
+                        )
+                );
+            }
+        }
+
+        /**
+         * Waits for the next mapped batch.
+         *
+         * @return The mapped records, or {@code null} when all were taken.
+         */
+        private List<E> take() {
+            try {
+                while (this.batches < 0L || this.taken < this.batches) {
+                    final long start = System.nanoTime();
+                    final Future<List<E>> result = this.results.take();
+                    this.starving.add(System.nanoTime() - start);
+                    final List<E> batch = result.get();
+                    if (batch != null) {
+                        this.taken++;
+                        this.permits.release();
+                        return batch;
+                    }
+                }
+                return null;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CsvException("Interrupted while mapping records", e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new CsvException("Exception while mapping records", e.getCause());
+            }
+        }
+
+        /**
+         * Parses the records and submits them in batches, ending with a
+         * {@code null} batch once the number of batches is known. Runs on
+         * the parser thread, which owns the source and closes it.
+         */
+        private void parse() {
+            final int size = this.pipeline.batch();
+            long count = 0L;
+            long submitted = 0L;
+            try (final Stream<CsvRecord<I>> source = this.records) {
+                final Iterator<CsvRecord<I>> iterator = source.iterator();
+                boolean more = true;
+                while (more) {
+                    final long start = System.nanoTime();
+                    final List<CsvRecord<I>> batch = new ArrayList<>(size);
+                    while (batch.size() < size && (more = iterator.hasNext())) {
+                        batch.add(iterator.next());
+                    }
+                    this.parsing.add(System.nanoTime() - start);
+                    count += batch.size();
+                    this.parsed = count;
+                    if (!batch.isEmpty()) {
+                        this.submit(batch);
+                        submitted++;
+                    }
+                }
+                this.batches = submitted;
+                this.results.add(CompletableFuture.completedFuture(null));
+            } catch (final InterruptedException e) {
+                // the consumer closed the stream
+            } catch (final Throwable e) {
+                final CompletableFuture<List<E>> failure = new CompletableFuture<>();
+                failure.completeExceptionally(e);
+                this.results.add(failure);
+            }
+        }
+
+        /**
+         * Hands a batch to the workers once the consumer has room for it.
+         *
+         * @param batch The parsed records.
+         * @throws InterruptedException when the consumer closed the stream.
+         */
+        private void submit(final List<CsvRecord<I>> batch) throws InterruptedException {
+            final long start = System.nanoTime();
+            this.permits.acquire();
+            this.backpressure.add(System.nanoTime() - start);
+            final Callable<List<E>> task = () -> {
+                final long begin = System.nanoTime();
+                final List<E> mapped = new ArrayList<>(batch.size());
+                for (final CsvRecord<I> record : batch) {
+                    mapped.add(this.mapper.map(record));
+                }
+                this.mapping.add(System.nanoTime() - begin);
+                return mapped;
+            };
+            if (this.pipeline.ordered()) {
+                this.results.add(this.workers.submit(task));
+            } else {
+                this.completion.submit(task);
+            }
+        }
+
+    }
+
+}
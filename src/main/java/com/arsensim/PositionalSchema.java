@@ -0,0 +1,120 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link CsvSchema} of a csv without header, whose columns are the
+ * indexes of the values.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class PositionalSchema implements CsvSchema<Integer> {
+
+    static final PositionalSchema INSTANCE = new PositionalSchema();
+
+    /**
+     * The number of column sets kept, by record size.
+     */
+    private static final int CACHED = 256;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Set<Integer>[] cache = new Set[CACHED];
+
+    private PositionalSchema() {
+    }
+
+    @Override
+    public int index(final Integer column) {
+        return column == null ? -1 : column;
+    }
+
+    @Override
+    public Integer column(final int index) {
+        return index;
+    }
+
+    /**
+     * Gives the indexes up to a size. The sets of common sizes are created
+     * once and shared by all records of that size.
+     *
+     * @param size The number of values of a record.
+     * @return The indexes of the values.
+     */
+    @Override
+    public Set<Integer> columns(final int size) {
+        if (size >= CACHED) {
+            return range(size);
+        }
+        Set<Integer> columns = this.cache[size];
+        if (columns == null) {
+            columns = range(size);
+            this.cache[size] = columns;
+        }
+        return columns;
+    }
+
+    private static Set<Integer> range(final int size) {
+        return new AbstractSet<Integer>() {
+            @Override
+            public boolean contains(final Object column) {
+                return column instanceof Integer
+                        && (Integer) column >= 0
+                        && (Integer) column < size;
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < size;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (this.next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        return this.next++;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A {@link CsvSchema} restricted to some of the columns of another schema.
+ * The other columns are not present in the records, and the parser skips
+ * their values.
+ *
+ * @param <I> the type of header. Might be String, might be Integer.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ProjectedSchema<I> implements CsvSchema<I> {
+
+    private final CsvSchema<I> schema;
+    private final boolean[] mask;
+    private final Set<I> columns;
+
+    /**
+     * Primary constructor.
+     *
+     * @param schema The schema of all columns.
+     * @param mask   Whether the column at each index is kept. Columns past
+     *               the end of the array are not.
+     */
+    ProjectedSchema(final CsvSchema<I> schema, final boolean[] mask) {
+        this.schema = schema;
+        this.mask = mask.clone();
+        this.columns = this.kept(mask.length);
+    }
+
+    @Override
+    public int index(final I column) {
+        final int index = this.schema.index(column);
+        if (index < 0 || index >= this.mask.length || !this.mask[index]) {
+            return -1;
+        }
+        return index;
+    }
+
+    @Override
+    public I column(final int index) {
+        return this.schema.column(index);
+    }
+
+    @Override
+    public Set<I> columns(final int size) {
+        if (size >= this.mask.length) {
+            return this.columns;
+        }
+        return this.kept(size);
+    }
+
+    /**
+     * @return Whether the column at each index is kept.
+     */
+    boolean[] mask() {
+        return this.mask.clone();
+    }
+
+    private Set<I> kept(final int size) {
+        final Set<I> kept = new LinkedHashSet<>();
+        for (final I column : this.schema.columns(size)) {
+            if (this.index(column) >= 0) {
+                kept.add(column);
+            }
+        }
+        return Collections.unmodifiableSet(kept);
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.function.Consumer;
+
+/**
+ * The configuration of reading a file ahead of the parser: a dedicated
+ * thread reads, and decompresses when needed, the file into fixed-size
+ * buffers while the parser consumes the previous ones. At most
+ * {@code depth} buffers are read ahead, and consumed buffers are reused.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class ReadAhead {
+
+    private final int size;
+    private final int depth;
+    private final Consumer<ReadAheadMetrics> metrics;
+
+    /**
+     * Creates a read-ahead of four buffers of 1 MB.
+     */
+    public ReadAhead() {
+        this(1 << 20, 4);
+    }
+
+    /**
+     * Creates a read-ahead.
+     *
+     * @param size  The size of the buffers in bytes.
+     * @param depth The number of buffers read ahead of the parser.
+     */
+    public ReadAhead(final int size, final int depth) {
+        this(size, depth, metrics -> { });
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param size    The size of the buffers in bytes.
+     * @param depth   The number of buffers read ahead of the parser.
+     * @param metrics Receives the metrics of each read.
+     */
+    private ReadAhead(final int size, final int depth, final Consumer<ReadAheadMetrics> metrics) {
+        if (size < 1 || depth < 1) {
+            throw new CsvException(
+                    String.format(
+                            "Read-ahead size and depth must be positive but were %d and %d",
+                            size, depth
+                    )
+            );
+        }
+        this.size = size;
+        this.depth = depth;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param listener Receives the metrics of each read of the file when
+     *                 it is closed.
+     * @return The same read-ahead reporting its metrics.
+     */
+    public ReadAhead withMetrics(final Consumer<ReadAheadMetrics> listener) {
+        return new ReadAhead(this.size, this.depth, listener);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int depth() {
+        return this.depth;
+    }
+
+    Consumer<ReadAheadMetrics> metrics() {
+        return this.metrics;
+    }
+
+}
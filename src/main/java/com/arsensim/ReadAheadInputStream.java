@@ -0,0 +1,247 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An input read ahead by a dedicated thread into a bounded set of
+ * recycled buffers, configured by a {@link ReadAhead}. The reading thread
+ * fills whole buffers and hands them over in order; the reader of this
+ * stream gives each buffer back once it has consumed it.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    /**
+     * Marks the end of the input in the queue of filled buffers.
+     */
+    private static final Buffer END = new Buffer(new byte[0], 0, null);
+
+    private final InputStream origin;
+    private final ReadAhead config;
+    private final BlockingQueue<Buffer> filled;
+    private final BlockingQueue<byte[]> free;
+    private final Thread reader;
+    private final AtomicBoolean closed;
+    private int allocated;
+    private long bytes;
+    private long buffers;
+    private long waits;
+    private long waited;
+    private volatile long stalls;
+    private volatile long stalled;
+    private Buffer current;
+
+    /**
+     * Primary constructor. Starts the reading thread.
+     *
+     * @param origin The input to read ahead. It is read and closed by the
+     *               reading thread.
+     * @param config The size and number of the buffers.
+     */
+    ReadAheadInputStream(final InputStream origin, final ReadAhead config) {
+        this.origin = origin;
+        this.config = config;
+        this.filled = new ArrayBlockingQueue<>(config.depth() + 1);
+        this.free = new ArrayBlockingQueue<>(config.depth() + 1);
+        this.closed = new AtomicBoolean();
+        this.current = new Buffer(new byte[0], 0, null);
+        this.reader = new Thread(this::fill, "csv-read-ahead-" + THREADS.incrementAndGet());
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.next()) {
+            return -1;
+        }
+        return this.current.data[this.current.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.next()) {
+            return -1;
+        }
+        final int count = Math.min(len, this.current.length - this.current.position);
+        System.arraycopy(this.current.data, this.current.position, bytes, off, count);
+        this.current.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.current.length - this.current.position;
+    }
+
+    /**
+     * Stops the reading thread, which closes the input, and reports the
+     * metrics. Has no effect after the first call.
+     */
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            this.reader.interrupt();
+            this.config.metrics().accept(
+                    new ReadAheadMetrics(
+                            this.bytes,
+                            this.buffers,
+                            this.waits,
+                            Duration.ofNanos(this.waited),
+                            this.stalls,
+                            Duration.ofNanos(this.stalled)
+                    )
+            );
+        }
+    }
+
+    /**
+     * Makes sure that the current buffer has bytes left, taking the next
+     * filled buffer when needed.
+     *
+     * @return Whether there are bytes left before the end of the input.
+     * @throws IOException when the input could not be read.
+     */
+    private boolean next() throws IOException {
+        while (this.current.position == this.current.length) {
+            if (this.current == END) {
+                return false;
+            }
+            if (this.current.length > 0) {
+                this.free.offer(this.current.data);
+            }
+            Buffer next = this.filled.poll();
+            if (next == null) {
+                this.waits++;
+                final long start = System.nanoTime();
+                try {
+                    next = this.filled.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for csv input");
+                }
+                this.waited += System.nanoTime() - start;
+            }
+            if (next.failure != null) {
+                throw new IOException("Exception while reading csv input ahead", next.failure);
+            }
+            if (next != END) {
+                this.buffers++;
+                this.bytes += next.length;
+            }
+            this.current = next;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the input into buffers until its end. Runs on the reading
+     * thread, which owns the input and closes it.
+     */
+    private void fill() {
+        try (final InputStream input = this.origin) {
+            while (!this.closed.get()) {
+                final byte[] data = this.buffer();
+                int length = 0;
+                int read = 0;
+                while (length < data.length && (read = input.read(data, length, data.length - length)) >= 0) {
+                    length += read;
+                }
+                if (length > 0) {
+                    this.filled.put(new Buffer(data, length, null));
+                }
+                if (read < 0) {
+                    this.filled.put(END);
+                    return;
+                }
+            }
+        } catch (final InterruptedException | InterruptedIOException e) {
+            // the stream was closed
+        } catch (final IOException | RuntimeException e) {
+            try {
+                this.filled.put(new Buffer(new byte[0], 0, e));
+            } catch (final InterruptedException ex) {
+                // the stream was closed
+            }
+        }
+    }
+
+    /**
+     * Gives a free buffer, allocating one while fewer than the configured
+     * number exist and waiting for the reader of this stream otherwise.
+     *
+     * @return The buffer.
+     * @throws InterruptedException when the stream was closed.
+     */
+    private byte[] buffer() throws InterruptedException {
+        byte[] data = this.free.poll();
+        if (data == null) {
+            if (this.allocated <= this.config.depth()) {
+                this.allocated++;
+                return new byte[this.config.size()];
+            }
+            final long start = System.nanoTime();
+            data = this.free.take();
+            this.stalls++;
+            this.stalled += System.nanoTime() - start;
+        }
+        return data;
+    }
+
+    /**
+     * A buffer filled by the reading thread, or the failure to fill it.
+     */
+    private static final class Buffer {
+
+        private final byte[] data;
+        private final int length;
+        private final Exception failure;
+        private int position;
+
+        Buffer(final byte[] data, final int length, final Exception failure) {
+            this.data = data;
+            this.length = length;
+            this.failure = failure;
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.time.Duration;
+
+/**
+ * How a read of a file through a {@link ReadAhead} went: how often the
+ * parser had to wait for the file to be read, and how often the reading
+ * thread had to wait for the parser to free a buffer.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class ReadAheadMetrics {
+
+    private final long bytes;
+    private final long buffers;
+    private final long waits;
+    private final Duration waited;
+    private final long stalls;
+    private final Duration stalled;
+
+    /**
+     * Primary constructor.
+     *
+     * @param bytes   The number of bytes read.
+     * @param buffers The number of buffers filled.
+     * @param waits   The number of times the parser waited for a buffer.
+     * @param waited  The time the parser waited for buffers.
+     * @param stalls  The number of times the reader waited for a free
+     *                buffer.
+     * @param stalled The time the reader waited for free buffers.
+     */
+    ReadAheadMetrics(final long bytes, final long buffers, final long waits,
+                     final Duration waited, final long stalls, final Duration stalled) {
+        this.bytes = bytes;
+        this.buffers = buffers;
+        this.waits = waits;
+        this.waited = waited;
+        this.stalls = stalls;
+        this.stalled = stalled;
+    }
+
+    /**
+     * @return The number of bytes read.
+     */
+    public long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * @return The number of buffers filled.
+     */
+    public long buffers() {
+        return this.buffers;
+    }
+
+    /**
+     * @return The number of times the parser found no buffer ready and
+     * waited for the file to be read.
+     */
+    public long waits() {
+        return this.waits;
+    }
+
+    /**
+     * @return The time the parser waited for the file to be read.
+     */
+    public Duration waited() {
+        return this.waited;
+    }
+
+    /**
+     * @return The number of times the reader found all buffers in use and
+     * waited for the parser.
+     */
+    public long stalls() {
+        return this.stalls;
+    }
+
+    /**
+     * @return The time the reader waited for the parser.
+     */
+    public Duration stalled() {
+        return this.stalled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ReadAheadMetrics{bytes=%d, buffers=%d, waits=%d, waited=%s, stalls=%d, stalled=%s}",
+                this.bytes, this.buffers, this.waits, this.waited, this.stalls, this.stalled
+        );
+    }
+
+}
@@ -0,0 +1,626 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A cache of the parsed records of a csv file, kept next to the file in a
+ * sidecar file with the {@value #SUFFIX} suffix. It holds the unquoted
+ * values of every record in UTF-8, each prefixed by its length, so that
+ * reading it takes no tokenizing, unescaping or decoding of another
+ * charset, and no decompression of a compressed file. The cache is read
+ * through memory mapped windows.
+ * <p>
+ * The cache starts with a key made of the size and modification time of
+ * the file, its dialect and its charset, and is stale as soon as one of
+ * them changes. A missing or stale cache is written while the file is
+ * tokenized, into a temporary file that replaces the cache only once the
+ * file has been read to its end, so a concurrent reader never sees half of
+ * it.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class RecordCache {
+
+    static final String SUFFIX = ".rec";
+
+    private static final long MAGIC = 0x4353565245433031L;
+
+    /**
+     * The size of the windows of the cache mapped at once.
+     */
+    private static final int WINDOW = 1 << 28;
+
+    /**
+     * The longest encoding of a length.
+     */
+    private static final int VARINT = 10;
+
+    private RecordCache() {
+    }
+
+    /**
+     * Opens a tokenizer over the cache of a csv file when it is up to date,
+     * or over the file itself, writing the cache as the file is read.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file.
+     * @param ahead   Reads the file ahead of the parser, or {@code null}.
+     * @param meter   Measures the read of the file, or {@code null}.
+     * @return The tokenizer, which has to be closed.
+     * @throws CsvException when file does not exist or cannot be opened.
+     */
+    static Tokenizer open(final Path file, final CsvDialect dialect, final Charset charset,
+                          final ReadAhead ahead, final CsvMeter meter) {
+        final byte[] key = key(file, dialect, charset);
+        if (key == null) {
+            return FileRecords.tokenizer(file, dialect, charset, ahead, meter);
+        }
+        final Path sidecar = sidecar(file);
+        final Tokenizer cached = Reader.open(sidecar, key);
+        if (cached != null) {
+            return cached;
+        }
+        return Writer.open(sidecar, key, FileRecords.tokenizer(file, dialect, charset, ahead, meter));
+    }
+
+    /**
+     * @param file The csv file.
+     * @return The sidecar file holding the cache of the csv file.
+     */
+    static Path sidecar(final Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Gives the key of the current content of a file.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file.
+     * @return The key, or {@code null} when the file cannot be read, which
+     *         its tokenizer reports.
+     */
+    private static byte[] key(final Path file, final CsvDialect dialect, final Charset charset) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeLong(MAGIC);
+                output.writeLong(Files.size(file));
+                output.writeLong(Files.getLastModifiedTime(file).toMillis());
+                output.writeUTF(dialect.delimiter());
+                output.writeChar(dialect.quote());
+                output.writeChar(dialect.escape());
+                output.writeUTF(charset.name());
+            }
+            return bytes.toByteArray();
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a non negative number in groups of seven bits, the lowest
+     * first.
+     *
+     * @param target The array to write into, with room for
+     *               {@value #VARINT} bytes.
+     * @param at     The index at which to write.
+     * @param value  The number.
+     * @return The index after the number.
+     */
+    private static int varint(final byte[] target, final int at, final long value) {
+        int index = at;
+        long rest = value;
+        while (rest >= 0x80L) {
+            target[index++] = (byte) (rest | 0x80L);
+            rest >>>= 7;
+        }
+        target[index++] = (byte) rest;
+        return index;
+    }
+
+    /**
+     * Reads the records from a cache.
+     */
+    private static final class Reader implements Tokenizer {
+
+        private final Path sidecar;
+        private final FileChannel channel;
+        private final long end;
+        private ByteBuffer window;
+        private long base;
+        private long position;
+        private byte[] bytes;
+        private int cursor;
+        private int[] starts;
+        private int[] ends;
+        private int size;
+        private long line;
+        private boolean[] mask;
+        private ValueCaches caches;
+
+        /**
+         * Primary constructor.
+         *
+         * @param sidecar The cache.
+         * @param channel The open cache.
+         * @param start   The position of the first record.
+         * @param end     The size of the cache.
+         */
+        private Reader(final Path sidecar, final FileChannel channel, final long start,
+                       final long end) {
+            this.sidecar = sidecar;
+            this.channel = channel;
+            this.end = end;
+            this.window = ByteBuffer.allocate(0);
+            this.base = start;
+            this.position = start;
+            this.bytes = new byte[256];
+            this.starts = new int[16];
+            this.ends = new int[16];
+        }
+
+        /**
+         * Opens a cache when it starts with the given key.
+         *
+         * @param sidecar The cache.
+         * @param key     The key of the current content of the file.
+         * @return The reader, or {@code null} when there is no cache, or it
+         *         is stale.
+         */
+        static Reader open(final Path sidecar, final byte[] key) {
+            if (!Files.exists(sidecar)) {
+                return null;
+            }
+            try {
+                final FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ);
+                try {
+                    final ByteBuffer head = ByteBuffer.allocate(key.length);
+                    while (head.hasRemaining() && channel.read(head) >= 0) {
+                        // keep reading the key
+                    }
+                    if (head.hasRemaining() || !Arrays.equals(head.array(), key)) {
+                        channel.close();
+                        return null;
+                    }
+                    return new Reader(sidecar, channel, key.length, channel.size());
+                } catch (final IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+            } catch (final IOException e) {
+                // an unreadable cache is rewritten like a missing one
+                return null;
+            }
+        }
+
+        @Override
+        public void project(final boolean[] kept) {
+            this.mask = kept;
+        }
+
+        @Override
+        public void intern(final ValueCaches interned) {
+            this.caches = interned;
+        }
+
+        @Override
+        public boolean keeps(final int index) {
+            return this.mask == null || index < this.mask.length && this.mask[index];
+        }
+
+        @Override
+        public boolean next() {
+            this.size = 0;
+            if (this.position >= this.end) {
+                return false;
+            }
+            this.map((int) Math.min(VARINT, this.end - this.position));
+            int shift = 0;
+            long length = 0L;
+            byte read;
+            do {
+                read = this.window.get((int) (this.position++ - this.base));
+                length |= (long) (read & 0x7F) << shift;
+                shift += 7;
+            } while (read < 0 && shift < 64);
+            if (length > Integer.MAX_VALUE) {
+                throw new CsvException(
+                        String.format("Record cache %s is corrupt", this.sidecar)
+                );
+            }
+            final int count = (int) length;
+            this.map(count);
+            if (this.bytes.length < count) {
+                this.bytes = new byte[Math.max(count, this.bytes.length * 2)];
+            }
+            this.window.position((int) (this.position - this.base));
+            this.window.get(this.bytes, 0, count);
+            this.position += count;
+            this.cursor = 0;
+            this.line += this.decode();
+            final int fields = (int) this.decode();
+            if (fields > this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, Math.max(fields, this.starts.length * 2));
+                this.ends = Arrays.copyOf(this.ends, this.starts.length);
+            }
+            for (int i = 0; i < fields; i++) {
+                final int field = (int) this.decode();
+                this.starts[i] = this.cursor;
+                this.cursor += field;
+                this.ends[i] = this.cursor;
+            }
+            this.size = fields;
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public String get(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new CsvException(
+                        String.format(
+                                "Column %d is not present in csv record at line %d",
+                                index,
+                                this.line
+                        )
+                );
+            }
+            return this.value(index);
+        }
+
+        @Override
+        public CharSequence chars(final int index, final CharView view) {
+            final int start = this.starts[index];
+            final int end = this.ends[index];
+            final byte[] buf = this.bytes;
+            for (int i = start; i < end; i++) {
+                if (buf[i] < 0) {
+                    return new String(buf, start, end - start, StandardCharsets.UTF_8);
+                }
+            }
+            return view.reset(buf, start, end);
+        }
+
+        @Override
+        public String[] toArray() {
+            final String[] values = new String[this.size];
+            for (int i = 0; i < this.size; i++) {
+                if (this.keeps(i)) {
+                    values[i] = this.value(i);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public long line() {
+            return this.line;
+        }
+
+        /**
+         * Closes the cache. Its mapped windows are released once they are
+         * collected.
+         */
+        @Override
+        public void close() {
+            try {
+                this.channel.close();
+            } catch (final IOException e) {
+                throw new CsvException("Exception while closing csv input", e);
+            }
+        }
+
+        private String value(final int index) {
+            final int start = this.starts[index];
+            final int end = this.ends[index];
+            if (this.caches != null) {
+                final ValueCache cache = this.caches.column(index);
+                if (cache != null) {
+                    return cache.get(this.bytes, start, end, StandardCharsets.UTF_8);
+                }
+            }
+            return new String(this.bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Maps the window holding the next bytes of the cache, unless the
+         * current one does.
+         *
+         * @param count The number of bytes needed from the position on.
+         * @throws CsvException when the cache is cut short or cannot be read.
+         */
+        private void map(final int count) {
+            if (this.position + count > this.end) {
+                throw new CsvException(
+                        String.format("Record cache %s is truncated", this.sidecar)
+                );
+            }
+            if (this.position + count <= this.base + this.window.limit()) {
+                return;
+            }
+            try {
+                this.window = this.channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        this.position,
+                        Math.min(Math.max(WINDOW, count), this.end - this.position)
+                );
+                this.base = this.position;
+            } catch (final IOException e) {
+                throw new CsvException(
+                        String.format("Exception while reading record cache %s", this.sidecar),
+                        e
+                );
+            }
+        }
+
+        /**
+         * @return The number encoded at the cursor in the current record.
+         */
+        private long decode() {
+            long value = 0L;
+            int shift = 0;
+            byte read;
+            do {
+                read = this.bytes[this.cursor++];
+                value |= (long) (read & 0x7F) << shift;
+                shift += 7;
+            } while (read < 0);
+            return value;
+        }
+
+    }
+
+    /**
+     * Passes the records of a tokenizer through, writing all their fields
+     * into a new cache. The tokenizer keeps every field, whatever the
+     * projection, since the cache is read with any projection later on.
+     */
+    private static final class Writer implements Tokenizer {
+
+        private final Path sidecar;
+        private final Path temporary;
+        private final Tokenizer source;
+        private OutputStream output;
+        private byte[] record;
+        private final byte[] prefix;
+        private long line;
+        private boolean[] mask;
+
+        /**
+         * Primary constructor.
+         *
+         * @param sidecar   The cache.
+         * @param temporary The file written, which becomes the cache.
+         * @param output    The output to the temporary file.
+         * @param source    The tokenizer of the csv file.
+         */
+        private Writer(final Path sidecar, final Path temporary, final OutputStream output,
+                       final Tokenizer source) {
+            this.sidecar = sidecar;
+            this.temporary = temporary;
+            this.output = output;
+            this.source = source;
+            this.record = new byte[256];
+            this.prefix = new byte[VARINT];
+        }
+
+        /**
+         * Starts writing a cache. A cache that cannot be written is only a
+         * missed shortcut, so the tokenizer is then returned as it is.
+         *
+         * @param sidecar The cache.
+         * @param key     The key of the current content of the file.
+         * @param source  The tokenizer of the csv file.
+         * @return The tokenizer writing the cache.
+         */
+        static Tokenizer open(final Path sidecar, final byte[] key, final Tokenizer source) {
+            try {
+                final Path temporary = Files.createTempFile(
+                        sidecar.toAbsolutePath().getParent(), sidecar.getFileName().toString(), ".tmp"
+                );
+                try {
+                    final OutputStream output = new BufferedOutputStream(
+                            Files.newOutputStream(temporary), 1 << 16
+                    );
+                    output.write(key);
+                    return new Writer(sidecar, temporary, output, source);
+                } catch (final IOException e) {
+                    Files.deleteIfExists(temporary);
+                    throw e;
+                }
+            } catch (final IOException e) {
+                return source;
+            }
+        }
+
+        @Override
+        public void project(final boolean[] kept) {
+            this.mask = kept;
+        }
+
+        @Override
+        public void intern(final ValueCaches caches) {
+            this.source.intern(caches);
+        }
+
+        @Override
+        public boolean keeps(final int index) {
+            return this.mask == null || index < this.mask.length && this.mask[index];
+        }
+
+        @Override
+        public boolean next() {
+            final boolean next = this.source.next();
+            if (this.output != null) {
+                try {
+                    if (next) {
+                        this.write();
+                    } else {
+                        this.commit();
+                    }
+                } catch (final IOException e) {
+                    this.discard();
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public int size() {
+            return this.source.size();
+        }
+
+        @Override
+        public String get(final int index) {
+            return this.source.get(index);
+        }
+
+        @Override
+        public CharSequence chars(final int index, final CharView view) {
+            return this.source.chars(index, view);
+        }
+
+        @Override
+        public String[] toArray() {
+            final String[] values = this.source.toArray();
+            if (this.mask != null) {
+                for (int i = 0; i < values.length; i++) {
+                    if (!this.keeps(i)) {
+                        values[i] = null;
+                    }
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public long line() {
+            return this.source.line();
+        }
+
+        /**
+         * Closes the file, dropping the cache unless it was read to its end.
+         */
+        @Override
+        public void close() {
+            if (this.output != null) {
+                this.discard();
+            }
+            this.source.close();
+        }
+
+        /**
+         * Appends the current record to the cache: its length, the lines
+         * since the previous record, its number of fields, and each field as
+         * its length followed by its bytes in UTF-8.
+         *
+         * @throws IOException when the cache could not be written.
+         */
+        private void write() throws IOException {
+            final int size = this.source.size();
+            int length = this.reserve(0, 2 * VARINT);
+            length = varint(this.record, length, this.source.line() - this.line);
+            length = varint(this.record, length, size);
+            this.line = this.source.line();
+            for (int i = 0; i < size; i++) {
+                final byte[] value = this.source.get(i).getBytes(StandardCharsets.UTF_8);
+                length = this.reserve(length, VARINT + value.length);
+                length = varint(this.record, length, value.length);
+                System.arraycopy(value, 0, this.record, length, value.length);
+                length += value.length;
+            }
+            this.output.write(this.prefix, 0, varint(this.prefix, 0, length));
+            this.output.write(this.record, 0, length);
+        }
+
+        /**
+         * Makes room in the record being encoded.
+         *
+         * @param length The number of bytes encoded so far.
+         * @param count  The number of bytes to add.
+         * @return The number of bytes encoded so far.
+         */
+        private int reserve(final int length, final int count) {
+            if (length + count > this.record.length) {
+                this.record = Arrays.copyOf(this.record, Math.max(this.record.length * 2, length + count));
+            }
+            return length;
+        }
+
+        /**
+         * Replaces the cache by the complete temporary file.
+         *
+         * @throws IOException when the cache could not be written.
+         */
+        private void commit() throws IOException {
+            this.output.close();
+            this.output = null;
+            Files.move(this.temporary, this.sidecar, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Drops the temporary file, keeping the previous cache, if any.
+         */
+        private void discard() {
+            try {
+                if (this.output != null) {
+                    this.output.close();
+                }
+            } catch (final IOException e) {
+                // the temporary file is deleted anyway
+            }
+            this.output = null;
+            try {
+                Files.deleteIfExists(this.temporary);
+            } catch (final IOException e) {
+                // a leftover temporary file is never read
+            }
+        }
+
+    }
+
+}
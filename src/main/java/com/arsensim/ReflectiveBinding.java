@@ -0,0 +1,666 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * The compiled accessors of a class: a factory calling its no-arg
+ * constructor, a {@link Property} for each setter and a {@link Getter} for
+ * each getter, keyed by the normalized property name. The factory and the
+ * getters are compiled on first use, so that classes that are only read
+ * or only written need not have both. Accessors are generated with {@link LambdaMetafactory}
+ * when the class is accessible to this module, and fall back to
+ * {@code MethodHandle} invocations otherwise.
+ * <p>
+ * Bindings are resolved once per class and cached for the lifetime of the
+ * class, see {@link #of(Class)}.
+ *
+ * @param <E> the type of the bound class.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ReflectiveBinding<E> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<ReflectiveBinding<?>> CACHE = new ClassValue<ReflectiveBinding<?>>() {
+        @Override
+        protected ReflectiveBinding<?> computeValue(final Class<?> type) {
+            return new ReflectiveBinding<>(type);
+        }
+    };
+
+    private final Class<E> clazz;
+    private final Map<String, Property> properties;
+    private final Map<String, Method> readers;
+    private final ConcurrentMap<String, Getter> getters;
+    private volatile Supplier<E> factory;
+
+    /**
+     * Primary constructor. Resolves all accessors of the class.
+     *
+     * @param clazz The class to bind.
+     */
+    private ReflectiveBinding(final Class<E> clazz) {
+        this.clazz = clazz;
+        this.properties = this.properties();
+        this.readers = this.readers();
+        this.getters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gives the binding of a class, resolving it on first use.
+     *
+     * @param clazz The class to bind.
+     * @param <E>   The type of the class.
+     * @return The shared binding of the class.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> ReflectiveBinding<E> of(final Class<E> clazz) {
+        return (ReflectiveBinding<E>) CACHE.get(clazz);
+    }
+
+    /**
+     * Normalizes a csv column or property name: lower case without spaces.
+     *
+     * @param name The name to normalize.
+     * @return The normalized name.
+     */
+    static String normalize(final String name) {
+        return name.toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    /**
+     * Creates an empty instance using the no-arg constructor.
+     *
+     * @return The new instance.
+     */
+    E create() {
+        Supplier<E> current = this.factory;
+        if (current == null) {
+            current = this.factory();
+            this.factory = current;
+        }
+        return current.get();
+    }
+
+    /**
+     * @param column The name of a csv column.
+     * @return Whether the class has a setter for the column.
+     */
+    boolean has(final String column) {
+        return this.properties.containsKey(normalize(column));
+    }
+
+    /**
+     * Finds the setter of the property that a csv column maps to.
+     *
+     * @param column The name of the csv column.
+     * @return The property.
+     * @throws CsvException when the class has no such setter.
+     */
+    Property property(final String column) {
+        final Property property = this.properties.get(normalize(column));
+        if (property == null) {
+            throw new CsvException(
+                    String.format(
+                            "No appropriate setter method found for csv column %s in class %s",
+                            column,
+                            this.clazz
+                    )
+            );
+        }
+        return property;
+    }
+
+    /**
+     * Finds the getter of the property that a csv column is written from.
+     *
+     * @param column The name of the csv column.
+     * @return The getter.
+     * @throws CsvException when the class has no such getter.
+     */
+    Getter getter(final String column) {
+        final String name = normalize(column);
+        final Method method = this.readers.get(name);
+        if (method == null) {
+            throw new CsvException(
+                    String.format(
+                            "No appropriate getter method found for csv column %s in class %s",
+                            column,
+                            this.clazz
+                    )
+            );
+        }
+        return this.getters.computeIfAbsent(name, key -> new Getter(this.clazz, method));
+    }
+
+    /**
+     * Compiles the no-arg constructor of the class into a factory.
+     *
+     * @return The factory.
+     */
+    @SuppressWarnings("unchecked")
+    private Supplier<E> factory() {
+        final MethodHandle handle;
+        try {
+            final Constructor<E> constructor = this.clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            handle = LOOKUP.unreflectConstructor(constructor);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            throw new CsvException(
+                    String.format(
+                            "Could not construct an empty object of %s using no-arg constructor",
+                            this.clazz
+                    ),
+                    e
+            );
+        }
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(
+                    LOOKUP,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    handle,
+                    MethodType.methodType(this.clazz)
+            );
+            return (Supplier<E>) site.getTarget().invokeExact();
+        } catch (final Throwable e) {
+            final MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (E) generic.invokeExact();
+                } catch (final Throwable ex) {
+                    throw new CsvException(
+                            String.format(
+                                    "Could not construct an empty object of %s using no-arg constructor",
+                                    this.clazz
+                            ),
+                            ex
+                    );
+                }
+            };
+        }
+    }
+
+    /**
+     * Resolves the single argument setters of the class and its
+     * superclasses. A setter declared in a subclass wins over one of its
+     * superclasses, and a {@code String} setter wins over its overloads.
+     *
+     * @return The properties keyed by normalized name.
+     */
+    private Map<String, Property> properties() {
+        final Map<String, Method> methods = new HashMap<>();
+        for (Class<?> type = this.clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (final Method method : type.getDeclaredMethods()) {
+                if (method.getParameterCount() != 1
+                        || !method.getName().startsWith("set")
+                        || Modifier.isStatic(method.getModifiers())
+                        || method.isBridge()) {
+                    continue;
+                }
+                final String name = normalize(method.getName().substring(3));
+                final Method known = methods.get(name);
+                if (known == null
+                        || known.getDeclaringClass() == method.getDeclaringClass()
+                        && method.getParameterTypes()[0] == String.class) {
+                    methods.put(name, method);
+                }
+            }
+        }
+        final Map<String, Property> resolved = new HashMap<>();
+        methods.forEach((name, method) -> resolved.put(name, new Property(this.clazz, method)));
+        return Collections.unmodifiableMap(resolved);
+    }
+
+    /**
+     * Resolves the getters of the class and its superclasses: methods
+     * without parameters named {@code get*}, or {@code is*} when they
+     * return a {@code boolean}. A getter declared in a subclass wins over
+     * one of its superclasses.
+     *
+     * @return The getter methods keyed by normalized name.
+     */
+    private Map<String, Method> readers() {
+        final Map<String, Method> methods = new HashMap<>();
+        for (Class<?> type = this.clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (final Method method : type.getDeclaredMethods()) {
+                final String name = method.getName();
+                final int prefix;
+                if (name.startsWith("get") && method.getReturnType() != void.class) {
+                    prefix = 3;
+                } else if (name.startsWith("is") && method.getReturnType() == boolean.class) {
+                    prefix = 2;
+                } else {
+                    continue;
+                }
+                if (method.getParameterCount() != 0
+                        || name.length() == prefix
+                        || Modifier.isStatic(method.getModifiers())
+                        || method.isBridge()) {
+                    continue;
+                }
+                methods.putIfAbsent(normalize(name.substring(prefix)), method);
+            }
+        }
+        return Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * A settable property of a class: its setter compiled into a generic
+     * accessor and, for {@code int}, {@code long} and {@code double}
+     * properties, into an accessor taking the primitive value without
+     * boxing it.
+     */
+    static final class Property {
+
+        private final Class<?> owner;
+        private final Method method;
+        private final MethodHandle handle;
+        private final BiConsumer<Object, Object> generic;
+        private final ObjIntConsumer<Object> ints;
+        private final ObjLongConsumer<Object> longs;
+        private final ObjDoubleConsumer<Object> doubles;
+
+        /**
+         * Primary constructor. Compiles the setter.
+         *
+         * @param owner  The class whose property it is.
+         * @param method The setter method.
+         */
+        Property(final Class<?> owner, final Method method) {
+            this.owner = owner;
+            this.method = method;
+            try {
+                method.setAccessible(true);
+                this.handle = LOOKUP.unreflect(method);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                throw new CsvException(
+                        String.format(
+                                "Could not access method %s of class %s",
+                                method.getName(),
+                                owner
+                        ),
+                        e
+                );
+            }
+            final Class<?> type = this.type();
+            this.generic = this.compile(
+                    BiConsumer.class,
+                    Object.class,
+                    MethodType.methodType(type).wrap().returnType(),
+                    generic -> (object, value) -> {
+                        try {
+                            generic.invokeExact(object, value);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.ints = type != int.class ? null : this.compile(
+                    ObjIntConsumer.class,
+                    int.class,
+                    int.class,
+                    generic -> (object, value) -> {
+                        try {
+                            generic.invokeExact(object, value);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.longs = type != long.class ? null : this.compile(
+                    ObjLongConsumer.class,
+                    long.class,
+                    long.class,
+                    generic -> (object, value) -> {
+                        try {
+                            generic.invokeExact(object, value);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.doubles = type != double.class ? null : this.compile(
+                    ObjDoubleConsumer.class,
+                    double.class,
+                    double.class,
+                    generic -> (object, value) -> {
+                        try {
+                            generic.invokeExact(object, value);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+        }
+
+        /**
+         * @return The name of the setter method.
+         */
+        String name() {
+            return this.method.getName();
+        }
+
+        /**
+         * @return The parameter type of the setter.
+         */
+        Class<?> type() {
+            return this.method.getParameterTypes()[0];
+        }
+
+        /**
+         * @return The setter taking the target object and the boxed value.
+         */
+        BiConsumer<Object, Object> generic() {
+            return this.generic;
+        }
+
+        /**
+         * @return The setter of an {@code int} property.
+         */
+        ObjIntConsumer<Object> ints() {
+            return this.ints;
+        }
+
+        /**
+         * @return The setter of a {@code long} property.
+         */
+        ObjLongConsumer<Object> longs() {
+            return this.longs;
+        }
+
+        /**
+         * @return The setter of a {@code double} property.
+         */
+        ObjDoubleConsumer<Object> doubles() {
+            return this.doubles;
+        }
+
+        /**
+         * Compiles the setter into a functional interface whose method is
+         * named {@code accept} and takes an object and a value.
+         *
+         * @param iface    The functional interface.
+         * @param erased   The value type of the interface method.
+         * @param value    The value type as seen by the setter.
+         * @param fallback Wraps a method handle of the erased signature when
+         *                 the setter cannot be compiled.
+         * @param <T>      The type of the functional interface.
+         * @return The compiled setter.
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T compile(final Class<? super T> iface, final Class<?> erased,
+                              final Class<?> value, final Function<MethodHandle, T> fallback) {
+            try {
+                final CallSite site = LambdaMetafactory.metafactory(
+                        LOOKUP,
+                        "accept",
+                        MethodType.methodType(iface),
+                        MethodType.methodType(void.class, Object.class, erased),
+                        this.handle,
+                        MethodType.methodType(void.class, this.method.getDeclaringClass(), value)
+                );
+                return (T) site.getTarget().invoke();
+            } catch (final Throwable e) {
+                return fallback.apply(
+                        this.handle.asType(MethodType.methodType(void.class, Object.class, erased))
+                );
+            }
+        }
+
+        /**
+         * Wraps an exception thrown by the setter.
+         *
+         * @param cause The exception thrown.
+         * @return The exception to throw.
+         */
+        private RuntimeException failure(final Throwable cause) {
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            return new CsvException(
+                    String.format(
+                            "Could not set value for object of class %s using method %s",
+                            this.owner,
+                            this.method.getName()
+                    ),
+                    cause
+            );
+        }
+
+    }
+
+    /**
+     * A readable property of a class: its getter compiled into a generic
+     * accessor and, for {@code int}, {@code long} and {@code double}
+     * properties, into an accessor giving the primitive value without
+     * boxing it.
+     */
+    static final class Getter {
+
+        private final Class<?> owner;
+        private final Method method;
+        private final MethodHandle handle;
+        private final Function<Object, Object> generic;
+        private final ToIntFunction<Object> ints;
+        private final ToLongFunction<Object> longs;
+        private final ToDoubleFunction<Object> doubles;
+
+        /**
+         * Primary constructor. Compiles the getter.
+         *
+         * @param owner  The class whose property it is.
+         * @param method The getter method.
+         */
+        Getter(final Class<?> owner, final Method method) {
+            this.owner = owner;
+            this.method = method;
+            try {
+                method.setAccessible(true);
+                this.handle = LOOKUP.unreflect(method);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                throw new CsvException(
+                        String.format(
+                                "Could not access method %s of class %s",
+                                method.getName(),
+                                owner
+                        ),
+                        e
+                );
+            }
+            final Class<?> type = this.type();
+            this.generic = this.compile(
+                    Function.class,
+                    "apply",
+                    Object.class,
+                    MethodType.methodType(type).wrap().returnType(),
+                    generic -> object -> {
+                        try {
+                            return generic.invokeExact(object);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.ints = type != int.class ? null : this.compile(
+                    ToIntFunction.class,
+                    "applyAsInt",
+                    int.class,
+                    int.class,
+                    generic -> object -> {
+                        try {
+                            return (int) generic.invokeExact(object);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.longs = type != long.class ? null : this.compile(
+                    ToLongFunction.class,
+                    "applyAsLong",
+                    long.class,
+                    long.class,
+                    generic -> object -> {
+                        try {
+                            return (long) generic.invokeExact(object);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+            this.doubles = type != double.class ? null : this.compile(
+                    ToDoubleFunction.class,
+                    "applyAsDouble",
+                    double.class,
+                    double.class,
+                    generic -> object -> {
+                        try {
+                            return (double) generic.invokeExact(object);
+                        } catch (final Throwable ex) {
+                            throw this.failure(ex);
+                        }
+                    }
+            );
+        }
+
+        /**
+         * @return The return type of the getter.
+         */
+        Class<?> type() {
+            return this.method.getReturnType();
+        }
+
+        /**
+         * @return The getter taking the target object and giving the boxed
+         *         value.
+         */
+        Function<Object, Object> generic() {
+            return this.generic;
+        }
+
+        /**
+         * @return The getter of an {@code int} property.
+         */
+        ToIntFunction<Object> ints() {
+            return this.ints;
+        }
+
+        /**
+         * @return The getter of a {@code long} property.
+         */
+        ToLongFunction<Object> longs() {
+            return this.longs;
+        }
+
+        /**
+         * @return The getter of a {@code double} property.
+         */
+        ToDoubleFunction<Object> doubles() {
+            return this.doubles;
+        }
+
+        /**
+         * Compiles the getter into a functional interface whose method takes
+         * an object and gives a value.
+         *
+         * @param iface    The functional interface.
+         * @param name     The name of the interface method.
+         * @param erased   The value type of the interface method.
+         * @param value    The value type as seen by the getter.
+         * @param fallback Wraps a method handle of the erased signature when
+         *                 the getter cannot be compiled.
+         * @param <T>      The type of the functional interface.
+         * @return The compiled getter.
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T compile(final Class<? super T> iface, final String name,
+                              final Class<?> erased, final Class<?> value,
+                              final Function<MethodHandle, T> fallback) {
+            try {
+                final CallSite site = LambdaMetafactory.metafactory(
+                        LOOKUP,
+                        name,
+                        MethodType.methodType(iface),
+                        MethodType.methodType(erased, Object.class),
+                        this.handle,
+                        MethodType.methodType(value, this.method.getDeclaringClass())
+                );
+                return (T) site.getTarget().invoke();
+            } catch (final Throwable e) {
+                return fallback.apply(
+                        this.handle.asType(MethodType.methodType(erased, Object.class))
+                );
+            }
+        }
+
+        /**
+         * Wraps an exception thrown by the getter.
+         *
+         * @param cause The exception thrown.
+         * @return The exception to throw.
+         */
+        private RuntimeException failure(final Throwable cause) {
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            return new CsvException(
+                    String.format(
+                            "Could not get value from object of class %s using method %s",
+                            this.owner,
+                            this.method.getName()
+                    ),
+                    cause
+            );
+        }
+
+    }
+
+}
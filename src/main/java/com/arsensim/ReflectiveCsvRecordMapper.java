@@ -23,16 +23,28 @@
  */
 package com.arsensim;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 
 /**
  * This class is an implementation of {@link CsvRecordMapper} that creates a
  * new object of {@code T} and populates it with data using reflective
  * operations. Setter methods are used.
+ * <p>
+ * The constructor and setters of the class are resolved once and compiled
+ * into accessors shared by all mappers of the class. The columns of a csv
+ * are bound to their setters on the first record and the binding is reused
+ * for as long as the records have the same columns. Column names are
+ * matched to setter names ignoring case and spaces.
+ * <p>
+ * Values are converted to the parameter type of each setter by the
+ * converter chosen for that type from a {@link CsvConverters} registry.
+ * {@code int}, {@code long} and {@code double} setters are fed directly
+ * from the characters of the field, without boxing. Empty values leave
+ * primitive properties untouched.
  *
  * @param <E> the type to which each csv record will be mapped.
  * @author Arsen Simonean (arsensim08@gmail.com)
@@ -42,6 +54,8 @@ import java.util.stream.Stream;
 public final class ReflectiveCsvRecordMapper<E> implements CsvRecordMapper<String, E> {
 
     private final Class<E> clazz;
+    private final CsvConverters converters;
+    private volatile Plan<E> plan;
 
     /**
      * A constructor that expects as a parameter the target class of mapped
@@ -50,95 +64,156 @@ public final class ReflectiveCsvRecordMapper<E> implements CsvRecordMapper<Strin
      * @param clazz The class to which the output will be mapped.
      */
     public ReflectiveCsvRecordMapper(final Class<E> clazz) {
+        this(clazz, new CsvConverters());
+    }
+
+    /**
+     * Primary constructor.
+     *
+     * @param clazz      The class to which the output will be mapped.
+     * @param converters The converters of values to setter parameter types.
+     */
+    public ReflectiveCsvRecordMapper(final Class<E> clazz, final CsvConverters converters) {
         this.clazz = clazz;
+        this.converters = converters;
     }
 
     @Override
     public E map(final CsvRecord<String> record) {
-        final E resultObject = this.newEmptyResultObject();
-        this.formatRecord(record).forEach((columnName, value) -> {
-            final Method setterMethod = this.findSetterMethod(columnName);
-            this.setValue(setterMethod, resultObject, value);
-        });
+        final Plan<E> current = this.plan(record.columns());
+        final E resultObject = current.binding.create();
+        for (int i = 0; i < current.columns.length; i++) {
+            this.setValue(current, i, resultObject, record.chars(current.columns[i]));
+        }
         return resultObject;
     }
 
     /**
-     * Maps the {@code CSVRecord} to a {@code Map} with keys being lower case.
+     * Gives the binding of the columns to setters, resolving it again only
+     * when the columns differ from those of the previous record.
      *
-     * @param record A key value map describing csv record.
-     * @return The mapped record.
+     * @param columns The columns of the record.
+     * @return The binding of the columns.
      */
-    private Map<String, String> formatRecord(final CsvRecord<String> record) {
-        return record.toMap().entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getKey().toLowerCase().replace(" ", ""),
-                        Map.Entry::getValue
-                ));
-    }
-
-    /**
-     * Finds an appropriate setter {@code Method} in the {@code T} class that
-     * maps to the csv record that is lowercase and has no spaces.
-     *
-     * @param csvColumnName The name of the setter method to search without
-     *                      "set" substring.
-     * @return The appropriate setter {@code Method} found.
-     */
-    private Method findSetterMethod(final String csvColumnName) {
-        return Stream.of(this.clazz.getDeclaredMethods())
-                .filter(method ->
-                        method.getName()
-                                .toLowerCase()
-                                .replace("set", "")
-                                .equals(csvColumnName)
-                ).findAny()
-                .orElseThrow(() -> new CsvException(
-                        String.format(
-                                "No appropriate setter method found for csv column %s in class %s",
-                                csvColumnName,
-                                this.clazz
-                        )
-                ));
+    private Plan<E> plan(final Set<String> columns) {
+        final Plan<E> current = this.plan;
+        if (current != null
+                && (current.header == columns || current.header.equals(columns))) {
+            return current;
+        }
+        final Plan<E> resolved = new Plan<>(ReflectiveBinding.of(this.clazz), columns, this.converters);
+        this.plan = resolved;
+        return resolved;
     }
 
     /**
-     * Creates an empty instance of {@code T} using default constructor.
+     * Sets a value on an object using the setter of a column.
      *
-     * @return The newly created instance of {@code T}.
+     * @param plan   The binding of the columns.
+     * @param index  The index of the column in the binding.
+     * @param object The object on which to invoke the setter.
+     * @param value  The value which to set on the object.
      */
-    private E newEmptyResultObject() {
+    private void setValue(final Plan<E> plan, final int index, final E object,
+                          final CharSequence value) {
         try {
-            return this.clazz.newInstance();
-        } catch (IllegalAccessException | InstantiationException e) {
+            plan.assignments[index].assign(object, value);
+        } catch (final CsvException e) {
+            throw e;
+        } catch (final RuntimeException e) {
             throw new CsvException(
                     String.format(
-                            "Could not construct an empty object of %s using no-arg constructor",
-                            this.clazz
-                    )
+                            "Could not set value for object of class %s using csv column %s",
+                            this.clazz,
+                            plan.columns[index]
+                    ),
+                    e
             );
         }
     }
 
     /**
-     * Sets a value on an object using the setter method.
+     * Converts a value and sets it on an object.
+     */
+    @FunctionalInterface
+    private interface Assignment {
+
+        void assign(Object object, CharSequence value);
+
+    }
+
+    /**
+     * The setters bound to the columns of a csv.
      *
-     * @param setter The setter {@code Method} to invoke.
-     * @param object The object on which to invoce the setter {@code Method}.
-     * @param value  The value which to set on the object.
+     * @param <E> the type to which each csv record will be mapped.
      */
-    private void setValue(final Method setter, final E object, final String value) {
-        try {
-            setter.invoke(object, value);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new CsvException(
-                    String.format(
-                            "Could not set value for object of class %s using method %s",
-                            this.clazz,
-                            setter.getName()
-                    )
-            );
+    private static final class Plan<E> {
+
+        private final ReflectiveBinding<E> binding;
+        private final Set<String> header;
+        private final String[] columns;
+        private final Assignment[] assignments;
+
+        Plan(final ReflectiveBinding<E> binding, final Set<String> header,
+             final CsvConverters converters) {
+            this.binding = binding;
+            this.header = header;
+            this.columns = header.toArray(new String[0]);
+            this.assignments = new Assignment[this.columns.length];
+            for (int i = 0; i < this.columns.length; i++) {
+                this.assignments[i] = assignment(binding.property(this.columns[i]), converters);
+            }
+        }
+
+        /**
+         * Chooses how values are converted and set for a property.
+         *
+         * @param property   The property.
+         * @param converters The converters of values.
+         * @return The assignment of values to the property.
+         */
+        private static Assignment assignment(final ReflectiveBinding.Property property,
+                                             final CsvConverters converters) {
+            final Class<?> type = property.type();
+            if (!converters.registered(type)) {
+                if (type == int.class) {
+                    final ObjIntConsumer<Object> setter = property.ints();
+                    return (object, value) -> {
+                        if (value.length() > 0) {
+                            setter.accept(object, CsvConverters.parseInt(value));
+                        }
+                    };
+                }
+                if (type == long.class) {
+                    final ObjLongConsumer<Object> setter = property.longs();
+                    return (object, value) -> {
+                        if (value.length() > 0) {
+                            setter.accept(object, CsvConverters.parseLong(value));
+                        }
+                    };
+                }
+                if (type == double.class) {
+                    final ObjDoubleConsumer<Object> setter = property.doubles();
+                    return (object, value) -> {
+                        if (value.length() > 0) {
+                            setter.accept(object, CsvConverters.parseDouble(value));
+                        }
+                    };
+                }
+            }
+            final CsvConverter<?> converter = converters.converter(type);
+            final BiConsumer<Object, Object> setter = property.generic();
+            if (type.isPrimitive()) {
+                return (object, value) -> {
+                    final Object converted = converter.convert(value);
+                    if (converted != null) {
+                        setter.accept(object, converted);
+                    }
+                };
+            }
+            return (object, value) -> setter.accept(object, converter.convert(value));
         }
+
     }
 
 }
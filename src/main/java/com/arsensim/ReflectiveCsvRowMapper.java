@@ -0,0 +1,128 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class is an implementation of {@link CsvRowMapper} that reads the
+ * fields of a row from the getters of an object, the reverse of
+ * {@link ReflectiveCsvRecordMapper}. Column names are matched to getter
+ * names ignoring case and spaces, and {@code is*} getters are used for
+ * {@code boolean} properties.
+ * <p>
+ * The getters are resolved when the mapper is created and compiled into
+ * accessors shared by all mappers of the class. {@code int}, {@code long}
+ * and {@code double} properties are written without boxing; other values
+ * are written with their {@code toString}, and {@code null} as an empty
+ * field.
+ *
+ * @param <E> the type of the objects written.
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+public final class ReflectiveCsvRowMapper<E> implements CsvRowMapper<E> {
+
+    private final List<String> columns;
+    private final Field[] fields;
+
+    /**
+     * Primary constructor.
+     *
+     * @param clazz   The class of the objects written.
+     * @param columns The columns of the rows, in order.
+     * @throws CsvException when the class lacks a getter for a column.
+     */
+    public ReflectiveCsvRowMapper(final Class<E> clazz, final String... columns) {
+        if (columns.length == 0) {
+            throw new CsvException(
+                    String.format("No columns given to write objects of class %s", clazz)
+            );
+        }
+        final ReflectiveBinding<E> binding = ReflectiveBinding.of(clazz);
+        this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns)));
+        this.fields = new Field[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.fields[i] = field(binding.getter(columns[i]));
+        }
+    }
+
+    /**
+     * @return The columns of the rows, in order, to be written as header.
+     */
+    public List<String> columns() {
+        return this.columns;
+    }
+
+    @Override
+    public void map(final E value, final CsvRow row) {
+        for (final Field field : this.fields) {
+            field.write(value, row);
+        }
+    }
+
+    /**
+     * Chooses how a property is written, avoiding boxing for primitive
+     * properties.
+     *
+     * @param getter The getter of the property.
+     * @return The writing of the property.
+     */
+    private static Field field(final ReflectiveBinding.Getter getter) {
+        final ToIntFunction<Object> ints = getter.ints();
+        if (ints != null) {
+            return (object, row) -> row.add(ints.applyAsInt(object));
+        }
+        final ToLongFunction<Object> longs = getter.longs();
+        if (longs != null) {
+            return (object, row) -> row.add(longs.applyAsLong(object));
+        }
+        final ToDoubleFunction<Object> doubles = getter.doubles();
+        if (doubles != null) {
+            return (object, row) -> row.add(doubles.applyAsDouble(object));
+        }
+        final Function<Object, Object> generic = getter.generic();
+        if (CharSequence.class.isAssignableFrom(getter.type())) {
+            return (object, row) -> row.add((CharSequence) generic.apply(object));
+        }
+        return (object, row) -> row.add(generic.apply(object));
+    }
+
+    /**
+     * The writing of one property into a row.
+     */
+    @FunctionalInterface
+    private interface Field {
+        void write(Object object, CsvRow row);
+    }
+
+}
@@ -0,0 +1,375 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A sparse index of the records of a csv file, giving the byte offset of
+ * every n-th record. It is kept next to the file, in a sidecar file with
+ * the {@value #SUFFIX} suffix, and is stale as soon as the size or the
+ * modification time of the file change. Only plain files tokenized as
+ * bytes can be indexed, since compressed files cannot be positioned and
+ * the offsets of a decoded file are not byte offsets.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class RowIndex {
+
+    static final String SUFFIX = ".idx";
+
+    private static final long MAGIC = 0x4353565249445831L;
+
+    private final long size;
+    private final long modified;
+    private final int interval;
+    private final long start;
+    private final long records;
+    private final long[] offsets;
+
+    /**
+     * Primary constructor.
+     *
+     * @param size     The size of the file when it was indexed.
+     * @param modified The modification time of the file when it was
+     *                 indexed, in milliseconds.
+     * @param interval The number of records between two offsets.
+     * @param start    The offset of the content, after a byte order mark.
+     * @param records  The number of records of the file.
+     * @param offsets  The offsets of the records 0, n, 2n and so on, relative
+     *                 to the start of the content.
+     */
+    private RowIndex(final long size, final long modified, final int interval, final long start,
+                     final long records, final long[] offsets) {
+        this.size = size;
+        this.modified = modified;
+        this.interval = interval;
+        this.start = start;
+        this.records = records;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return The number of records of the file, header included.
+     */
+    long records() {
+        return this.records;
+    }
+
+    /**
+     * @return The offset of the content, after a byte order mark.
+     */
+    long start() {
+        return this.start;
+    }
+
+    /**
+     * @param record The index of a record of the file.
+     * @return The position in the file of the nearest indexed record at or
+     *         before the given one.
+     */
+    long position(final long record) {
+        return this.start + this.offsets[(int) (record / this.interval)];
+    }
+
+    /**
+     * @param record The index of a record of the file.
+     * @return The number of records between the nearest indexed record and
+     *         the given one.
+     */
+    long skipped(final long record) {
+        return record % this.interval;
+    }
+
+    /**
+     * Gives the offset of the content of a file, when it can be indexed.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     * @param charset The charset of the file, unless it starts with a byte
+     *                order mark.
+     * @return The length of the UTF-8 byte order mark at the start of the
+     *         file, if any, or -1 when the file cannot be indexed.
+     * @throws CsvException when the file cannot be read.
+     */
+    static long start(final Path file, final CsvDialect dialect, final Charset charset) {
+        try {
+            if (Compression.compressed(file)) {
+                return -1L;
+            }
+            final byte[] head = new byte[3];
+            int count = 0;
+            try (final InputStream input = Files.newInputStream(file)) {
+                while (count < head.length) {
+                    final int read = input.read(head, count, head.length - count);
+                    if (read < 0) {
+                        break;
+                    }
+                    count += read;
+                }
+            }
+            if (count == 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB
+                    && (head[2] & 0xFF) == 0xBF) {
+                return ByteCsvTokenizer.supports(StandardCharsets.UTF_8, dialect) ? 3L : -1L;
+            }
+            if (count >= 2 && ((head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF
+                    || (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE)) {
+                return -1L;
+            }
+            return ByteCsvTokenizer.supports(charset, dialect) ? 0L : -1L;
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", file),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Loads the index of a file from its sidecar file.
+     *
+     * @param file     The csv file.
+     * @param dialect  The format of the csv file.
+     * @param interval The number of records between two offsets.
+     * @return The index, or {@code null} when there is none, or it is stale
+     *         or made for another dialect or interval.
+     */
+    static RowIndex load(final Path file, final CsvDialect dialect, final int interval) {
+        final Path sidecar = sidecar(file);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        try (final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (input.readLong() != MAGIC) {
+                return null;
+            }
+            final long size = input.readLong();
+            final long modified = input.readLong();
+            final int every = input.readInt();
+            final String delimiter = input.readUTF();
+            final char quote = input.readChar();
+            final char escape = input.readChar();
+            if (size != Files.size(file)
+                    || modified != Files.getLastModifiedTime(file).toMillis()
+                    || every != interval
+                    || !delimiter.equals(dialect.delimiter())
+                    || quote != dialect.quote() || escape != dialect.escape()) {
+                return null;
+            }
+            final long start = input.readLong();
+            final long records = input.readLong();
+            final long[] offsets = new long[input.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = input.readLong();
+            }
+            return new RowIndex(size, modified, interval, start, records, offsets);
+        } catch (final IOException e) {
+            // an unreadable index is rebuilt like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Indexes a file by tokenizing all of it, without storing any field.
+     *
+     * @param file     The csv file.
+     * @param dialect  The format of the csv file.
+     * @param interval The number of records between two offsets.
+     * @param start    The offset of the content, see
+     *                 {@link #start(Path, CsvDialect, Charset)}.
+     * @return The index.
+     * @throws CsvException when the file cannot be read.
+     */
+    static RowIndex build(final Path file, final CsvDialect dialect, final int interval,
+                          final long start) {
+        final Builder builder = new Builder(file, interval, start);
+        try (final ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(
+                position(file, start), dialect, StandardCharsets.UTF_8)) {
+            tokenizer.project(new boolean[0]);
+            while (tokenizer.next()) {
+                builder.add(tokenizer);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Opens a file at a position, without reading what comes before it.
+     *
+     * @param file     The file.
+     * @param position The position in the file.
+     * @return The input, which has to be closed.
+     * @throws CsvException when the file cannot be opened.
+     */
+    static InputStream position(final Path file, final long position) {
+        try {
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                channel.position(position);
+                return Channels.newInputStream(channel);
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (final IOException e) {
+            throw new CsvException(
+                    String.format("Exception while reading file %s", file),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Writes the index into the sidecar file of a csv file. The index is
+     * written into a temporary file first, so that a concurrent reader never
+     * sees half of it. An index that cannot be written is only a missed
+     * shortcut, so failures are ignored.
+     *
+     * @param file    The csv file.
+     * @param dialect The format of the csv file.
+     */
+    void save(final Path file, final CsvDialect dialect) {
+        final Path sidecar = sidecar(file);
+        try {
+            final Path temporary = Files.createTempFile(
+                    sidecar.toAbsolutePath().getParent(), sidecar.getFileName().toString(), ".tmp"
+            );
+            try {
+                try (final DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeLong(MAGIC);
+                    output.writeLong(this.size);
+                    output.writeLong(this.modified);
+                    output.writeInt(this.interval);
+                    output.writeUTF(dialect.delimiter());
+                    output.writeChar(dialect.quote());
+                    output.writeChar(dialect.escape());
+                    output.writeLong(this.start);
+                    output.writeLong(this.records);
+                    output.writeInt(this.offsets.length);
+                    for (final long offset : this.offsets) {
+                        output.writeLong(offset);
+                    }
+                }
+                Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            // the file is read without index next time
+        }
+    }
+
+    /**
+     * @param file The csv file.
+     * @return The sidecar file holding the index of the csv file.
+     */
+    static Path sidecar(final Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Collects the offsets of the records of a file while they are
+     * tokenized, be it for the index alone or during a normal parse.
+     */
+    static final class Builder {
+
+        private final long size;
+        private final long modified;
+        private final int interval;
+        private final long start;
+        private long[] offsets;
+        private int count;
+        private long records;
+
+        /**
+         * Starts an index of the current state of a file.
+         *
+         * @param file     The csv file.
+         * @param interval The number of records between two offsets.
+         * @param start    The offset of the content.
+         * @throws CsvException when the file cannot be read.
+         */
+        Builder(final Path file, final int interval, final long start) {
+            try {
+                this.size = Files.size(file);
+                this.modified = Files.getLastModifiedTime(file).toMillis();
+            } catch (final IOException e) {
+                throw new CsvException(
+                        String.format("Exception while reading file %s", file),
+                        e
+                );
+            }
+            this.interval = interval;
+            this.start = start;
+            this.offsets = new long[16];
+        }
+
+        /**
+         * Takes the current record of a tokenizer reading the file from the
+         * start of its content.
+         *
+         * @param tokenizer The tokenizer.
+         */
+        void add(final ByteCsvTokenizer tokenizer) {
+            final long record = tokenizer.record();
+            if (record % this.interval == 0) {
+                if (this.count == this.offsets.length) {
+                    this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+                }
+                this.offsets[this.count++] = tokenizer.offset();
+            }
+            this.records = record + 1;
+        }
+
+        /**
+         * @return The index of all the records taken.
+         */
+        RowIndex build() {
+            return new RowIndex(
+                    this.size, this.modified, this.interval, this.start, this.records,
+                    Arrays.copyOf(this.offsets, this.count)
+            );
+        }
+
+    }
+
+}
@@ -1,26 +1,150 @@
 package com.arsensim;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SimpleCsv<I, E> implements Csv<I, E> {
 
     private final List<CsvRecord<I>> records;
+    private final ColumnFilter<I> filter;
+    private final CsvErrorPolicy errors;
 
     public SimpleCsv(List<CsvRecord<I>> records) {
+        this(records, ColumnFilter.none(), null);
+    }
+
+    private SimpleCsv(final List<CsvRecord<I>> records, final ColumnFilter<I> filter,
+                      final CsvErrorPolicy errors) {
         this.records = records;
+        this.filter = filter;
+        this.errors = errors;
+    }
+
+    /**
+     * Gives a csv that maps its records on the workers of a pipeline. The
+     * mapper is called from several threads at once and has to be thread
+     * safe.
+     *
+     * @param pipeline The configuration of the mapping stage.
+     * @return The csv mapped in parallel.
+     */
+    public Csv<I, E> withMappingPipeline(final MappingPipeline pipeline) {
+        return new PipelinedCsv<>(
+                new SimpleCsv<I, CsvRecord<I>>(this.records, this.filter, this.errors),
+                pipeline
+        );
+    }
+
+    /**
+     * Gives a csv handling bad records by a policy instead of failing on the
+     * first of them: records with another number of values than the first
+     * record, and records the mapper fails on.
+     *
+     * @param policy What to do with bad records.
+     * @return The csv handling bad records.
+     */
+    public SimpleCsv<I, E> withErrorPolicy(final CsvErrorPolicy policy) {
+        return new SimpleCsv<>(this.records, this.filter, policy);
+    }
+
+    @Override
+    public SimpleCsv<I, E> filter(final I column, final Predicate<? super CharSequence> predicate) {
+        return new SimpleCsv<>(this.records, this.filter.and(column, predicate), this.errors);
     }
 
     @Override
     public List<E> map(final CsvRecordMapper<I, ? extends E> mapper) {
-        return this.records.stream()
-                .peek(this::validate)
-                .map(mapper::map)
-                .collect(Collectors.toList());
+        return this.stream(mapper).collect(Collectors.toList());
     }
 
-    private void validate(final CsvRecord<I> csvRecord) {
-        // todo implement basic validations
+    @Override
+    public Stream<E> stream(final CsvRecordMapper<I, ? extends E> mapper) {
+        if (this.errors == null) {
+            return this.records.stream()
+                    .filter(this.filter::test)
+                    .<E>map(mapper::map);
+        }
+        return StreamSupport.stream(new Checked(mapper), false);
+    }
+
+    /**
+     * The records checked for their number of values and mapped, with bad
+     * records handed to the error policy.
+     */
+    private final class Checked extends Spliterators.AbstractSpliterator<E> {
+
+        private final CsvRecordMapper<I, ? extends E> mapper;
+        private final Iterator<CsvRecord<I>> records;
+        private int row = -1;
+        private int width = -1;
+        private long bad;
+
+        Checked(final CsvRecordMapper<I, ? extends E> mapper) {
+            super(SimpleCsv.this.records.size(), Spliterator.ORDERED);
+            this.mapper = mapper;
+            this.records = SimpleCsv.this.records.iterator();
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            while (this.records.hasNext()) {
+                final CsvRecord<I> record = this.records.next();
+                this.row++;
+                final int size = record.columns().size();
+                if (this.width < 0) {
+                    this.width = size;
+                } else if (size != this.width) {
+                    this.reject(
+                            CsvBadRow.Reason.COLUMNS,
+                            record,
+                            new CsvException(
+                                    String.format(
+                                            "Csv record %d has %d values instead of %d",
+                                            this.row, size, this.width
+                                    )
+                            )
+                    );
+                    continue;
+                }
+                if (!SimpleCsv.this.filter.test(record)) {
+                    continue;
+                }
+                final E mapped;
+                try {
+                    mapped = this.mapper.map(record);
+                } catch (final RuntimeException e) {
+                    this.reject(CsvBadRow.Reason.MAPPER, record, e);
+                    continue;
+                }
+                action.accept(mapped);
+                return true;
+            }
+            return false;
+        }
+
+        private void reject(final CsvBadRow.Reason reason, final CsvRecord<I> record,
+                            final RuntimeException error) {
+            this.bad++;
+            final List<String> values = new ArrayList<>(record.columns().size());
+            for (final I column : record.columns()) {
+                values.add(record.get(column));
+            }
+            SimpleCsv.this.errors.reject(
+                    new CsvBadRow(
+                            reason, this.row, -1L, -1L, values.toArray(new String[0]), error
+                    ),
+                    this.bad
+            );
+        }
+
     }
 
 }
@@ -1,14 +1,18 @@
 package com.arsensim;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class SimpleCsvRecord<I> implements CsvRecord<I> {
 
     private final Map<I, String> values;
+    private final Set<I> columns;
 
     public SimpleCsvRecord(final Map<I, String> values) {
         this.values = values;
+        this.columns = Collections.unmodifiableSet(values.keySet());
     }
 
     @Override
@@ -23,7 +27,12 @@ public class SimpleCsvRecord<I> implements CsvRecord<I> {
 
     @Override
     public Map<I, String> toMap() {
-        return new HashMap<>(this.toMap());
+        return new HashMap<>(this.values);
+    }
+
+    @Override
+    public Set<I> columns() {
+        return this.columns;
     }
 
 }
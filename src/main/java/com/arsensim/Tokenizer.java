@@ -0,0 +1,108 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.io.Closeable;
+
+/**
+ * A tokenizer splitting csv input into records and fields, one record at a
+ * time. The fields of the current record are held in a buffer that is
+ * reused for the next record.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+interface Tokenizer extends Closeable {
+
+    /**
+     * Restricts the fields that are kept.
+     *
+     * @param kept Whether the field at each index is kept. Fields past the
+     *             end of the array are skipped. {@code null} keeps all.
+     */
+    void project(boolean[] kept);
+
+    /**
+     * Shares one {@code String} between the occurrences of a repeated value
+     * in the fields given by {@link #get(int)} and {@link #toArray()}.
+     *
+     * @param caches The caches of the columns, or {@code null} to create a
+     *               new {@code String} for every field.
+     */
+    void intern(ValueCaches caches);
+
+    /**
+     * @param index The index of a field.
+     * @return Whether the field is kept by the projection.
+     */
+    boolean keeps(int index);
+
+    /**
+     * Advances to the next record.
+     *
+     * @return Whether there was a next record.
+     * @throws CsvException when the input could not be read or ends inside
+     *                      a quoted field.
+     */
+    boolean next();
+
+    /**
+     * @return The number of fields in the current record.
+     */
+    int size();
+
+    /**
+     * @param index The index of the field in the current record.
+     * @return The value of the field.
+     * @throws CsvException when the record has no such field.
+     */
+    String get(int index);
+
+    /**
+     * Gives the characters of a field of the current record without
+     * creating a {@code String} when possible.
+     *
+     * @param index The index of the field in the current record.
+     * @param view  A view that may be pointed at the field.
+     * @return The characters of the field, valid until the next call to
+     *         {@link #next()}.
+     */
+    CharSequence chars(int index, CharView view);
+
+    /**
+     * @return The values of all fields in the current record, with
+     *         {@code null} for the fields skipped by the projection.
+     */
+    String[] toArray();
+
+    /**
+     * @return The line of the input at which the current record starts.
+     */
+    long line();
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,190 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A bounded cache of the values of one column, returning the same
+ * {@code String} for every occurrence of a value. The raw bytes or chars of
+ * a field are hashed to a pair of slots out of a fixed number, and a hit
+ * returns the cached string without allocating anything. A miss puts the
+ * value in the first slot of the pair and moves the value there to the
+ * second, evicting the older one, so the cache never grows.
+ * <p>
+ * An adaptive cache watches its hit rate and turns itself off for good
+ * when most lookups miss, which is the case of high cardinality columns
+ * such as identifiers.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ValueCache {
+
+    private static final int SLOTS = 4096;
+
+    private static final int LONGEST = 64;
+
+    private static final int SAMPLE = 4096;
+
+    private final boolean adaptive;
+    private final String[] values;
+    private byte[][] bytes;
+    private char[][] chars;
+    private int lookups;
+    private int hits;
+    private boolean off;
+
+    /**
+     * Primary constructor.
+     *
+     * @param adaptive Whether the cache turns itself off when most lookups
+     *                 miss.
+     */
+    ValueCache(final boolean adaptive) {
+        this.adaptive = adaptive;
+        this.values = new String[SLOTS];
+    }
+
+    /**
+     * @param source  The buffer holding the field.
+     * @param start   The offset of the first byte of the field.
+     * @param end     The offset after the last byte of the field.
+     * @param charset The charset of the bytes.
+     * @return The value of the field.
+     */
+    String get(final byte[] source, final int start, final int end, final Charset charset) {
+        final int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        if (this.off || length > LONGEST) {
+            return new String(source, start, length, charset);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source[i];
+        }
+        final int slot = (hash ^ hash >>> 16) & SLOTS - 2;
+        if (this.bytes == null) {
+            this.bytes = new byte[SLOTS][];
+        }
+        final byte[][] keys = this.bytes;
+        for (int way = slot; way < slot + 2; way++) {
+            final byte[] key = keys[way];
+            if (key != null && key.length == length && equal(key, source, start)) {
+                return this.hit(way);
+            }
+        }
+        keys[slot + 1] = keys[slot];
+        keys[slot] = Arrays.copyOfRange(source, start, end);
+        return this.miss(slot, new String(source, start, length, charset));
+    }
+
+    /**
+     * @param source The buffer holding the field.
+     * @param start  The offset of the first char of the field.
+     * @param end    The offset after the last char of the field.
+     * @return The value of the field.
+     */
+    String get(final char[] source, final int start, final int end) {
+        final int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        if (this.off || length > LONGEST) {
+            return new String(source, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source[i];
+        }
+        final int slot = (hash ^ hash >>> 16) & SLOTS - 2;
+        if (this.chars == null) {
+            this.chars = new char[SLOTS][];
+        }
+        final char[][] keys = this.chars;
+        for (int way = slot; way < slot + 2; way++) {
+            final char[] key = keys[way];
+            if (key != null && key.length == length && equal(key, source, start)) {
+                return this.hit(way);
+            }
+        }
+        keys[slot + 1] = keys[slot];
+        keys[slot] = Arrays.copyOfRange(source, start, end);
+        return this.miss(slot, new String(source, start, length));
+    }
+
+    private String hit(final int slot) {
+        this.hits++;
+        this.count();
+        return this.values[slot];
+    }
+
+    private String miss(final int slot, final String value) {
+        this.values[slot + 1] = this.values[slot];
+        this.values[slot] = value;
+        this.count();
+        return value;
+    }
+
+    /**
+     * Counts a lookup, and turns an adaptive cache off at the end of a
+     * sample in which fewer than half of the lookups hit.
+     */
+    private void count() {
+        this.lookups++;
+        if (this.lookups == SAMPLE) {
+            if (this.adaptive && this.hits * 2 < this.lookups) {
+                this.off = true;
+                this.bytes = null;
+                this.chars = null;
+                Arrays.fill(this.values, null);
+            }
+            this.lookups = 0;
+            this.hits = 0;
+        }
+    }
+
+    private static boolean equal(final byte[] key, final byte[] source, final int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != source[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(final char[] key, final char[] source, final int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != source[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
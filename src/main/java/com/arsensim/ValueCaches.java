@@ -0,0 +1,97 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.util.Arrays;
+
+/**
+ * The {@link ValueCache}s of the columns of one tokenizer. Either the given
+ * columns are cached unconditionally, or every column is cached until its
+ * cardinality turns out to be high.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class ValueCaches {
+
+    private final boolean automatic;
+    private ValueCache[] caches;
+
+    /**
+     * Primary constructor.
+     *
+     * @param automatic Whether every column is cached adaptively.
+     * @param caches    The caches of the columns by index.
+     */
+    private ValueCaches(final boolean automatic, final ValueCache[] caches) {
+        this.automatic = automatic;
+        this.caches = caches;
+    }
+
+    /**
+     * @return Caches for every column, each turning itself off when the
+     *         values of its column hardly repeat.
+     */
+    static ValueCaches automatic() {
+        return new ValueCaches(true, new ValueCache[0]);
+    }
+
+    /**
+     * @param indexes The indexes of the columns to cache.
+     * @return Caches for the given columns only.
+     */
+    static ValueCaches of(final int... indexes) {
+        int size = 0;
+        for (final int index : indexes) {
+            size = Math.max(size, index + 1);
+        }
+        final ValueCache[] caches = new ValueCache[size];
+        for (final int index : indexes) {
+            caches[index] = new ValueCache(false);
+        }
+        return new ValueCaches(false, caches);
+    }
+
+    /**
+     * @param index The index of a column.
+     * @return The cache of the column, or {@code null} when it is not cached.
+     */
+    ValueCache column(final int index) {
+        if (index < this.caches.length) {
+            final ValueCache cache = this.caches[index];
+            if (cache != null || !this.automatic) {
+                return cache;
+            }
+        } else if (!this.automatic) {
+            return null;
+        } else {
+            this.caches = Arrays.copyOf(this.caches, index + 1);
+        }
+        final ValueCache cache = new ValueCache(true);
+        this.caches[index] = cache;
+        return cache;
+    }
+
+}
@@ -0,0 +1,169 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link BlockGzipInputStream}.
+ */
+public class BlockGzipInputStreamTest {
+
+    /**
+     * Tests that blocks inflated in parallel come back in order.
+     */
+    @Test
+    public void testRead() throws IOException {
+        final byte[] content = content();
+        final byte[] compressed = blocks(content, 1000);
+        assertTrue(BlockGzipInputStream.blocked(compressed, compressed.length));
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (final InputStream input = new BlockGzipInputStream(
+                new ByteArrayInputStream(compressed), executor, 4
+        )) {
+            assertThat(read(input), is(content));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the blocks are plain gzip members as well.
+     */
+    @Test
+    public void testGzipCompatible() throws IOException {
+        final byte[] content = content();
+        assertThat(
+                read(new GZIPInputStream(new ByteArrayInputStream(blocks(content, 4096)))),
+                is(content)
+        );
+    }
+
+    /**
+     * Tests that a corrupt block is reported.
+     */
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws IOException {
+        final byte[] compressed = blocks(content(), 1000);
+        compressed[compressed.length / 2] ^= 0x55;
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final InputStream input = new BlockGzipInputStream(
+                new ByteArrayInputStream(compressed), executor, 2
+        )) {
+            read(input);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that plain gzip is not taken for block gzip.
+     */
+    @Test
+    public void testNotBlocked() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content());
+        }
+        assertFalse(BlockGzipInputStream.blocked(bytes.toByteArray(), bytes.size()));
+    }
+
+    /**
+     * Compresses content into block gzip members, ending with an empty one
+     * as {@code bgzip} does.
+     *
+     * @param content The content.
+     * @param block   The number of bytes of content per member.
+     * @return The compressed bytes.
+     */
+    static byte[] blocks(final byte[] content, final int block) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int start = 0; start < content.length; start += block) {
+            member(out, content, start, Math.min(block, content.length - start));
+        }
+        member(out, content, 0, 0);
+        return out.toByteArray();
+    }
+
+    private static void member(final ByteArrayOutputStream out, final byte[] content,
+                               final int start, final int length) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, start, length);
+        deflater.finish();
+        final byte[] data = new byte[length + 1024];
+        final int size = deflater.deflate(data);
+        deflater.end();
+        final CRC32 crc = new CRC32();
+        crc.update(content, start, length);
+        final int total = 18 + size + 8;
+        out.write(new byte[]{
+                0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+                (byte) (total - 1), (byte) ((total - 1) >> 8)
+        }, 0, 18);
+        out.write(data, 0, size);
+        integer(out, (int) crc.getValue());
+        integer(out, length);
+    }
+
+    private static void integer(final ByteArrayOutputStream out, final int value) {
+        out.write(value);
+        out.write(value >> 8);
+        out.write(value >> 16);
+        out.write(value >> 24);
+    }
+
+    private static byte[] content() {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            csv.append(i).append(",value-").append(i).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[777];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,188 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link ColumnarCsv}.
+ */
+public class ColumnarCsvTest {
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that the type of each column is inferred from its values and
+     * that nulls are kept apart.
+     */
+    @Test
+    public void testTypes() throws IOException {
+        final ColumnarCsv<String, String> csv = new HeadedFileCsv<String>(this.files.write(
+                "id,big,price,code,city\n"
+                        + "1,1,1.5,007,Paris\n"
+                        + "2,10000000000,,8,London\n"
+                        + "3,,2,9,Paris\n"
+        ), ",").toColumns();
+        assertThat(csv.size(), is(3));
+        assertThat(csv.columns(), contains("id", "big", "price", "code", "city"));
+        assertThat(csv.column("id").type(), is(CsvColumn.Type.INT));
+        assertThat(csv.column("id").ints().sum(), is(6));
+        assertThat(csv.column("big").type(), is(CsvColumn.Type.LONG));
+        assertThat(csv.column("big").getLong(1), is(10_000_000_000L));
+        assertThat(csv.column("big").isNull(2), is(true));
+        assertThat(csv.column("price").type(), is(CsvColumn.Type.DOUBLE));
+        assertThat(csv.column("price").doubles().sum(), is(3.5));
+        assertThat(csv.column("price").get(2), is("2"));
+        assertThat(csv.column("code").type(), is(CsvColumn.Type.STRING));
+        assertThat(csv.column("code").get(0), is("007"));
+        assertThat(csv.column("code").get(1), is("8"));
+        assertThat(csv.column("city").type(), is(CsvColumn.Type.STRING));
+        assertThat(csv.column("city").strings().distinct().count(), is(2L));
+    }
+
+    /**
+     * Tests the bounds of integers and the decimals read without creating
+     * a string.
+     */
+    @Test
+    public void testNumbers() throws IOException {
+        final ColumnarCsv<Integer, String> csv = new FileCsv<String>(this.files.write(
+                "9223372036854775807,0.1,9223372036854775808\n"
+                        + "-9223372036854775808,-12.345,1\n"
+                        + "0,1.5e3,2\n"
+        ), ",").toColumns();
+        assertThat(csv.column(0).type(), is(CsvColumn.Type.LONG));
+        assertThat(csv.column(0).getLong(0), is(Long.MAX_VALUE));
+        assertThat(csv.column(0).getLong(1), is(Long.MIN_VALUE));
+        assertThat(csv.column(1).getDouble(0), is(0.1));
+        assertThat(csv.column(1).getDouble(1), is(-12.345));
+        assertThat(csv.column(1).getDouble(2), is(1500.0));
+        assertThat(csv.column(2).type(), is(CsvColumn.Type.STRING));
+        assertThat(csv.column(2).get(0), is("9223372036854775808"));
+    }
+
+    /**
+     * Tests that records are mapped through row views.
+     */
+    @Test
+    public void testRows() throws IOException {
+        final ColumnarCsv<Integer, String> csv = new FileCsv<String>(this.files.write(
+                "a,1,\nb,2,x\n"
+        ), ",").toColumns();
+        assertThat(
+                csv.map(record -> record.get(0) + record.get(1) + record.get(2)),
+                contains("a1", "b2x")
+        );
+        assertThat(csv.row(1).toMap().values(), contains("b", "2", "x"));
+        try {
+            csv.row(0).get(5);
+            fail("Expected CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("not present"));
+        }
+    }
+
+    /**
+     * Tests that columns and filters of the file apply to the loaded csv.
+     */
+    @Test
+    public void testColumnsAndFilter() throws IOException {
+        final ColumnarCsv<String, String> csv = new HeadedFileCsv<String>(this.files.write(
+                "id,name,amount\n1,a,10\n2,b,20\n3,c,30\n"
+        ), ",")
+                .withColumns("amount")
+                .filter("id", id -> !"2".contentEquals(id))
+                .toColumns();
+        assertThat(csv.columns(), contains("amount"));
+        assertThat(csv.column("amount").longs().sum(), is(40L));
+    }
+
+    /**
+     * Tests that records with differing columns are aligned, and that a
+     * column widened late keeps its earlier values.
+     */
+    @Test
+    public void testWidening() {
+        final List<CsvRecord<String>> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Map<String, String> values = new HashMap<>();
+            values.put("value", Integer.toString(i));
+            if (i % 2 == 0) {
+                values.put("even", "yes");
+            }
+            records.add(new SimpleCsvRecord<>(values));
+        }
+        final Map<String, String> last = new HashMap<>();
+        last.put("value", "n/a");
+        records.add(new SimpleCsvRecord<>(last));
+        final ColumnarCsv<String, String> csv = new ColumnarCsv<>(new SimpleCsv<>(records));
+        assertThat(csv.size(), is(101));
+        assertThat(csv.column("value").type(), is(CsvColumn.Type.STRING));
+        assertThat(csv.column("value").get(42), is("42"));
+        assertThat(csv.column("value").get(100), is("n/a"));
+        assertThat(csv.column("even").strings().count(), is(50L));
+        assertThat(csv.row(1).get("even"), is(""));
+    }
+
+    /**
+     * Tests that numbers written in other than their canonical form keep
+     * their text once a later value widens their column to text.
+     */
+    @Test
+    public void testWideningKeepsText() throws IOException {
+        final ColumnarCsv<String, String> csv = new HeadedFileCsv<String>(this.files.write(
+                "code,id\n1.50,1\n1e3,9007199254740993\n-0.0,2.5\n7,3\n0.25,x\nA1,4\n"
+        ), ",").toColumns();
+        assertThat(csv.column("code").type(), is(CsvColumn.Type.STRING));
+        assertThat(
+                csv.map(record -> record.get("code")),
+                contains("1.50", "1e3", "-0.0", "7", "0.25", "A1")
+        );
+        assertThat(
+                csv.column("id").strings().collect(Collectors.toList()),
+                contains("1", "9007199254740993", "2.5", "3", "x", "4")
+        );
+    }
+
+    /**
+     * Tests that a numeric value cannot be read from a text column.
+     */
+    @Test(expected = CsvException.class)
+    public void testMismatch() throws IOException {
+        new FileCsv<String>(this.files.write("a\n"), ",").toColumns().column(0).doubles();
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvCheckpoint} and the resumed and
+ * followed reading of {@link FileCsv} and {@link HeadedFileCsv}.
+ */
+public class CsvCheckpointTest {
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that each read only returns the records appended since the
+     * previous one.
+     */
+    @Test
+    public void testResume() throws IOException {
+        final Path file = this.files.newFile("resume.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("resume.pos");
+        final FileCsv<String> csv = new FileCsv<String>(file, ",").withCheckpoint(checkpoint);
+        this.append(file, "a,1\nb,2\n");
+        assertThat(csv.map(record -> record.get(0)), contains("a", "b"));
+        assertThat(csv.map(record -> record.get(0)), is(empty()));
+        this.append(file, "c,3\r\n");
+        assertThat(csv.map(record -> record.get(0)), contains("c"));
+        assertThat(checkpoint.offset(), is(Files.size(file)));
+    }
+
+    /**
+     * Tests that a last record ending with a carriage return is committed,
+     * and that a line feed written after it is not read as a record.
+     */
+    @Test
+    public void testCarriageReturn() throws IOException {
+        final Path file = this.files.newFile("cr.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("cr.pos");
+        final FileCsv<String> csv = new FileCsv<String>(file, ",").withCheckpoint(checkpoint);
+        this.append(file, "a,1\rb,2\r");
+        assertThat(csv.map(record -> record.get(0)), contains("a", "b"));
+        assertThat(checkpoint.offset(), is(Files.size(file)));
+        assertThat(csv.map(record -> record.get(0)), is(empty()));
+        this.append(file, "\nc,3\r");
+        assertThat(csv.map(record -> record.get(0)), contains("c"));
+        assertThat(checkpoint.offset(), is(Files.size(file)));
+    }
+
+    /**
+     * Tests that a record still being written, even inside a quoted field,
+     * is left for the next read.
+     */
+    @Test
+    public void testPartialRecord() throws IOException {
+        final Path file = this.files.newFile("partial.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("partial.pos");
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withCheckpoint(checkpoint);
+        this.append(file, "name,text\nfirst,one\nsecond,\"two");
+        assertThat(csv.map(record -> record.get("text")), contains("one"));
+        this.append(file, "\nlines\"\nthird,thr");
+        assertThat(csv.map(record -> record.get("text")), contains("two\nlines"));
+        this.append(file, "ee\n");
+        assertThat(csv.map(record -> record.get("name") + '=' + record.get("text")), contains("third=three"));
+    }
+
+    /**
+     * Tests that the header written alone is read before the records.
+     */
+    @Test
+    public void testPartialHeader() throws IOException {
+        final Path file = this.files.newFile("header.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("header.pos");
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withCheckpoint(checkpoint);
+        this.append(file, "na");
+        assertThat(csv.map(record -> record.get("name")), is(empty()));
+        this.append(file, "me\nx\n");
+        assertThat(csv.map(record -> record.get("name")), contains("x"));
+    }
+
+    /**
+     * Tests that a file replaced by a smaller one is read from its start.
+     */
+    @Test
+    public void testReplaced() throws IOException {
+        final Path file = this.files.newFile("replaced.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("replaced.pos");
+        final FileCsv<String> csv = new FileCsv<String>(file, ",").withCheckpoint(checkpoint);
+        this.append(file, "a\nb\nc\n");
+        assertThat(csv.map(record -> record.get(0)), contains("a", "b", "c"));
+        Files.write(file, "d\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(csv.map(record -> record.get(0)), contains("d"));
+    }
+
+    /**
+     * Tests that a followed file delivers its records in batches as it
+     * grows, until the follower is interrupted.
+     */
+    @Test
+    public void testFollow() throws Exception {
+        final Path file = this.files.newFile("follow.csv").toPath();
+        final CsvCheckpoint checkpoint = this.checkpoint("follow.pos");
+        this.append(file, "1\n2\n3\n");
+        final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<>();
+        final Thread follower = new Thread(
+                () -> new FileCsv<String>(file, ",").withCheckpoint(checkpoint).follow(
+                        record -> record.get(0), 2, batches::add
+                )
+        );
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        follower.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+        follower.start();
+        try {
+            assertThat(batches.poll(10L, TimeUnit.SECONDS), contains("1", "2"));
+            assertThat(batches.poll(10L, TimeUnit.SECONDS), contains("3"));
+            this.append(file, "4\n5");
+            assertThat(batches.poll(10L, TimeUnit.SECONDS), contains("4"));
+            this.append(file, "\n");
+            assertThat(batches.poll(10L, TimeUnit.SECONDS), contains("5"));
+        } finally {
+            follower.interrupt();
+            follower.join(10_000L);
+        }
+        assertThat(follower.isAlive(), is(false));
+        assertThat(failure.get(), is(nullValue()));
+        this.append(file, "6\n");
+        try (final Stream<String> rest = new FileCsv<String>(file, ",")
+                .withCheckpoint(checkpoint)
+                .stream(record -> record.get(0))) {
+            assertThat(rest.collect(Collectors.toList()), contains("6"));
+        }
+    }
+
+    /**
+     * Tests that a compressed file cannot be resumed.
+     */
+    @Test(expected = CsvException.class)
+    public void testCompressed() throws IOException {
+        final Path file = this.files.write(
+                "compressed.csv.gz", BlockGzipInputStreamTest.blocks("a\nb\n".getBytes(StandardCharsets.UTF_8), 2)
+        );
+        new FileCsv<String>(file, ",")
+                .withCheckpoint(this.checkpoint("compressed.pos"))
+                .map(record -> record.get(0));
+    }
+
+    private CsvCheckpoint checkpoint(final String name) {
+        return new CsvCheckpoint(this.files.resolve(name));
+    }
+
+    private void append(final Path file, final String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+}
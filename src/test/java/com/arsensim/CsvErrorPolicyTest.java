@@ -0,0 +1,202 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvErrorPolicy}.
+ */
+public class CsvErrorPolicyTest {
+
+    private static final String CONTENT = "id,name\n1,a\n2\n3,c\nx,d\n4,e,extra\n5,f\n";
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that rows with a wrong number of fields and rows the mapper
+     * fails on are skipped.
+     */
+    @Test
+    public void testSkip() throws IOException {
+        final List<Integer> ids = new HeadedFileCsv<Integer>(this.files.write(CONTENT), ",")
+                .withErrorPolicy(CsvErrorPolicy.skip())
+                .map(record -> Integer.parseInt(record.get("id")));
+        assertThat(ids, contains(1, 3, 5));
+    }
+
+    /**
+     * Tests that bad rows reach the dead letter sink with their reason, row,
+     * line, byte offset and values.
+     */
+    @Test
+    public void testDeadLetter() throws IOException {
+        final List<CsvBadRow> bad = new ArrayList<>();
+        new HeadedFileCsv<Integer>(this.files.write(CONTENT), ",")
+                .withErrorPolicy(CsvErrorPolicy.deadLetter(bad::add))
+                .map(record -> Integer.parseInt(record.get("id")));
+        assertThat(bad, hasSize(3));
+        assertThat(bad.get(0).reason(), is(CsvBadRow.Reason.COLUMNS));
+        assertThat(bad.get(0).row(), is(1L));
+        assertThat(bad.get(0).line(), is(3L));
+        assertThat(bad.get(0).offset(), is((long) CONTENT.indexOf("2\n")));
+        assertThat(bad.get(0).values(), contains("2"));
+        assertThat(bad.get(1).reason(), is(CsvBadRow.Reason.MAPPER));
+        assertThat(bad.get(1).line(), is(5L));
+        assertThat(bad.get(1).offset(), is((long) CONTENT.indexOf("x,d")));
+        assertThat(bad.get(1).values(), contains("x", "d"));
+        assertThat(bad.get(1).error(), is(instanceOf(NumberFormatException.class)));
+        assertThat(bad.get(2).reason(), is(CsvBadRow.Reason.COLUMNS));
+        assertThat(bad.get(2).row(), is(4L));
+    }
+
+    /**
+     * Tests that offsets count the byte order mark and multi-byte
+     * characters of the file.
+     */
+    @Test
+    public void testOffsetAfterBom() throws IOException {
+        final String content = "\uFEFFid,name\n1,\u00e9t\u00e9\n2\n";
+        final Path file = this.files.write("bom.csv", content);
+        final List<CsvBadRow> bad = new ArrayList<>();
+        new HeadedFileCsv<String>(file, ",")
+                .withErrorPolicy(CsvErrorPolicy.deadLetter(bad::add))
+                .map(record -> record.get("name"));
+        assertThat(bad, hasSize(1));
+        assertThat(
+                bad.get(0).offset(),
+                is((long) content.substring(0, content.indexOf("2\n")).getBytes(StandardCharsets.UTF_8).length)
+        );
+    }
+
+    /**
+     * Tests that collecting fails once more bad rows than the limit were
+     * found, having collected the limit.
+     */
+    @Test
+    public void testCollect() throws IOException {
+        final List<CsvBadRow> bad = new ArrayList<>();
+        try {
+            new HeadedFileCsv<Integer>(this.files.write(CONTENT), ",")
+                    .withErrorPolicy(CsvErrorPolicy.collect(2L, bad))
+                    .map(record -> Integer.parseInt(record.get("id")));
+            fail("Expected a CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), startsWith("More than 2 bad rows, the last at line 6"));
+        }
+        assertThat(bad, hasSize(2));
+    }
+
+    /**
+     * Tests that failing fast throws the first error, and that rows with a
+     * wrong number of fields are only bad with a policy.
+     */
+    @Test
+    public void testFailFast() throws IOException {
+        final Path file = this.files.write("id,name\n1,a\n2\n");
+        assertThat(
+                new HeadedFileCsv<String>(file, ",").map(record -> record.get("id")),
+                contains("1", "2")
+        );
+        try {
+            new HeadedFileCsv<String>(file, ",")
+                    .withErrorPolicy(CsvErrorPolicy.failFast())
+                    .map(record -> record.get("id"));
+            fail("Expected a CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), is("Csv record at line 3 has 1 fields instead of 2"));
+        }
+    }
+
+    /**
+     * Tests that a quoted field left open at the end of the file is a bad
+     * row that ends the records.
+     */
+    @Test
+    public void testTokenizer() throws IOException {
+        final List<CsvBadRow> bad = new ArrayList<>();
+        final List<String> values = new FileCsv<String>(this.files.write("a,b\nc,d\n\"e,f\n"), ",")
+                .withErrorPolicy(CsvErrorPolicy.deadLetter(bad::add))
+                .map(record -> record.get(0));
+        assertThat(values, contains("a", "c"));
+        assertThat(bad, hasSize(1));
+        assertThat(bad.get(0).reason(), is(CsvBadRow.Reason.TOKENIZER));
+        assertThat(bad.get(0).row(), is(2L));
+        assertThat(bad.get(0).values(), is(empty()));
+    }
+
+    /**
+     * Tests that a csv without header takes the number of fields of its
+     * first row.
+     */
+    @Test
+    public void testFirstRowWidth() throws IOException {
+        final List<String> values = new FileCsv<String>(this.files.write("a,b\nc\nd,e\nf,g,h\n"), ",")
+                .withErrorPolicy(CsvErrorPolicy.skip())
+                .map(record -> record.get(0));
+        assertThat(values, contains("a", "d"));
+    }
+
+    /**
+     * Tests that in-memory csvs handle bad records too, giving their values
+     * in the order of the columns.
+     */
+    @Test
+    public void testSimpleCsv() {
+        final List<CsvRecord<String>> records = new LinkedList<>(Arrays.asList(
+                this.record("1", "a"), this.record("x", "b"), this.record("3", "c")
+        ));
+        final List<CsvBadRow> bad = new ArrayList<>();
+        final List<Integer> ids = new SimpleCsv<String, Integer>(records)
+                .withErrorPolicy(CsvErrorPolicy.deadLetter(bad::add))
+                .map(record -> Integer.parseInt(record.get("id")));
+        assertThat(ids, contains(1, 3));
+        assertThat(bad, hasSize(1));
+        assertThat(bad.get(0).row(), is(1L));
+        assertThat(bad.get(0).values(), contains("x", "b"));
+    }
+
+    private CsvRecord<String> record(final String id, final String name) {
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("id", id);
+        values.put("name", name);
+        return new SimpleCsvRecord<>(values);
+    }
+
+}
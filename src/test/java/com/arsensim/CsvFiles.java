@@ -0,0 +1,92 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A temporary folder rule that writes the csv files read by the tests, and
+ * deletes them once each test is done.
+ *
+ * @author Arsen Simonean (arsensim08@gmail.com)
+ * @version $Id$
+ * @since 1.0
+ */
+final class CsvFiles extends TemporaryFolder {
+
+    /**
+     * Writes a new file with a random name.
+     *
+     * @param content The content of the file, written in UTF-8.
+     * @return The path of the file.
+     * @throws IOException when the file cannot be written.
+     */
+    Path write(final String content) throws IOException {
+        return this.write(this.newFile(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a new file.
+     *
+     * @param name The name of the file in the folder.
+     * @param content The content of the file, written in UTF-8.
+     * @return The path of the file.
+     * @throws IOException when the file cannot be written.
+     */
+    Path write(final String name, final String content) throws IOException {
+        return this.write(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a new file from raw bytes, for other charsets or compressed
+     * content.
+     *
+     * @param name The name of the file in the folder.
+     * @param content The bytes of the file.
+     * @return The path of the file.
+     * @throws IOException when the file cannot be written.
+     */
+    Path write(final String name, final byte[] content) throws IOException {
+        return this.write(this.newFile(name), content);
+    }
+
+    /**
+     * @param name The name of a file in the folder.
+     * @return The path of the file, which is not created.
+     */
+    Path resolve(final String name) {
+        return this.getRoot().toPath().resolve(name);
+    }
+
+    private Path write(final File file, final byte[] content) throws IOException {
+        return Files.write(file.toPath(), content);
+    }
+
+}
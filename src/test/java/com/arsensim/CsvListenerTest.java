@@ -0,0 +1,202 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvListener}, {@link CsvMetrics} and
+ * {@link JmxCsvListener}.
+ */
+public class CsvListenerTest {
+
+    private static final int ROWS = 1000;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that a read is reported once with its rows, bytes and slowest
+     * rows when its records are closed.
+     */
+    @Test
+    public void testMetrics() throws IOException {
+        final Path file = this.file();
+        final List<CsvMetrics> reads = new ArrayList<>();
+        final List<String> names = new HeadedFileCsv<String>(file, ",")
+                .withListener(reads::add)
+                .map(record -> record.get("name"));
+        assertThat(names, hasSize(ROWS));
+        assertThat(reads, hasSize(1));
+        final CsvMetrics metrics = reads.get(0);
+        assertThat(metrics.file(), is(file));
+        assertThat(metrics.rows(), is((long) ROWS));
+        assertThat(metrics.bytes(), is(Files.size(file)));
+        assertThat(metrics.errors(), is(0L));
+        assertThat(metrics.elapsed(), greaterThan(metrics.tokenizing()));
+        assertThat(metrics.rowsPerSecond(), greaterThan(0.0));
+        assertThat(metrics.slowest(), hasSize(5));
+        for (int i = 1; i < metrics.slowest().size(); i++) {
+            assertThat(
+                    metrics.slowest().get(i - 1).duration(),
+                    greaterThanOrEqualTo(metrics.slowest().get(i).duration())
+            );
+        }
+        for (final CsvMetrics.SlowRow row : metrics.slowest()) {
+            assertThat(row.row(), is(both(greaterThanOrEqualTo(0L)).and(lessThan((long) ROWS))));
+        }
+    }
+
+    /**
+     * Tests that filtered and ranged reads count the rows returned and
+     * number the rows from the start of the file.
+     */
+    @Test
+    public void testFilteredRows() throws IOException {
+        final Path file = this.file();
+        final List<CsvMetrics> reads = new ArrayList<>();
+        final List<String> ids = new FileCsv<String>(file, ",")
+                .withListener(reads::add)
+                .withRows(500L, 600L)
+                .filter(0, value -> value.toString().endsWith("0"))
+                .map(record -> record.get(0));
+        assertThat(ids, hasSize(10));
+        assertThat(reads.get(0).rows(), is(10L));
+        for (final CsvMetrics.SlowRow row : reads.get(0).slowest()) {
+            assertThat(row.row(), is(both(greaterThanOrEqualTo(500L)).and(lessThan(600L))));
+        }
+    }
+
+    /**
+     * Tests that an error in the mapper is passed to the listener with its
+     * row before it is thrown, and counted in the metrics of the read.
+     */
+    @Test
+    public void testFailure() throws IOException {
+        final Path file = this.file();
+        final List<CsvMetrics> reads = new ArrayList<>();
+        final List<Long> failed = new ArrayList<>();
+        final CsvListener listener = new CsvListener() {
+            @Override
+            public void read(final CsvMetrics metrics) {
+                reads.add(metrics);
+            }
+
+            @Override
+            public void failed(final long row, final RuntimeException error) {
+                failed.add(row);
+            }
+        };
+        try {
+            new HeadedFileCsv<Integer>(file, ",").withListener(listener).map(
+                    record -> {
+                        if ("42".equals(record.get("id"))) {
+                            throw new IllegalStateException("broken");
+                        }
+                        return 0;
+                    }
+            );
+            fail("Expected the mapper to fail");
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage(), is("broken"));
+        }
+        assertThat(failed, contains(42L));
+        assertThat(reads, hasSize(1));
+        assertThat(reads.get(0).errors(), is(1L));
+        assertThat(reads.get(0).rows(), is(43L));
+    }
+
+    /**
+     * Tests that the counters of the reads are exposed over JMX until the
+     * listener is closed.
+     */
+    @Test
+    public void testJmx() throws Exception {
+        final Path file = this.file();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final JmxCsvListener listener = new JmxCsvListener("test");
+        try (final JmxCsvListener jmx = listener.register()) {
+            final Csv<String, String> csv = new HeadedFileCsv<String>(file, ",").withListener(jmx);
+            csv.map(record -> record.get("id"));
+            csv.map(record -> record.get("id"));
+            assertThat(server.getAttribute(jmx.name(), "Reads"), is(2L));
+            assertThat(server.getAttribute(jmx.name(), "Rows"), is(2L * ROWS));
+            assertThat(server.getAttribute(jmx.name(), "Bytes"), is(2L * Files.size(file)));
+            server.invoke(jmx.name(), "reset", new Object[0], new String[0]);
+            assertThat(jmx.getRows(), is(0L));
+            assertThat(server.isRegistered(jmx.name()), is(true));
+        }
+        assertThat(server.isRegistered(listener.name()), is(false));
+    }
+
+    /**
+     * Tests that the slowest row is reported with its own index, counting
+     * the header of a positional csv, also when rows rejected by a filter
+     * follow it.
+     */
+    @Test
+    public void testSlowestRow() throws IOException {
+        final Path file = this.file();
+        final List<CsvMetrics> reads = new ArrayList<>();
+        new FileCsv<String>(file, ",").withListener(reads::add).map(record -> this.slow(record.get(0), "3"));
+        assertThat(reads.get(0).slowest().get(0).row(), is(4L));
+        new HeadedFileCsv<String>(file, ",")
+                .withListener(reads::add)
+                .filter("id", id -> id.charAt(id.length() - 1) % 2 == 0)
+                .map(record -> this.slow(record.get("id"), "4"));
+        assertThat(reads.get(1).slowest().get(0).row(), is(4L));
+    }
+
+    private String slow(final String value, final String id) {
+        if (value.equals(id)) {
+            try {
+                Thread.sleep(50L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return value;
+    }
+
+    private Path file() throws IOException {
+        final StringBuilder content = new StringBuilder("id,name\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(",name-").append(i).append('\n');
+        }
+        return this.files.write("metrics.csv", content.toString());
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvSniffer}.
+ */
+public class CsvSnifferTest {
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that the delimiter, line separator, header and column types are
+     * found, and that the profile reads the file by column name.
+     */
+    @Test
+    public void testHeaded() throws IOException {
+        final Path file = this.files.write(
+                "name;count;amount;active;date\r\n"
+                        + "apple;3;1.5;true;2018-01-02\r\n"
+                        + "pear;12;2;false;2018-03-04\r\n"
+                        + "plum;;0.25;true;2019-12-31\r\n"
+        );
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.dialect().delimiter(), is(";"));
+        assertThat(profile.lineSeparator(), is("\r\n"));
+        assertThat(profile.header(), contains("name", "count", "amount", "active", "date"));
+        assertThat(
+                profile.types(),
+                contains(String.class, Integer.class, Double.class, Boolean.class, LocalDate.class)
+        );
+        final List<String> names = profile.<String>headed(file).map(record -> record.get("name"));
+        assertThat(names, contains("apple", "pear", "plum"));
+    }
+
+    /**
+     * Tests that a file of numbers has no header and that its values are
+     * converted to the types found.
+     */
+    @Test
+    public void testPositional() throws IOException {
+        final Path file = this.files.write("1\t10000000000\t0.5\n2\t20000000000\t1\n3\t30000000000\t-2.5\n");
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.dialect().delimiter(), is("\t"));
+        assertThat(profile.headed(), is(false));
+        assertThat(profile.types(), contains(Integer.class, Long.class, Double.class));
+        final List<List<Object>> values = profile.<List<Object>>positional(file)
+                .map(profile.values(new CsvConverters()));
+        assertThat(values.get(2), contains((Object) 3, 30000000000L, -2.5));
+        try {
+            profile.headed(file);
+            fail("A profile without header must not read by column name");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("no header"));
+        }
+    }
+
+    /**
+     * Tests that a header of text columns is recognised when its values do
+     * not occur below, and that the positional csv skips it.
+     */
+    @Test
+    public void testTextHeader() throws IOException {
+        final Path file = this.files.write("city|country\n\"Paris, 75\"|France\nLyon|France\n");
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.dialect().delimiter(), is("|"));
+        assertThat(profile.header(), contains("city", "country"));
+        final List<String> cities = profile.<String>positional(file).map(record -> record.get(0));
+        assertThat(cities, contains("Paris, 75", "Lyon"));
+    }
+
+    /**
+     * Tests that codes with leading zeros are kept as text, while numbers
+     * with a zero before their point are not.
+     */
+    @Test
+    public void testLeadingZeros() throws IOException {
+        final Path file = this.files.write("zip,ratio\n02134,0.5\n00501,-0.25\n10001,0\n");
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.types(), contains(String.class, Double.class));
+        final List<List<Object>> values = profile.<List<Object>>positional(file)
+                .map(profile.values(new CsvConverters()));
+        assertThat(values.get(1), contains((Object) "00501", -0.25));
+    }
+
+    /**
+     * Tests that values the number parsers of Java accept but that are not
+     * plain decimals, such as suffixed, padded, special, hexadecimal or
+     * infinite values, are kept as text.
+     */
+    @Test
+    public void testStrictNumbers() throws IOException {
+        final Path file = this.files.write(
+                "id,unit,ratio\n1,1d,0.5\n2,7f,1e999\n3, 12,2\n4,NaN,3\n5,Infinity,4\n6,0x1p3,5\n"
+        );
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.types(), contains(Integer.class, String.class, String.class));
+        final List<List<Object>> values = profile.<List<Object>>positional(file)
+                .map(profile.values(new CsvConverters()));
+        assertThat(values.get(2), contains((Object) 3, " 12", "2"));
+        assertThat(
+                values.stream().map(row -> row.get(1)).collect(Collectors.toList()),
+                contains((Object) "1d", "7f", " 12", "NaN", "Infinity", "0x1p3")
+        );
+    }
+
+    /**
+     * Tests that fields enclosed in single quotes with backslashed quotes
+     * are found.
+     */
+    @Test
+    public void testSingleQuotes() throws IOException {
+        final Path file = this.files.write("'a,b',1\n'it\\'s',2\n'c',3\n");
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.dialect().delimiter(), is(","));
+        assertThat(profile.dialect().quote(), is('\''));
+        assertThat(profile.dialect().escape(), is('\\'));
+        assertThat(profile.types(), contains(String.class, Integer.class));
+    }
+
+    /**
+     * Tests that only the sample is read and that its cut last row does not
+     * widen the types.
+     */
+    @Test
+    public void testSample() throws IOException {
+        final StringBuilder content = new StringBuilder("id,label\n");
+        for (int row = 0; row < 1000; row++) {
+            content.append(row).append(",label-").append(row).append('\n');
+        }
+        final Path file = this.files.write(content.toString());
+        final CsvProfile profile = new CsvSniffer().withSample(100).sniff(file);
+        assertThat(profile.header(), contains("id", "label"));
+        assertThat(profile.types(), contains(Integer.class, String.class));
+    }
+
+    /**
+     * Tests that a byte order mark sets the charset of the profile.
+     */
+    @Test
+    public void testByteOrderMark() throws IOException {
+        final Path file = this.files.write("bom.csv", "\uFEFFa;b\n1;2\n3;4\n".getBytes(StandardCharsets.UTF_16LE));
+        final CsvProfile profile = new CsvSniffer().sniff(file);
+        assertThat(profile.charset(), is(StandardCharsets.UTF_16LE));
+        assertThat(profile.header(), contains("a", "b"));
+    }
+
+}
@@ -0,0 +1,197 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvTokenizer} and
+ * {@link ByteCsvTokenizer}.
+ */
+public class CsvTokenizerTest {
+
+    /**
+     * Tests plain fields, empty fields and both kinds of line breaks.
+     */
+    @Test
+    public void testPlainFields() {
+        final List<String[]> rows = this.rows("a,b,,\r\nc,d\ne,f", new CsvDialect(","));
+        assertThat(rows, hasSize(3));
+        assertThat(rows.get(0), arrayContaining("a", "b", "", ""));
+        assertThat(rows.get(1), arrayContaining("c", "d"));
+        assertThat(rows.get(2), arrayContaining("e", "f"));
+    }
+
+    /**
+     * Tests quoted fields containing delimiters, doubled quotes and line
+     * breaks.
+     */
+    @Test
+    public void testQuotedFields() {
+        final List<String[]> rows = this.rows(
+                "\"a,b\",\"say \"\"hi\"\"\",\"multi\nline\"\nx,y\n",
+                new CsvDialect(",")
+        );
+        assertThat(rows, hasSize(2));
+        assertThat(rows.get(0), arrayContaining("a,b", "say \"hi\"", "multi\nline"));
+        assertThat(rows.get(1), arrayContaining("x", "y"));
+    }
+
+    /**
+     * Tests a multi character delimiter, which is taken literally.
+     */
+    @Test
+    public void testMultiCharDelimiter() {
+        final List<String[]> rows = this.rows("a||b|c||.*\n", new CsvDialect("||"));
+        assertThat(rows, hasSize(1));
+        assertThat(rows.get(0), arrayContaining("a", "b|c", ".*"));
+    }
+
+    /**
+     * Tests an escape character that differs from the quote.
+     */
+    @Test
+    public void testEscapeCharacter() {
+        final List<String[]> rows = this.rows(
+                "'it\\'s',\\x\n",
+                new CsvDialect(",", '\'', '\\')
+        );
+        assertThat(rows.get(0), arrayContaining("it's", "\\x"));
+    }
+
+    /**
+     * Tests records larger than the internal buffer.
+     */
+    @Test
+    public void testLongRecords() {
+        final StringBuilder csv = new StringBuilder();
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        for (int i = 0; i < 3; i++) {
+            csv.append(value).append("<>\"").append(value).append("\"\n");
+        }
+        final List<String[]> rows = this.rows(csv.toString(), new CsvDialect("<>"));
+        assertThat(rows, hasSize(3));
+        for (final String[] row : rows) {
+            assertThat(row, arrayContaining(value.toString(), value.toString()));
+        }
+    }
+
+    /**
+     * Tests many short records whose line breaks fall on buffer boundaries.
+     */
+    @Test
+    public void testManyRecords() {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            csv.append(i).append(',').append(i % 7 == 0 ? "\"q\"" : "v").append("\r\n");
+        }
+        final List<String[]> rows = this.rows(csv.toString(), new CsvDialect(","));
+        assertThat(rows, hasSize(50_000));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), arrayContaining(String.valueOf(i), i % 7 == 0 ? "q" : "v"));
+        }
+    }
+
+    /**
+     * Tests that a quoted field which is never closed is reported.
+     */
+    @Test(expected = CsvException.class)
+    public void testUnterminatedQuote() {
+        this.rows("a,\"b\nc", new CsvDialect(","));
+    }
+
+    /**
+     * Tests that multi-byte characters are decoded by the byte tokenizer
+     * and viewed without decoding when they are ASCII.
+     */
+    @Test
+    public void testBytes() {
+        final CsvDialect dialect = new CsvDialect(";");
+        try (final Tokenizer tokenizer = new ByteCsvTokenizer(
+                new ByteArrayInputStream("caf\u00e9;\"\u65e5;\u672c\";ascii\n".getBytes(StandardCharsets.UTF_8)),
+                dialect,
+                StandardCharsets.UTF_8
+        )) {
+            assertTrue(tokenizer.next());
+            assertThat(tokenizer.toArray(), arrayContaining("caf\u00e9", "\u65e5;\u672c", "ascii"));
+            final CharView view = new CharView(null, 0, 0);
+            assertThat(tokenizer.chars(2, view), sameInstance(view));
+            assertThat(tokenizer.chars(0, view).toString(), is("caf\u00e9"));
+            assertFalse(tokenizer.next());
+        }
+    }
+
+    /**
+     * Tests which charsets can be tokenized as bytes.
+     */
+    @Test
+    public void testByteCharsets() {
+        final CsvDialect dialect = new CsvDialect(",");
+        assertTrue(ByteCsvTokenizer.supports(StandardCharsets.UTF_8, dialect));
+        assertTrue(ByteCsvTokenizer.supports(StandardCharsets.ISO_8859_1, dialect));
+        assertFalse(ByteCsvTokenizer.supports(StandardCharsets.UTF_16LE, dialect));
+        assertFalse(ByteCsvTokenizer.supports(StandardCharsets.UTF_8, new CsvDialect("\u00a7")));
+    }
+
+    /**
+     * Tokenizes a csv as characters and as UTF-8 bytes, checking that both
+     * give the same records.
+     */
+    private List<String[]> rows(final String csv, final CsvDialect dialect) {
+        final List<String[]> bytes = this.rows(new ByteCsvTokenizer(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                dialect,
+                StandardCharsets.UTF_8
+        ));
+        final List<String[]> chars = this.rows(new CsvTokenizer(new StringReader(csv), dialect));
+        assertThat(bytes.toArray(), is(chars.toArray()));
+        return chars;
+    }
+
+    /**
+     * Reads the remaining records of a tokenizer and closes it.
+     */
+    private List<String[]> rows(final Tokenizer tokenizer) {
+        try (final Tokenizer closed = tokenizer) {
+            final List<String[]> rows = new ArrayList<>();
+            while (closed.next()) {
+                rows.add(closed.toArray());
+            }
+            return rows;
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link CsvWriter} and
+ * {@link ReflectiveCsvRowMapper}.
+ */
+public class CsvWriterTest {
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that only fields holding special characters are quoted.
+     */
+    @Test
+    public void testQuoting() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final CsvWriter<String[]> writer = new CsvWriter<>(
+                out, new CsvDialect(","), StandardCharsets.UTF_8,
+                (values, row) -> {
+                    for (final String value : values) {
+                        row.add(value);
+                    }
+                }
+        )) {
+            writer.header(Arrays.asList("a", "b", "c"));
+            writer.write(new String[]{"plain", "a,b", "say \"hi\""});
+            writer.write(new String[]{"multi\nline", null, ""});
+        }
+        assertThat(
+                new String(out.toByteArray(), StandardCharsets.UTF_8),
+                is("a,b,c\nplain,\"a,b\",\"say \"\"hi\"\"\"\n\"multi\nline\",,\n")
+        );
+    }
+
+    /**
+     * Tests that integers are written as their decimal text.
+     */
+    @Test
+    public void testNumbers() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final CsvWriter<long[]> writer = new CsvWriter<>(
+                out, new CsvDialect("; "), StandardCharsets.UTF_8,
+                (values, row) -> {
+                    for (final long value : values) {
+                        row.add(value);
+                    }
+                    row.add(0.5);
+                }
+        )) {
+            writer.write(new long[]{0, 7, -42, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE});
+        }
+        assertThat(
+                new String(out.toByteArray(), StandardCharsets.UTF_8),
+                is("0; 7; -42; 1234567890123; 9223372036854775807; -9223372036854775808; 0.5\n")
+        );
+    }
+
+    /**
+     * Tests that objects written through their getters are read back the
+     * same by {@link ReflectiveCsvRecordMapper}.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Path file = this.files.newFile("typed.csv").toPath();
+        final ReflectiveCsvRowMapper<TypedOutput> mapper = new ReflectiveCsvRowMapper<>(
+                TypedOutput.class, "count", "total", "ratio", "active", "amount", "date", "unit"
+        );
+        final TypedOutput first = new TypedOutput();
+        first.setCount(-3);
+        first.setTotal(1L << 40);
+        first.setRatio(0.25);
+        first.setActive(true);
+        first.setAmount(new BigDecimal("1.5"));
+        first.setDate(LocalDate.of(2018, 5, 17));
+        first.setUnit(TimeUnit.SECONDS);
+        final TypedOutput second = new TypedOutput();
+        try (final CsvWriter<TypedOutput> writer = new CsvWriter<>(file, new CsvDialect(","), mapper)) {
+            writer.header(mapper.columns());
+            writer.writeAll(Arrays.asList(first, second));
+        }
+        final List<TypedOutput> read = new HeadedFileCsv<TypedOutput>(file, ",")
+                .map(new ReflectiveCsvRecordMapper<>(TypedOutput.class));
+        assertThat(read, hasSize(2));
+        assertThat(read.get(0).getCount(), is(-3));
+        assertThat(read.get(0).getTotal(), is(1L << 40));
+        assertThat(read.get(0).getRatio(), is(0.25));
+        assertThat(read.get(0).isActive(), is(true));
+        assertThat(read.get(0).getAmount(), is(new BigDecimal("1.5")));
+        assertThat(read.get(0).getDate(), is(LocalDate.of(2018, 5, 17)));
+        assertThat(read.get(0).getUnit(), is(TimeUnit.SECONDS));
+        assertThat(read.get(1).getAmount(), nullValue());
+        assertThat(read.get(1).getDate(), nullValue());
+    }
+
+    /**
+     * Tests that a column without getter is reported.
+     */
+    @Test(expected = CsvException.class)
+    public void testUnknownColumn() {
+        new ReflectiveCsvRowMapper<>(TypedOutput.class, "count", "missing");
+    }
+
+}
@@ -23,11 +23,20 @@
  */
 package com.arsensim;
 
-import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -37,6 +46,9 @@ import static org.junit.Assert.*;
  */
 public class FileCsvTest {
 
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
     /**
      * Tests that {@link CsvException} is thrown when the file doesn't exist.s
      */
@@ -52,23 +64,112 @@ public class FileCsvTest {
     }
 
     /**
-     * Tests the happy flow of the {@link FileCsv}.
+     * Tests that fields are taken by index, quoted or not.
      */
     @Test
-    @Ignore // todo move this method to a FileHeadedCsv or smth and fix
-    public void testParse() {
-        final FileCsv<ExampleOutput> parser = new FileCsv<>(
+    public void testParseByIndex() {
+        final FileCsv<String> parser = new FileCsv<>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        );
+        final List<String> mappedLines = parser.map(record -> record.get(0) + record.get(1));
+        assertThat(mappedLines, contains("xy", "foobar", "bazbuf"));
+    }
+
+    /**
+     * Tests that only the projected columns are present in the records.
+     */
+    @Test
+    public void testColumns() {
+        final FileCsv<String> parser = new FileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).withColumns(3);
+        assertThat(
+                parser.map(record -> record.columns() + record.get(3)),
+                contains("[3]y", "[3]bar", "[3]buf")
+        );
+    }
+
+    /**
+     * Tests that {@link FileCsv#stream} maps every line lazily.
+     */
+    @Test
+    public void testStream() {
+        final FileCsv<String> parser = new FileCsv<>(
                 Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
                 ","
         );
-        final List<ExampleOutput> mappedLines = parser.map(null);
-        assertThat(mappedLines, hasSize(2));
-        final ExampleOutput fooBar = mappedLines.get(0);
-        assertThat(fooBar.getX(), is("foo"));
-        assertThat(fooBar.getY(), is("bar"));
-        final ExampleOutput bazBuf = mappedLines.get(1);
-        assertThat(bazBuf.getX(), is("baz"));
-        assertThat(bazBuf.getY(), is("buf"));
+        try (final Stream<String> records = parser.stream(record -> record.get(1))) {
+            assertThat(
+                    records.collect(Collectors.toList()),
+                    contains("y", "bar", "buf")
+            );
+        }
+    }
+
+    /**
+     * Tests that a file in a single-byte charset is decoded with it.
+     */
+    @Test
+    public void testCharset() throws IOException {
+        final Path file = this.files.write("latin.csv", "caf\u00e9,na\u00efve\n".getBytes(StandardCharsets.ISO_8859_1));
+        final List<String> values = new FileCsv<String>(
+                file, new CsvDialect(","), StandardCharsets.ISO_8859_1
+        ).map(record -> record.get(0) + record.chars(1));
+        assertThat(values, contains("caf\u00e9na\u00efve"));
+    }
+
+    /**
+     * Tests that byte order marks are skipped and override the charset.
+     */
+    @Test
+    public void testByteOrderMark() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        bytes.write("id,name\n1,\u00e9\n".getBytes(StandardCharsets.UTF_8));
+        final Path utf8 = this.files.write("utf8.csv", bytes.toByteArray());
+        assertThat(
+                new HeadedFileCsv<String>(utf8, new CsvDialect(","), StandardCharsets.ISO_8859_1)
+                        .map(record -> record.get("id") + record.get("name")),
+                contains("1\u00e9")
+        );
+        final Path utf16 = this.files.write("utf16.csv", "\ufeffa,\u00e9\n".getBytes(StandardCharsets.UTF_16LE));
+        assertThat(
+                new FileCsv<String>(utf16, ",").map(record -> record.get(0) + record.get(1)),
+                contains("a\u00e9")
+        );
+    }
+
+    /**
+     * Tests that gzip files of one or more members, block gzip files and
+     * zip archives are decompressed while they are parsed.
+     */
+    @Test
+    public void testCompressed() throws IOException {
+        final byte[] content = "a,1\nb,2\n".getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        for (int i = 0; i < 2; i++) {
+            try (final GZIPOutputStream member = new GZIPOutputStream(gzip)) {
+                member.write(content);
+            }
+        }
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (final ZipOutputStream archive = new ZipOutputStream(zip)) {
+            archive.putNextEntry(new ZipEntry("records.csv"));
+            archive.write(content);
+        }
+        final byte[][] files = {
+                gzip.toByteArray(), BlockGzipInputStreamTest.blocks(content, 3), zip.toByteArray(),
+        };
+        final int[] sizes = {4, 2, 2};
+        for (int i = 0; i < files.length; i++) {
+            final Path file = this.files.write("compressed" + i, files[i]);
+            final List<String> values = new FileCsv<String>(file, ",")
+                    .map(record -> record.get(0) + record.get(1));
+            assertThat(values, hasSize(sizes[i]));
+            assertThat(values.subList(0, 2), contains("a1", "b2"));
+        }
     }
 
 }
@@ -0,0 +1,159 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link GeneratedCsvRecordMapper} and the
+ * mappers written by {@link CsvMapperProcessor}.
+ */
+public class GeneratedCsvRecordMapperTest {
+
+    /**
+     * Tests that a mapper is generated for annotated classes only.
+     */
+    @Test
+    public void generated() {
+        assertThat(GeneratedCsvRecordMapper.generated(TypedOutput.class), is(true));
+        assertThat(GeneratedCsvRecordMapper.generated(ImmutableOutput.class), is(true));
+        assertThat(GeneratedCsvRecordMapper.generated(ExampleOutput.class), is(false));
+    }
+
+    /**
+     * Tests that values are converted and set like the reflective mapper
+     * does, with columns matched ignoring case and spaces.
+     */
+    @Test
+    public void mapTypedValues() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("Count", "-42");
+        values.put("to tal", "9223372036854775807");
+        values.put("ratio", "0.25");
+        values.put("active", "TRUE");
+        values.put("amount", "12.50");
+        values.put("date", "18.10.2026");
+        values.put("unit", "seconds");
+        final TypedOutput output = new GeneratedCsvRecordMapper<>(
+                TypedOutput.class,
+                new CsvConverters().withFormat(LocalDate.class, DateTimeFormatter.ofPattern("dd.MM.yyyy"))
+        ).map(new SimpleCsvRecord<>(values));
+        assertThat(output.getCount(), is(-42));
+        assertThat(output.getTotal(), is(Long.MAX_VALUE));
+        assertThat(output.getRatio(), is(0.25));
+        assertThat(output.isActive(), is(true));
+        assertThat(output.getAmount(), is(new BigDecimal("12.50")));
+        assertThat(output.getDate(), is(LocalDate.of(2026, 10, 18)));
+        assertThat(output.getUnit(), is(TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that registered converters replace the built in ones and that
+     * empty values leave primitives untouched.
+     */
+    @Test
+    public void mapRegisteredConverter() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("count", "0x1F");
+        values.put("total", "");
+        final TypedOutput output = new GeneratedCsvRecordMapper<>(
+                TypedOutput.class,
+                new CsvConverters().with(int.class, value -> Integer.decode(value.toString()))
+        ).map(new SimpleCsvRecord<>(values));
+        assertThat(output.getCount(), is(31));
+        assertThat(output.getTotal(), is(0L));
+    }
+
+    /**
+     * Tests that immutable classes are created through their constructor
+     * and that parameters without a column get default values.
+     */
+    @Test
+    public void mapConstructor() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("NAME", "foo");
+        values.put("count", "7");
+        final ImmutableOutput output = new GeneratedCsvRecordMapper<>(ImmutableOutput.class)
+                .map(new SimpleCsvRecord<>(values));
+        assertThat(output.getName(), is("foo"));
+        assertThat(output.getCount(), is(7));
+        assertThat(output.getAmount(), is(nullValue()));
+    }
+
+    /**
+     * Tests that {@link CsvException} is thrown for a column without setter
+     * or constructor parameter.
+     */
+    @Test
+    public void mapUnknownColumn() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("z", "value");
+        try {
+            new GeneratedCsvRecordMapper<>(ImmutableOutput.class).map(new SimpleCsvRecord<>(values));
+            fail("Expected a CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("csv column z"));
+        }
+    }
+
+    /**
+     * Tests that conversion failures name the column.
+     */
+    @Test
+    public void mapInvalidValue() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("ratio", "abc");
+        try {
+            new GeneratedCsvRecordMapper<>(TypedOutput.class).map(new SimpleCsvRecord<>(values));
+            fail("Expected a CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("abc"));
+        }
+    }
+
+    /**
+     * Tests that classes without a generated mapper are mapped reflectively.
+     */
+    @Test
+    public void mapFallback() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("x", "foo");
+        values.put("y", "bar");
+        final ExampleOutput output = new GeneratedCsvRecordMapper<>(ExampleOutput.class)
+                .map(new SimpleCsvRecord<>(values));
+        assertThat(output.getX(), is("foo"));
+        assertThat(output.getY(), is("bar"));
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link HeadedFileCsv}.
+ */
+public class HeadedFileCsvTest {
+
+    /**
+     * Tests the happy flow of the {@link HeadedFileCsv}.
+     */
+    @Test
+    public void testParse() {
+        final HeadedFileCsv<ExampleOutput> parser = new HeadedFileCsv<>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        );
+        final List<ExampleOutput> mappedLines = parser.map(
+                new ReflectiveCsvRecordMapper<>(ExampleOutput.class)
+        );
+        assertThat(mappedLines, hasSize(2));
+        final ExampleOutput fooBar = mappedLines.get(0);
+        assertThat(fooBar.getX(), is("foo"));
+        assertThat(fooBar.getY(), is("bar"));
+        final ExampleOutput bazBuf = mappedLines.get(1);
+        assertThat(bazBuf.getX(), is("baz"));
+        assertThat(bazBuf.getY(), is("buf"));
+    }
+
+    /**
+     * Tests that records are looked up by column name.
+     */
+    @Test
+    public void testRecordByName() {
+        final List<String> values = new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        ).map(record -> record.get("y") + record.toMap());
+        assertThat(values, contains("bar{x=foo, y=bar}", "buf{x=baz, y=buf}"));
+    }
+
+    /**
+     * Tests that flyweight records are reused and can be copied.
+     */
+    @Test
+    public void testFlyweightRecords() {
+        final HeadedFileCsv<CsvRecord<String>> parser = new HeadedFileCsv<CsvRecord<String>>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        ).withFlyweightRecords();
+        final List<CsvRecord<String>> reused = parser.map(record -> record);
+        assertThat(reused, hasSize(2));
+        assertThat(reused.get(0), is(sameInstance(reused.get(1))));
+        final List<CsvRecord<String>> copies = parser.map(CsvRecord::copy);
+        assertThat(copies.get(0).get("x"), is("foo"));
+        assertThat(copies.get(1).chars("y").toString(), is("buf"));
+        final List<ExampleOutput> mapped = new HeadedFileCsv<ExampleOutput>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        ).withFlyweightRecords().map(new ReflectiveCsvRecordMapper<>(ExampleOutput.class));
+        assertThat(mapped.get(1).getX(), is("baz"));
+    }
+
+    /**
+     * Tests that only the columns with setters are parsed and mapped.
+     */
+    @Test
+    public void testColumnsOfClass() {
+        final HeadedFileCsv<ExampleOutput> parser = new HeadedFileCsv<ExampleOutput>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).withColumnsOf(ExampleOutput.class);
+        final List<ExampleOutput> mappedLines = parser.map(
+                new ReflectiveCsvRecordMapper<>(ExampleOutput.class)
+        );
+        assertThat(mappedLines, hasSize(2));
+        assertThat(mappedLines.get(0).getX(), is("foo"));
+        assertThat(mappedLines.get(0).getY(), is("bar"));
+        assertThat(mappedLines.get(1).getX(), is("baz"));
+        assertThat(mappedLines.get(1).getY(), is("buf"));
+    }
+
+    /**
+     * Tests that columns left out of the projection are not present.
+     */
+    @Test
+    public void testColumnsByName() {
+        final List<String> values = new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).withColumns("y", "id").withFlyweightRecords().map(record -> record.toMap().toString());
+        assertThat(values, contains("{id=1, y=bar}", "{id=2, y=buf}"));
+    }
+
+    /**
+     * Tests that {@link CsvException} is thrown for a projected out column.
+     */
+    @Test(expected = CsvException.class)
+    public void testProjectedOutColumn() {
+        new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).withColumns("y").map(record -> record.get("x"));
+    }
+
+    /**
+     * Tests that {@link CsvException} is thrown for an unknown column.
+     */
+    @Test(expected = CsvException.class)
+    public void testUnknownColumn() {
+        new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedTwoRows.csv"),
+                ","
+        ).map(record -> record.get("z"));
+    }
+
+    /**
+     * Tests that records are filtered on a column that is projected out.
+     */
+    @Test
+    public void testFilter() {
+        final List<String> values = new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).withColumns("x")
+                .filter("y", value -> value.toString().startsWith("b"))
+                .filter("comment", value -> value.length() == 0)
+                .map(record -> record.get("x"));
+        assertThat(values, contains("baz"));
+    }
+
+    /**
+     * Tests that filtering on a column absent from the header fails.
+     */
+    @Test(expected = CsvException.class)
+    public void testFilterUnknownColumn() {
+        new HeadedFileCsv<String>(
+                Paths.get("src/test/resources/HeadedCommaDelimitedWide.csv"),
+                ","
+        ).filter("z", value -> true).map(record -> record.get("x"));
+    }
+
+}
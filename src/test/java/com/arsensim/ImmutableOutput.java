@@ -0,0 +1,62 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.math.BigDecimal;
+
+/**
+ * This class is an example of an immutable output, created through its
+ * constructor, to be used in some tests.
+ */
+@CsvMapped
+public final class ImmutableOutput {
+    private final String name;
+    private final int count;
+    private final BigDecimal amount;
+
+    /**
+     * Primary constructor.
+     *
+     * @param name   The name.
+     * @param count  The count.
+     * @param amount The amount.
+     */
+    public ImmutableOutput(final String name, final int count, final BigDecimal amount) {
+        this.name = name;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    BigDecimal getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link MappingPipeline}.
+ */
+public class MappingPipelineTest {
+
+    private static final int ROWS = 10_000;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that ordered pipelines keep the order of the file.
+     */
+    @Test
+    public void testOrdered() throws IOException {
+        final List<String> records = new FileCsv<String>(this.file(), ",")
+                .withFlyweightRecords()
+                .withMappingPipeline(new MappingPipeline(4).withBatch(7).withCapacity(2))
+                .map(record -> record.get(0) + '|' + record.get(1));
+        assertThat(
+                records,
+                is(IntStream.range(0, ROWS).mapToObj(i -> i + "|value-" + i).collect(Collectors.toList()))
+        );
+    }
+
+    /**
+     * Tests that unordered pipelines return every record once.
+     */
+    @Test
+    public void testUnordered() throws IOException {
+        final List<String> records = new FileCsv<String>(this.file(), ",")
+                .withMappingPipeline(new MappingPipeline(3).unordered().withBatch(100))
+                .map(record -> record.get(0));
+        assertThat(records, hasSize(ROWS));
+        assertThat(records.stream().distinct().count(), is((long) ROWS));
+    }
+
+    /**
+     * Tests that the timings are reported once the stream is closed, even
+     * when it was not read to the end.
+     */
+    @Test
+    public void testTimings() throws IOException {
+        final AtomicReference<MappingTimings> timings = new AtomicReference<>();
+        try (final Stream<String> records = new FileCsv<String>(this.file(), ",")
+                .withMappingPipeline(new MappingPipeline(2).withBatch(10).withTimings(timings::set))
+                .stream(record -> record.get(0))) {
+            assertThat(records.limit(5).collect(Collectors.toList()), contains("0", "1", "2", "3", "4"));
+        }
+        assertThat(timings.get(), notNullValue());
+        assertThat(timings.get().records(), greaterThanOrEqualTo(10L));
+    }
+
+    /**
+     * Tests that an exception thrown by the mapper reaches the consumer.
+     */
+    @Test(expected = CsvException.class)
+    public void testMapperException() throws IOException {
+        new FileCsv<String>(this.file(), ",")
+                .withMappingPipeline(new MappingPipeline(2))
+                .map(record -> {
+                    if (record.get(0).equals("5000")) {
+                        throw new CsvException("Invalid record");
+                    }
+                    return record.get(0);
+                });
+    }
+
+    private Path file() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(",value-").append(i).append('\n');
+        }
+        return this.files.write("records.csv", content.toString());
+    }
+
+}
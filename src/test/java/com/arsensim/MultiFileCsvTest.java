@@ -0,0 +1,176 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link MultiFileCsv}.
+ */
+public class MultiFileCsvTest {
+
+    private static final int FILES = 20;
+
+    private static final int ROWS = 500;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that the records of all matching files are merged in the order
+     * of the files.
+     */
+    @Test
+    public void testOrdered() throws IOException {
+        final Path directory = this.directory();
+        Files.write(directory.resolve("ignored.txt"), "x,y\n".getBytes());
+        final List<String> records = MultiFileCsv.<String>positional(directory, "*.csv", new CsvDialect(","))
+                .withThreads(4)
+                .map(record -> record.get(0) + '-' + record.get(1));
+        assertThat(records, hasSize(FILES * ROWS));
+        for (int i = 0; i < FILES * ROWS; i++) {
+            assertThat(records.get(i), is(String.format("%d-%d", i / ROWS, i % ROWS)));
+        }
+    }
+
+    /**
+     * Tests that unordered files still give every record once.
+     */
+    @Test
+    public void testUnordered() throws IOException {
+        final List<String> records = MultiFileCsv.<String>positional(this.directory(), "*.csv", new CsvDialect(","))
+                .unordered()
+                .map(record -> record.get(0) + '-' + record.get(1));
+        assertThat(records, hasSize(FILES * ROWS));
+        assertThat(records.stream().distinct().count(), is((long) FILES * ROWS));
+    }
+
+    /**
+     * Tests that the records of each file are kept apart.
+     */
+    @Test
+    public void testMapEach() throws IOException {
+        final Path directory = this.files.newFolder().toPath();
+        Files.write(directory.resolve("a.csv"), "name,count\nx,1\ny,2\n".getBytes());
+        Files.write(directory.resolve("b.csv"), "count,name\n3,z\n".getBytes());
+        final Map<Path, List<String>> records = MultiFileCsv.<String>headed(directory, "*.csv", new CsvDialect(","))
+                .mapEach(record -> record.get("name") + record.get("count"));
+        assertThat(records.keySet(), contains(directory.resolve("a.csv"), directory.resolve("b.csv")));
+        assertThat(records.get(directory.resolve("a.csv")), contains("x1", "y2"));
+        assertThat(records.get(directory.resolve("b.csv")), contains("z3"));
+    }
+
+    /**
+     * Tests that a budget smaller than any file parses the files one at a
+     * time on the given threads.
+     */
+    @Test
+    public void testBudget() throws IOException {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final List<Path> files = MultiFileCsv.files(this.directory(), "*.csv");
+        try (final Stream<String> records = new MultiFileCsv<Integer, String>(
+                files, file -> new FileCsv<>(file, ",")
+        ).withBudget(1L).withThreadFactory(task -> {
+            final Thread thread = new Thread(task, "budgeted");
+            thread.setDaemon(true);
+            return thread;
+        }).stream(record -> {
+            threads.add(Thread.currentThread().getName());
+            return record.get(0);
+        })) {
+            assertThat(records.count(), is((long) FILES * ROWS));
+        }
+        assertThat(threads, contains("budgeted"));
+    }
+
+    /**
+     * Tests that the records of a file become unreachable once the consumer
+     * has moved on to the next files, so that ordered reads stay within
+     * their budget.
+     */
+    @Test
+    public void testConsumedReleased() throws IOException {
+        final List<WeakReference<String>> first = new ArrayList<>();
+        final boolean[] released = new boolean[1];
+        MultiFileCsv.<String>positional(this.directory(), "*.csv", new CsvDialect(","))
+                .withBudget(1L)
+                .forEach(record -> record.get(0) + '-' + record.get(1), record -> {
+                    if (first.isEmpty()) {
+                        first.add(new WeakReference<>(record));
+                    } else if (record.equals(String.format("%d-0", FILES - 1))) {
+                        for (int attempt = 0; attempt < 20 && first.get(0).get() != null; attempt++) {
+                            System.gc();
+                        }
+                        released[0] = first.get(0).get() == null;
+                    }
+                });
+        assertThat(released[0], is(true));
+    }
+
+    /**
+     * Tests that a file that cannot be read fails the whole read.
+     */
+    @Test
+    public void testMissingFile() throws IOException {
+        final Path missing = this.files.resolve("missing.csv");
+        try {
+            new MultiFileCsv<Integer, String>(
+                    Arrays.asList(this.directory().resolve("file-00.csv"), missing),
+                    file -> new FileCsv<>(file, ",")
+            ).map(record -> record.get(0));
+            fail("A missing file must fail the read");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("missing.csv"));
+        }
+    }
+
+    private Path directory() throws IOException {
+        final Path directory = this.files.newFolder().toPath();
+        for (int file = 0; file < FILES; file++) {
+            final StringBuilder content = new StringBuilder();
+            for (int row = 0; row < ROWS; row++) {
+                content.append(file).append(',').append(row).append('\n');
+            }
+            Files.write(directory.resolve(String.format("file-%02d.csv", file)), content.toString().getBytes());
+        }
+        return directory;
+    }
+
+}
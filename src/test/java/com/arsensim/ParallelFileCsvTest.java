@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link ParallelFileCsv}.
+ */
+public class ParallelFileCsvTest {
+
+    private static final int ROWS = 100_000;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that records split across several chunks, including quoted
+     * fields with line breaks, come back complete and in order.
+     */
+    @Test
+    public void testOrdered() throws IOException {
+        final Path file = this.file();
+        final List<String> records = new ParallelFileCsv<String>(
+                file, new CsvDialect(","), 4, true, 0
+        ).map(record -> record.get(0) + '|' + record.get(1) + '|' + record.get(2));
+        assertThat(records, hasSize(ROWS));
+        for (int i = 0; i < ROWS; i++) {
+            assertThat(records.get(i), is(this.expected(i)));
+        }
+    }
+
+    /**
+     * Tests that unordered parsing returns every record once.
+     */
+    @Test
+    public void testUnordered() throws IOException {
+        final Path file = this.file();
+        final List<String> records = new ParallelFileCsv<String>(
+                file, new CsvDialect(","), 4, false, 0
+        ).map(record -> record.get(0));
+        assertThat(records, hasSize(ROWS));
+        assertThat(
+                records.stream().mapToInt(Integer::parseInt).distinct().count(),
+                is((long) ROWS)
+        );
+    }
+
+    /**
+     * Tests that small files go through the sequential path.
+     */
+    @Test
+    public void testSmallFile() throws IOException {
+        final Path file = this.files.write("small.csv", "a,b\nc,d\n");
+        final List<String> records = new ParallelFileCsv<String>(file, ",")
+                .map(record -> record.get(1));
+        assertThat(records, contains("b", "d"));
+    }
+
+    /**
+     * Tests that an empty file parsed in parallel has no records.
+     */
+    @Test
+    public void testEmptyFile() throws IOException {
+        final Path file = this.files.newFile("empty.csv").toPath();
+        assertThat(
+                new ParallelFileCsv<String>(file, new CsvDialect(","), 4, true, 0).map(record -> record.get(0)),
+                is(empty())
+        );
+    }
+
+    private Path file() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(",\"quoted, \"\"value\"\"\nwith a line break ").append(i)
+                    .append("\",padding-").append(i).append('\n');
+        }
+        return this.files.write("large.csv", content.toString());
+    }
+
+    private String expected(final int row) {
+        return row + "|quoted, \"value\"\nwith a line break " + row + "|padding-" + row;
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link ReadAheadInputStream}.
+ */
+public class ReadAheadInputStreamTest {
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that the input comes back whole through small recycled buffers.
+     */
+    @Test
+    public void testRead() throws IOException {
+        final byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream input = new ReadAheadInputStream(
+                new ByteArrayInputStream(content), new ReadAhead(1000, 2)
+        )) {
+            final byte[] buffer = new byte[333];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            assertThat(input.read(), is(-1));
+        }
+        assertThat(out.toByteArray(), is(content));
+    }
+
+    /**
+     * Tests that a failure of the reading thread reaches the reader.
+     */
+    @Test(expected = IOException.class)
+    public void testFailure() throws IOException {
+        try (final InputStream input = new ReadAheadInputStream(
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Disk failure");
+                    }
+                },
+                new ReadAhead()
+        )) {
+            input.read();
+        }
+    }
+
+    /**
+     * Tests that a csv read ahead is parsed whole and reports its metrics.
+     */
+    @Test
+    public void testFileCsv() throws IOException {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(",\"value\n").append(i).append("\"\n");
+        }
+        final Path file = this.files.write("records.csv", csv.toString());
+        final AtomicReference<ReadAheadMetrics> metrics = new AtomicReference<>();
+        final List<String> values = new FileCsv<String>(file, ",")
+                .withReadAhead(new ReadAhead(64, 3).withMetrics(metrics::set))
+                .map(record -> record.get(1));
+        assertThat(values, hasSize(1000));
+        assertThat(values.get(999), is("value\n999"));
+        assertThat(metrics.get().bytes(), is(Files.size(file)));
+        assertThat(metrics.get().buffers(), greaterThanOrEqualTo(Files.size(file) / 64));
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link RecordCache} and the cached reads of
+ * {@link FileCsv} and {@link HeadedFileCsv}.
+ */
+public class RecordCacheTest {
+
+    private static final String CONTENT = "name,city,count\n"
+            + "\"Smith, John\",\"Line\nbreak\",1\n"
+            + "Jos\u00e9,,2\n"
+            + "\"say \"\"hi\"\"\",Lyon,3\n";
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that the first read writes the cache and that the next one reads
+     * the records from it, with their lines, rather than from the file.
+     */
+    @Test
+    public void testCached() throws IOException {
+        final Path file = this.files.write("cached.csv", CONTENT);
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withRecordCache();
+        final List<String> first = csv.map(this::value);
+        assertThat(Files.exists(RecordCache.sidecar(file)), is(true));
+        final FileTime modified = Files.getLastModifiedTime(file);
+        Files.write(file, CONTENT.replace('L', 'X').getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, modified);
+        assertThat(csv.map(this::value), is(first));
+        assertThat(
+                first,
+                contains("Smith, John|Line\nbreak|1", "Jos\u00e9||2", "say \"hi\"|Lyon|3")
+        );
+        final List<CsvBadRow> bad = new ArrayList<>();
+        csv.withErrorPolicy(CsvErrorPolicy.collect(10L, bad)).map(record -> {
+            if (!"2".equals(record.get("count"))) {
+                throw new CsvException("Not two");
+            }
+            return record.get("name");
+        });
+        assertThat(bad, hasSize(2));
+        assertThat(bad.get(0).line(), is(2L));
+        assertThat(bad.get(1).line(), is(5L));
+    }
+
+    /**
+     * Tests that a changed file is read again and its cache rewritten.
+     */
+    @Test
+    public void testStale() throws IOException {
+        final Path file = this.files.write("cached.csv", CONTENT);
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withRecordCache();
+        csv.map(this::value);
+        Files.write(file, "name,city,count\nDoe,Paris,4\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(csv.map(this::value), contains("Doe|Paris|4"));
+        Files.write(file, "name,city,count\nDoe,Paris,5\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0L));
+        assertThat(csv.map(this::value), contains("Doe|Paris|5"));
+        assertThat(
+                new HeadedFileCsv<String>(file, new CsvDialect(";")).withRecordCache()
+                        .map(record -> record.get("name,city,count")),
+                contains("Doe,Paris,5")
+        );
+    }
+
+    /**
+     * Tests that a read stopped before the end of the file leaves no cache.
+     */
+    @Test
+    public void testPartialRead() throws IOException {
+        final Path file = this.files.write("cached.csv", CONTENT);
+        final FileCsv<String> csv = new FileCsv<String>(file, ",").withRecordCache();
+        assertThat(csv.withRows(0L, 2L).map(record -> record.get(0)), contains("name", "Smith, John"));
+        assertThat(Files.exists(RecordCache.sidecar(file)), is(false));
+        assertThat(this.files.getRoot().list(), arrayWithSize(1));
+    }
+
+    /**
+     * Tests that columns, filters, row ranges and flyweight records apply
+     * to the records read from the cache of a compressed file.
+     */
+    @Test
+    public void testOptions() throws IOException {
+        final Path file = this.files.newFile("cached.csv.gz").toPath();
+        try (final OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            output.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withRecordCache();
+        for (int run = 0; run < 2; run++) {
+            assertThat(
+                    csv.withColumns("count", "name")
+                            .withFlyweightRecords()
+                            .filter("city", city -> city.length() == 0)
+                            .map(record -> record.get("name") + record.get("count")),
+                    contains("Jos\u00e92")
+            );
+        }
+        assertThat(Files.exists(RecordCache.sidecar(file)), is(true));
+        assertThat(csv.withRows(1L, 5L).map(record -> record.get("count")), contains("2", "3"));
+    }
+
+    private String value(final CsvRecord<String> record) {
+        return record.get("name") + '|' + record.get("city") + '|' + record.get("count");
+    }
+
+}
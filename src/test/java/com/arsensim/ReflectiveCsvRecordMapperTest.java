@@ -25,17 +25,120 @@ package com.arsensim;
 
 import org.junit.Test;
 
-import static org.junit.Assert.assertTrue;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
 
 /**
  * This class contains tests for {@link ReflectiveCsvRecordMapper}.
  */
 public class ReflectiveCsvRecordMapperTest {
 
+    /**
+     * Tests that columns are mapped to setters ignoring case and spaces.
+     */
     @Test
     public void map() {
-        // todo
-        assertTrue(true);
+        final ReflectiveCsvRecordMapper<ExampleOutput> mapper =
+                new ReflectiveCsvRecordMapper<>(ExampleOutput.class);
+        final ExampleOutput first = mapper.map(this.record("foo", "bar"));
+        assertThat(first.getX(), is("foo"));
+        assertThat(first.getY(), is("bar"));
+        final ExampleOutput second = mapper.map(this.record("baz", "buf"));
+        assertThat(second.getX(), is("baz"));
+        assertThat(second.getY(), is("buf"));
+    }
+
+    /**
+     * Tests that records with other columns are bound again.
+     */
+    @Test
+    public void mapChangingColumns() {
+        final ReflectiveCsvRecordMapper<ExampleOutput> mapper =
+                new ReflectiveCsvRecordMapper<>(ExampleOutput.class);
+        mapper.map(this.record("foo", "bar"));
+        final Map<String, String> values = new HashMap<>();
+        values.put("y", "only");
+        final ExampleOutput output = mapper.map(new SimpleCsvRecord<>(values));
+        assertThat(output.getX(), is(nullValue()));
+        assertThat(output.getY(), is("only"));
+    }
+
+    /**
+     * Tests that {@link CsvException} is thrown for a column without setter.
+     */
+    @Test(expected = CsvException.class)
+    public void mapUnknownColumn() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("z", "value");
+        new ReflectiveCsvRecordMapper<>(ExampleOutput.class)
+                .map(new SimpleCsvRecord<>(values));
+    }
+
+    /**
+     * Tests that values are converted to the parameter types of setters.
+     */
+    @Test
+    public void mapTypedValues() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("count", "-42");
+        values.put("total", "9223372036854775807");
+        values.put("ratio", "0.25");
+        values.put("active", "TRUE");
+        values.put("amount", "12.50");
+        values.put("date", "18.10.2026");
+        values.put("unit", "seconds");
+        final TypedOutput output = new ReflectiveCsvRecordMapper<>(
+                TypedOutput.class,
+                new CsvConverters().withFormat(LocalDate.class, DateTimeFormatter.ofPattern("dd.MM.yyyy"))
+        ).map(new SimpleCsvRecord<>(values));
+        assertThat(output.getCount(), is(-42));
+        assertThat(output.getTotal(), is(Long.MAX_VALUE));
+        assertThat(output.getRatio(), is(0.25));
+        assertThat(output.isActive(), is(true));
+        assertThat(output.getAmount(), is(new BigDecimal("12.50")));
+        assertThat(output.getDate(), is(LocalDate.of(2026, 10, 18)));
+        assertThat(output.getUnit(), is(TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that registered converters replace the built in ones and that
+     * empty values leave primitives untouched.
+     */
+    @Test
+    public void mapRegisteredConverter() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("count", "0x1F");
+        values.put("total", "");
+        final TypedOutput output = new ReflectiveCsvRecordMapper<>(
+                TypedOutput.class,
+                new CsvConverters().with(Integer.class, value -> Integer.decode(value.toString()))
+        ).map(new SimpleCsvRecord<>(values));
+        assertThat(output.getCount(), is(31));
+        assertThat(output.getTotal(), is(0L));
+    }
+
+    /**
+     * Tests that {@link CsvException} is thrown for an unparsable value.
+     */
+    @Test(expected = CsvException.class)
+    public void mapInvalidNumber() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("count", "2147483648");
+        new ReflectiveCsvRecordMapper<>(TypedOutput.class).map(new SimpleCsvRecord<>(values));
+    }
+
+    private CsvRecord<String> record(final String x, final String y) {
+        final Map<String, String> values = new HashMap<>();
+        values.put("X", x);
+        values.put(" y ", y);
+        return new SimpleCsvRecord<>(values);
     }
 
 }
@@ -0,0 +1,165 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link RowIndex} and the ranges of rows of
+ * {@link FileCsv} and {@link HeadedFileCsv}.
+ */
+public class RowIndexTest {
+
+    private static final int ROWS = 10_000;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that a range read through the index, which is built on demand,
+     * has the same rows as the full file, including quoted line breaks.
+     */
+    @Test
+    public void testRange() throws IOException {
+        final Path file = this.file("range.csv", "");
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withRowIndex(100);
+        final List<String> rows = csv.withRows(4_321, 4_500).map(this::value);
+        assertThat(Files.exists(RowIndex.sidecar(file)), is(true));
+        assertThat(rows, hasSize(179));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), is(this.expected(4_321 + i)));
+        }
+        assertThat(csv.withRows(ROWS - 1, ROWS + 10).map(this::value), contains(this.expected(ROWS - 1)));
+        assertThat(csv.withRows(ROWS + 1, ROWS + 10).map(this::value), is(empty()));
+    }
+
+    /**
+     * Tests that single rows are read with and without index.
+     */
+    @Test
+    public void testRow() throws IOException {
+        final Path file = this.file("row.csv", "");
+        final FileCsv<String> csv = new FileCsv<>(file, ",");
+        assertThat(csv.row(1, record -> record.get(0)), is("0"));
+        assertThat(csv.withRowIndex(64).row(7_777, record -> record.get(0)), is("7776"));
+        try {
+            csv.withRowIndex(64).row(ROWS + 1, record -> record.get(0));
+            fail("Expected CsvException");
+        } catch (final CsvException e) {
+            assertThat(e.getMessage(), containsString("not present"));
+        }
+    }
+
+    /**
+     * Tests that a file read to its end is indexed on the way, and that the
+     * index is rebuilt once the file changes.
+     */
+    @Test
+    public void testIndexedWhileParsed() throws IOException {
+        final Path file = this.file("parsed.csv", "");
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",").withRowIndex(10);
+        assertThat(csv.map(this::value), hasSize(ROWS));
+        final RowIndex index = RowIndex.load(file, new CsvDialect(","), 10);
+        assertThat(index, is(notNullValue()));
+        assertThat(index.records(), is(ROWS + 1L));
+        assertThat(RowIndex.load(file, new CsvDialect(";"), 10), is(nullValue()));
+        Files.write(file, "id,text,padding\nx,y,z\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(RowIndex.load(file, new CsvDialect(","), 10), is(nullValue()));
+        assertThat(csv.row(0, this::value), is("x|y|z"));
+    }
+
+    /**
+     * Tests that the index accounts for a byte order mark and that filters
+     * apply within the range.
+     */
+    @Test
+    public void testByteOrderMarkAndFilter() throws IOException {
+        final Path file = this.file("bom.csv", "\uFEFF");
+        final HeadedFileCsv<String> csv = new HeadedFileCsv<String>(file, ",")
+                .withRowIndex(50)
+                .withRows(1_000, 1_100);
+        assertThat(csv.map(this::value).get(0), is(this.expected(1_000)));
+        assertThat(
+                csv.filter("id", id -> id.charAt(id.length() - 1) == '7').map(this::value),
+                contains(this.expected(1_007), this.expected(1_017), this.expected(1_027),
+                        this.expected(1_037), this.expected(1_047), this.expected(1_057),
+                        this.expected(1_067), this.expected(1_077), this.expected(1_087),
+                        this.expected(1_097))
+        );
+    }
+
+    /**
+     * Tests that ranges of a compressed file are read without index.
+     */
+    @Test
+    public void testCompressed() throws IOException {
+        final Path file = this.files.newFile("compressed.csv.gz").toPath();
+        try (final GZIPOutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            output.write("a\nb\nc\nd\n".getBytes(StandardCharsets.UTF_8));
+        }
+        final List<String> rows = new FileCsv<String>(file, ",")
+                .withRowIndex(2)
+                .withRows(1, 3)
+                .map(record -> record.get(0));
+        assertThat(rows, contains("b", "c"));
+        assertThat(Files.exists(RowIndex.sidecar(file)), is(false));
+    }
+
+    /**
+     * Tests that invalid ranges are rejected.
+     */
+    @Test(expected = CsvException.class)
+    public void testInvalidRange() {
+        new FileCsv<String>(this.files.resolve("none.csv"), ",").withRows(5, 2);
+    }
+
+    private String value(final CsvRecord<String> record) {
+        return record.get("id") + '|' + record.get("text") + '|' + record.get("padding");
+    }
+
+    private Path file(final String name, final String prefix) throws IOException {
+        final StringBuilder content = new StringBuilder(prefix).append("id,text,padding\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(",\"quoted, \"\"value\"\"\nwith a line break ").append(i)
+                    .append("\",padding-").append(i).append("\r\n");
+        }
+        return this.files.write(name, content.toString());
+    }
+
+    private String expected(final int row) {
+        return row + "|quoted, \"value\"\nwith a line break " + row + "|padding-" + row;
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is an example of an output with typed properties to be used in
+ * some tests.
+ */
+@CsvMapped
+public class TypedOutput {
+    private int count;
+    private long total;
+    private double ratio;
+    private boolean active;
+    private BigDecimal amount;
+    private LocalDate date;
+    private TimeUnit unit;
+
+    /**
+     * Default constructor.
+     */
+    public TypedOutput() {
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    void setCount(int count) {
+        this.count = count;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    void setTotal(long total) {
+        this.total = total;
+    }
+
+    double getRatio() {
+        return ratio;
+    }
+
+    void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    BigDecimal getAmount() {
+        return amount;
+    }
+
+    void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    TimeUnit getUnit() {
+        return unit;
+    }
+
+    void setUnit(TimeUnit unit) {
+        this.unit = unit;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2018 Arsen Simonean
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.arsensim;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * This class contains tests for {@link ValueCache} and the interning of
+ * values by {@link FileCsv} and {@link HeadedFileCsv}.
+ */
+public class ValueCacheTest {
+
+    private static final int ROWS = 10_000;
+
+    @Rule
+    public final CsvFiles files = new CsvFiles();
+
+    /**
+     * Tests that repeated values of the given columns are one instance,
+     * both when tokenized as bytes and as chars.
+     */
+    @Test
+    public void testColumns() throws IOException {
+        for (final Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.UTF_16}) {
+            final List<CsvRecord<String>> records = new HeadedFileCsv<CsvRecord<String>>(
+                    this.file(charset), new CsvDialect(","), charset
+            ).withInterning("country").map(record -> record);
+            assertThat(records, hasSize(ROWS));
+            assertThat(records.get(3).get("country"), is("C\u00f4te d'Ivoire"));
+            assertThat(records.get(3).get("country"), sameInstance(records.get(ROWS - 1).get("country")));
+            assertThat(records.get(0).get("id"), not(sameInstance(records.get(1).get("id"))));
+            assertThat(records.get(4).get("id"), is("4"));
+        }
+    }
+
+    /**
+     * Tests that automatic interning shares the values of low cardinality
+     * columns only.
+     */
+    @Test
+    public void testAutomatic() throws IOException {
+        final List<CsvRecord<Integer>> records = new FileCsv<CsvRecord<Integer>>(
+                this.file(StandardCharsets.UTF_8), ","
+        ).withInterning().map(record -> record);
+        assertThat(records.get(ROWS - 5).get(1), sameInstance(records.get(ROWS - 1).get(1)));
+        assertThat(records.get(ROWS - 1).get(0), is(Integer.toString(ROWS - 2)));
+    }
+
+    /**
+     * Tests that an adaptive cache turns itself off when its values hardly
+     * repeat, while a forced cache keeps evicting and sharing.
+     */
+    @Test
+    public void testAdaptive() {
+        final ValueCache adaptive = new ValueCache(true);
+        final ValueCache forced = new ValueCache(false);
+        for (int i = 0; i < 10_000; i++) {
+            final char[] value = Integer.toString(i).toCharArray();
+            adaptive.get(value, 0, value.length);
+            forced.get(value, 0, value.length);
+        }
+        final char[] value = "same".toCharArray();
+        assertThat(adaptive.get(value, 0, 4), not(sameInstance(adaptive.get(value, 0, 4))));
+        assertThat(forced.get(value, 0, 4), sameInstance(forced.get(value, 0, 4)));
+        assertThat(forced.get(value, 0, 0), is(""));
+    }
+
+    /**
+     * Tests that interning an unknown column fails.
+     */
+    @Test(expected = CsvException.class)
+    public void testUnknownColumn() throws IOException {
+        new HeadedFileCsv<String>(this.file(StandardCharsets.UTF_8), ",")
+                .withInterning("currency")
+                .map(record -> record.get("id"));
+    }
+
+    private Path file(final Charset charset) throws IOException {
+        final String[] countries = {"France", "Japan", "Brazil", "C\u00f4te d'Ivoire"};
+        final StringBuilder content = new StringBuilder("id,country\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(',').append(countries[i % countries.length]).append('\n');
+        }
+        return this.files.write(charset.name() + ".csv", content.toString().getBytes(charset));
+    }
+
+}